@@ -106,6 +106,9 @@ public class DatabaseConnectController {
     try {
       JSONObject jsonObject = getRequestBodyJson(request);
       Pair<ZonedDateTime, ZonedDateTime> timeRange = getTimeFromAndTo(jsonObject);
+      // the number of points the panel can draw, which Grafana derives from its width
+      int maxDataPoints = jsonObject.containsKey("maxDataPoints")
+          ? jsonObject.getIntValue("maxDataPoints") : 0;
       JSONArray array = (JSONArray) jsonObject.get("targets"); // []
       JSONArray result = new JSONArray();
       for (int i = 0; i < array.size(); i++) {
@@ -120,7 +123,7 @@ public class DatabaseConnectController {
         if (type.equals("table")) {
           setJsonTable(obj, target, timeRange);
         } else if (type.equals("timeserie")) {
-          setJsonTimeseries(obj, target, timeRange);
+          setJsonTimeseries(obj, target, timeRange, maxDataPoints);
         }
         result.add(i, obj);
       }
@@ -144,7 +147,8 @@ public class DatabaseConnectController {
   private void setJsonTable(JSONObject obj, String target,
       Pair<ZonedDateTime, ZonedDateTime> timeRange)
       throws JSONException {
-    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange);
+    // a table shows the raw points
+    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange, 0);
     JSONArray columns = new JSONArray();
     JSONObject column = new JSONObject();
     column.put("text", "Time");
@@ -166,9 +170,10 @@ public class DatabaseConnectController {
   }
 
   private void setJsonTimeseries(JSONObject obj, String target,
-      Pair<ZonedDateTime, ZonedDateTime> timeRange)
+      Pair<ZonedDateTime, ZonedDateTime> timeRange, int maxDataPoints)
       throws JSONException {
-    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange);
+    List<TimeValues> timeValues = databaseConnectService
+        .querySeries(target, timeRange, maxDataPoints);
     logger.info("query size: {}", timeValues.size());
     JSONArray dataPoints = new JSONArray();
     for (TimeValues tv : timeValues) {
@@ -28,7 +28,12 @@ import org.apache.iotdb.web.grafana.bean.TimeValues;
  */
 public interface BasicDao {
 
-  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange);
+  /**
+   * @param maxDataPoints the max number of points the panel needs, the series is downsampled to
+   * about this size if it is positive
+   */
+  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      int maxDataPoints);
 
   List<String> getMetaData();
 
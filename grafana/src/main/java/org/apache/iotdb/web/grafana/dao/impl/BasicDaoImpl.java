@@ -40,6 +40,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -57,6 +58,15 @@ public class BasicDaoImpl implements BasicDao {
 
   private static long TIMESTAMP_RADIX = 1L;
 
+  private static final String DOWNSAMPLING_NONE = "none";
+  private static final String DOWNSAMPLING_M4 = "m4";
+  private static final String DOWNSAMPLING_LTTB = "lttb";
+
+  /**
+   * how to reduce the points of a series to what a panel can show: "none", "m4" or "lttb".
+   */
+  private String downsampling = DOWNSAMPLING_M4;
+
   @Autowired
   public BasicDaoImpl(JdbcTemplate jdbcTemplate) {
     this.jdbcTemplate = jdbcTemplate;
@@ -75,6 +85,8 @@ public class BasicDaoImpl implements BasicDao {
           TIMESTAMP_RADIX = 1;
       }
       logger.info("Use timestamp precision {}", tsPrecision);
+      downsampling = properties.getProperty("downsampling", DOWNSAMPLING_M4).toLowerCase();
+      logger.info("Use downsampling {}", downsampling);
     } catch (IOException e) {
       logger.error("Can not find properties [timestamp_precision], use default value [ms]");
       TIMESTAMP_RADIX = 1;
@@ -101,22 +113,61 @@ public class BasicDaoImpl implements BasicDao {
   }
 
   @Override
-  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange) {
+  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      int maxDataPoints) {
     Long from = zonedCovertToLong(timeRange.left);
     Long to = zonedCovertToLong(timeRange.right);
-    String sql = "SELECT " + s.substring(s.lastIndexOf('.') + 1) + " FROM root."
-        + s.substring(0, s.lastIndexOf('.')) + " WHERE time > " + from * TIMESTAMP_RADIX
-        + " and time < " + to * TIMESTAMP_RADIX;
-    logger.info(sql);
+    String measurement = s.substring(s.lastIndexOf('.') + 1);
+    String device = "root." + s.substring(0, s.lastIndexOf('.'));
     List<TimeValues> rows = null;
     try {
-      rows = jdbcTemplate.query(sql, new TimeValuesRowMapper("root." + s));
+      if (maxDataPoints > 0 && !DOWNSAMPLING_NONE.equals(downsampling)) {
+        rows = queryDownsampledSeries(measurement, device, from, to, maxDataPoints);
+      } else {
+        String sql = "SELECT " + measurement + " FROM " + device + " WHERE time > "
+            + from * TIMESTAMP_RADIX + " and time < " + to * TIMESTAMP_RADIX;
+        logger.info(sql);
+        rows = jdbcTemplate.query(sql, new TimeValuesRowMapper("root." + s));
+      }
     } catch (Exception e) {
       logger.error(e.getMessage());
     }
     return rows;
   }
 
+  /**
+   * M4 downsampling: the time range is divided into one bucket per pixel, and the first, last, min
+   * and max values of each bucket are aggregated by IoTDB, so only up to four points per pixel are
+   * read from the server. With LTTB, LTTB then picks maxDataPoints points from the M4 points.
+   */
+  private List<TimeValues> queryDownsampledSeries(String measurement, String device, long from,
+      long to, int maxDataPoints) {
+    long bucketWidth = M4.getBucketWidth(from, to, maxDataPoints);
+    // the columns are read by index: Time, then the aggregations in this order
+    String sql = String.format("SELECT min_time(%1$s), max_time(%1$s), first_value(%1$s), "
+            + "last_value(%1$s), min_value(%1$s), max_value(%1$s) FROM %2$s "
+            + "GROUP BY ([%3$d, %4$d], %5$dms)", measurement, device, from * TIMESTAMP_RADIX,
+        to * TIMESTAMP_RADIX, bucketWidth);
+    logger.info(sql);
+    M4 m4 = new M4();
+    jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> {
+      String firstTime = resultSet.getString(2);
+      if (firstTime == null) {
+        // the bucket has no data
+        return;
+      }
+      m4.addBucket(Long.parseLong(firstTime) / TIMESTAMP_RADIX,
+          Long.parseLong(resultSet.getString(3)) / TIMESTAMP_RADIX,
+          TimeValuesRowMapper.parseValue(resultSet.getString(4)),
+          TimeValuesRowMapper.parseValue(resultSet.getString(5)),
+          TimeValuesRowMapper.parseValue(resultSet.getString(6)),
+          TimeValuesRowMapper.parseValue(resultSet.getString(7)));
+    });
+    List<TimeValues> rows = m4.getPoints();
+    return DOWNSAMPLING_LTTB.equals(downsampling)
+        ? LargestTriangleThreeBuckets.downsample(rows, maxDataPoints) : rows;
+  }
+
   private Long zonedCovertToLong(ZonedDateTime time) {
     return time.toInstant().toEpochMilli();
   }
@@ -137,21 +188,24 @@ public class BasicDaoImpl implements BasicDao {
       tv.setTime(resultSet.getLong("Time") / TIMESTAMP_RADIX);
       String valueString = resultSet.getString(columnName);
       if (valueString != null) {
-        if (TRUE_STR.equalsIgnoreCase(valueString)) {
-          tv.setValue(1);
-        } else if (FALSE_STR.equalsIgnoreCase(valueString)) {
-          tv.setValue(0);
-        } else {
-          try {
-            tv.setValue(Float.parseFloat(resultSet.getString(columnName)));
-          } catch (Exception e) {
-            logger.error("Can not parse the value {}", resultSet.getString(columnName));
-            tv.setValue(0);
-          }
-        }
+        tv.setValue(parseValue(valueString));
       }
       return tv;
     }
+
+    static float parseValue(String valueString) {
+      if (TRUE_STR.equalsIgnoreCase(valueString)) {
+        return 1;
+      } else if (FALSE_STR.equalsIgnoreCase(valueString)) {
+        return 0;
+      }
+      try {
+        return Float.parseFloat(valueString);
+      } catch (Exception e) {
+        logger.error("Can not parse the value {}", valueString);
+        return 0;
+      }
+    }
   }
 
 }
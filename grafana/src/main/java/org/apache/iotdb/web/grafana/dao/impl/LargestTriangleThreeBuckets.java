@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.web.grafana.dao.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.web.grafana.bean.TimeValues;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling. The first and the last point are kept, the other
+ * points are divided into threshold - 2 buckets, and from each bucket the point forming the largest
+ * triangle with the point kept from the previous bucket and the average point of the next bucket is
+ * kept.
+ */
+class LargestTriangleThreeBuckets {
+
+  private LargestTriangleThreeBuckets() {
+    // util class
+  }
+
+  /**
+   * @param points points in ascending time order
+   * @param threshold the max number of points returned
+   */
+  static List<TimeValues> downsample(List<TimeValues> points, int threshold) {
+    if (threshold < 3 || points.size() <= threshold) {
+      return points;
+    }
+    List<TimeValues> sampled = new ArrayList<>(threshold);
+    double bucketSize = (double) (points.size() - 2) / (threshold - 2);
+    int kept = 0;
+    sampled.add(points.get(0));
+    for (int i = 0; i < threshold - 2; i++) {
+      // the average point of the next bucket, or the last point for the last bucket
+      int nextStart = (int) ((i + 1) * bucketSize) + 1;
+      int nextEnd = Math.min((int) ((i + 2) * bucketSize) + 1, points.size());
+      double avgTime = 0;
+      double avgValue = 0;
+      for (int j = nextStart; j < nextEnd; j++) {
+        avgTime += points.get(j).getTime();
+        avgValue += points.get(j).getValue();
+      }
+      avgTime /= nextEnd - nextStart;
+      avgValue /= nextEnd - nextStart;
+
+      TimeValues a = points.get(kept);
+      int start = (int) (i * bucketSize) + 1;
+      int end = nextStart;
+      double maxArea = -1;
+      int maxIndex = start;
+      for (int j = start; j < end; j++) {
+        TimeValues b = points.get(j);
+        // twice the area of triangle (a, b, avg)
+        double area = Math.abs((a.getTime() - avgTime) * (b.getValue() - a.getValue())
+            - (a.getTime() - b.getTime()) * (avgValue - a.getValue()));
+        if (area > maxArea) {
+          maxArea = area;
+          maxIndex = j;
+        }
+      }
+      sampled.add(points.get(maxIndex));
+      kept = maxIndex;
+    }
+    sampled.add(points.get(points.size() - 1));
+    return sampled;
+  }
+}
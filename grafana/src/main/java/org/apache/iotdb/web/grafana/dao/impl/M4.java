@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.web.grafana.dao.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.web.grafana.bean.TimeValues;
+
+/**
+ * M4 downsampling. The time range is divided into buckets of (endTime - startTime) / bucketNum,
+ * one for each pixel column of a panel, and IoTDB computes the first, last, min and max values of
+ * each bucket with a GROUP BY query, so that only these are read and transferred. The line drawn
+ * through the points of the buckets covers the same pixels as the line drawn through all the
+ * points.
+ * <p>
+ * IoTDB returns the times of the first and the last point of a bucket but not those of the min and
+ * the max point. They lie between the first and the last point in the same pixel column, so they
+ * are placed in the middle of the two.
+ */
+class M4 {
+
+  private final List<TimeValues> points = new ArrayList<>();
+
+  /**
+   * @return the width of each of the bucketNum buckets dividing the time range, at least 1
+   */
+  static long getBucketWidth(long startTime, long endTime, int bucketNum) {
+    return Math.max(1, (endTime - startTime) / Math.max(1, bucketNum));
+  }
+
+  /**
+   * Add the points of a bucket with data. The buckets are added in ascending time order.
+   *
+   * @param firstTime the time of the first point
+   * @param lastTime the time of the last point
+   */
+  void addBucket(long firstTime, long lastTime, float first, float last, float min, float max) {
+    points.add(newPoint(firstTime, first));
+    if (lastTime <= firstTime) {
+      // the bucket has only one point
+      return;
+    }
+    // the min and the max point are only needed if they are not the first or the last point
+    long middleTime = firstTime + (lastTime - firstTime) / 2;
+    if (min < Math.min(first, last)) {
+      points.add(newPoint(middleTime, min));
+    }
+    if (max > Math.max(first, last)) {
+      points.add(newPoint(middleTime, max));
+    }
+    points.add(newPoint(lastTime, last));
+  }
+
+  /**
+   * @return the points of all buckets in ascending time order
+   */
+  List<TimeValues> getPoints() {
+    return points;
+  }
+
+  private static TimeValues newPoint(long time, float value) {
+    TimeValues point = new TimeValues();
+    point.setTime(time);
+    point.setValue(value);
+    return point;
+  }
+}
@@ -27,7 +27,8 @@ public interface DatabaseConnectService {
 
   int testConnection();
 
-  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange);
+  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      int maxDataPoints);
 
   List<String> getMetaData();
 
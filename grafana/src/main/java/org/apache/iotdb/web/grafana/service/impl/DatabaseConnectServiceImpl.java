@@ -39,8 +39,9 @@ public class DatabaseConnectServiceImpl implements DatabaseConnectService {
   }
 
   @Override
-  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange) {
-    return basicDao.querySeries(s, timeRange);
+  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      int maxDataPoints) {
+    return basicDao.querySeries(s, timeRange, maxDataPoints);
   }
 
   @Override
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.web.grafana.dao.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.web.grafana.bean.TimeValues;
+import org.junit.Test;
+
+public class LargestTriangleThreeBucketsTest {
+
+  private static List<TimeValues> points(float... values) {
+    List<TimeValues> points = new ArrayList<>();
+    for (int i = 0; i < values.length; i++) {
+      TimeValues tv = new TimeValues();
+      tv.setTime(i);
+      tv.setValue(values[i]);
+      points.add(tv);
+    }
+    return points;
+  }
+
+  @Test
+  public void testFewPoints() {
+    List<TimeValues> points = points(1, 2, 3);
+    assertSame(points, LargestTriangleThreeBuckets.downsample(points, 3));
+    assertSame(points, LargestTriangleThreeBuckets.downsample(points, 5));
+    // too few points to sample
+    List<TimeValues> morePoints = points(1, 2, 3, 4, 5);
+    assertSame(morePoints, LargestTriangleThreeBuckets.downsample(morePoints, 2));
+  }
+
+  @Test
+  public void testKeepPeaks() {
+    // 2 buckets of 4 points between the first and the last point, each with a peak
+    List<TimeValues> points = points(0, 0, 9, 0, 0, 0, 0, -9, 0, 0);
+    List<TimeValues> sampled = LargestTriangleThreeBuckets.downsample(points, 4);
+    assertEquals(4, sampled.size());
+    assertSame(points.get(0), sampled.get(0));
+    assertSame(points.get(2), sampled.get(1));
+    assertSame(points.get(7), sampled.get(2));
+    assertSame(points.get(9), sampled.get(3));
+  }
+
+  @Test
+  public void testAscendingTimes() {
+    float[] values = new float[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (float) Math.sin(i / 5.0);
+    }
+    List<TimeValues> sampled = LargestTriangleThreeBuckets.downsample(points(values), 10);
+    assertEquals(10, sampled.size());
+    for (int i = 1; i < sampled.size(); i++) {
+      assertTrue(sampled.get(i - 1).getTime() < sampled.get(i).getTime());
+    }
+  }
+}
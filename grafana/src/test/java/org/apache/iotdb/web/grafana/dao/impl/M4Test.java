@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.web.grafana.dao.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import org.apache.iotdb.web.grafana.bean.TimeValues;
+import org.junit.Test;
+
+public class M4Test {
+
+  private static void assertPoints(long[] times, float[] values, List<TimeValues> points) {
+    assertEquals(times.length, points.size());
+    for (int i = 0; i < times.length; i++) {
+      assertEquals(times[i], points.get(i).getTime());
+      assertEquals(values[i], points.get(i).getValue(), 0);
+    }
+  }
+
+  @Test
+  public void testBucketWidth() {
+    assertEquals(10, M4.getBucketWidth(0, 100, 10));
+    // the remainder goes to an extra bucket
+    assertEquals(33, M4.getBucketWidth(0, 100, 3));
+    // a bucket is at least 1 wide
+    assertEquals(1, M4.getBucketWidth(0, 5, 10));
+    assertEquals(100, M4.getBucketWidth(0, 100, 0));
+  }
+
+  @Test
+  public void testFirstLastMinMax() {
+    M4 m4 = new M4();
+    // the min and the max lie between the first and the last point
+    m4.addBucket(0, 9, 5, 4, 1, 9);
+    // the first point is the min and the last point is the max
+    m4.addBucket(10, 19, 0, 9, 0, 9);
+    // only the max lies between
+    m4.addBucket(20, 29, 2, 3, 2, 8);
+    assertPoints(new long[]{0, 4, 4, 9, 10, 19, 20, 24, 29},
+        new float[]{5, 1, 9, 4, 0, 9, 2, 8, 3}, m4.getPoints());
+  }
+
+  @Test
+  public void testSinglePointBucket() {
+    M4 m4 = new M4();
+    m4.addBucket(0, 0, 1, 1, 1, 1);
+    m4.addBucket(25, 30, 2, 3, 2, 3);
+    assertPoints(new long[]{0, 25, 30}, new float[]{1, 2, 3}, m4.getPoints());
+  }
+}
@@ -44,6 +44,17 @@ public class Config {
   static final String AUTH_PASSWORD = "password";
   static final String DEFALUT_PASSWORD = "password";
 
+  /**
+   * the compression type of the query results, e.g., SNAPPY. The results are not compressed if it is
+   * not set or the server does not support it.
+   */
+  static final String RPC_COMPRESSION = "rpc_compression";
+
+  /**
+   * whether to use framed transport, which is required by the non-blocking server.
+   */
+  static final String RPC_FRAMED_TRANSPORT = "rpc_framed_transport";
+
   static final int RETRY_NUM = 3;
   static final long RETRY_INTERVAL = 1000;
 
@@ -35,16 +35,20 @@ import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
 import java.time.ZoneId;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.RpcCompressionUtils;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.service.rpc.thrift.*;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,9 +63,13 @@ public class IoTDBConnection implements Connection {
   private IoTDBConnectionParams params;
   private boolean isClosed = true;
   private SQLWarning warningChain = null;
-  private TSocket transport;
+  private TTransport transport;
   private ZoneId zoneId;
   private boolean autoCommit;
+  /**
+   * the compression type of the query results accepted by the server, null if not compressed
+   */
+  private String compressionType;
 
   public IoTDBConnection() {
     // allowed to create an instance without parameter input.
@@ -394,6 +402,10 @@ public class IoTDBConnection implements Connection {
     return client;
   }
 
+  String getCompressionType() {
+    return compressionType;
+  }
+
   public long getSessionId() {
     return sessionId;
   }
@@ -404,6 +416,9 @@ public class IoTDBConnection implements Connection {
 
   private void openTransport() throws TTransportException {
     transport = new TSocket(params.getHost(), params.getPort(), Config.connectionTimeoutInMs);
+    if (params.isRpcFramedTransport()) {
+      transport = new TFramedTransport(transport);
+    }
     if (!transport.isOpen()) {
       transport.open();
     }
@@ -414,6 +429,10 @@ public class IoTDBConnection implements Connection {
 
     openReq.setUsername(params.getUsername());
     openReq.setPassword(params.getPassword());
+    if (params.getRpcCompression() != null) {
+      openReq.setConfiguration(Collections
+          .singletonMap(RpcCompressionUtils.COMPRESSION_KEY, params.getRpcCompression()));
+    }
 
     TSOpenSessionResp openResp = null;
     try {
@@ -428,6 +447,7 @@ public class IoTDBConnection implements Connection {
                 protocolVersion.getValue(), openResp.getServerProtocolVersion().getValue()));
       }
       setProtocol(openResp.getServerProtocolVersion());
+      compressionType = RpcCompressionUtils.getCompressionType(openResp.getConfiguration());
 
       if (zoneId != null) {
         setTimeZone(zoneId.toString());
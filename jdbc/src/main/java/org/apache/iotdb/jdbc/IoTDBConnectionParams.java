@@ -26,6 +26,8 @@ public class IoTDBConnectionParams {
   private String seriesName = Config.DEFAULT_SERIES_NAME;
   private String username = Config.DEFAULT_USER;
   private String password = Config.DEFALUT_PASSWORD;
+  private String rpcCompression = null;
+  private boolean rpcFramedTransport = false;
 
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
@@ -79,4 +81,20 @@ public class IoTDBConnectionParams {
     this.password = password;
   }
 
+  public String getRpcCompression() {
+    return rpcCompression;
+  }
+
+  public void setRpcCompression(String rpcCompression) {
+    this.rpcCompression = rpcCompression;
+  }
+
+  public boolean isRpcFramedTransport() {
+    return rpcFramedTransport;
+  }
+
+  public void setRpcFramedTransport(boolean rpcFramedTransport) {
+    this.rpcFramedTransport = rpcFramedTransport;
+  }
+
 }
@@ -20,6 +20,7 @@
 package org.apache.iotdb.jdbc;
 
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.RpcCompressionUtils;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
 import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
@@ -31,6 +32,7 @@ import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.thrift.TException;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -45,6 +47,8 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
   private boolean align = true;
 
   private TSQueryDataSet tsQueryDataSet = null;
+  // the compression type of the results negotiated by the connection, null if not compressed
+  private String compressionType;
   private byte[] time; // used to cache the current time value
   private byte[] currentBitmap; // used to cache the current bitmap for every column
   private static final int FLAG = 0x80; // used to do `and` operation with bitmap to judge whether the value is null
@@ -52,12 +56,24 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
 
   public IoTDBQueryResultSet(Statement statement, List<String> columnNameList,
       List<String> columnTypeList, boolean ignoreTimeStamp, TSIService.Iface client,
-      String sql, long queryId, long sessionId, TSQueryDataSet dataset)
-      throws SQLException {
+      String sql, long queryId, long sessionId, TSQueryDataSet dataset,
+      String compressionType) throws SQLException {
     super(statement, columnNameList, columnTypeList, ignoreTimeStamp, client, sql, queryId, sessionId);
     time = new byte[Long.BYTES];
     currentBitmap = new byte[columnNameList.size()];
-    this.tsQueryDataSet = dataset;
+    this.compressionType = compressionType;
+    this.tsQueryDataSet = uncompress(dataset);
+  }
+
+  private TSQueryDataSet uncompress(TSQueryDataSet dataset) throws SQLException {
+    if (compressionType != null && dataset != null) {
+      try {
+        RpcCompressionUtils.uncompress(dataset, compressionType);
+      } catch (IOException e) {
+        throw new SQLException("Cannot uncompress the result from server", e);
+      }
+    }
+    return dataset;
   }
 
   @Override
@@ -89,7 +105,7 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
       if (!resp.hasResultSet) {
         emptyResultSet = true;
       } else {
-        tsQueryDataSet = resp.getQueryDataSet();
+        tsQueryDataSet = uncompress(resp.getQueryDataSet());
       }
       return resp.hasResultSet;
     } catch (TException e) {
@@ -230,7 +230,7 @@ public class IoTDBStatement implements Statement {
       else {
         this.resultSet = new IoTDBQueryResultSet(this, execResp.getColumns(),
             execResp.getDataTypeList(), execResp.ignoreTimeStamp, client, sql, queryId,
-            sessionId, execResp.queryDataSet);
+            sessionId, execResp.queryDataSet, connection.getCompressionType());
       }
       return true;
     }
@@ -336,7 +336,7 @@ public class IoTDBStatement implements Statement {
     else {
       this.resultSet = new IoTDBQueryResultSet(this, execResp.getColumns(),
           execResp.getDataTypeList(), execResp.ignoreTimeStamp, client, sql, queryId,
-          sessionId, execResp.queryDataSet);
+          sessionId, execResp.queryDataSet, connection.getCompressionType());
     }
     return resultSet;
   }
@@ -56,6 +56,13 @@ public class Utils {
     if (info.containsKey(Config.AUTH_PASSWORD)) {
       params.setPassword(info.getProperty(Config.AUTH_PASSWORD));
     }
+    if (info.containsKey(Config.RPC_COMPRESSION)) {
+      params.setRpcCompression(info.getProperty(Config.RPC_COMPRESSION));
+    }
+    if (info.containsKey(Config.RPC_FRAMED_TRANSPORT)) {
+      params.setRpcFramedTransport(
+          Boolean.parseBoolean(info.getProperty(Config.RPC_FRAMED_TRANSPORT)));
+    }
 
     return params;
   }
@@ -29,6 +29,9 @@ import org.junit.Test;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class UtilsTest {
@@ -65,6 +68,21 @@ public class UtilsTest {
     assertEquals(params.getPassword(), userPwd);
   }
 
+  @Test
+  public void testParseRpcProperties() throws IoTDBURLException {
+    String url = Config.IOTDB_URL_PREFIX + "localhost:6667/";
+    Properties properties = new Properties();
+    IoTDBConnectionParams params = Utils.parseUrl(url, properties);
+    assertFalse(params.isRpcFramedTransport());
+    assertNull(params.getRpcCompression());
+
+    properties.setProperty(Config.RPC_FRAMED_TRANSPORT, "true");
+    properties.setProperty(Config.RPC_COMPRESSION, "SNAPPY");
+    params = Utils.parseUrl(url, properties);
+    assertTrue(params.isRpcFramedTransport());
+    assertEquals("SNAPPY", params.getRpcCompression());
+  }
+
   @Test(expected = IoTDBURLException.class)
   public void testParseWrongUrl1() throws IoTDBURLException {
     Properties properties = new Properties();
@@ -88,6 +88,8 @@ statement
     fromClause
     whereClause?
     specialClause? #selectIndexStatement
+    | SELECT LAST suffixPath (COMMA suffixPath)*
+    fromClause #selectLastStatement
     | SELECT selectElements
     fromClause
     whereClause?
@@ -721,6 +723,10 @@ LAST_VALUE
     : L A S T UNDERLINE V A L U E
     ;
 
+LAST
+    : L A S T
+    ;
+
 DISABLE
     : D I S A B L E
     ;
@@ -64,6 +64,22 @@ public class IoTDBConfig {
    */
   private int rpcMaxConcurrentClientNum = 65535;
 
+  /**
+   * Whether to serve the clients with a non-blocking selector server over framed transport, so that
+   * idle clients do not take a thread each. The clients must enable framed transport too.
+   */
+  private boolean rpcNonblockingServerEnable = false;
+
+  /**
+   * Number of the threads selecting the connections of the non-blocking server
+   */
+  private int rpcSelectorThreadNum = 2;
+
+  /**
+   * Number of the threads processing the requests of the non-blocking server
+   */
+  private int rpcWorkerThreadNum = Runtime.getRuntime().availableProcessors() * 4;
+
   /**
    * Memory allocated for the read process
    */
@@ -169,6 +185,37 @@ public class IoTDBConfig {
    */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many threads can concurrently check and load the TsFiles of ONE storage group during
+   * recovery. When <= 0, use CPU core number.
+   */
+  private int concurrentRecoveryThread = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * How many series can be aggregated concurrently within ONE aggregation or group by query. When
+   * <= 0, use concurrentQueryThread.
+   */
+  private int concurrentAggregationSeriesNum = 0;
+
+  /**
+   * How much memory (in byte) the concurrently aggregated series of ONE aggregation or group by
+   * query may take. This is only a rough estimation used to bound the parallelism of the query.
+   */
+  private long aggregationMemoryBudget = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+
+  /**
+   * How much memory (in byte) the query results computed in advance for the next fetches of all
+   * clients may take. When <= 0, the results are only computed when they are fetched.
+   */
+  private long queryResultPrefetchMemoryBudget = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+
+  /**
+   * How much memory (in byte) the device time indexes of the sealed TsFiles may take. When it is
+   * exceeded, the indexes of the files that are not recently used are dropped and read again from
+   * their ".resource" files when needed. When <= 0, the indexes are always kept in memory.
+   */
+  private long timeIndexMemoryBudget = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+
   private ZoneId zoneID = ZoneId.systemDefault();
 
   /**
@@ -195,6 +242,11 @@ public class IoTDBConfig {
    */
   private long allocateMemoryForChumkMetaDataCache = allocateMemoryForRead * 6 / 19;
 
+  /**
+   * whether to cache the last point of each time series for last queries or not.
+   */
+  private boolean lastValueCacheEnable = true;
+
   /**
    * The statMonitor writes statistics info into IoTDB every backLoopPeriodSec secs. The default
    * value is 5s.
@@ -219,6 +271,18 @@ public class IoTDBConfig {
    */
   private int mManagerCacheSize = 400000;
 
+  /**
+   * A snapshot of the MTree is taken once this many timeseries have been created since the last
+   * one, so a restart only replays the tail of the metadata log. 0 or less disables snapshots.
+   */
+  private int mlogSnapshotThreshold = 100000;
+
+  /**
+   * Whether to intern the names of MNodes, keep small sets of children in arrays and share equal
+   * MeasurementSchemas among leaves, which reduces the heap taken by the MTree.
+   */
+  private boolean compactMTreeEnable = true;
+
   /**
    * Is external sort enable.
    */
@@ -386,8 +450,44 @@ public class IoTDBConfig {
    */
   private int chunkMergePointThreshold = 20480;
 
+  /**
+   * The total bytes read and written by merges and sequence compactions per second, in MB. The
+   * limit shrinks while flush tasks are pending so they only use the I/O left over by flushes. When
+   * less than or equal to 0, they are not throttled, which is the default.
+   */
+  private int mergeThroughputMbPerSec = 0;
+
+  /**
+   * A running merge is paused at the end of a batch of series if a pending merge has a priority
+   * more than this times higher, so the more urgent merge can take its thread. When less than or
+   * equal to 0, merges are never paused.
+   */
+  private double mergePreemptionPriorityRatio = 2.0;
+
   private MergeFileStrategy mergeFileStrategy = MergeFileStrategy.MAX_SERIES_NUM;
 
+  /**
+   * When set to true, small adjacent sequence TsFiles are compacted into larger ones by a
+   * sequence compaction, which takes turns with the merge of unsequence files.
+   */
+  private boolean enableSeqCompaction = true;
+
+  /**
+   * How many adjacent sequence TsFiles of the same size tier are compacted into one file.
+   */
+  private int seqCompactionFileNum = 10;
+
+  /**
+   * Sequence TsFiles smaller than this size (in byte) are in the lowest size tier. Each higher tier
+   * holds files seqCompactionFileNum times larger than the tier below it.
+   */
+  private long seqCompactionSmallFileSize = 16 * 1024 * 1024L;
+
+  /**
+   * A sequence compaction never reads a TsFile or writes a TsFile larger than this size (in byte).
+   */
+  private long seqCompactionMaxFileSize = 512 * 1024 * 1024L;
+
   /**
    * Default system file storage is in local file system (unsupported)
    */
@@ -730,6 +830,46 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getConcurrentRecoveryThread() {
+    return concurrentRecoveryThread;
+  }
+
+  public void setConcurrentRecoveryThread(int concurrentRecoveryThread) {
+    this.concurrentRecoveryThread = concurrentRecoveryThread;
+  }
+
+  public int getConcurrentAggregationSeriesNum() {
+    return concurrentAggregationSeriesNum;
+  }
+
+  public void setConcurrentAggregationSeriesNum(int concurrentAggregationSeriesNum) {
+    this.concurrentAggregationSeriesNum = concurrentAggregationSeriesNum;
+  }
+
+  public long getAggregationMemoryBudget() {
+    return aggregationMemoryBudget;
+  }
+
+  public void setAggregationMemoryBudget(long aggregationMemoryBudget) {
+    this.aggregationMemoryBudget = aggregationMemoryBudget;
+  }
+
+  public long getQueryResultPrefetchMemoryBudget() {
+    return queryResultPrefetchMemoryBudget;
+  }
+
+  public void setQueryResultPrefetchMemoryBudget(long queryResultPrefetchMemoryBudget) {
+    this.queryResultPrefetchMemoryBudget = queryResultPrefetchMemoryBudget;
+  }
+
+  public long getTimeIndexMemoryBudget() {
+    return timeIndexMemoryBudget;
+  }
+
+  public void setTimeIndexMemoryBudget(long timeIndexMemoryBudget) {
+    this.timeIndexMemoryBudget = timeIndexMemoryBudget;
+  }
+
   public long getTsFileSizeThreshold() {
     return tsFileSizeThreshold;
   }
@@ -762,6 +902,30 @@ public class IoTDBConfig {
     this.rpcMaxConcurrentClientNum = rpcMaxConcurrentClientNum;
   }
 
+  public boolean isRpcNonblockingServerEnable() {
+    return rpcNonblockingServerEnable;
+  }
+
+  public void setRpcNonblockingServerEnable(boolean rpcNonblockingServerEnable) {
+    this.rpcNonblockingServerEnable = rpcNonblockingServerEnable;
+  }
+
+  public int getRpcSelectorThreadNum() {
+    return rpcSelectorThreadNum;
+  }
+
+  public void setRpcSelectorThreadNum(int rpcSelectorThreadNum) {
+    this.rpcSelectorThreadNum = rpcSelectorThreadNum;
+  }
+
+  public int getRpcWorkerThreadNum() {
+    return rpcWorkerThreadNum;
+  }
+
+  public void setRpcWorkerThreadNum(int rpcWorkerThreadNum) {
+    this.rpcWorkerThreadNum = rpcWorkerThreadNum;
+  }
+
   public int getStatMonitorDetectFreqSec() {
     return statMonitorDetectFreqSec;
   }
@@ -786,6 +950,22 @@ public class IoTDBConfig {
     this.mManagerCacheSize = mManagerCacheSize;
   }
 
+  public int getMlogSnapshotThreshold() {
+    return mlogSnapshotThreshold;
+  }
+
+  public void setMlogSnapshotThreshold(int mlogSnapshotThreshold) {
+    this.mlogSnapshotThreshold = mlogSnapshotThreshold;
+  }
+
+  public boolean isCompactMTreeEnable() {
+    return compactMTreeEnable;
+  }
+
+  public void setCompactMTreeEnable(boolean compactMTreeEnable) {
+    this.compactMTreeEnable = compactMTreeEnable;
+  }
+
   public boolean isSyncEnable() {
     return isSyncEnable;
   }
@@ -978,6 +1158,22 @@ public class IoTDBConfig {
     this.chunkMergePointThreshold = chunkMergePointThreshold;
   }
 
+  public int getMergeThroughputMbPerSec() {
+    return mergeThroughputMbPerSec;
+  }
+
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    this.mergeThroughputMbPerSec = mergeThroughputMbPerSec;
+  }
+
+  public double getMergePreemptionPriorityRatio() {
+    return mergePreemptionPriorityRatio;
+  }
+
+  public void setMergePreemptionPriorityRatio(double mergePreemptionPriorityRatio) {
+    this.mergePreemptionPriorityRatio = mergePreemptionPriorityRatio;
+  }
+
   public long getMemtableSizeThreshold() {
     return memtableSizeThreshold;
   }
@@ -995,6 +1191,39 @@ public class IoTDBConfig {
     this.mergeFileStrategy = mergeFileStrategy;
   }
 
+  public boolean isEnableSeqCompaction() {
+    return enableSeqCompaction;
+  }
+
+  public void setEnableSeqCompaction(boolean enableSeqCompaction) {
+    this.enableSeqCompaction = enableSeqCompaction;
+  }
+
+  public int getSeqCompactionFileNum() {
+    return seqCompactionFileNum;
+  }
+
+  public void setSeqCompactionFileNum(int seqCompactionFileNum) {
+    this.seqCompactionFileNum = seqCompactionFileNum;
+  }
+
+  public long getSeqCompactionSmallFileSize() {
+    return seqCompactionSmallFileSize;
+  }
+
+  public void setSeqCompactionSmallFileSize(long seqCompactionSmallFileSize) {
+    this.seqCompactionSmallFileSize = seqCompactionSmallFileSize;
+  }
+
+  public long getSeqCompactionMaxFileSize() {
+    return seqCompactionMaxFileSize;
+  }
+
+  public void setSeqCompactionMaxFileSize(long seqCompactionMaxFileSize) {
+    this.seqCompactionMaxFileSize = seqCompactionMaxFileSize;
+  }
+
+
   public int getMergeChunkSubThreadNum() {
     return mergeChunkSubThreadNum;
   }
@@ -1027,6 +1256,14 @@ public class IoTDBConfig {
     this.metaDataCacheEnable = metaDataCacheEnable;
   }
 
+  public boolean isLastValueCacheEnable() {
+    return lastValueCacheEnable;
+  }
+
+  public void setLastValueCacheEnable(boolean lastValueCacheEnable) {
+    this.lastValueCacheEnable = lastValueCacheEnable;
+  }
+
   public long getAllocateMemoryForFileMetaDataCache() {
     return allocateMemoryForFileMetaDataCache;
   }
@@ -129,6 +129,22 @@ public class IoTDBDescriptor {
       conf.setRpcPort(Integer.parseInt(properties.getProperty("rpc_port",
           Integer.toString(conf.getRpcPort()))));
 
+      conf.setRpcNonblockingServerEnable(
+          Boolean.parseBoolean(properties.getProperty("rpc_nonblocking_server_enable",
+              Boolean.toString(conf.isRpcNonblockingServerEnable()))));
+
+      int selectorThreadNum = Integer.parseInt(properties.getProperty("rpc_selector_thread_num",
+          Integer.toString(conf.getRpcSelectorThreadNum())).trim());
+      if (selectorThreadNum > 0) {
+        conf.setRpcSelectorThreadNum(selectorThreadNum);
+      }
+
+      int workerThreadNum = Integer.parseInt(properties.getProperty("rpc_worker_thread_num",
+          Integer.toString(conf.getRpcWorkerThreadNum())).trim());
+      if (workerThreadNum > 0) {
+        conf.setRpcWorkerThreadNum(workerThreadNum);
+      }
+
       conf.setTimestampPrecision(properties.getProperty("timestamp_precision",
           conf.getTimestampPrecision()));
 
@@ -140,6 +156,10 @@ public class IoTDBDescriptor {
           Boolean.parseBoolean(properties.getProperty("meta_data_cache_enable",
               Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setLastValueCacheEnable(
+          Boolean.parseBoolean(properties.getProperty("last_value_cache_enable",
+              Boolean.toString(conf.isLastValueCacheEnable()))));
+
       initMemoryAllocate(properties);
 
       loadWALProps(properties);
@@ -203,10 +223,45 @@ public class IoTDBDescriptor {
         conf.setConcurrentFlushThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setConcurrentRecoveryThread(Integer
+          .parseInt(properties.getProperty("concurrent_recovery_thread",
+              Integer.toString(conf.getConcurrentRecoveryThread())).trim()));
+
+      if (conf.getConcurrentRecoveryThread() <= 0) {
+        conf.setConcurrentRecoveryThread(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setConcurrentAggregationSeriesNum(Integer.parseInt(properties
+          .getProperty("concurrent_aggregation_series_num",
+              Integer.toString(conf.getConcurrentAggregationSeriesNum())).trim()));
+
+      long aggregationMemoryBudget = Long.parseLong(properties
+          .getProperty("aggregation_memory_budget",
+              Long.toString(conf.getAggregationMemoryBudget())).trim());
+      if (aggregationMemoryBudget > 0) {
+        conf.setAggregationMemoryBudget(aggregationMemoryBudget);
+      }
+
+      conf.setQueryResultPrefetchMemoryBudget(Long.parseLong(properties
+          .getProperty("query_result_prefetch_memory_budget",
+              Long.toString(conf.getQueryResultPrefetchMemoryBudget())).trim()));
+
+      conf.setTimeIndexMemoryBudget(Long.parseLong(properties
+          .getProperty("time_index_memory_budget",
+              Long.toString(conf.getTimeIndexMemoryBudget())).trim()));
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("schema_manager_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
 
+      conf.setMlogSnapshotThreshold(Integer
+          .parseInt(properties.getProperty("mlog_snapshot_threshold",
+              Integer.toString(conf.getMlogSnapshotThreshold())).trim()));
+
+      conf.setCompactMTreeEnable(Boolean.parseBoolean(properties
+          .getProperty("compact_mtree_enable",
+              Boolean.toString(conf.isCompactMTreeEnable())).trim()));
+
       conf.setLanguageVersion(properties.getProperty("language_version",
           conf.getLanguageVersion()).trim());
 
@@ -243,6 +298,19 @@ public class IoTDBDescriptor {
           Boolean.toString(conf.isForceFullMerge()))));
       conf.setChunkMergePointThreshold(Integer.parseInt(properties.getProperty(
           "chunk_merge_point_threshold", Integer.toString(conf.getChunkMergePointThreshold()))));
+      conf.setMergeThroughputMbPerSec(Integer.parseInt(properties.getProperty(
+          "merge_throughput_mb_per_sec", Integer.toString(conf.getMergeThroughputMbPerSec()))));
+      conf.setMergePreemptionPriorityRatio(Double.parseDouble(properties.getProperty(
+          "merge_preemption_priority_ratio",
+          Double.toString(conf.getMergePreemptionPriorityRatio()))));
+      conf.setEnableSeqCompaction(Boolean.parseBoolean(properties.getProperty(
+          "enable_seq_compaction", Boolean.toString(conf.isEnableSeqCompaction()))));
+      conf.setSeqCompactionFileNum(Integer.parseInt(properties.getProperty(
+          "seq_compaction_file_num", Integer.toString(conf.getSeqCompactionFileNum()))));
+      conf.setSeqCompactionSmallFileSize(Long.parseLong(properties.getProperty(
+          "seq_compaction_small_file_size", Long.toString(conf.getSeqCompactionSmallFileSize()))));
+      conf.setSeqCompactionMaxFileSize(Long.parseLong(properties.getProperty(
+          "seq_compaction_max_file_size", Long.toString(conf.getSeqCompactionMaxFileSize()))));
 
       conf.setEnablePerformanceStat(Boolean
           .parseBoolean(properties.getProperty("enable_performance_stat",
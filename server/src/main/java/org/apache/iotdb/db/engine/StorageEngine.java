@@ -119,12 +119,13 @@ public class StorageEngine implements IService {
     List<Future> futures = new ArrayList<>();
     for (MNode storageGroup : sgNodes) {
       futures.add(recoveryThreadPool.submit((Callable<Void>) () -> {
+        long startTime = System.currentTimeMillis();
         StorageGroupProcessor processor = new StorageGroupProcessor(systemDir,
             storageGroup.getFullPath(), fileFlushPolicy);
         processor.setDataTTL(storageGroup.getDataTTL());
         processorMap.put(storageGroup.getFullPath(), processor);
-        logger.info("Storage Group Processor {} is recovered successfully",
-            storageGroup.getFullPath());
+        logger.info("Storage Group Processor {} is recovered successfully in {}ms",
+            storageGroup.getFullPath(), System.currentTimeMillis() - startTime);
         return null;
       }));
     }
@@ -328,7 +329,8 @@ public class StorageEngine implements IService {
     String deviceId = seriesExpression.getSeriesPath().getDevice();
     String measurementId = seriesExpression.getSeriesPath().getMeasurement();
     StorageGroupProcessor storageGroupProcessor = getProcessor(deviceId);
-    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager);
+    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager,
+        seriesExpression.getFilter());
   }
 
   /**
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+/**
+ * This class caches the last point of the time series of one storage group, so that the latest
+ * value of a series can be answered without reading its files.
+ * <p>
+ * A series is only cached when its last point is known for sure: either the point is newer than
+ * any data of its device when it is inserted, or the series has been read by a last query. Updates
+ * and invalidations are called by the StorageGroupProcessor holding its write lock, while a cache
+ * miss is filled by the query without any lock. To prevent a query from installing a stale point,
+ * the query puts a placeholder (a pair with null value) before it reads the series, and only
+ * replaces its own placeholder at the end; any update of the series in between drops the
+ * placeholder.
+ */
+public class LastValueCache {
+
+  /**
+   * key: full path of the series.
+   * <p>
+   * value: the last point of the series, or the placeholder of a running query.
+   */
+  private Map<String, TimeValuePair> lastValues = new ConcurrentHashMap<>();
+
+  /**
+   * @return the last point of the series, or null if it is unknown
+   */
+  public TimeValuePair get(String seriesPath) {
+    TimeValuePair lastValue = lastValues.get(seriesPath);
+    return lastValue == null || isPlaceholder(lastValue) ? null : lastValue;
+  }
+
+  /**
+   * update the series with a newly inserted point.
+   *
+   * @param newerThanDevice whether the point is newer than all the data of its device before the
+   * insertion, in which case it must be the last point of the series
+   */
+  public void update(String seriesPath, long time, TsPrimitiveType value,
+      boolean newerThanDevice) {
+    lastValues.compute(seriesPath, (path, lastValue) -> {
+      if (lastValue == null || isPlaceholder(lastValue)) {
+        return newerThanDevice ? new TimeValuePair(time, value) : null;
+      }
+      return lastValue.getTimestamp() <= time ? new TimeValuePair(time, value) : lastValue;
+    });
+  }
+
+  /**
+   * invalidate the series after the data whose time is not greater than deleteTime is deleted.
+   */
+  public void delete(String seriesPath, long deleteTime) {
+    lastValues.computeIfPresent(seriesPath,
+        (path, lastValue) -> isPlaceholder(lastValue) || lastValue.getTimestamp() <= deleteTime
+            ? null : lastValue);
+  }
+
+  /**
+   * invalidate all series, e.g., when files are loaded into or removed from the storage group.
+   */
+  public void clear() {
+    lastValues.clear();
+  }
+
+  /**
+   * called by a query before it reads the last point of a series from the files.
+   *
+   * @return the placeholder to be given to endQuery()
+   */
+  public TimeValuePair startQuery(String seriesPath) {
+    TimeValuePair placeholder = new TimeValuePair(Long.MIN_VALUE, null);
+    lastValues.put(seriesPath, placeholder);
+    return placeholder;
+  }
+
+  /**
+   * called by a query after it reads the last point of a series from the files. The point is
+   * cached only if the series has not been updated since startQuery().
+   *
+   * @param lastValue the last point read, null if the series has no data
+   */
+  public void endQuery(String seriesPath, TimeValuePair placeholder, TimeValuePair lastValue) {
+    lastValues.computeIfPresent(seriesPath,
+        (path, value) -> value == placeholder ? lastValue : value);
+  }
+
+  private static boolean isPlaceholder(TimeValuePair lastValue) {
+    return lastValue.getValue() == null;
+  }
+}
@@ -66,7 +66,9 @@ public abstract class AbstractPoolManager {
   }
 
   public int getWaitingTasksNumber() {
-    return ((ThreadPoolExecutor) pool).getQueue().size();
+    // the pool is released once stopped
+    ExecutorService currPool = pool;
+    return currPool == null ? 0 : ((ThreadPoolExecutor) currPool).getQueue().size();
   }
 
   public int getTotalTasks() {
@@ -84,12 +84,15 @@ public abstract class AbstractMemTable implements IMemTable {
   @Override
   public void insert(InsertPlan insertPlan) throws QueryProcessException {
     try {
+      Object[] parsedValues = new Object[insertPlan.getValues().length];
       for (int i = 0; i < insertPlan.getValues().length; i++) {
 
         Object value = parseValue(insertPlan.getDataTypes()[i], insertPlan.getValues()[i]);
         write(insertPlan.getDeviceId(), insertPlan.getMeasurements()[i],
             insertPlan.getDataTypes()[i], insertPlan.getTime(), value);
+        parsedValues[i] = value;
       }
+      insertPlan.setParsedValues(parsedValues);
       long recordSizeInByte = MemUtils.getRecordSize(insertPlan);
       memSize += recordSizeInByte;
     } catch (RuntimeException e) {
@@ -19,35 +19,56 @@
 
 package org.apache.iotdb.db.engine.merge.manage;
 
+import com.google.common.util.concurrent.RateLimiter;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
-import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.engine.flush.FlushManager;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * MergeManager provides a ThreadPool to queue and run all merge tasks to restrain the total
- * resources occupied by merge and manages a Timer to periodically issue a global merge.
+ * resources occupied by merge and manages a Timer to periodically issue a global merge. Queued
+ * tasks are run in the descending order of their priorities, and a running MergeTask gives way to
+ * a much more urgent task by pausing itself and queueing again (see shouldPause()). The bytes
+ * read and written by merges are throttled by a token bucket shared by all merge tasks, whose rate
+ * shrinks while flush tasks are pending, so merges only use the I/O left over by flushes.
  */
-public class MergeManager implements IService {
+public class MergeManager implements IService, MergeManagerMBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MergeManager.class);
   private static final MergeManager INSTANCE = new MergeManager();
+  private static final double MB = 1024.0 * 1024.0;
 
   private AtomicInteger threadCnt = new AtomicInteger();
+  // orders the queued tasks of the same priority by their submission
+  private AtomicLong mainTaskCnt = new AtomicLong();
   private ThreadPoolExecutor mergeTaskPool;
   private ThreadPoolExecutor mergeChunkSubTaskPool;
   private ScheduledExecutorService timedMergeThreadPool;
+  // limits the bytes read and written by all merges and sequence compactions per second
+  private RateLimiter mergeRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+  private volatile double currentMergeRate = Double.MAX_VALUE;
+
+  private AtomicLong mergeReadBytes = new AtomicLong();
+  private AtomicLong mergeWrittenBytes = new AtomicLong();
+  private long lastThroughputCheckTime = System.currentTimeMillis();
+  private long lastThroughputCheckBytes = 0;
 
   private MergeManager() {
   }
@@ -56,8 +77,31 @@ public class MergeManager implements IService {
     return INSTANCE;
   }
 
-  public void submitMainTask(MergeTask mergeTask) {
-    mergeTaskPool.submit(mergeTask);
+  /**
+   * submit a MergeTask or a SeqCompactionTask, which runs before the queued tasks of lower
+   * priorities.
+   *
+   * @throws RejectedExecutionException if the MergeManager is stopped
+   */
+  public void submitMainTask(Callable<Void> mergeTask, double priority) {
+    mergeTaskPool.execute(new MainTaskFuture(mergeTask, priority, mainTaskCnt.getAndIncrement()));
+  }
+
+  /**
+   * @return true if a running task of the given priority should be paused so that the most urgent
+   * queued task can take its thread, i.e., all threads are busy and the queued task has a priority
+   * higher than the given one by more than merge_preemption_priority_ratio times
+   */
+  public boolean shouldPause(double priority) {
+    double ratio = IoTDBDescriptor.getInstance().getConfig().getMergePreemptionPriorityRatio();
+    ThreadPoolExecutor pool = mergeTaskPool;
+    if (ratio <= 0 || pool == null) {
+      return false;
+    }
+    // tasks are only queued when all threads are busy
+    Runnable nextTask = pool.getQueue().peek();
+    return nextTask instanceof MainTaskFuture
+        && ((MainTaskFuture) nextTask).priority > priority * ratio;
   }
 
   public Future submitChunkSubTask(Callable callable) {
@@ -77,12 +121,14 @@ public class MergeManager implements IService {
         chunkSubThreadNum = 1;
       }
 
-      mergeTaskPool =
-          (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum,
-              r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
+      mergeTaskPool = new ThreadPoolExecutor(threadNum, threadNum, 0L, TimeUnit.MILLISECONDS,
+          new PriorityBlockingQueue<>(),
+          r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
       mergeChunkSubTaskPool =
           (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum * chunkSubThreadNum,
               r -> new Thread(r, "MergeChunkSubThread-" + threadCnt.getAndIncrement()));
+      adaptMergeRate();
+      JMXService.registerMBean(this, ServiceType.MERGE_SERVICE.getJmxName());
       long mergeInterval = IoTDBDescriptor.getInstance().getConfig().getMergeIntervalSec();
       if (mergeInterval > 0) {
         timedMergeThreadPool = Executors.newSingleThreadScheduledExecutor( r -> new Thread(r,
@@ -108,10 +154,101 @@ public class MergeManager implements IService {
         // wait
       }
       mergeTaskPool = null;
+      JMXService.deregisterMBean(ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("MergeManager stopped");
     }
   }
 
+  /**
+   * Block until a merge or a sequence compaction is allowed to read the given bytes.
+   */
+  public void acquireMergeRead(long bytes) {
+    mergeReadBytes.addAndGet(bytes);
+    acquireMergeThroughput(bytes);
+  }
+
+  /**
+   * Block until a merge or a sequence compaction is allowed to write the given bytes.
+   */
+  public void acquireMergeWrite(long bytes) {
+    mergeWrittenBytes.addAndGet(bytes);
+    acquireMergeThroughput(bytes);
+  }
+
+  private void acquireMergeThroughput(long bytes) {
+    adaptMergeRate();
+    if (bytes > 0) {
+      mergeRateLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+    }
+  }
+
+  /**
+   * Divide the configured merge throughput by one plus the number of pending flush tasks, so
+   * merges slow down as soon as flushes pile up and speed up again once the flushes catch up.
+   */
+  private void adaptMergeRate() {
+    int throughput = IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec();
+    double rate = throughput > 0
+        ? throughput * MB / (1 + FlushManager.getInstance().getNumberOfPendingTasks())
+        : Double.MAX_VALUE;
+    if (rate != currentMergeRate) {
+      currentMergeRate = rate;
+      mergeRateLimiter.setRate(rate);
+    }
+  }
+
+  @Override
+  public int getNumberOfWorkingTasks() {
+    ThreadPoolExecutor pool = mergeTaskPool;
+    return pool == null ? 0 : pool.getActiveCount();
+  }
+
+  @Override
+  public int getNumberOfPendingTasks() {
+    ThreadPoolExecutor pool = mergeTaskPool;
+    return pool == null ? 0 : pool.getQueue().size();
+  }
+
+  @Override
+  public int getMergeThroughputLimitMbPerSec() {
+    return IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec();
+  }
+
+  @Override
+  public void setMergeThroughputLimitMbPerSec(int mergeThroughputLimitMbPerSec) {
+    IoTDBDescriptor.getInstance().getConfig().setMergeThroughputMbPerSec(
+        mergeThroughputLimitMbPerSec);
+    adaptMergeRate();
+    logger.info("Merge throughput limit is set to {}MB/s", mergeThroughputLimitMbPerSec);
+  }
+
+  @Override
+  public double getCurrentMergeThroughputLimitMbPerSec() {
+    return currentMergeRate / MB;
+  }
+
+  @Override
+  public long getMergeReadBytes() {
+    return mergeReadBytes.get();
+  }
+
+  @Override
+  public long getMergeWrittenBytes() {
+    return mergeWrittenBytes.get();
+  }
+
+  @Override
+  public synchronized double getMergeThroughputMbPerSec() {
+    long currTime = System.currentTimeMillis();
+    long currBytes = mergeReadBytes.get() + mergeWrittenBytes.get();
+    double throughput = currTime > lastThroughputCheckTime
+        ? (currBytes - lastThroughputCheckBytes) / MB * 1000 / (currTime - lastThroughputCheckTime)
+        : 0.0;
+    lastThroughputCheckTime = currTime;
+    lastThroughputCheckBytes = currBytes;
+    return throughput;
+  }
+
   @Override
   public ServiceType getID() {
     return ServiceType.MERGE_SERVICE;
@@ -124,4 +261,33 @@ public class MergeManager implements IService {
       logger.error("Cannot perform a global merge because", e);
     }
   }
+
+  private static class MainTaskFuture extends FutureTask<Void> implements
+      Comparable<MainTaskFuture> {
+
+    private double priority;
+    private long submitIdx;
+
+    private MainTaskFuture(Callable<Void> task, double priority, long submitIdx) {
+      super(task);
+      this.priority = priority;
+      this.submitIdx = submitIdx;
+    }
+
+    @Override
+    public int compareTo(MainTaskFuture o) {
+      int cmp = Double.compare(o.priority, priority);
+      return cmp != 0 ? cmp : Long.compare(submitIdx, o.submitIdx);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(submitIdx);
+    }
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.manage;
+
+public interface MergeManagerMBean {
+
+  int getNumberOfWorkingTasks();
+
+  int getNumberOfPendingTasks();
+
+  /**
+   * @return the configured limit of the total merge throughput in MB/s, or a non-positive number
+   * if merges are not throttled
+   */
+  int getMergeThroughputLimitMbPerSec();
+
+  void setMergeThroughputLimitMbPerSec(int mergeThroughputLimitMbPerSec);
+
+  /**
+   * @return the limit of the total merge throughput in MB/s currently applied, which shrinks while
+   * flush tasks are pending
+   */
+  double getCurrentMergeThroughputLimitMbPerSec();
+
+  long getMergeReadBytes();
+
+  long getMergeWrittenBytes();
+
+  /**
+   * @return the bytes read and written by merges per second in MB since the last call
+   */
+  double getMergeThroughputMbPerSec();
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.recover;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+/**
+ * SeqCompactionLogger records the progress of compacting a group of sequence files in file
+ * "seq_compaction.log" as text lines: the source files, the target file, and "end" once the target
+ * file has replaced the source files.
+ */
+public class SeqCompactionLogger {
+
+  public static final String SEQ_COMPACTION_LOG_NAME = "seq_compaction.log";
+
+  public static final String STR_SOURCE_FILES = "sourceFiles";
+  public static final String STR_TARGET_FILE = "targetFile";
+  public static final String STR_END = "end";
+
+  private FileOutputStream fileStream;
+  private BufferedWriter logStream;
+
+  public SeqCompactionLogger(String storageGroupDir) throws IOException {
+    fileStream = new FileOutputStream(new File(storageGroupDir, SEQ_COMPACTION_LOG_NAME), true);
+    logStream = new BufferedWriter(new OutputStreamWriter(fileStream));
+  }
+
+  public void close() throws IOException {
+    logStream.close();
+  }
+
+  public void logFiles(List<TsFileResource> sourceFiles, File targetFile) throws IOException {
+    logStream.write(STR_SOURCE_FILES);
+    logStream.newLine();
+    for (TsFileResource sourceFile : sourceFiles) {
+      logStream.write(sourceFile.getFile().getAbsolutePath());
+      logStream.newLine();
+    }
+    logStream.write(STR_TARGET_FILE);
+    logStream.newLine();
+    logStream.write(targetFile.getAbsolutePath());
+    logStream.newLine();
+    sync();
+  }
+
+  /**
+   * the source files may be removed after this is logged.
+   */
+  public void logEnd() throws IOException {
+    logStream.write(STR_END);
+    logStream.newLine();
+    sync();
+  }
+
+  private void sync() throws IOException {
+    logStream.flush();
+    fileStream.getFD().sync();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.selector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SeqCompactionFileSelector selects groups of sequence files to be compacted by size tiers. Files
+ * smaller than smallFileSize are in tier 0, and the files in tier i + 1 are fileNum times larger
+ * than those in tier i. Each group is fileNum adjacent files of the same tier in the same time
+ * partition, so the compacted file is about the size of tier i + 1, and each point is rewritten
+ * once per tier rather than once per compaction.
+ * <p>
+ * Only adjacent files are compacted together because the data of a device in a sequence file
+ * follows its data in the previous sequence file of the same time partition, so the chunks of the
+ * files can be concatenated in order.
+ */
+public class SeqCompactionFileSelector {
+
+  private static final Logger logger = LoggerFactory.getLogger(SeqCompactionFileSelector.class);
+
+  private Collection<TsFileResource> seqFiles;
+  private long timeLowerBound;
+  private int fileNum;
+  private long smallFileSize;
+  private long maxFileSize;
+
+  /**
+   * @param seqFiles all sequence files of a storage group, ordered by time partition and version
+   * @param timeLowerBound files whose data are all older than this are left to the TTL check
+   */
+  public SeqCompactionFileSelector(Collection<TsFileResource> seqFiles, long timeLowerBound,
+      int fileNum, long smallFileSize, long maxFileSize) {
+    this.seqFiles = seqFiles;
+    this.timeLowerBound = timeLowerBound;
+    this.fileNum = Math.max(fileNum, 2);
+    this.smallFileSize = Math.max(smallFileSize, 1);
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+   * @return groups of adjacent files, each of which should be compacted into one file, or an empty
+   * list if there are no candidates
+   */
+  public List<List<TsFileResource>> select() {
+    List<List<TsFileResource>> groups = new ArrayList<>();
+    List<TsFileResource> candidates = new ArrayList<>();
+    long candidatesSize = 0;
+    int candidatesTier = -1;
+    String candidatesPartition = null;
+    for (TsFileResource seqFile : seqFiles) {
+      String partition = seqFile.getFile().getParentFile().getName();
+      long fileSize = seqFile.getFileSize();
+      int tier = getTier(fileSize);
+      if (!isCandidate(seqFile) || tier != candidatesTier
+          || !partition.equals(candidatesPartition)) {
+        // the file cannot be compacted with the previous files
+        candidates.clear();
+        candidatesSize = 0;
+        if (!isCandidate(seqFile)) {
+          candidatesTier = -1;
+          continue;
+        }
+        candidatesTier = tier;
+        candidatesPartition = partition;
+      }
+      candidates.add(seqFile);
+      candidatesSize += fileSize;
+      while (candidatesSize > maxFileSize) {
+        candidatesSize -= candidates.remove(0).getFileSize();
+      }
+      if (candidates.size() == fileNum) {
+        if (!needUpgrade(candidates)) {
+          groups.add(new ArrayList<>(candidates));
+        }
+        candidates.clear();
+        candidatesSize = 0;
+      }
+    }
+    if (logger.isInfoEnabled() && !groups.isEmpty()) {
+      logger.info("Selected {} groups of {} sequence files to compact", groups.size(), fileNum);
+    }
+    return groups;
+  }
+
+  private boolean isCandidate(TsFileResource seqFile) {
+    return seqFile.isClosed() && !seqFile.isDeleted() && !seqFile.isMerging()
+        && seqFile.stillLives(timeLowerBound) && seqFile.getFileSize() < maxFileSize;
+  }
+
+  private int getTier(long fileSize) {
+    int tier = 0;
+    long tierFileSize = smallFileSize;
+    while (fileSize >= tierFileSize && tierFileSize < maxFileSize) {
+      tier++;
+      tierFileSize *= fileNum;
+    }
+    return tier;
+  }
+
+  private boolean needUpgrade(List<TsFileResource> candidates) {
+    for (TsFileResource candidate : candidates) {
+      if (UpgradeUtils.isNeedUpgrade(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
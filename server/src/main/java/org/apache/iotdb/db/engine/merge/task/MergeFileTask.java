@@ -33,6 +33,7 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -191,6 +192,7 @@ class MergeFileTask {
     long version = chunkGroupMetaData.getVersion();
     for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
       Chunk chunk = reader.readMemChunk(chunkMetaData);
+      throttleChunkCopy(chunk);
       fileWriter.writeChunk(chunk, chunkMetaData);
       context.incTotalPointWritten(chunkMetaData.getNumOfPoints());
     }
@@ -254,7 +256,7 @@ class MergeFileTask {
     }
   }
 
-  private File getNextMergeVersionFile(File seqFile) {
+  static File getNextMergeVersionFile(File seqFile) {
     String[] splits = seqFile.getName().replace(TSFILE_SUFFIX, "")
         .split(IoTDBConstant.TSFILE_NAME_SEPARATOR);
     int mergeVersion = Integer.parseInt(splits[2]) + 1;
@@ -263,6 +265,12 @@ class MergeFileTask {
             + IoTDBConstant.TSFILE_NAME_SEPARATOR + mergeVersion + TSFILE_SUFFIX);
   }
 
+  private void throttleChunkCopy(Chunk chunk) {
+    int chunkSize = chunk.getData().remaining();
+    MergeManager.getINSTANCE().acquireMergeRead(chunkSize);
+    MergeManager.getINSTANCE().acquireMergeWrite(chunkSize);
+  }
+
   private long writeUnmergedChunks(List<Long> chunkStartTimes,
       List<ChunkMetaData> chunkMetaDataList, TsFileSequenceReader reader,
       RestorableTsFileIOWriter fileWriter) throws IOException {
@@ -273,6 +281,7 @@ class MergeFileTask {
         ChunkMetaData metaData = chunkMetaDataList.get(chunkIdx);
         if (metaData.getStartTime() == startTime) {
           Chunk chunk = reader.readMemChunk(metaData);
+          throttleChunkCopy(chunk);
           fileWriter.writeChunk(chunk, metaData);
           maxVersion = metaData.getVersion() > maxVersion ? metaData.getVersion() : maxVersion;
           context.incTotalPointWritten(metaData.getNumOfPoints());
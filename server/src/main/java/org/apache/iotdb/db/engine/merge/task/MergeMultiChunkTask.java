@@ -31,6 +31,7 @@ import java.util.PriorityQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
@@ -44,6 +45,7 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.utils.MergeUtils;
 import org.apache.iotdb.db.utils.MergeUtils.MetaListEntry;
 import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -81,6 +83,13 @@ class MergeMultiChunkTask {
   private int concurrentMergeSeriesNum;
   private List<Path> currMergingPaths = new ArrayList<>();
 
+  // the progress of mergeSeries(), kept so a paused merge can be resumed
+  private List<List<Path>> devicePaths;
+  private int devicePathIdx;
+  private IMergePathSelector pathSelector;
+  private long startTime;
+  private BooleanSupplier pauseCondition = () -> false;
+
   MergeMultiChunkTask(MergeContext context, String taskName, MergeLogger mergeLogger,
       MergeResource mergeResource, boolean fullMerge, List<Path> unmergedSeries,
       int concurrentMergeSeriesNum) {
@@ -93,31 +102,56 @@ class MergeMultiChunkTask {
     this.concurrentMergeSeriesNum = concurrentMergeSeriesNum;
   }
 
-  void mergeSeries() throws IOException {
-    if (logger.isInfoEnabled()) {
-      logger.info("{} starts to merge {} series", taskName, unmergedSeries.size());
-    }
-    long startTime = System.currentTimeMillis();
-    for (TsFileResource seqFile : resource.getSeqFiles()) {
-      mergeContext.getUnmergedChunkStartTimes().put(seqFile, new HashMap<>());
+  /**
+   * Merge the series batch by batch. If pauseCondition holds after a batch, the merge is paused
+   * and can be resumed from the next batch by calling this method again. As the end of each batch
+   * is logged by the MergeLogger, a paused merge can also be resumed by RecoverMergeTask after a
+   * reboot.
+   *
+   * @return true if all series are merged, false if the merge is paused
+   */
+  boolean mergeSeries() throws IOException {
+    if (devicePaths == null) {
+      if (logger.isInfoEnabled()) {
+        logger.info("{} starts to merge {} series", taskName, unmergedSeries.size());
+      }
+      startTime = System.currentTimeMillis();
+      for (TsFileResource seqFile : resource.getSeqFiles()) {
+        mergeContext.getUnmergedChunkStartTimes().put(seqFile, new HashMap<>());
+      }
+      devicePaths = MergeUtils.splitPathsByDevice(unmergedSeries);
     }
     // merge each series and write data into each seqFile's corresponding temp merge file
-    List<List<Path>> devicePaths = MergeUtils.splitPathsByDevice(unmergedSeries);
-    for (List<Path> pathList : devicePaths) {
-      // TODO: use statistics of queries to better rearrange series
-      IMergePathSelector pathSelector = new NaivePathSelector(pathList, concurrentMergeSeriesNum);
+    for (; devicePathIdx < devicePaths.size(); devicePathIdx++) {
+      if (pathSelector == null) {
+        // TODO: use statistics of queries to better rearrange series
+        pathSelector = new NaivePathSelector(devicePaths.get(devicePathIdx),
+            concurrentMergeSeriesNum);
+      }
       while (pathSelector.hasNext()) {
         currMergingPaths = pathSelector.next();
         mergePaths();
         mergedSeriesCnt += currMergingPaths.size();
         logMergeProgress();
+        if (mergedSeriesCnt < unmergedSeries.size() && pauseCondition.getAsBoolean()) {
+          if (logger.isInfoEnabled()) {
+            logger.info("{} is paused after merging {} series", taskName, mergedSeriesCnt);
+          }
+          return false;
+        }
       }
+      pathSelector = null;
     }
     if (logger.isInfoEnabled()) {
       logger.info("{} all series are merged after {}ms", taskName,
           System.currentTimeMillis() - startTime);
     }
     mergeLogger.logAllTsEnd();
+    return true;
+  }
+
+  void setPauseCondition(BooleanSupplier pauseCondition) {
+    this.pauseCondition = pauseCondition;
   }
 
   private void logMergeProgress() {
@@ -195,7 +229,7 @@ class MergeMultiChunkTask {
     if (dataWritten) {
       mergeFileWriter.endChunkGroup(0);
       mergeLogger.logFilePosition(mergeFileWriter.getFile());
-      currTsFile.getStartTimeMap().put(deviceId, currDeviceMinTime);
+      currTsFile.forceUpdateStartTime(deviceId, currDeviceMinTime);
     }
   }
 
@@ -285,6 +319,7 @@ class MergeMultiChunkTask {
       synchronized (reader) {
         chunk = reader.readMemChunk(currMeta);
       }
+      MergeManager.getINSTANCE().acquireMergeRead(chunk.getData().remaining());
       ptWrittens[pathIdx] = mergeChunkV2(currMeta, chunkOverflowed, chunkTooSmall, chunk,
               ptWrittens[pathIdx], pathIdx, mergeFileWriter, unseqReaders[pathIdx], chunkWriter,
               currFile);
@@ -302,9 +337,7 @@ class MergeMultiChunkTask {
         }
         // the last merged chunk may still be smaller than the threshold, flush it anyway
         if (ptWrittens[pathIdx] > 0) {
-          synchronized (mergeFileWriter) {
-            chunkWriter.writeToFileWriter(mergeFileWriter);
-          }
+          flushChunkWriter(chunkWriter, mergeFileWriter);
         }
       }
     }
@@ -331,6 +364,8 @@ class MergeMultiChunkTask {
    * 3. other cases: need to unCompress the chunk and write
    * 3.1 SK isn't overflowed
    * 3.2 SK is overflowed
+   * in both cases, the pages of SK that overlap no unseq data and contain no deleted data are
+   * copied without being uncompressed, if the encoding and compression of SK are unchanged
    *
    */
   private int mergeChunkV2(ChunkMetaData currMeta, boolean chunkOverflowed,
@@ -351,6 +386,7 @@ class MergeMultiChunkTask {
 
     // write SK to .merge.file without compressing
     if (fullMerge && lastUnclosedChunkPoint == 0 && !chunkTooSmall && !chunkOverflowed && !chunkModified) {
+      MergeManager.getINSTANCE().acquireMergeWrite(chunk.getData().remaining());
       synchronized (mergeFileWriter) {
         mergeFileWriter.writeChunk(chunk, currMeta);
       }
@@ -360,14 +396,15 @@ class MergeMultiChunkTask {
       return 0;
     }
 
+    MeasurementSchema schema = resource.getSchema(currMergingPaths.get(pathIdx).getMeasurement());
     // 3.1 SK isn't overflowed, just uncompress and write sequence chunk
     if (!chunkOverflowed) {
-      unclosedChunkPoint += MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
+      unclosedChunkPoint += MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter, schema);
       mergedChunkNum.incrementAndGet();
     } else {
       // 3.2 SK is overflowed, uncompress sequence chunk and merge with unseq chunk, then write
       unclosedChunkPoint += writeChunkWithUnseq(chunk, chunkWriter, unseqReader,
-          currMeta.getEndTime(), pathIdx);
+          currMeta.getEndTime(), pathIdx, MergeUtils.isPageCopyable(chunk, schema));
       mergedChunkNum.incrementAndGet();
     }
 
@@ -376,14 +413,22 @@ class MergeMultiChunkTask {
     if (minChunkPointNum > 0 && unclosedChunkPoint >= minChunkPointNum
         || unclosedChunkPoint > 0 && minChunkPointNum < 0) {
       // the new chunk's size is large enough and it should be flushed
-      synchronized (mergeFileWriter) {
-        chunkWriter.writeToFileWriter(mergeFileWriter);
-      }
+      flushChunkWriter(chunkWriter, mergeFileWriter);
       unclosedChunkPoint = 0;
     }
     return unclosedChunkPoint;
   }
 
+  private void flushChunkWriter(IChunkWriter chunkWriter, TsFileIOWriter mergeFileWriter)
+      throws IOException {
+    // seal the last page so the size of the whole chunk is known before it is throttled
+    chunkWriter.sealCurrentPage();
+    MergeManager.getINSTANCE().acquireMergeWrite(chunkWriter.getCurrentChunkSize());
+    synchronized (mergeFileWriter) {
+      chunkWriter.writeToFileWriter(mergeFileWriter);
+    }
+  }
+
   private int writeRemainingUnseq(IChunkWriter chunkWriter,
       IPointReader unseqReader, long timeLimit, int pathIdx) throws IOException {
     int ptWritten = 0;
@@ -398,10 +443,21 @@ class MergeMultiChunkTask {
   }
 
   private int writeChunkWithUnseq(Chunk chunk, IChunkWriter chunkWriter, IPointReader unseqReader,
-      long chunkLimitTime, int pathIdx) throws IOException {
+      long chunkLimitTime, int pathIdx, boolean pageCopyable) throws IOException {
     int cnt = 0;
     ChunkReader chunkReader = new ChunkReader(chunk, null);
     while (chunkReader.hasNextSatisfiedPage()) {
+      PageHeader pageHeader = chunkReader.nextPageHeader();
+      if (pageCopyable && pageHeader.getStartTime() > chunk.getDeletedAt()) {
+        // the unseq points before the page precede it anyway
+        cnt += writeRemainingUnseq(chunkWriter, unseqReader, pageHeader.getStartTime(), pathIdx);
+        if (currTimeValuePairs[pathIdx] == null
+            || currTimeValuePairs[pathIdx].getTimestamp() > pageHeader.getEndTime()) {
+          // no unseq point falls in the page
+          cnt += MergeUtils.copyPage(chunkReader, chunkWriter);
+          continue;
+        }
+      }
       BatchData batchData = chunkReader.nextPageData();
       cnt += mergeWriteBatch(batchData, chunkWriter, unseqReader, pathIdx);
     }
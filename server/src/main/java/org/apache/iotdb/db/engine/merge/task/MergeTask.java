@@ -25,7 +25,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -43,6 +45,10 @@ import org.slf4j.LoggerFactory;
  *        2. move the merged chunks in the temp files back to the seqFiles or move the unmerged
  *        chunks in the seqFiles into temp files and replace the seqFiles with the temp files.
  *        3. remove unseqFiles
+ * A MergeTask yields its thread to a much more urgent task queued in the MergeManager by pausing
+ * after a batch of series and queueing itself again with its priority. When it runs again, it
+ * resumes from the next batch. If the MergeManager stops while the task is paused, merge.log is
+ * kept so the merge is resumed by RecoverMergeTask after reboot.
  */
 public class MergeTask implements Callable<Void> {
 
@@ -60,6 +66,13 @@ public class MergeTask implements Callable<Void> {
   String taskName;
   boolean fullMerge;
 
+  private double priority;
+  // the progress of a merge that may be paused
+  private MergeMultiChunkTask mergeChunkTask;
+  private long startTime;
+  private long totalFileSize;
+  private int seriesNum;
+
   MergeTask(List<TsFileResource> seqFiles,
       List<TsFileResource> unseqFiles, String storageGroupSysDir, MergeCallback callback,
       String taskName, boolean fullMerge, String storageGroupName) {
@@ -86,7 +99,14 @@ public class MergeTask implements Callable<Void> {
   @Override
   public Void call() throws Exception {
     try  {
-      doMerge();
+      if (!doMerge()) {
+        MergeManager.getINSTANCE().submitMainTask(this, priority);
+      }
+    } catch (RejectedExecutionException e) {
+      // the MergeManager is stopped, keep merge.log and resume the merge after reboot
+      logger.info("{} is paused and will be resumed after reboot", taskName);
+      resource.clear();
+      mergeLogger.close();
     } catch (Exception e) {
       logger.error("Runtime exception in merge {}", taskName, e);
       cleanUp(false);
@@ -98,13 +118,46 @@ public class MergeTask implements Callable<Void> {
     return null;
   }
 
-  private void doMerge() throws IOException, MetadataException {
+  /**
+   * @return true if the merge ends, false if it is paused
+   */
+  private boolean doMerge() throws IOException, MetadataException {
+    if (mergeChunkTask == null) {
+      startMerge();
+    } else if (logger.isInfoEnabled()) {
+      logger.info("{} is resumed", taskName);
+    }
+    if (!mergeChunkTask.mergeSeries()) {
+      return false;
+    }
+
+    MergeFileTask mergeFileTask = new MergeFileTask(taskName, mergeContext, mergeLogger, resource,
+        resource.getSeqFiles());
+    mergeFileTask.mergeFiles();
+
+    cleanUp(true);
+    if (logger.isInfoEnabled()) {
+      double elapsedTime = (double) (System.currentTimeMillis() - startTime) / 1000.0;
+      double byteRate = totalFileSize / elapsedTime / 1024 / 1024;
+      double seriesRate = seriesNum / elapsedTime;
+      double chunkRate = mergeContext.getTotalChunkWritten() / elapsedTime;
+      double fileRate =
+          (resource.getSeqFiles().size() + resource.getUnseqFiles().size()) / elapsedTime;
+      double ptRate = mergeContext.getTotalPointWritten() / elapsedTime;
+      logger.info("{} ends after {}s, byteRate: {}MB/s, seriesRate {}/s, chunkRate: {}/s, "
+              + "fileRate: {}/s, ptRate: {}/s",
+          taskName, elapsedTime, byteRate, seriesRate, chunkRate, fileRate, ptRate);
+    }
+    return true;
+  }
+
+  private void startMerge() throws IOException, MetadataException {
     if (logger.isInfoEnabled()) {
       logger.info("{} starts to merge {} seqFiles, {} unseqFiles", taskName,
           resource.getSeqFiles().size(), resource.getUnseqFiles().size());
     }
-    long startTime = System.currentTimeMillis();
-    long totalFileSize = MergeUtils.collectFileSizes(resource.getSeqFiles(),
+    startTime = System.currentTimeMillis();
+    totalFileSize = MergeUtils.collectFileSizes(resource.getSeqFiles(),
         resource.getUnseqFiles());
     mergeLogger = new MergeLogger(storageGroupSysDir);
 
@@ -119,30 +172,21 @@ public class MergeTask implements Callable<Void> {
     for (String path : storageGroupPaths) {
       unmergedSeries.add(new Path(path));
     }
+    seriesNum = unmergedSeries.size();
 
     mergeLogger.logMergeStart();
 
-    MergeMultiChunkTask mergeChunkTask = new MergeMultiChunkTask(mergeContext, taskName, mergeLogger, resource,
+    mergeChunkTask = new MergeMultiChunkTask(mergeContext, taskName, mergeLogger, resource,
         fullMerge, unmergedSeries, concurrentMergeSeriesNum);
-    mergeChunkTask.mergeSeries();
+    mergeChunkTask.setPauseCondition(() -> MergeManager.getINSTANCE().shouldPause(priority));
+  }
 
-    MergeFileTask mergeFileTask = new MergeFileTask(taskName, mergeContext, mergeLogger, resource,
-        resource.getSeqFiles());
-    mergeFileTask.mergeFiles();
+  public double getPriority() {
+    return priority;
+  }
 
-    cleanUp(true);
-    if (logger.isInfoEnabled()) {
-      double elapsedTime = (double) (System.currentTimeMillis() - startTime) / 1000.0;
-      double byteRate = totalFileSize / elapsedTime / 1024 / 1024;
-      double seriesRate = unmergedSeries.size() / elapsedTime;
-      double chunkRate = mergeContext.getTotalChunkWritten() / elapsedTime;
-      double fileRate =
-          (resource.getSeqFiles().size() + resource.getUnseqFiles().size()) / elapsedTime;
-      double ptRate = mergeContext.getTotalPointWritten() / elapsedTime;
-      logger.info("{} ends after {}s, byteRate: {}MB/s, seriesRate {}/s, chunkRate: {}/s, "
-              + "fileRate: {}/s, ptRate: {}/s",
-          taskName, elapsedTime, byteRate, seriesRate, chunkRate, fileRate, ptRate);
-    }
+  public void setPriority(double priority) {
+    this.priority = priority;
   }
 
   void cleanUp(boolean executeCallback) throws IOException {
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.task;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.merge.recover.SeqCompactionLogger;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RecoverSeqCompactionTask finishes or discards the sequence compaction interrupted by a crash,
+ * according to "seq_compaction.log". It must run before the TsFiles of the storage group are
+ * loaded. If the end of the compaction was logged, the target file has replaced the source files,
+ * so the remaining source files are removed, otherwise the target file may be incomplete and is
+ * removed.
+ */
+public class RecoverSeqCompactionTask {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecoverSeqCompactionTask.class);
+
+  private String storageGroupSysDir;
+
+  public RecoverSeqCompactionTask(String storageGroupSysDir) {
+    this.storageGroupSysDir = storageGroupSysDir;
+  }
+
+  public void recover() throws IOException {
+    File logFile = new File(storageGroupSysDir, SeqCompactionLogger.SEQ_COMPACTION_LOG_NAME);
+    if (!logFile.exists()) {
+      return;
+    }
+
+    List<File> sourceFiles = new ArrayList<>();
+    File targetFile = null;
+    boolean ended = false;
+    try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+      String line;
+      boolean readingSourceFiles = false;
+      while ((line = reader.readLine()) != null) {
+        switch (line) {
+          case SeqCompactionLogger.STR_SOURCE_FILES:
+            readingSourceFiles = true;
+            break;
+          case SeqCompactionLogger.STR_TARGET_FILE:
+            readingSourceFiles = false;
+            line = reader.readLine();
+            targetFile = line == null ? null : new File(line);
+            break;
+          case SeqCompactionLogger.STR_END:
+            ended = true;
+            break;
+          default:
+            if (readingSourceFiles) {
+              sourceFiles.add(new File(line));
+            }
+            break;
+        }
+      }
+    }
+
+    if (ended) {
+      logger.info("A sequence compaction into {} ended before the system stopped, removing {} "
+          + "source files", targetFile, sourceFiles.size());
+      for (File sourceFile : sourceFiles) {
+        new TsFileResource(sourceFile).remove();
+      }
+    } else if (targetFile != null) {
+      logger.info("A sequence compaction into {} did not end before the system stopped, removing "
+          + "the target file", targetFile);
+      new TsFileResource(targetFile).remove();
+    }
+    logFile.delete();
+  }
+}
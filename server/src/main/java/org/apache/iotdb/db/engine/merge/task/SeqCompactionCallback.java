@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.task;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.engine.merge.recover.SeqCompactionLogger;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+public interface SeqCompactionCallback {
+
+  /**
+   * On calling this method, the callee should, without concurrent queries or deletions:
+   *    1. write the modifications of the sourceFiles into the modification file of the targetFile,
+   *    including those made during the compaction.
+   *    2. log the end of the compaction by compactionLogger.
+   *    3. replace the sourceFiles with the targetFile in its file list.
+   * The sourceFiles are removed by the caller afterwards.
+   */
+  void replaceFiles(List<TsFileResource> sourceFiles, TsFileResource targetFile,
+      SeqCompactionLogger compactionLogger) throws IOException;
+
+  /**
+   * On calling this method, the callee should exit compacting status. It is called once when the
+   * task ends, normally or not.
+   */
+  void end();
+}
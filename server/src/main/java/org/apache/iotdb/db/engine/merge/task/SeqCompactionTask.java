@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.merge.recover.SeqCompactionLogger;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SeqCompactionTask compacts each group of adjacent sequence files into one file. The chunk groups
+ * of the files are appended to the new file in order, and the chunks are copied as they are,
+ * without being decoded, so a compaction costs little more than copying the files. The versions of
+ * the chunk groups are kept, so the modifications of the old files still apply to the new file.
+ * <p>
+ * The new file takes the name of the first file in the group with the merge count increased, so it
+ * takes the place of the group in the file list.
+ */
+public class SeqCompactionTask implements Callable<Void> {
+
+  private static final Logger logger = LoggerFactory.getLogger(SeqCompactionTask.class);
+
+  private List<List<TsFileResource>> fileGroups;
+  private String storageGroupSysDir;
+  private SeqCompactionCallback callback;
+  private String taskName;
+
+  private long totalPointWritten = 0;
+
+  public SeqCompactionTask(List<List<TsFileResource>> fileGroups, String storageGroupSysDir,
+      SeqCompactionCallback callback, String taskName) {
+    this.fileGroups = fileGroups;
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.callback = callback;
+    this.taskName = taskName;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    long startTime = System.currentTimeMillis();
+    int fileNum = 0;
+    try {
+      for (List<TsFileResource> fileGroup : fileGroups) {
+        compact(fileGroup);
+        fileNum += fileGroup.size();
+      }
+    } catch (Exception e) {
+      logger.error("Runtime exception in sequence compaction {}", taskName, e);
+      throw e;
+    } finally {
+      for (List<TsFileResource> fileGroup : fileGroups) {
+        for (TsFileResource seqFile : fileGroup) {
+          seqFile.setMerging(false);
+        }
+      }
+      callback.end();
+    }
+    if (logger.isInfoEnabled()) {
+      double elapsedTime = (double) (System.currentTimeMillis() - startTime) / 1000.0;
+      logger.info("{} compacted {} files into {} files after {}s, ptRate: {}/s", taskName,
+          fileNum, fileGroups.size(), elapsedTime, totalPointWritten / elapsedTime);
+    }
+    return null;
+  }
+
+  private void compact(List<TsFileResource> sourceFiles) throws IOException {
+    File targetFile = MergeFileTask.getNextMergeVersionFile(sourceFiles.get(0).getFile());
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} starts to compact {} files into {}", taskName, sourceFiles.size(),
+          targetFile);
+    }
+    SeqCompactionLogger compactionLogger = new SeqCompactionLogger(storageGroupSysDir);
+    TsFileResource targetResource = new TsFileResource(targetFile);
+    try {
+      compactionLogger.logFiles(sourceFiles, targetFile);
+      writeTargetFile(sourceFiles, targetResource);
+      callback.replaceFiles(sourceFiles, targetResource, compactionLogger);
+    } catch (IOException e) {
+      // the source files are still in use, discard the target file
+      compactionLogger.close();
+      targetResource.remove();
+      new File(storageGroupSysDir, SeqCompactionLogger.SEQ_COMPACTION_LOG_NAME).delete();
+      throw e;
+    }
+    compactionLogger.close();
+
+    for (TsFileResource sourceFile : sourceFiles) {
+      removeSourceFile(sourceFile);
+    }
+    new File(storageGroupSysDir, SeqCompactionLogger.SEQ_COMPACTION_LOG_NAME).delete();
+  }
+
+  private void writeTargetFile(List<TsFileResource> sourceFiles, TsFileResource targetResource)
+      throws IOException {
+    Map<String, MeasurementSchema> measurementSchemas = new HashMap<>();
+    Set<Long> historicalVersions = new HashSet<>();
+    TsFileIOWriter writer = new TsFileIOWriter(targetResource.getFile());
+    try {
+      for (TsFileResource sourceFile : sourceFiles) {
+        try (TsFileSequenceReader reader = new TsFileSequenceReader(
+            sourceFile.getFile().getPath())) {
+          measurementSchemas.putAll(reader.readFileMetadata().getMeasurementSchema());
+          for (ChunkGroupMetaData chunkGroupMetaData :
+              reader.getSortedChunkGroupMetaDataListByDeviceIds()) {
+            writer.startChunkGroup(chunkGroupMetaData.getDeviceID());
+            for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+              Chunk chunk = reader.readMemChunk(chunkMetaData);
+              int chunkSize = chunk.getData().remaining();
+              MergeManager.getINSTANCE().acquireMergeRead(chunkSize);
+              MergeManager.getINSTANCE().acquireMergeWrite(chunkSize);
+              writer.writeChunk(chunk, chunkMetaData);
+              totalPointWritten += chunkMetaData.getNumOfPoints();
+            }
+            writer.endChunkGroup(chunkGroupMetaData.getVersion());
+          }
+        }
+        for (Entry<String, Long> entry : sourceFile.getStartTimeMap().entrySet()) {
+          targetResource.updateStartTime(entry.getKey(), entry.getValue());
+        }
+        for (Entry<String, Long> entry : sourceFile.getEndTimeMap().entrySet()) {
+          targetResource.updateEndTime(entry.getKey(), entry.getValue());
+        }
+        historicalVersions.addAll(sourceFile.getHistoricalVersions());
+      }
+      writer.endFile(new Schema(measurementSchemas));
+    } catch (IOException e) {
+      writer.close();
+      throw e;
+    }
+    targetResource.setHistoricalVersions(historicalVersions);
+    targetResource.serialize();
+    targetResource.setClosed(true);
+  }
+
+  private void removeSourceFile(TsFileResource sourceFile) throws IOException {
+    sourceFile.getWriteQueryLock().writeLock().lock();
+    try {
+      sourceFile.setDeleted(true);
+      TsFileMetaDataCache.getInstance().remove(sourceFile);
+      DeviceMetaDataCache.getInstance().remove(sourceFile);
+      FileReaderManager.getInstance().closeFileAndRemoveReader(sourceFile);
+      sourceFile.remove();
+    } finally {
+      sourceFile.getWriteQueryLock().writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DeviceIdDictionary numbers the devices of one storage group, so that the time indexes of its
+ * sealed TsFiles can refer to the devices by integers instead of each keeping its own copy of the
+ * device ids. Ids are never reused or removed.
+ */
+class DeviceIdDictionary {
+
+  private static final Map<String, DeviceIdDictionary> dictionaries = new ConcurrentHashMap<>();
+
+  private final Map<String, Integer> deviceIdMap = new ConcurrentHashMap<>();
+  private volatile String[] deviceIds = new String[16];
+  private int size = 0;
+
+  static DeviceIdDictionary getInstance(String storageGroupName) {
+    return dictionaries.computeIfAbsent(storageGroupName, name -> new DeviceIdDictionary());
+  }
+
+  /**
+   * @return the id of the device, or -1 if the device is not numbered
+   */
+  int getId(String deviceId) {
+    Integer id = deviceIdMap.get(deviceId);
+    return id == null ? -1 : id;
+  }
+
+  int getOrCreateId(String deviceId) {
+    Integer id = deviceIdMap.get(deviceId);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = deviceIdMap.get(deviceId);
+      if (id != null) {
+        return id;
+      }
+      if (size == deviceIds.length) {
+        deviceIds = Arrays.copyOf(deviceIds, size * 2);
+      }
+      deviceIds[size] = deviceId;
+      // the id is published after the device so that any holder of the id can look it up
+      deviceIdMap.put(deviceId, size);
+      return size++;
+    }
+  }
+
+  String getDeviceId(int id) {
+    return deviceIds[id];
+  }
+}
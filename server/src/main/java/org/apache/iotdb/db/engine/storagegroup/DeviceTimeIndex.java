@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * DeviceTimeIndex is the compact form of the start and end times of the devices in a sealed
+ * TsFile. The devices are kept as their ids in the DeviceIdDictionary of the storage group in a
+ * sorted int array, and their times in two long arrays of the same order, which takes a fraction
+ * of the memory of two maps of boxed times.
+ * <p>
+ * The times are exposed as read-only maps. A device without end time has Long.MIN_VALUE in the
+ * array of end times. The times of the devices in the index can be updated, while adding a device
+ * is not supported, and the TsFileResource falls back to maps in that case.
+ */
+class DeviceTimeIndex {
+
+  private static final long NO_END_TIME = Long.MIN_VALUE;
+
+  private final DeviceIdDictionary dictionary;
+  private final int[] deviceIds;
+  private final long[] startTimes;
+  private final long[] endTimes;
+  private int endTimeNum;
+
+  private final Map<String, Long> startTimeMap = new TimeMapView(true);
+  private final Map<String, Long> endTimeMap = new TimeMapView(false);
+
+  // whether the index differs from the ".resource" file, in which case it cannot be evicted
+  private volatile boolean dirty;
+  // whether the index has been read since it was last checked for eviction
+  private volatile boolean accessed;
+
+  private DeviceTimeIndex(DeviceIdDictionary dictionary, int[] deviceIds, long[] startTimes,
+      long[] endTimes, int endTimeNum) {
+    this.dictionary = dictionary;
+    this.deviceIds = deviceIds;
+    this.startTimes = startTimes;
+    this.endTimes = endTimes;
+    this.endTimeNum = endTimeNum;
+  }
+
+  /**
+   * @return the compact index of the times, or null if some device has an end time but no start
+   * time, which cannot be represented
+   */
+  static DeviceTimeIndex compact(DeviceIdDictionary dictionary, Map<String, Long> startTimeMap,
+      Map<String, Long> endTimeMap) {
+    for (String device : endTimeMap.keySet()) {
+      if (!startTimeMap.containsKey(device)) {
+        return null;
+      }
+    }
+    @SuppressWarnings("unchecked")
+    Entry<String, Long>[] entries = startTimeMap.entrySet().toArray(new Entry[0]);
+    int deviceNum = entries.length;
+    // sort the devices by their ids, each paired with its position in the entries
+    long[] sortedDevices = new long[deviceNum];
+    for (int i = 0; i < deviceNum; i++) {
+      sortedDevices[i] = ((long) dictionary.getOrCreateId(entries[i].getKey()) << 32) | i;
+    }
+    Arrays.sort(sortedDevices);
+
+    int[] deviceIds = new int[deviceNum];
+    long[] startTimes = new long[deviceNum];
+    long[] endTimes = new long[deviceNum];
+    int endTimeNum = 0;
+    for (int i = 0; i < deviceNum; i++) {
+      Entry<String, Long> entry = entries[(int) sortedDevices[i]];
+      deviceIds[i] = (int) (sortedDevices[i] >>> 32);
+      startTimes[i] = entry.getValue();
+      Long endTime = endTimeMap.get(entry.getKey());
+      endTimes[i] = endTime == null ? NO_END_TIME : endTime;
+      if (endTime != null) {
+        endTimeNum++;
+      }
+    }
+    return new DeviceTimeIndex(dictionary, deviceIds, startTimes, endTimes, endTimeNum);
+  }
+
+  Map<String, Long> getStartTimeMap() {
+    return startTimeMap;
+  }
+
+  Map<String, Long> getEndTimeMap() {
+    return endTimeMap;
+  }
+
+  private int indexOf(Object device) {
+    if (!(device instanceof String)) {
+      return -1;
+    }
+    int id = dictionary.getId((String) device);
+    if (id < 0) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(deviceIds, id);
+    return index < 0 ? -1 : index;
+  }
+
+  /**
+   * @param force if false, the time is only updated if it extends the time range of the device
+   * @return false if the device is not in the index
+   */
+  synchronized boolean update(String device, long time, boolean isStartTime, boolean force) {
+    int index = indexOf(device);
+    if (index < 0) {
+      return false;
+    }
+    if (isStartTime) {
+      if (force || time < startTimes[index]) {
+        startTimes[index] = time;
+        dirty = true;
+      }
+    } else if (force || time > endTimes[index]) {
+      if (endTimes[index] == NO_END_TIME) {
+        endTimeNum++;
+      }
+      endTimes[index] = time;
+      dirty = true;
+    }
+    return true;
+  }
+
+  long getMinStartTime() {
+    long minStartTime = Long.MAX_VALUE;
+    for (long startTime : startTimes) {
+      minStartTime = Math.min(minStartTime, startTime);
+    }
+    return minStartTime;
+  }
+
+  long getMaxEndTime() {
+    long maxEndTime = Long.MIN_VALUE;
+    for (long endTime : endTimes) {
+      maxEndTime = Math.max(maxEndTime, endTime);
+    }
+    return maxEndTime;
+  }
+
+  /**
+   * @return the estimated memory taken by the index in byte
+   */
+  long getRamSize() {
+    // the object, its three arrays and two map views
+    return 128L + deviceIds.length * (Integer.BYTES + 2L * Long.BYTES);
+  }
+
+  boolean isDirty() {
+    return dirty;
+  }
+
+  void setDirty(boolean dirty) {
+    this.dirty = dirty;
+  }
+
+  private void markAccessed() {
+    // avoid writing the shared flag on every read
+    if (!accessed) {
+      accessed = true;
+    }
+  }
+
+  /**
+   * @return whether the index has been read since the last call, and reset the flag
+   */
+  boolean checkAndClearAccessed() {
+    boolean wasAccessed = accessed;
+    accessed = false;
+    return wasAccessed;
+  }
+
+  private class TimeMapView extends AbstractMap<String, Long> {
+
+    private final boolean isStartTime;
+
+    private TimeMapView(boolean isStartTime) {
+      this.isStartTime = isStartTime;
+    }
+
+    private long[] times() {
+      return isStartTime ? startTimes : endTimes;
+    }
+
+    @Override
+    public Long get(Object key) {
+      markAccessed();
+      int index = indexOf(key);
+      if (index < 0) {
+        return null;
+      }
+      long time = times()[index];
+      return !isStartTime && time == NO_END_TIME ? null : time;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+      return isStartTime ? deviceIds.length : endTimeNum;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+      markAccessed();
+      return new AbstractSet<Entry<String, Long>>() {
+        @Override
+        public Iterator<Entry<String, Long>> iterator() {
+          return new Iterator<Entry<String, Long>>() {
+            private int next = skipNoEndTime(0);
+
+            private int skipNoEndTime(int index) {
+              while (!isStartTime && index < endTimes.length && endTimes[index] == NO_END_TIME) {
+                index++;
+              }
+              return index;
+            }
+
+            @Override
+            public boolean hasNext() {
+              return next < deviceIds.length;
+            }
+
+            @Override
+            public Entry<String, Long> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              Entry<String, Long> entry = new SimpleImmutableEntry<>(
+                  dictionary.getDeviceId(deviceIds[next]), times()[next]);
+              next = skipNoEndTime(next + 1);
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return TimeMapView.this.size();
+        }
+      };
+    }
+  }
+}
@@ -24,6 +24,7 @@ import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFF
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,22 +39,35 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.cache.LastValueCache;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.recover.SeqCompactionLogger;
 import org.apache.iotdb.db.engine.merge.selector.IMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxFileMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxSeriesMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MergeFileStrategy;
+import org.apache.iotdb.db.engine.merge.selector.SeqCompactionFileSelector;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
 import org.apache.iotdb.db.engine.merge.task.RecoverMergeTask;
+import org.apache.iotdb.db.engine.merge.task.RecoverSeqCompactionTask;
+import org.apache.iotdb.db.engine.merge.task.SeqCompactionCallback;
+import org.apache.iotdb.db.engine.merge.task.SeqCompactionTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
@@ -75,7 +89,9 @@ import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryFileManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
+import org.apache.iotdb.db.utils.MergeUtils;
 import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.db.utils.UpgradeUtils;
 import org.apache.iotdb.db.writelog.recover.TsFileRecoverPerformer;
 import org.apache.iotdb.rpc.TSStatusCode;
@@ -86,7 +102,9 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
@@ -119,6 +137,7 @@ public class StorageGroupProcessor {
   private static final String MERGING_MODIFICATION_FILE_NAME = "merge.mods";
   private static final Logger logger = LoggerFactory.getLogger(StorageGroupProcessor.class);
   private static final int MAX_CACHE_SENSORS = 5000;
+  private static final long RECOVERY_PROGRESS_REPORT_INTERVAL_MS = 10_000L;
   /**
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
    * (i.e., schema, (un)sequenceFileList, work(un)SequenceTsFileProcessor,
@@ -197,6 +216,11 @@ public class StorageGroupProcessor {
   private ModificationFile mergingModification;
   private volatile boolean isMerging = false;
   private long mergeStartTime;
+  // whether the last task submitted by merge() is a merge of unsequence files
+  private boolean lastMergeMergedUnseqFiles = false;
+  // the queries since the last merge of unsequence files, which make the next merge more urgent
+  private AtomicLong queryCntSinceLastMerge = new AtomicLong();
+  private long lastMergeSubmitTime = System.currentTimeMillis();
   /**
    * This linked list records the access order of measurements used by query.
    */
@@ -213,6 +237,12 @@ public class StorageGroupProcessor {
   // including the files generated by merge
   private Set<Long> allDirectFileVersions = new HashSet<>();
 
+  /**
+   * the last point of each series in this storage group, null if last_value_cache_enable is false.
+   */
+  private LastValueCache lastValueCache = IoTDBDescriptor.getInstance().getConfig()
+      .isLastValueCacheEnable() ? new LastValueCache() : null;
+
   public StorageGroupProcessor(String systemInfoDir, String storageGroupName,
       TsFileFlushPolicy fileFlushPolicy)
       throws StorageGroupProcessorException {
@@ -255,14 +285,24 @@ public class StorageGroupProcessor {
     logger.info("recover Storage Group  {}", storageGroupName);
 
     try {
+      // finish or discard the sequence compaction interrupted by a crash before collecting files
+      new RecoverSeqCompactionTask(storageGroupSysDir.getPath()).recover();
+
       // collect TsFiles from sequential and unsequential data directory
       List<TsFileResource> seqTsFiles = getAllFiles(
           DirectoryManager.getInstance().getAllSequenceFileFolders());
       List<TsFileResource> unseqTsFiles =
           getAllFiles(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
 
-      recoverSeqFiles(seqTsFiles);
-      recoverUnseqFiles(unseqTsFiles);
+      List<TsFileRecoverPerformer> seqRecoverPerformers = getRecoverPerformers(seqTsFiles, false);
+      List<TsFileRecoverPerformer> unseqRecoverPerformers = getRecoverPerformers(unseqTsFiles,
+          true);
+      List<TsFileRecoverPerformer> allRecoverPerformers = new ArrayList<>(seqRecoverPerformers);
+      allRecoverPerformers.addAll(unseqRecoverPerformers);
+      checkSealedFiles(allRecoverPerformers);
+
+      recoverSeqFiles(seqTsFiles, seqRecoverPerformers);
+      recoverUnseqFiles(unseqTsFiles, unseqRecoverPerformers);
 
       for (TsFileResource resource : seqTsFiles) {
         allDirectFileVersions.addAll(resource.getHistoricalVersions());
@@ -376,16 +416,83 @@ public class StorageGroupProcessor {
     }
   }
 
-  private void recoverSeqFiles(List<TsFileResource> tsFiles) throws StorageGroupProcessorException {
+  private List<TsFileRecoverPerformer> getRecoverPerformers(List<TsFileResource> tsFiles,
+      boolean isUnseq) {
+    List<TsFileRecoverPerformer> recoverPerformers = new ArrayList<>(tsFiles.size());
+    for (int i = 0; i < tsFiles.size(); i++) {
+      TsFileResource tsFileResource = tsFiles.get(i);
+      long timePartitionId = getTimePartitionFromTsFileResource(tsFileResource);
+      recoverPerformers.add(new TsFileRecoverPerformer(storageGroupName + "-", schema,
+          getVersionControllerByTimePartitionId(timePartitionId), tsFileResource, isUnseq,
+          i == tsFiles.size() - 1));
+    }
+    return recoverPerformers;
+  }
+
+  /**
+   * Check the TsFiles and load the resources of the sealed ones concurrently, which takes most of
+   * the recovery time of a storage group with many files. Only the unsealed files are left to the
+   * WAL replay, which is still done one file after another. The progress is logged periodically.
+   */
+  private void checkSealedFiles(List<TsFileRecoverPerformer> recoverPerformers)
+      throws StorageGroupProcessorException {
+    int fileNum = recoverPerformers.size();
+    if (fileNum == 0) {
+      return;
+    }
+    int threadNum = Math.min(fileNum,
+        IoTDBDescriptor.getInstance().getConfig().getConcurrentRecoveryThread());
+    ExecutorService recoveryPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(threadNum, storageGroupName + "-Recovery");
+    long startTime = System.currentTimeMillis();
+    AtomicInteger checkedNum = new AtomicInteger();
+    AtomicInteger unsealedNum = new AtomicInteger();
+    AtomicLong lastReportTime = new AtomicLong(startTime);
+    try {
+      List<Future<Void>> futures = new ArrayList<>(fileNum);
+      for (TsFileRecoverPerformer recoverPerformer : recoverPerformers) {
+        futures.add(recoveryPool.submit(() -> {
+          if (!recoverPerformer.checkSealedFile()) {
+            unsealedNum.incrementAndGet();
+          }
+          int checked = checkedNum.incrementAndGet();
+          long lastReport = lastReportTime.get();
+          long now = System.currentTimeMillis();
+          if (now - lastReport >= RECOVERY_PROGRESS_REPORT_INTERVAL_MS
+              && lastReportTime.compareAndSet(lastReport, now)) {
+            logger.info("{} has checked {}/{} TsFiles in {}ms", storageGroupName, checked,
+                fileNum, now - startTime);
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageGroupProcessorException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof StorageGroupProcessorException) {
+        throw (StorageGroupProcessorException) e.getCause();
+      }
+      throw new StorageGroupProcessorException(e);
+    } finally {
+      recoveryPool.shutdownNow();
+    }
+    logger.info("{} has checked {} TsFiles with {} threads in {}ms, {} of them need WAL replay",
+        storageGroupName, fileNum, threadNum, System.currentTimeMillis() - startTime,
+        unsealedNum.get());
+  }
+
+  private void recoverSeqFiles(List<TsFileResource> tsFiles,
+      List<TsFileRecoverPerformer> recoverPerformers) throws StorageGroupProcessorException {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
       sequenceFileTreeSet.add(tsFileResource);
       long timePartitionId = getTimePartitionFromTsFileResource(tsFileResource);
 
-      TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
-          schema, getVersionControllerByTimePartitionId(timePartitionId), tsFileResource, false,
-          i == tsFiles.size() - 1);
-      RestorableTsFileIOWriter writer = recoverPerformer.recover();
+      RestorableTsFileIOWriter writer = recoverPerformers.get(i).recover();
       if (i != tsFiles.size() - 1 || !writer.canWrite()) {
         // not the last file or cannot write, just close it
         tsFileResource.setClosed(true);
@@ -403,17 +510,14 @@ public class StorageGroupProcessor {
     }
   }
 
-  private void recoverUnseqFiles(List<TsFileResource> tsFiles)
-      throws StorageGroupProcessorException {
+  private void recoverUnseqFiles(List<TsFileResource> tsFiles,
+      List<TsFileRecoverPerformer> recoverPerformers) throws StorageGroupProcessorException {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
       unSequenceFileList.add(tsFileResource);
       long timePartitionId = getTimePartitionFromTsFileResource(tsFileResource);
 
-      TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
-          schema, getVersionControllerByTimePartitionId(timePartitionId), tsFileResource, true,
-          i == tsFiles.size() - 1);
-      RestorableTsFileIOWriter writer = recoverPerformer.recover();
+      RestorableTsFileIOWriter writer = recoverPerformers.get(i).recover();
       if (i != tsFiles.size() - 1 || !writer.canWrite()) {
         // not the last file or cannot write, just close it
         tsFileResource.setClosed(true);
@@ -478,6 +582,7 @@ public class StorageGroupProcessor {
     }
     writeLock();
     try {
+      Long latestTimeOfDevice = getLatestTimeOfDevice(insertPlan.getDeviceId());
       // init map
       long timePartitionId = fromTimeToTimePartition(insertPlan.getTime());
       latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>())
@@ -486,9 +591,13 @@ public class StorageGroupProcessor {
           .putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
 
       // insert to sequence or unSequence file
-      insertToTsFileProcessor(insertPlan,
+      boolean result = insertToTsFileProcessor(insertPlan,
           insertPlan.getTime() > latestFlushedTimeForEachDevice.get(timePartitionId)
               .get(insertPlan.getDeviceId()));
+
+      if (result && lastValueCache != null) {
+        updateLastValueCache(insertPlan, latestTimeOfDevice);
+      }
     } finally {
       writeUnlock();
     }
@@ -497,6 +606,7 @@ public class StorageGroupProcessor {
   public Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
     writeLock();
     try {
+      Long latestTimeOfDevice = getLatestTimeOfDevice(batchInsertPlan.getDeviceId());
       Integer[] results = new Integer[batchInsertPlan.getRowCount()];
 
       /*
@@ -564,6 +674,9 @@ public class StorageGroupProcessor {
             beforeTimePartition);
       }
 
+      if (lastValueCache != null) {
+        updateLastValueCache(batchInsertPlan, results, latestTimeOfDevice);
+      }
       return results;
     } finally {
       writeUnlock();
@@ -577,6 +690,94 @@ public class StorageGroupProcessor {
     return dataTTL == Long.MAX_VALUE || (System.currentTimeMillis() - time) <= dataTTL;
   }
 
+  /**
+   * @return the largest timestamp of the device among all time partitions, null if the device has
+   * no data
+   */
+  private Long getLatestTimeOfDevice(String deviceId) {
+    Long latestTime = null;
+    for (Map<String, Long> latestTimeMap : latestTimeForEachDevice.values()) {
+      Long curTime = latestTimeMap.get(deviceId);
+      if (curTime != null && (latestTime == null || latestTime < curTime)) {
+        latestTime = curTime;
+      }
+    }
+    return latestTime;
+  }
+
+  /**
+   * update the last value cache with an inserted record.
+   *
+   * @param latestTimeOfDevice the latest time of the device before the insertion
+   */
+  private void updateLastValueCache(InsertPlan insertPlan, Long latestTimeOfDevice) {
+    long time = insertPlan.getTime();
+    boolean newerThanDevice = latestTimeOfDevice == null || time > latestTimeOfDevice;
+    // the values have been parsed by the memtable
+    Object[] values = insertPlan.getParsedValues();
+    for (int i = 0; i < insertPlan.getMeasurements().length; i++) {
+      lastValueCache.update(
+          insertPlan.getDeviceId() + IoTDBConstant.PATH_SEPARATOR + insertPlan.getMeasurements()[i],
+          time, TsPrimitiveType.getByType(insertPlan.getDataTypes()[i], values[i]),
+          newerThanDevice);
+    }
+  }
+
+  /**
+   * update the last value cache with the latest successfully inserted row of a batch.
+   *
+   * @param latestTimeOfDevice the latest time of the device before the insertion
+   */
+  private void updateLastValueCache(BatchInsertPlan batchInsertPlan, Integer[] results,
+      Long latestTimeOfDevice) {
+    long[] times = batchInsertPlan.getTimes();
+    int lastRow = -1;
+    for (int i = 0; i < batchInsertPlan.getRowCount(); i++) {
+      if (results[i] != null && results[i] == TSStatusCode.SUCCESS_STATUS.getStatusCode()
+          && (lastRow == -1 || times[i] >= times[lastRow])) {
+        lastRow = i;
+      }
+    }
+    if (lastRow == -1) {
+      return;
+    }
+    boolean newerThanDevice = latestTimeOfDevice == null || times[lastRow] > latestTimeOfDevice;
+    for (int i = 0; i < batchInsertPlan.getMeasurements().length; i++) {
+      TSDataType dataType = batchInsertPlan.getDataTypes()[i];
+      Object value = Array.get(batchInsertPlan.getColumns()[i], lastRow);
+      lastValueCache.update(batchInsertPlan.getDeviceId() + IoTDBConstant.PATH_SEPARATOR
+              + batchInsertPlan.getMeasurements()[i], times[lastRow],
+          TsPrimitiveType.getByType(dataType, value), newerThanDevice);
+    }
+  }
+
+  /**
+   * @return the cached last point of the series, null if it is unknown or out of ttl
+   */
+  public TimeValuePair getCachedLastValue(String seriesPath) {
+    if (lastValueCache == null) {
+      return null;
+    }
+    TimeValuePair lastValue = lastValueCache.get(seriesPath);
+    return lastValue != null && checkTTL(lastValue.getTimestamp()) ? lastValue : null;
+  }
+
+  /**
+   * the last points become unknown when files are loaded into or removed from the storage group.
+   */
+  private void clearLastValueCache() {
+    if (lastValueCache != null) {
+      lastValueCache.clear();
+    }
+  }
+
+  /**
+   * @return the last value cache of this storage group, null if last_value_cache_enable is false
+   */
+  public LastValueCache getLastValueCache() {
+    return lastValueCache;
+  }
+
   /**
    * insert batch to tsfile processor thread-safety that the caller need to guarantee
    *
@@ -621,7 +822,10 @@ public class StorageGroupProcessor {
   }
 
 
-  private void insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
+  /**
+   * @return whether the record is inserted
+   */
+  private boolean insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
       throws QueryProcessException {
     TsFileProcessor tsFileProcessor;
     boolean result;
@@ -630,7 +834,7 @@ public class StorageGroupProcessor {
     tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
 
     if (tsFileProcessor == null) {
-      return;
+      return false;
     }
 
     // insert TsFileProcessor
@@ -648,6 +852,7 @@ public class StorageGroupProcessor {
     if (tsFileProcessor.shouldFlush()) {
       fileFlushPolicy.apply(this, tsFileProcessor, sequence);
     }
+    return result;
   }
 
   private TsFileProcessor getOrCreateTsFileProcessor(long timeRangeId, boolean sequence) {
@@ -860,10 +1065,18 @@ public class StorageGroupProcessor {
 
       this.workSequenceTsFileProcessors.clear();
       this.workUnsequenceTsFileProcessors.clear();
+      // release the time indexes of the dropped files held by the TimeIndexManager
+      for (TsFileResource resource : sequenceFileTreeSet) {
+        resource.setDeleted(true);
+      }
+      for (TsFileResource resource : unSequenceFileList) {
+        resource.setDeleted(true);
+      }
       this.sequenceFileTreeSet.clear();
       this.unSequenceFileList.clear();
       this.latestFlushedTimeForEachDevice.clear();
       this.latestTimeForEachDevice.clear();
+      clearLastValueCache();
     } finally {
       writeUnlock();
     }
@@ -986,6 +1199,15 @@ public class StorageGroupProcessor {
   // TODO need a read lock, please consider the concurrency with flush manager threads.
   public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
       QueryFileManager filePathsManager) {
+    return query(deviceId, measurementId, context, filePathsManager, null);
+  }
+
+  /**
+   * @param timeFilter the sealed files whose time ranges do not satisfy the filter are skipped.
+   * Null if no filter.
+   */
+  public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
+      QueryFileManager filePathsManager, Filter timeFilter) {
     insertLock.readLock().lock();
     mergeLock.readLock().lock();
     synchronized (lruForSensorUsedInQuery) {
@@ -994,11 +1216,12 @@ public class StorageGroupProcessor {
       }
       lruForSensorUsedInQuery.add(measurementId);
     }
+    queryCntSinceLastMerge.incrementAndGet();
     try {
       List<TsFileResource> seqResources = getFileResourceListForQuery(sequenceFileTreeSet,
-          deviceId, measurementId, context);
+          deviceId, measurementId, context, timeFilter);
       List<TsFileResource> unseqResources = getFileResourceListForQuery(unSequenceFileList,
-          deviceId, measurementId, context);
+          deviceId, measurementId, context, timeFilter);
       QueryDataSource dataSource = new QueryDataSource(new Path(deviceId, measurementId),
           seqResources, unseqResources);
       // used files should be added before mergeLock is unlocked, or they may be deleted by
@@ -1051,7 +1274,7 @@ public class StorageGroupProcessor {
    */
   private List<TsFileResource> getFileResourceListForQuery(
       Collection<TsFileResource> tsFileResources,
-      String deviceId, String measurementId, QueryContext context) {
+      String deviceId, String measurementId, QueryContext context, Filter timeFilter) {
 
     MeasurementSchema mSchema = schema.getMeasurementSchema(measurementId);
     TSDataType dataType = mSchema.getType();
@@ -1062,8 +1285,10 @@ public class StorageGroupProcessor {
     context.setQueryTimeLowerBound(timeLowerBound);
 
     for (TsFileResource tsFileResource : tsFileResources) {
-      // TODO: try filtering files if the query contains time filter
-      if (!testResourceDevice(tsFileResource, deviceId)) {
+      // the time range of a sealed file is checked first, so the time index of an old file is
+      // not loaded for a query on recent data
+      if (tsFileResource.isClosed() && !tsFileResource.isSatisfied(timeFilter)
+          || !testResourceDevice(tsFileResource, deviceId)) {
         continue;
       }
       closeQueryLock.readLock().lock();
@@ -1122,13 +1347,7 @@ public class StorageGroupProcessor {
     List<ModificationFile> updatedModFiles = new ArrayList<>();
 
     try {
-      Long lastUpdateTime = null;
-      for (Map<String, Long> latestTimeMap : latestTimeForEachDevice.values()) {
-        Long curTime = latestTimeMap.get(deviceId);
-        if (curTime != null && (lastUpdateTime == null || lastUpdateTime < curTime)) {
-          lastUpdateTime = curTime;
-        }
-      }
+      Long lastUpdateTime = getLatestTimeOfDevice(deviceId);
 
       // There is no tsfile data, the delete operation is invalid
       if (lastUpdateTime == null) {
@@ -1167,6 +1386,10 @@ public class StorageGroupProcessor {
       deleteDataInFiles(sequenceFileTreeSet, deletion, updatedModFiles);
       deleteDataInFiles(unSequenceFileList, deletion, updatedModFiles);
 
+      if (lastValueCache != null) {
+        lastValueCache.delete(fullPath.getFullPath(), timestamp);
+      }
+
     } catch (Exception e) {
       // roll back
       for (ModificationFile modFile : updatedModFiles) {
@@ -1298,57 +1521,120 @@ public class StorageGroupProcessor {
         return;
       }
       waitForAllCurrentTsFileProcessorsClosed();
-      if (unSequenceFileList.isEmpty() || sequenceFileTreeSet.isEmpty()) {
-        logger.info("{} no files to be merged", storageGroupName);
+
+      // merges of unsequence files and sequence compactions take turns, the other one is tried
+      // if the preferred one has no candidates
+      boolean mergeUnseqFilesFirst = !lastMergeMergedUnseqFiles;
+      if (mergeUnseqFilesFirst && mergeUnseqFiles(fullMerge)) {
         return;
       }
+      if (compactSeqFiles()) {
+        return;
+      }
+      if (!mergeUnseqFilesFirst) {
+        mergeUnseqFiles(fullMerge);
+      }
+    } finally {
+      writeUnlock();
+    }
+  }
 
-      long budget = IoTDBDescriptor.getInstance().getConfig().getMergeMemoryBudget();
-      long timeLowerBound = System.currentTimeMillis() - dataTTL;
-      MergeResource mergeResource = new MergeResource(sequenceFileTreeSet, unSequenceFileList,
-          timeLowerBound);
+  /**
+   * @return whether a merge task is submitted
+   */
+  private boolean mergeUnseqFiles(boolean fullMerge) {
+    if (unSequenceFileList.isEmpty() || sequenceFileTreeSet.isEmpty()) {
+      logger.info("{} no files to be merged", storageGroupName);
+      return false;
+    }
 
-      IMergeFileSelector fileSelector = getMergeFileSelector(budget, mergeResource);
-      try {
-        List[] mergeFiles = fileSelector.select();
-        if (mergeFiles.length == 0) {
-          logger.info("{} cannot select merge candidates under the budget {}", storageGroupName,
-              budget);
-          return;
-        }
-        // avoid pending tasks holds the metadata and streams
-        mergeResource.clear();
-        String taskName = storageGroupName + "-" + System.currentTimeMillis();
-        // do not cache metadata until true candidates are chosen, or too much metadata will be
-        // cached during selection
-        mergeResource.setCacheDeviceMeta(true);
-
-        for (TsFileResource tsFileResource : mergeResource.getSeqFiles()) {
-          tsFileResource.setMerging(true);
-        }
-        for (TsFileResource tsFileResource : mergeResource.getUnseqFiles()) {
-          tsFileResource.setMerging(true);
-        }
+    long budget = IoTDBDescriptor.getInstance().getConfig().getMergeMemoryBudget();
+    long timeLowerBound = System.currentTimeMillis() - dataTTL;
+    MergeResource mergeResource = new MergeResource(sequenceFileTreeSet, unSequenceFileList,
+        timeLowerBound);
 
-        MergeTask mergeTask = new MergeTask(mergeResource, storageGroupSysDir.getPath(),
-            this::mergeEndAction, taskName, fullMerge, fileSelector.getConcurrentMergeNum(),
-            storageGroupName);
-        mergingModification = new ModificationFile(
-            storageGroupSysDir + File.separator + MERGING_MODIFICATION_FILE_NAME);
-        MergeManager.getINSTANCE().submitMainTask(mergeTask);
-        if (logger.isInfoEnabled()) {
-          logger.info("{} submits a merge task {}, merging {} seqFiles, {} unseqFiles",
-              storageGroupName, taskName, mergeFiles[0].size(), mergeFiles[1].size());
-        }
-        isMerging = true;
-        mergeStartTime = System.currentTimeMillis();
+    IMergeFileSelector fileSelector = getMergeFileSelector(budget, mergeResource);
+    try {
+      List[] mergeFiles = fileSelector.select();
+      if (mergeFiles.length == 0) {
+        logger.info("{} cannot select merge candidates under the budget {}", storageGroupName,
+            budget);
+        return false;
+      }
+      // avoid pending tasks holds the metadata and streams
+      mergeResource.clear();
+      String taskName = storageGroupName + "-" + System.currentTimeMillis();
+      // do not cache metadata until true candidates are chosen, or too much metadata will be
+      // cached during selection
+      mergeResource.setCacheDeviceMeta(true);
 
-      } catch (MergeException | IOException e) {
-        logger.error("{} cannot select file for merge", storageGroupName, e);
+      for (TsFileResource tsFileResource : mergeResource.getSeqFiles()) {
+        tsFileResource.setMerging(true);
       }
-    } finally {
-      writeUnlock();
+      for (TsFileResource tsFileResource : mergeResource.getUnseqFiles()) {
+        tsFileResource.setMerging(true);
+      }
+
+      MergeTask mergeTask = new MergeTask(mergeResource, storageGroupSysDir.getPath(),
+          this::mergeEndAction, taskName, fullMerge, fileSelector.getConcurrentMergeNum(),
+          storageGroupName);
+      long currTime = System.currentTimeMillis();
+      double queryFrequency = queryCntSinceLastMerge.getAndSet(0) * 1000.0
+          / Math.max(currTime - lastMergeSubmitTime, 1000);
+      lastMergeSubmitTime = currTime;
+      mergeTask.setPriority(MergeUtils.calculateMergePriority(mergeResource.getSeqFiles(),
+          mergeResource.getUnseqFiles(), queryFrequency));
+      mergingModification = new ModificationFile(
+          storageGroupSysDir + File.separator + MERGING_MODIFICATION_FILE_NAME);
+      MergeManager.getINSTANCE().submitMainTask(mergeTask, mergeTask.getPriority());
+      if (logger.isInfoEnabled()) {
+        logger.info("{} submits a merge task {}, merging {} seqFiles, {} unseqFiles, priority: {}",
+            storageGroupName, taskName, mergeFiles[0].size(), mergeFiles[1].size(),
+            mergeTask.getPriority());
+      }
+      isMerging = true;
+      lastMergeMergedUnseqFiles = true;
+      mergeStartTime = System.currentTimeMillis();
+      return true;
+    } catch (MergeException | IOException e) {
+      logger.error("{} cannot select file for merge", storageGroupName, e);
+      return false;
+    }
+  }
+
+  /**
+   * @return whether a sequence compaction task is submitted
+   */
+  private boolean compactSeqFiles() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    if (!config.isEnableSeqCompaction()) {
+      return false;
     }
+    SeqCompactionFileSelector fileSelector = new SeqCompactionFileSelector(sequenceFileTreeSet,
+        System.currentTimeMillis() - dataTTL, config.getSeqCompactionFileNum(),
+        config.getSeqCompactionSmallFileSize(), config.getSeqCompactionMaxFileSize());
+    List<List<TsFileResource>> fileGroups = fileSelector.select();
+    if (fileGroups.isEmpty()) {
+      logger.info("{} no sequence files to be compacted", storageGroupName);
+      return false;
+    }
+    for (List<TsFileResource> fileGroup : fileGroups) {
+      for (TsFileResource seqFile : fileGroup) {
+        seqFile.setMerging(true);
+      }
+    }
+    String taskName = storageGroupName + "-seq-" + System.currentTimeMillis();
+    SeqCompactionTask compactionTask = new SeqCompactionTask(fileGroups,
+        storageGroupSysDir.getPath(), new SeqCompactionEndAction(), taskName);
+    // compactions only reduce the number of sequence files, so they run when no merge of
+    // unsequence files is waiting
+    MergeManager.getINSTANCE().submitMainTask(compactionTask, 0);
+    logger.info("{} submits a sequence compaction task {}, compacting {} groups of files",
+        storageGroupName, taskName, fileGroups.size());
+    isMerging = true;
+    lastMergeMergedUnseqFiles = false;
+    mergeStartTime = System.currentTimeMillis();
+    return true;
   }
 
   private IMergeFileSelector getMergeFileSelector(long budget, MergeResource resource) {
@@ -1448,6 +1734,46 @@ public class StorageGroupProcessor {
     logger.info("{} a merge task ends", storageGroupName);
   }
 
+  /**
+   * SeqCompactionEndAction replaces the compacted sequence files with the new file.
+   */
+  private class SeqCompactionEndAction implements SeqCompactionCallback {
+
+    @Override
+    public void replaceFiles(List<TsFileResource> sourceFiles, TsFileResource targetFile,
+        SeqCompactionLogger compactionLogger) throws IOException {
+      writeLock();
+      mergeLock.writeLock().lock();
+      try {
+        // the deletions are also written into the modification files of the source files during
+        // the compaction, and the versions of the chunks are kept, so the modifications apply to
+        // the target file in the same way
+        ModificationFile targetModFile = targetFile.getModFile();
+        for (TsFileResource sourceFile : sourceFiles) {
+          for (Modification modification : sourceFile.getModFile().getModifications()) {
+            targetModFile.write(modification);
+          }
+        }
+        targetModFile.close();
+        compactionLogger.logEnd();
+
+        sequenceFileTreeSet.removeAll(sourceFiles);
+        sequenceFileTreeSet.add(targetFile);
+      } finally {
+        mergeLock.writeLock().unlock();
+        writeUnlock();
+      }
+      logger.info("{} compacted {} sequence files into {}", storageGroupName, sourceFiles.size(),
+          targetFile);
+    }
+
+    @Override
+    public void end() {
+      isMerging = false;
+      logger.info("{} a sequence compaction task ends", storageGroupName);
+    }
+  }
+
   /**
    * Load a new tsfile to storage group processor. The mechanism of the sync module will make sure
    * that there has no file which is overlapping with the new file.
@@ -1470,6 +1796,7 @@ public class StorageGroupProcessor {
     try {
       loadTsFileByType(LoadTsFileType.LOAD_SEQUENCE, tsfileToBeInserted, newTsFileResource);
       updateLatestTimeMap(newTsFileResource);
+      clearLastValueCache();
     } catch (DiskSpaceInsufficientException e) {
       logger.error(
           "Failed to append the tsfile {} to storage group processor {} because the disk space is insufficient.",
@@ -1509,6 +1836,8 @@ public class StorageGroupProcessor {
       outer:
       for (int i = 0; i < sequenceList.size(); i++) {
         if (sequenceList.get(i).getFile().getName().equals(tsfileToBeInserted.getName())) {
+          // the file is already loaded, the new resource will not be used
+          newTsFileResource.setDeleted(true);
           return;
         }
         if (i == sequenceList.size() - 1 && sequenceList.get(i).getEndTimeMap().isEmpty()) {
@@ -1565,6 +1894,7 @@ public class StorageGroupProcessor {
       // update latest time map
       updateLatestTimeMap(newTsFileResource);
       allDirectFileVersions.addAll(newTsFileResource.getHistoricalVersions());
+      clearLastValueCache();
     } catch (DiskSpaceInsufficientException e) {
       logger.error(
           "Failed to append the tsfile {} to storage group processor {} because the disk space is insufficient.",
@@ -1764,6 +2094,9 @@ public class StorageGroupProcessor {
           }
         }
       }
+      if (tsFileResourceToBeDeleted != null) {
+        clearLastValueCache();
+      }
     } finally {
       mergeLock.writeLock().unlock();
       writeUnlock();
@@ -1822,6 +2155,9 @@ public class StorageGroupProcessor {
           }
         }
       }
+      if (tsFileResourceToBeMoved != null) {
+        clearLastValueCache();
+      }
     } finally {
       mergeLock.writeLock().unlock();
       writeUnlock();
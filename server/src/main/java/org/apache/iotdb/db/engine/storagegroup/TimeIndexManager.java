@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+/**
+ * TimeIndexManager bounds the memory taken by the compact device time indexes of the sealed
+ * TsFiles. When the indexes exceed the budget, the index of a file that has not been read recently
+ * is dropped (CLOCK replacement), and the TsFileResource reads it again from its ".resource" file
+ * when it is needed. Only indexes that do not differ from their ".resource" files are dropped.
+ * <p>
+ * The manager calls into a TsFileResource while holding its own lock, so a TsFileResource must
+ * not call the manager while it holds the lock of its time index.
+ */
+class TimeIndexManager {
+
+  // resource -> the memory its time index takes
+  private final Map<TsFileResource, Long> indexSizes = new IdentityHashMap<>();
+  // the registered resources in the order to be checked for eviction
+  private final Deque<TsFileResource> clock = new ArrayDeque<>();
+  private long usedMemory = 0;
+
+  private TimeIndexManager() {
+  }
+
+  public static TimeIndexManager getInstance() {
+    return InstanceHolder.instance;
+  }
+
+  /**
+   * Account the time index of the resource, which has just been built or loaded, and evict other
+   * indexes if the budget is exceeded. Nothing is accounted if there is no budget, so that the
+   * resources are not referenced by the manager.
+   */
+  synchronized void register(TsFileResource resource, long size) {
+    if (IoTDBDescriptor.getInstance().getConfig().getTimeIndexMemoryBudget() <= 0) {
+      return;
+    }
+    Long prevSize = indexSizes.put(resource, size);
+    if (prevSize == null) {
+      clock.addLast(resource);
+      prevSize = 0L;
+    }
+    usedMemory += size - prevSize;
+    evictIfNecessary();
+  }
+
+  /**
+   * Stop accounting the time index of the resource because it is replaced by maps or the file is
+   * removed.
+   */
+  synchronized void unregister(TsFileResource resource) {
+    Long size = indexSizes.remove(resource);
+    if (size != null) {
+      usedMemory -= size;
+      // resources are equal if their files are, so they are removed by identity
+      clock.removeIf(registered -> registered == resource);
+    }
+  }
+
+  synchronized boolean isRegistered(TsFileResource resource) {
+    return indexSizes.containsKey(resource);
+  }
+
+  private void evictIfNecessary() {
+    long budget = IoTDBDescriptor.getInstance().getConfig().getTimeIndexMemoryBudget();
+    // each resource is visited at most twice: once to clear its access flag and once to evict it
+    int remainingChecks = clock.size() * 2;
+    while (usedMemory > budget && remainingChecks-- > 0 && !clock.isEmpty()) {
+      TsFileResource resource = clock.pollFirst();
+      if (!resource.checkAndClearTimeIndexAccessed() && resource.evictTimeIndex()) {
+        usedMemory -= indexSizes.remove(resource);
+      } else {
+        // recently read or cannot be evicted now, give it another chance
+        clock.addLast(resource);
+      }
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+    }
+
+    private static TimeIndexManager instance = new TimeIndexManager();
+  }
+}
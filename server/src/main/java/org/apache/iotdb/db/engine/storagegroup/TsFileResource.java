@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,8 +42,11 @@ import org.apache.iotdb.db.engine.upgrade.UpgradeTask;
 import org.apache.iotdb.db.service.UpgradeSevice;
 import org.apache.iotdb.db.utils.UpgradeUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,14 +63,36 @@ public class TsFileResource {
   private static final String CLOSING_SUFFIX = ".closing";
 
   /**
-   * device -> start time
+   * device -> start time. It is null if the times are kept in the compact time index.
    */
-  private Map<String, Long> startTimeMap;
+  private volatile Map<String, Long> startTimeMap;
 
   /**
-   * device -> end time. It is null if it's an unsealed sequence tsfile
+   * device -> end time. It is null if the times are kept in the compact time index.
    */
-  private Map<String, Long> endTimeMap;
+  private volatile Map<String, Long> endTimeMap;
+
+  /**
+   * The times of a sealed tsfile are compacted into a DeviceTimeIndex instead of the maps, which
+   * may be evicted by the TimeIndexManager and read again from the ".resource" file when needed.
+   * It is only valid when the maps are null.
+   */
+  private volatile DeviceTimeIndex timeIndex;
+
+  /**
+   * The minimum start time and maximum end time of all devices, which are kept in memory even if
+   * the time index is evicted. They are only valid when the maps are null.
+   */
+  private volatile long minStartTime = Long.MAX_VALUE;
+  private volatile long maxEndTime = Long.MIN_VALUE;
+
+  /**
+   * whether the ".resource" file is the same as the maps, so the compact time index built from the
+   * maps can be evicted
+   */
+  private volatile boolean serialized = false;
+
+  private final Object timeIndexLock = new Object();
 
   public TsFileProcessor getProcessor() {
     return processor;
@@ -137,15 +163,41 @@ public class TsFileResource {
   }
 
   public void serialize() throws IOException {
+    DeviceTimeIndex loadedIndex = null;
+    try {
+      // the compact time index is not changed while it is written
+      synchronized (timeIndexLock) {
+        if (startTimeMap != null) {
+          doSerialize(startTimeMap, endTimeMap);
+          serialized = true;
+        } else {
+          DeviceTimeIndex index = timeIndex;
+          if (index == null) {
+            index = loadTimeIndex();
+            loadedIndex = index;
+          }
+          doSerialize(index.getStartTimeMap(), index.getEndTimeMap());
+          index.setDirty(false);
+        }
+      }
+    } finally {
+      if (loadedIndex != null) {
+        TimeIndexManager.getInstance().register(this, loadedIndex.getRamSize());
+      }
+    }
+  }
+
+  private void doSerialize(Map<String, Long> startTimes, Map<String, Long> endTimes)
+      throws IOException {
     try (OutputStream outputStream = fsFactory.getBufferedOutputStream(
         file + RESOURCE_SUFFIX + TEMP_SUFFIX)) {
-      ReadWriteIOUtils.write(this.startTimeMap.size(), outputStream);
-      for (Entry<String, Long> entry : this.startTimeMap.entrySet()) {
+      ReadWriteIOUtils.write(startTimes.size(), outputStream);
+      for (Entry<String, Long> entry : startTimes.entrySet()) {
         ReadWriteIOUtils.write(entry.getKey(), outputStream);
         ReadWriteIOUtils.write(entry.getValue(), outputStream);
       }
-      ReadWriteIOUtils.write(this.endTimeMap.size(), outputStream);
-      for (Entry<String, Long> entry : this.endTimeMap.entrySet()) {
+      ReadWriteIOUtils.write(endTimes.size(), outputStream);
+      for (Entry<String, Long> entry : endTimes.entrySet()) {
         ReadWriteIOUtils.write(entry.getKey(), outputStream);
         ReadWriteIOUtils.write(entry.getValue(), outputStream);
       }
@@ -166,22 +218,10 @@ public class TsFileResource {
   public void deSerialize() throws IOException {
     try (InputStream inputStream = fsFactory.getBufferedInputStream(
         file + RESOURCE_SUFFIX)) {
-      int size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> startTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        startTimes.put(path, time);
-      }
-      size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> endTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        endTimes.put(path, time);
-      }
-      this.startTimeMap = startTimes;
-      this.endTimeMap = endTimes;
+      Map<String, Long> startTimes = readTimeMap(inputStream);
+      Map<String, Long> endTimes = readTimeMap(inputStream);
+      // the deserialized times are the same as the file, so the index can be evicted at once
+      compactTimeIndex(startTimes, endTimes, false);
 
       if (inputStream.available() > 0) {
         int versionSize = ReadWriteIOUtils.readInt(inputStream);
@@ -197,26 +237,127 @@ public class TsFileResource {
     }
   }
 
+  private static Map<String, Long> readTimeMap(InputStream inputStream) throws IOException {
+    int size = ReadWriteIOUtils.readInt(inputStream);
+    Map<String, Long> times = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String path = ReadWriteIOUtils.readString(inputStream);
+      long time = ReadWriteIOUtils.readLong(inputStream);
+      times.put(path, time);
+    }
+    return times;
+  }
+
   public void updateStartTime(String device, long time) {
-    long startTime = startTimeMap.getOrDefault(device, Long.MAX_VALUE);
+    Map<String, Long> startTimes = startTimeMap;
+    if (startTimes == null) {
+      updateTimeIndex(device, time, true, false);
+      return;
+    }
+    long startTime = startTimes.getOrDefault(device, Long.MAX_VALUE);
     if (time < startTime) {
-      startTimeMap.put(device, time);
+      startTimes.put(device, time);
+      afterMapUpdate(device, time, true, false);
     }
   }
 
   public void updateEndTime(String device, long time) {
-    long endTime = endTimeMap.getOrDefault(device, Long.MIN_VALUE);
+    Map<String, Long> endTimes = endTimeMap;
+    if (endTimes == null) {
+      updateTimeIndex(device, time, false, false);
+      return;
+    }
+    long endTime = endTimes.getOrDefault(device, Long.MIN_VALUE);
     if (time > endTime) {
-      endTimeMap.put(device, time);
+      endTimes.put(device, time);
+      afterMapUpdate(device, time, false, false);
     }
   }
 
+  /**
+   * Set the start time of the device even if it is larger than the current one, e.g., when the
+   * earlier data of the device is removed by a merge.
+   */
+  public void forceUpdateStartTime(String device, long time) {
+    Map<String, Long> startTimes = startTimeMap;
+    if (startTimes == null) {
+      updateTimeIndex(device, time, true, true);
+      return;
+    }
+    startTimes.put(device, time);
+    afterMapUpdate(device, time, true, true);
+  }
+
   public boolean fileExists() {
     return fsFactory.getFile(file + RESOURCE_SUFFIX).exists();
   }
 
   void forceUpdateEndTime(String device, long time) {
-      endTimeMap.put(device, time);
+    Map<String, Long> endTimes = endTimeMap;
+    if (endTimes == null) {
+      updateTimeIndex(device, time, false, true);
+      return;
+    }
+    endTimes.put(device, time);
+    afterMapUpdate(device, time, false, true);
+  }
+
+  private void afterMapUpdate(String device, long time, boolean isStartTime, boolean force) {
+    if (serialized) {
+      serialized = false;
+    }
+    if (startTimeMap == null) {
+      // the maps were compacted during the update, apply it again to the index
+      updateTimeIndex(device, time, isStartTime, force);
+    }
+  }
+
+  private void updateTimeIndex(String device, long time, boolean isStartTime, boolean force) {
+    DeviceTimeIndex loadedIndex = null;
+    boolean inflated = false;
+    synchronized (timeIndexLock) {
+      if (startTimeMap != null) {
+        // the maps were restored by another update
+        Map<String, Long> times = isStartTime ? startTimeMap : endTimeMap;
+        Long prevTime = times.get(device);
+        if (force || prevTime == null
+            || (isStartTime ? time < prevTime : time > prevTime)) {
+          times.put(device, time);
+        }
+        serialized = false;
+      } else {
+        DeviceTimeIndex index = timeIndex;
+        if (index == null) {
+          try {
+            index = loadTimeIndex();
+            loadedIndex = index;
+          } catch (IOException e) {
+            throw new UncheckedIOException(
+                String.format("Cannot update the time of %s in %s", device, file), e);
+          }
+        }
+        if (index.update(device, time, isStartTime, force)) {
+          if (force) {
+            minStartTime = index.getMinStartTime();
+            maxEndTime = index.getMaxEndTime();
+          } else if (isStartTime) {
+            minStartTime = Math.min(minStartTime, time);
+          } else {
+            maxEndTime = Math.max(maxEndTime, time);
+          }
+        } else {
+          // a new device cannot be added into the compact index, go back to the maps
+          inflateTimeIndex(index);
+          (isStartTime ? startTimeMap : endTimeMap).put(device, time);
+          inflated = true;
+        }
+      }
+    }
+    if (inflated) {
+      TimeIndexManager.getInstance().unregister(this);
+    } else if (loadedIndex != null) {
+      TimeIndexManager.getInstance().register(this, loadedIndex.getRamSize());
+    }
   }
 
   public List<ChunkMetaData> getChunkMetaDataList() {
@@ -236,10 +377,11 @@ public class TsFileResource {
 
   public void setFile(File file) {
     this.file = file;
+    markTimeIndexDirty();
   }
 
   boolean containsDevice(String deviceId) {
-    return startTimeMap.containsKey(deviceId);
+    return getStartTimeMap().containsKey(deviceId);
   }
 
   public File getFile() {
@@ -250,12 +392,228 @@ public class TsFileResource {
     return file.length();
   }
 
+  /**
+   * @return device -> start time, which is read-only if the tsfile is sealed
+   */
   public Map<String, Long> getStartTimeMap() {
-    return startTimeMap;
+    while (true) {
+      Map<String, Long> startTimes = startTimeMap;
+      if (startTimes != null) {
+        return startTimes;
+      }
+      DeviceTimeIndex index = getTimeIndex();
+      if (index != null) {
+        return index.getStartTimeMap();
+      }
+    }
   }
 
+  /**
+   * @return device -> end time, which is read-only if the tsfile is sealed
+   */
   public Map<String, Long> getEndTimeMap() {
-    return endTimeMap;
+    while (true) {
+      Map<String, Long> endTimes = endTimeMap;
+      if (endTimes != null) {
+        return endTimes;
+      }
+      DeviceTimeIndex index = getTimeIndex();
+      if (index != null) {
+        return index.getEndTimeMap();
+      }
+    }
+  }
+
+  /**
+   * Check whether any data of the sealed tsfile may satisfy the time filter, using only the time
+   * range of the whole file so that the time index does not need to be loaded.
+   *
+   * @return true if the file may contain satisfying data or its time range is unknown
+   */
+  public boolean isSatisfied(Filter timeFilter) {
+    if (timeFilter == null || startTimeMap != null) {
+      return true;
+    }
+    long startTime = minStartTime;
+    long endTime = maxEndTime;
+    return startTime > endTime || timeFilter.satisfyStartEndTime(startTime, endTime);
+  }
+
+  /**
+   * Replace the maps of a sealed tsfile with the compact time index. The maps are kept if some
+   * device has an end time but no start time.
+   *
+   * @param dirty whether the times differ from the ".resource" file
+   */
+  private void compactTimeIndex(Map<String, Long> startTimes, Map<String, Long> endTimes,
+      boolean dirty) {
+    DeviceTimeIndex index;
+    synchronized (timeIndexLock) {
+      index = DeviceTimeIndex.compact(getDictionary(), startTimes, endTimes);
+      if (index == null) {
+        startTimeMap = startTimes;
+        endTimeMap = endTimes;
+        return;
+      }
+      index.setDirty(dirty);
+      minStartTime = index.getMinStartTime();
+      maxEndTime = index.getMaxEndTime();
+      // set the index before dropping the maps so that readers always find one of them
+      timeIndex = index;
+      startTimeMap = null;
+      endTimeMap = null;
+    }
+    TimeIndexManager.getInstance().register(this, index.getRamSize());
+  }
+
+  private void compactTimeIndex() {
+    Map<String, Long> startTimes = startTimeMap;
+    Map<String, Long> endTimes = endTimeMap;
+    if (startTimes != null && endTimes != null) {
+      compactTimeIndex(startTimes, endTimes, !serialized);
+    }
+  }
+
+  /**
+   * Restore the maps from the index so that new devices can be added. The caller must hold the
+   * timeIndexLock.
+   */
+  private void inflateTimeIndex(DeviceTimeIndex index) {
+    Map<String, Long> endTimes = new ConcurrentHashMap<>(index.getEndTimeMap());
+    // set the maps before dropping the index so that readers always find one of them
+    endTimeMap = endTimes;
+    startTimeMap = new ConcurrentHashMap<>(index.getStartTimeMap());
+    timeIndex = null;
+    serialized = !index.isDirty();
+  }
+
+  /**
+   * @return the compact time index, which is read from the ".resource" file if it has been
+   * evicted, or null if the maps are restored meanwhile
+   */
+  private DeviceTimeIndex getTimeIndex() {
+    DeviceTimeIndex index = timeIndex;
+    if (index != null) {
+      return index;
+    }
+    synchronized (timeIndexLock) {
+      index = timeIndex;
+      if (index != null || startTimeMap != null) {
+        return index;
+      }
+      try {
+        index = loadTimeIndex();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot load the time index of " + file, e);
+      }
+    }
+    TimeIndexManager.getInstance().register(this, index.getRamSize());
+    return index;
+  }
+
+  /**
+   * Read the evicted time index from the ".resource" file, or rebuild it from the TsFile if the
+   * ".resource" file cannot be read. The caller must hold the timeIndexLock and register the index
+   * to the TimeIndexManager after releasing the lock.
+   *
+   * @throws IOException if neither the ".resource" file nor the TsFile can be read
+   */
+  private DeviceTimeIndex loadTimeIndex() throws IOException {
+    DeviceTimeIndex index;
+    try (InputStream inputStream = fsFactory.getBufferedInputStream(file + RESOURCE_SUFFIX)) {
+      if (inputStream == null) {
+        // the factory logs the cause and returns null
+        throw new IOException("Cannot open " + file + RESOURCE_SUFFIX);
+      }
+      Map<String, Long> startTimes = readTimeMap(inputStream);
+      Map<String, Long> endTimes = readTimeMap(inputStream);
+      index = DeviceTimeIndex.compact(getDictionary(), startTimes, endTimes);
+      if (index == null) {
+        throw new IOException("Invalid time index in " + file + RESOURCE_SUFFIX);
+      }
+    } catch (IOException e) {
+      logger.warn("Cannot read the time index of {}, rebuilding it from the TsFile", file, e);
+      index = rebuildTimeIndex();
+    }
+    timeIndex = index;
+    return index;
+  }
+
+  /**
+   * Rebuild the time index from the metadata of the TsFile and rewrite the ".resource" file with
+   * it. If the ".resource" file cannot be written, the index is dirty so that it is not evicted.
+   */
+  private DeviceTimeIndex rebuildTimeIndex() throws IOException {
+    Map<String, Long> startTimes = new HashMap<>();
+    Map<String, Long> endTimes = new HashMap<>();
+    if (!file.exists()) {
+      throw new IOException("Cannot rebuild the time index of " + file + " that does not exist");
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      for (Entry<String, TsDeviceMetadataIndex> entry : reader.readFileMetadata().getDeviceMap()
+          .entrySet()) {
+        startTimes.put(entry.getKey(), entry.getValue().getStartTime());
+        endTimes.put(entry.getKey(), entry.getValue().getEndTime());
+      }
+    }
+    DeviceTimeIndex index = DeviceTimeIndex.compact(getDictionary(), startTimes, endTimes);
+    try {
+      doSerialize(startTimes, endTimes);
+    } catch (IOException e) {
+      logger.error("Cannot rewrite the resource file of {}", file, e);
+      index.setDirty(true);
+    }
+    return index;
+  }
+
+  /**
+   * Drop the compact time index if it is the same as the ".resource" file. Called by the
+   * TimeIndexManager.
+   *
+   * @return true if the resource no longer keeps an evictable index
+   */
+  boolean evictTimeIndex() {
+    synchronized (timeIndexLock) {
+      DeviceTimeIndex index = timeIndex;
+      if (startTimeMap != null || index == null || deleted) {
+        // the index of a deleted file is not accounted any more but kept for the running queries
+        return true;
+      }
+      if (index.isDirty()) {
+        return false;
+      }
+      timeIndex = null;
+      return true;
+    }
+  }
+
+  boolean checkAndClearTimeIndexAccessed() {
+    DeviceTimeIndex index = timeIndex;
+    return index != null && index.checkAndClearAccessed();
+  }
+
+  /**
+   * @return whether the compact time index is resident in memory, only for test
+   */
+  boolean isTimeIndexLoaded() {
+    return startTimeMap == null && timeIndex != null;
+  }
+
+  private void markTimeIndexDirty() {
+    synchronized (timeIndexLock) {
+      if (startTimeMap == null && timeIndex != null) {
+        timeIndex.setDirty(true);
+      } else {
+        serialized = false;
+      }
+    }
+  }
+
+  private DeviceIdDictionary getDictionary() {
+    // the tsfiles are in data directory/storage group/time partition
+    File partitionDir = file.getAbsoluteFile().getParentFile();
+    File storageGroupDir = partitionDir == null ? null : partitionDir.getParentFile();
+    return DeviceIdDictionary.getInstance(storageGroupDir == null ? "" : storageGroupDir.getName());
   }
 
   public boolean isClosed() {
@@ -270,6 +628,7 @@ public class TsFileResource {
     }
     processor = null;
     chunkMetaDataList = null;
+    compactTimeIndex();
   }
 
   TsFileProcessor getUnsealedFileProcessor() {
@@ -292,6 +651,7 @@ public class TsFileResource {
   }
 
   public void remove() {
+    TimeIndexManager.getInstance().unregister(this);
     file.delete();
     fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX).delete();
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
@@ -302,6 +662,7 @@ public class TsFileResource {
     FileUtils.moveFile(fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX),
         new File(targetDir, file.getName() + RESOURCE_SUFFIX));
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
+    markTimeIndexDirty();
   }
 
   @Override
@@ -328,6 +689,9 @@ public class TsFileResource {
 
   public void setClosed(boolean closed) {
     this.closed = closed;
+    if (closed) {
+      compactTimeIndex();
+    }
   }
 
   public boolean isDeleted() {
@@ -336,9 +700,12 @@ public class TsFileResource {
 
   public void setDeleted(boolean deleted) {
     this.deleted = deleted;
+    if (deleted) {
+      TimeIndexManager.getInstance().unregister(this);
+    }
   }
 
-  boolean isMerging() {
+  public boolean isMerging() {
     return isMerging;
   }
 
@@ -354,7 +721,11 @@ public class TsFileResource {
     if (timeLowerBound == Long.MAX_VALUE) {
       return true;
     }
-    for (long endTime : endTimeMap.values()) {
+    Map<String, Long> endTimes = endTimeMap;
+    if (startTimeMap == null || endTimes == null) {
+      return maxEndTime >= timeLowerBound;
+    }
+    for (long endTime : endTimes.values()) {
       // the file cannot be deleted if any device still lives
       if (endTime >= timeLowerBound) {
         return true;
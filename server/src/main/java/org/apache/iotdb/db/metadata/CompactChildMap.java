@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * CompactChildMap keeps the children of an MNode in one array of alternating names and nodes in
+ * insertion order, which takes much less memory than an OrderedChildMap for the small fan-outs of
+ * most inner MNodes. Lookups are linear, so MNode replaces it with an OrderedChildMap once it holds
+ * more than MAX_SIZE children.
+ * <p>
+ * The array is copied on each modification and published through a volatile field, so the
+ * children can be read without locking while a writer holding the write lock of MManager adds or
+ * removes one.
+ */
+class CompactChildMap extends AbstractMap<String, MNode> implements Serializable {
+
+  private static final long serialVersionUID = 3279823584467203591L;
+
+  static final int MAX_SIZE = 8;
+
+  private static final Object[] EMPTY_TABLE = new Object[0];
+
+  private volatile Object[] table = EMPTY_TABLE;
+
+  private static int indexOf(Object[] table, Object key) {
+    for (int i = 0; i < table.length; i += 2) {
+      if (table[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int size() {
+    return table.length / 2;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(table, key) >= 0;
+  }
+
+  @Override
+  public MNode get(Object key) {
+    Object[] currTable = table;
+    int index = indexOf(currTable, key);
+    return index >= 0 ? (MNode) currTable[index + 1] : null;
+  }
+
+  @Override
+  public MNode put(String key, MNode value) {
+    Object[] currTable = table;
+    int index = indexOf(currTable, key);
+    Object[] newTable;
+    MNode old = null;
+    if (index >= 0) {
+      old = (MNode) currTable[index + 1];
+      newTable = currTable.clone();
+      newTable[index + 1] = value;
+    } else {
+      newTable = Arrays.copyOf(currTable, currTable.length + 2);
+      newTable[currTable.length] = key;
+      newTable[currTable.length + 1] = value;
+    }
+    table = newTable;
+    return old;
+  }
+
+  @Override
+  public MNode remove(Object key) {
+    Object[] currTable = table;
+    int index = indexOf(currTable, key);
+    if (index < 0) {
+      return null;
+    }
+    removeAt(currTable, index);
+    return (MNode) currTable[index + 1];
+  }
+
+  private void removeAt(Object[] currTable, int index) {
+    Object[] newTable = new Object[currTable.length - 2];
+    System.arraycopy(currTable, 0, newTable, 0, index);
+    System.arraycopy(currTable, index + 2, newTable, index, currTable.length - index - 2);
+    table = newTable;
+  }
+
+  @Override
+  public void clear() {
+    table = EMPTY_TABLE;
+  }
+
+  @Override
+  public Set<Entry<String, MNode>> entrySet() {
+    return new AbstractSet<Entry<String, MNode>>() {
+      @Override
+      public Iterator<Entry<String, MNode>> iterator() {
+        return new Iterator<Entry<String, MNode>>() {
+          // iterate over the children when the iterator is created
+          private Object[] iteratedTable = table;
+          private int next = 0;
+          private boolean removable = false;
+
+          @Override
+          public boolean hasNext() {
+            return next < iteratedTable.length;
+          }
+
+          @Override
+          public Entry<String, MNode> next() {
+            if (next >= iteratedTable.length) {
+              throw new NoSuchElementException();
+            }
+            removable = true;
+            Entry<String, MNode> entry = new SimpleImmutableEntry<>((String) iteratedTable[next],
+                (MNode) iteratedTable[next + 1]);
+            next += 2;
+            return entry;
+          }
+
+          @Override
+          public void remove() {
+            if (!removable) {
+              throw new IllegalStateException();
+            }
+            removable = false;
+            CompactChildMap.this.remove(iteratedTable[next - 2]);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return CompactChildMap.this.size();
+      }
+    };
+  }
+}
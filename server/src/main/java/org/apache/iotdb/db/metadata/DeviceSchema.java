@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * DeviceSchema is an immutable copy of the schemas of the timeseries under one device, kept in an
+ * array sorted by the measurement ids, so that the measurements of an insertion can be resolved
+ * with one lookup of the device instead of walking the MTree for each of them.
+ */
+class DeviceSchema {
+
+  private static final Comparator<MeasurementSchema> ID_COMPARATOR =
+      Comparator.comparing(MeasurementSchema::getMeasurementId);
+
+  private final MeasurementSchema[] schemas;
+
+  /**
+   * Copy the schemas of the leaves under the device node. The caller must hold the lock of
+   * MManager.
+   */
+  DeviceSchema(MNode device) {
+    List<MeasurementSchema> leafSchemas = new ArrayList<>();
+    for (MNode child : device.getChildren().values()) {
+      if (child.isLeaf()) {
+        leafSchemas.add(child.getSchema());
+      }
+    }
+    schemas = leafSchemas.toArray(new MeasurementSchema[0]);
+    Arrays.sort(schemas, ID_COMPARATOR);
+  }
+
+  /**
+   * @return the schema of the measurement, or null if the device has no timeseries of it
+   */
+  MeasurementSchema getSchema(String measurement) {
+    int low = 0;
+    int high = schemas.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = schemas[mid].getMeasurementId().compareTo(measurement);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return schemas[mid];
+      }
+    }
+    return null;
+  }
+}
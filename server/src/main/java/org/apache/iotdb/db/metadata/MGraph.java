@@ -51,6 +51,19 @@ public class MGraph implements Serializable {
     ptreeMap = new HashMap<>();
   }
 
+  MGraph(MTree mtree) {
+    this.mtree = mtree;
+    ptreeMap = new HashMap<>();
+  }
+
+  MTree getMTree() {
+    return mtree;
+  }
+
+  boolean hasPTree() {
+    return !ptreeMap.isEmpty();
+  }
+
   /**
    * Add a {@code PTree} to current {@code MGraph}.
    */
@@ -21,9 +21,12 @@ package org.apache.iotdb.db.metadata;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,12 +35,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
+import org.apache.iotdb.db.engine.cache.RamUsageEstimator;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.exception.ConfigAdjusterException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -72,8 +79,14 @@ public class MManager {
 
   // the lock for read/insert
   private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // held in write mode whenever the write lock of "lock" is held, so that the hot reads can run
+  // without locking and validate that no write happened meanwhile
+  private StampedLock optimisticLock = new StampedLock();
+  // the stamp of optimisticLock, only accessed by the holder of the write lock
+  private long writeStamp;
   // the log file seriesPath
   private String logFilePath;
+  private String snapshotFilePath;
   private MGraph mgraph;
   private BufferedWriter logWriter;
   private boolean writeToLog;
@@ -81,11 +94,18 @@ public class MManager {
 
   private RandomDeleteCache<String, PathCheckRet> checkAndGetDataTypeCache;
   private RandomDeleteCache<String, MNode> mNodeCache;
+  // the schemas of the timeseries of each device, for resolving all measurements of an insertion
+  // at once
+  private RandomDeleteCache<String, DeviceSchema> deviceSchemaCache;
 
   private Map<String, Integer> seriesNumberInStorageGroups = new HashMap<>();
   private long maxSeriesNumberAmongStorageGroup;
   private boolean initialized;
 
+  // the number of timeseries created since the last snapshot of the MTree
+  private int logLinesSinceSnapshot;
+  private ExecutorService snapshotThread;
+
   private MManager() {
 
     schemaDir =
@@ -100,6 +120,7 @@ public class MManager {
       }
     }
     logFilePath = schemaDir + File.separator + MetadataConstant.METADATA_LOG;
+    snapshotFilePath = schemaDir + File.separator + MetadataConstant.METADATA_SNAPSHOT;
     writeToLog = false;
 
     int cacheSize = IoTDBDescriptor.getInstance().getConfig().getmManagerCacheSize();
@@ -130,12 +151,75 @@ public class MManager {
         }
       }
     };
+
+    deviceSchemaCache = new RandomDeleteCache<String, DeviceSchema>(cacheSize) {
+      @Override
+      public void beforeRemove(DeviceSchema object) {
+        //allowed to do nothing
+      }
+
+      @Override
+      public DeviceSchema loadObjectByKey(String key) throws CacheException {
+        try {
+          return new DeviceSchema(getNodeByPathWithCheck(key));
+        } catch (PathException | StorageGroupException e) {
+          throw new CacheException(e);
+        }
+      }
+    };
   }
 
   public static MManager getInstance() {
     return MManagerHolder.INSTANCE;
   }
 
+  private void lockWrite() {
+    lock.writeLock().lock();
+    if (lock.getWriteHoldCount() == 1) {
+      writeStamp = optimisticLock.writeLock();
+    }
+  }
+
+  private void unlockWrite() {
+    if (lock.getWriteHoldCount() == 1) {
+      optimisticLock.unlockWrite(writeStamp);
+    }
+    lock.writeLock().unlock();
+  }
+
+  /**
+   * Run the read without locking, and run it again under the read lock only if the metadata was
+   * modified meanwhile. Reads that may see a half-modified MTree must have no side effects.
+   */
+  @SuppressWarnings("unchecked")
+  private <T, E extends Exception> T optimisticRead(MetadataReader<T, E> reader) throws E {
+    long stamp = optimisticLock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        T result = reader.read();
+        if (optimisticLock.validate(stamp)) {
+          return result;
+        }
+      } catch (Exception e) {
+        if (optimisticLock.validate(stamp)) {
+          throw (E) e;
+        }
+      }
+    }
+    lock.readLock().lock();
+    try {
+      return reader.read();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @FunctionalInterface
+  private interface MetadataReader<T, E extends Exception> {
+
+    T read() throws E;
+  }
+
   //Because the writer will be used later and should not be closed here.
   @SuppressWarnings("squid:S2093")
   public void init() {
@@ -143,11 +227,12 @@ public class MManager {
     if (initialized) {
       return;
     }
-    lock.writeLock().lock();
+    lockWrite();
     File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
+    File snapshotFile = SystemFileFactory.INSTANCE.getFile(snapshotFilePath);
 
     try {
-      initFromLog(logFile);
+      initFromLog(logFile, snapshotFile);
       seriesNumberInStorageGroups = mgraph.countSeriesNumberInEachStorageGroup();
       if (seriesNumberInStorageGroups.isEmpty()) {
         maxSeriesNumberAmongStorageGroup = 0;
@@ -160,38 +245,151 @@ public class MManager {
       mgraph = new MGraph(ROOT_NAME);
       logger.error("Cannot read MGraph from file, using an empty new one", e);
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
     initialized = true;
+    if (logger.isDebugEnabled()) {
+      logger.debug(getMTreeMemoryReport());
+    }
+    snapshotIfNeeded();
   }
 
+  /**
+   * Forget the metadata in memory and rebuild it from the files, as if the system restarted.
+   *
+   * this is just for TEST ONLY
+   */
+  void reinit() {
+    clear();
+    initialized = false;
+    writeToLog = false;
+    init();
+  }
 
-  private void initFromLog(File logFile)
+  private void initFromLog(File logFile, File snapshotFile)
       throws IOException, PathException, MetadataException {
-    // init the metadata from the operation log
+    // init the metadata from the latest snapshot and the operations logged after it
     mgraph = new MGraph(ROOT_NAME);
+    long logOffset = 0;
+    if (logFile.exists() && snapshotFile.exists()) {
+      logOffset = initFromSnapshot(snapshotFile, logFile.length());
+    }
+    logLinesSinceSnapshot = 0;
     if (logFile.exists()) {
-      try (FileReader fr = new FileReader(logFile);
-          BufferedReader br = new BufferedReader(fr)) {
+      try (FileInputStream fileInputStream = new FileInputStream(logFile)) {
+        fileInputStream.getChannel().position(logOffset);
+        BufferedReader br = new BufferedReader(new InputStreamReader(fileInputStream));
         String cmd;
         while ((cmd = br.readLine()) != null) {
           operation(cmd);
+          logLinesSinceSnapshot++;
         }
       }
     }
   }
 
+  /**
+   * @return the length of the log covered by the snapshot, or 0 if the snapshot cannot be used
+   */
+  private long initFromSnapshot(File snapshotFile, long logLength)
+      throws PathException, MetadataException {
+    MTreeSnapshot snapshot;
+    try {
+      snapshot = MTreeSnapshot.deserialize(snapshotFile);
+    } catch (IOException e) {
+      logger.warn("Cannot read the metadata snapshot {}, replaying the whole log", snapshotFile, e);
+      return 0;
+    }
+    if (snapshot.getLogOffset() > logLength) {
+      logger.warn("The metadata snapshot {} covers {} bytes of the log, but the log only has {} "
+          + "bytes, replaying the whole log", snapshotFile, snapshot.getLogOffset(), logLength);
+      return 0;
+    }
+    mgraph = new MGraph(snapshot.getMTree());
+    seriesNumberInStorageGroups = mgraph.countSeriesNumberInEachStorageGroup();
+    // register the storage groups and timeseries as the replay of the log would have done
+    try {
+      for (Map.Entry<String, Integer> entry : seriesNumberInStorageGroups.entrySet()) {
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
+        ActiveTimeSeriesCounter.getInstance().init(entry.getKey());
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(entry.getValue());
+      }
+    } catch (ConfigAdjusterException e) {
+      throw new MetadataException(e);
+    }
+    logger.info("Loaded the metadata snapshot {}, replaying the log from byte {}", snapshotFile,
+        snapshot.getLogOffset());
+    return snapshot.getLogOffset();
+  }
+
+  /**
+   * Take a snapshot of the MTree in the background if enough timeseries have been created since
+   * the last one. Only copying the MTree holds the read lock, and writing the copy holds none.
+   */
+  private synchronized void snapshotIfNeeded() {
+    int threshold = IoTDBDescriptor.getInstance().getConfig().getMlogSnapshotThreshold();
+    if (!writeToLog || threshold <= 0 || logLinesSinceSnapshot < threshold) {
+      return;
+    }
+    logLinesSinceSnapshot = 0;
+    if (snapshotThread == null) {
+      snapshotThread = IoTDBThreadPoolFactory.newSingleThreadExecutor("MTree-Snapshot");
+    }
+    snapshotThread.submit(() -> {
+      try {
+        takeSnapshot();
+      } catch (IOException e) {
+        logger.error("Cannot take a snapshot of the metadata", e);
+      }
+    });
+  }
+
+  /**
+   * Write a snapshot of the MTree with the current length of the log, so that the log before it
+   * need not be replayed on startup.
+   */
+  void takeSnapshot() throws IOException {
+    File snapshotFile = SystemFileFactory.INSTANCE.getFile(snapshotFilePath);
+    File tmpFile = SystemFileFactory.INSTANCE.getFile(snapshotFilePath + ".tmp");
+    long startTime = System.currentTimeMillis();
+    MTreeSnapshot.Node root;
+    long logOffset;
+    lock.readLock().lock();
+    try {
+      if (mgraph.hasPTree()) {
+        // PTrees are rarely used and not in the snapshot, the log is replayed for them
+        logger.info("Skip the metadata snapshot because there are PTrees");
+        return;
+      }
+      if (logWriter != null) {
+        logWriter.flush();
+      }
+      File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
+      logOffset = logFile.exists() ? logFile.length() : 0;
+      // only copy the MTree under the lock, so the disk does not hold up creating timeseries
+      root = MTreeSnapshot.copy(mgraph.getMTree());
+    } finally {
+      lock.readLock().unlock();
+    }
+    MTreeSnapshot.serialize(root, logOffset, tmpFile);
+    Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    logger.info("Took a snapshot of the metadata in {}ms", System.currentTimeMillis() - startTime);
+  }
+
   /**
    * function for clearing MGraph.
    */
   public void clear() {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       this.mgraph = new MGraph(ROOT_NAME);
       this.checkAndGetDataTypeCache.clear();
       this.mNodeCache.clear();
+      this.deviceSchemaCache.clear();
       this.seriesNumberInStorageGroups.clear();
       this.maxSeriesNumberAmongStorageGroup = 0;
+      this.logLinesSinceSnapshot = 0;
       if (logWriter != null) {
         logWriter.close();
         logWriter = null;
@@ -199,7 +397,7 @@ public class MManager {
     } catch (IOException e) {
       logger.error("Cannot close metadata log writer, because:", e);
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -298,7 +496,7 @@ public class MManager {
   public boolean addPathToMTree(Path path, TSDataType dataType, TSEncoding encoding,
       CompressionType compressor, Map<String, String> props)
       throws MetadataException, PathException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       if (pathExist(path.getFullPath())) {
         throw new TimeseriesAlreadyExistException(path.getFullPath());
@@ -375,10 +573,40 @@ public class MManager {
         return isNewMeasurement;
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
+      snapshotIfNeeded();
     }
   }
 
+  /**
+   * Add the timeseries of a device that do not exist yet under one acquisition of the write lock,
+   * so that registering a batch of new timeseries interrupts the readers only once.
+   *
+   * @param schemas the schemas of the timeseries, named by their measurements
+   * @return the schemas whose measurements occur for the first time in the storage group, which
+   * should be registered to the StorageEngine too
+   */
+  public List<MeasurementSchema> addPathsToMTree(String deviceId, List<MeasurementSchema> schemas)
+      throws MetadataException, PathException {
+    List<MeasurementSchema> newMeasurements = new ArrayList<>();
+    lockWrite();
+    try {
+      for (MeasurementSchema schema : schemas) {
+        Path path = new Path(deviceId, schema.getMeasurementId());
+        if (pathExist(path.getFullPath())) {
+          continue;
+        }
+        if (addPathToMTree(path, schema.getType(), schema.getEncodingType(),
+            schema.getCompressor(), schema.getProps())) {
+          newMeasurements.add(schema);
+        }
+      }
+    } finally {
+      unlockWrite();
+    }
+    return newMeasurements;
+  }
+
   /**
    * path will be added to mgraph with no check
    */
@@ -387,6 +615,8 @@ public class MManager {
       throws PathException, IOException, StorageGroupException {
 
     mgraph.addPathToMTree(path, dataType, encoding, compressor, props);
+    deviceSchemaCache
+        .invalidate(path.substring(0, path.lastIndexOf(IoTDBConstant.PATH_SEPARATOR)));
     String storageGroupName = mgraph.getStorageGroupNameByPath(path);
     int size = seriesNumberInStorageGroups.get(storageGroupName);
     seriesNumberInStorageGroups.put(storageGroupName, size + 1);
@@ -404,6 +634,7 @@ public class MManager {
       }
       writer.newLine();
       writer.flush();
+      logLinesSinceSnapshot++;
     }
   }
 
@@ -419,7 +650,7 @@ public class MManager {
    */
   public void addPathToMTree(String path, String dataType, String encoding)
       throws PathException, IOException, StorageGroupException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       TSDataType tsDataType = TSDataType.valueOf(dataType);
       TSEncoding tsEncoding = TSEncoding.valueOf(encoding);
@@ -427,7 +658,7 @@ public class MManager {
           .valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor());
       addPathToMTreeInternal(path, tsDataType, tsEncoding, type, Collections.emptyMap());
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -439,11 +670,11 @@ public class MManager {
    * @param deviceId the deviceId of a timeseries seriesPath
    */
   private MNode addDeviceIdToMTree(String deviceId) throws PathException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       return mgraph.addDeviceIdToMTree(deviceId);
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -555,10 +786,11 @@ public class MManager {
    */
   private String deletePathFromMTree(String path)
       throws PathException, IOException, StorageGroupException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       checkAndGetDataTypeCache.clear();
       mNodeCache.clear();
+      deviceSchemaCache.clear();
       String storageGroupName = mgraph.deletePath(path);
       if (writeToLog) {
         BufferedWriter writer = getLogWriter();
@@ -582,7 +814,7 @@ public class MManager {
       }
       return storageGroupName;
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -590,7 +822,7 @@ public class MManager {
    * function for setting storage group of the given path to mTree.
    */
   public void setStorageGroupToMTree(String path) throws MetadataException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       if (mgraph.checkStorageGroup(path)) {
         return;
@@ -617,7 +849,7 @@ public class MManager {
         throw new MetadataException(ex);
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -633,7 +865,7 @@ public class MManager {
       pathList.add(storagePath.getFullPath());
       jointPath.append(",").append(storagePath.getFullPath());
     }
-    lock.writeLock().lock();
+    lockWrite();
     try {
       if (writeToLog) {
         BufferedWriter writer = getLogWriter();
@@ -645,6 +877,7 @@ public class MManager {
         try {
           checkAndGetDataTypeCache.clear();
           mNodeCache.clear();
+          deviceSchemaCache.clear();
           IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(-1);
           mgraph.deleteStorageGroup(delStorageGroup);
           IoTDBConfigDynamicAdapter.getInstance()
@@ -664,7 +897,7 @@ public class MManager {
     } catch (IOException e) {
       throw new MetadataException(e.getMessage());
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
     return true;
   }
@@ -688,7 +921,7 @@ public class MManager {
    */
   public void addAPTree(String ptreeRootName) throws IOException, MetadataException {
 
-    lock.writeLock().lock();
+    lockWrite();
     try {
       mgraph.addAPTree(ptreeRootName);
       if (writeToLog) {
@@ -698,7 +931,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -708,7 +941,7 @@ public class MManager {
   public void addPathToPTree(String path)
       throws PathException, IOException {
 
-    lock.writeLock().lock();
+    lockWrite();
     try {
       mgraph.addPathToPTree(path);
       if (writeToLog) {
@@ -718,7 +951,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -727,7 +960,7 @@ public class MManager {
    */
   public void deletePathFromPTree(String path) throws PathException, IOException {
 
-    lock.writeLock().lock();
+    lockWrite();
     try {
       mgraph.deletePath(path);
       if (writeToLog) {
@@ -737,7 +970,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -746,7 +979,7 @@ public class MManager {
    */
   public void linkMNodeToPTree(String path, String mpath) throws PathException, IOException {
 
-    lock.writeLock().lock();
+    lockWrite();
     try {
       mgraph.linkMNodeToPTree(path, mpath);
       if (writeToLog) {
@@ -756,7 +989,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -766,7 +999,7 @@ public class MManager {
   public void unlinkMNodeFromPTree(String path, String mpath)
       throws PathException, IOException {
 
-    lock.writeLock().lock();
+    lockWrite();
     try {
       mgraph.unlinkMNodeFromPTree(path, mpath);
       if (writeToLog) {
@@ -776,7 +1009,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 
@@ -786,25 +1019,14 @@ public class MManager {
    * @return TSDataType
    */
   public TSDataType getSeriesType(String fullPath) throws PathException {
-    lock.readLock().lock();
-    try {
-      return getSchemaForOnePath(fullPath).getType();
-    } finally {
-      lock.readLock().unlock();
-    }
+    return optimisticRead(() -> mgraph.getSchemaForOnePath(fullPath).getType());
   }
 
   /**
    * function for getting series type.
    */
   public TSDataType getSeriesType(MNode node, String fullPath) throws PathException {
-
-    lock.readLock().lock();
-    try {
-      return getSchemaForOnePath(node, fullPath).getType();
-    } finally {
-      lock.readLock().unlock();
-    }
+    return optimisticRead(() -> mgraph.getSchemaForOnePath(node, fullPath).getType());
   }
 
   /**
@@ -1143,13 +1365,7 @@ public class MManager {
    * Check whether the seriesPath given exists.
    */
   public boolean pathExist(String path) {
-
-    lock.readLock().lock();
-    try {
-      return mgraph.pathExist(path);
-    } finally {
-      lock.readLock().unlock();
-    }
+    return optimisticRead(() -> mgraph.pathExist(path));
   }
 
   /**
@@ -1190,10 +1406,14 @@ public class MManager {
      * function for getting node by deviceId from cache.
      */
   public MNode getNodeByPathFromCache(String deviceID, boolean autoCreateSchema, int sgLevel) throws CacheException, PathException {
-    lock.readLock().lock();
-    MNode node = null;
+    // the cached nodes are read without locking, so inserts do not wait for schema changes
+    MNode node = mNodeCache.getIfPresent(deviceID);
+    if (node != null) {
+      return node;
+    }
     boolean createSchema = false;
     boolean setStorageGroup = false;
+    lock.readLock().lock();
     try {
       node = mNodeCache.get(deviceID);
     } catch (CacheException e) {
@@ -1220,6 +1440,34 @@ public class MManager {
     return node;
   }
 
+  /**
+   * Resolve the schemas of the measurements of a device with one lookup of the device, which is
+   * cached until the timeseries of the device change. The device is created if it does not exist
+   * and creating schema automatically is enabled.
+   *
+   * @return the schemas in the order of the measurements, with null for the measurements that are
+   * not timeseries of the device
+   */
+  public MeasurementSchema[] getSchemasOfDevice(String deviceId, String[] measurements)
+      throws CacheException, PathException {
+    DeviceSchema deviceSchema = deviceSchemaCache.getIfPresent(deviceId);
+    if (deviceSchema == null) {
+      getNodeByPathFromCache(deviceId);
+      // load under the read lock so that a concurrent schema change cannot leave a stale entry
+      lock.readLock().lock();
+      try {
+        deviceSchema = deviceSchemaCache.get(deviceId);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+    MeasurementSchema[] schemas = new MeasurementSchema[measurements.length];
+    for (int i = 0; i < measurements.length; i++) {
+      schemas[i] = deviceSchema.getSchema(measurements[i]);
+    }
+    return schemas;
+  }
+
   /**
    * function for getting node by path with check.
    */
@@ -1414,6 +1662,26 @@ public class MManager {
     this.maxSeriesNumberAmongStorageGroup = maxSeriesNumberAmongStorageGroup;
   }
 
+  /**
+   * Estimate the heap taken by the MTree with RamUsageEstimator. Every object of the MTree is
+   * visited, so it takes as long as a full traversal and is meant for diagnosis only.
+   */
+  public String getMTreeMemoryReport() {
+    lock.readLock().lock();
+    try {
+      long seriesNum = 0;
+      for (int num : seriesNumberInStorageGroups.values()) {
+        seriesNum += num;
+      }
+      long size = RamUsageEstimator.sizeOf(mgraph.getMTree());
+      return String.format("The MTree of %d timeseries in %d storage groups takes %s, %d bytes "
+              + "per timeseries", seriesNum, seriesNumberInStorageGroups.size(),
+          RamUsageEstimator.humanReadableUnits(size), seriesNum == 0 ? 0 : size / seriesNum);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   public long getMaximalSeriesNumberAmongStorageGroups() {
     return maxSeriesNumberAmongStorageGroup;
   }
@@ -1447,7 +1715,7 @@ public class MManager {
   }
 
   public void setTTL(String storageGroup, long dataTTL) throws PathException, IOException {
-    lock.writeLock().lock();
+    lockWrite();
     try {
       MNode sgNode = getNodeByPath(storageGroup);
       if (!sgNode.isStorageGroup()) {
@@ -1462,7 +1730,7 @@ public class MManager {
         writer.flush();
       }
     } finally {
-      lock.writeLock().unlock();
+      unlockWrite();
     }
   }
 }
@@ -19,10 +19,12 @@
 package org.apache.iotdb.db.metadata;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -31,11 +33,21 @@ import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 /**
  * This class is the implementation of Metadata Node where "MNode" is the shorthand of "Metadata
  * Node". One MNode instance represents one node in the Metadata Tree
+ * <p>
+ * If compact_mtree_enable is set, the names of the nodes are interned, the children of a node are
+ * kept in a CompactChildMap until there are more than CompactChildMap.MAX_SIZE of them, and the
+ * leaves share equal MeasurementSchemas without props, as the same measurements usually repeat
+ * under millions of devices. Otherwise, and once a CompactChildMap is full, the children are kept
+ * in an OrderedChildMap. Both keep the children in insertion order.
  */
 public class MNode implements Serializable {
 
   private static final long serialVersionUID = -770028375899514063L;
 
+  // the shared schemas are weakly referenced, so those of deleted timeseries are not kept
+  private static final Map<MeasurementSchema, WeakReference<MeasurementSchema>> sharedSchemas =
+      new WeakHashMap<>();
+
   // The name of the MNode
   private String name;
   // Whether current node is a leaf in the Metadata Tree
@@ -51,7 +63,9 @@ public class MNode implements Serializable {
   // node is one leaf
   private MeasurementSchema schema;
   private MNode parent;
-  private Map<String, MNode> children;
+  // the children may be read without locking, so they are kept in a CompactChildMap or an
+  // OrderedChildMap, and the field is volatile as a CompactChildMap is replaced when it is full
+  private volatile Map<String, MNode> children;
 
   private String fullPath;
 
@@ -71,14 +85,18 @@ public class MNode implements Serializable {
     this.isLeaf = isLeaf;
     this.isStorageGroup = false;
     if (!isLeaf) {
-      children = new LinkedHashMap<>();
+      children = isCompact() ? new CompactChildMap() : new OrderedChildMap();
     }
   }
 
   public MNode(String name, MNode parent, TSDataType dataType, TSEncoding encoding,
       CompressionType type) {
     this(name, parent, true);
-    this.schema = new MeasurementSchema(name, dataType, encoding, type);
+    setSchema(new MeasurementSchema(this.name, dataType, encoding, type));
+  }
+
+  private static boolean isCompact() {
+    return IoTDBDescriptor.getInstance().getConfig().isCompactMTreeEnable();
   }
 
   public boolean isStorageGroup() {
@@ -140,6 +158,10 @@ public class MNode implements Serializable {
    */
   public void addChild(String key, MNode child) {
     if (!isLeaf) {
+      if (children instanceof CompactChildMap && children.size() >= CompactChildMap.MAX_SIZE
+          && !children.containsKey(key)) {
+        children = new OrderedChildMap(children);
+      }
       this.children.put(key, child);
     }
   }
@@ -191,9 +213,25 @@ public class MNode implements Serializable {
   }
 
   public void setSchema(MeasurementSchema schema) {
+    if (schema != null && isCompact() && schema.getProps().isEmpty()) {
+      // MeasurementSchema.equals() ignores the props, so only those without props are shared
+      schema = shareSchema(schema);
+    }
     this.schema = schema;
   }
 
+  private static MeasurementSchema shareSchema(MeasurementSchema schema) {
+    synchronized (sharedSchemas) {
+      WeakReference<MeasurementSchema> reference = sharedSchemas.get(schema);
+      MeasurementSchema sharedSchema = reference == null ? null : reference.get();
+      if (sharedSchema == null) {
+        sharedSchemas.put(schema, new WeakReference<>(schema));
+        sharedSchema = schema;
+      }
+      return sharedSchema;
+    }
+  }
+
   public MNode getParent() {
     return parent;
   }
@@ -215,7 +253,7 @@ public class MNode implements Serializable {
   }
 
   public void setName(String name) {
-    this.name = name;
+    this.name = isCompact() ? name.intern() : name;
   }
 
   public long getDataTTL() {
@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -59,6 +60,10 @@ public class MTree implements Serializable {
     this.root = new MNode(rootName, null, false);
   }
 
+  MTree(MNode root) {
+    this.root = root;
+  }
+
   /**
    * function for adding timeseries.It should check whether seriesPath exists.
    */
@@ -71,10 +76,10 @@ public class MTree implements Serializable {
     MNode cur = findLeafParent(nodeNames);
     String levelPath = cur.getDataFileName();
 
-    MNode leaf = new MNode(nodeNames[nodeNames.length - 1], cur, dataType, encoding, compressor);
-    if (props != null && !props.isEmpty()) {
-      leaf.getSchema().setProps(props);
-    }
+    MNode leaf = new MNode(nodeNames[nodeNames.length - 1], cur, true);
+    // the schema may be shared by other leaves, so it is complete before being set
+    leaf.setSchema(new MeasurementSchema(leaf.getName(), dataType, encoding, compressor,
+        props == null || props.isEmpty() ? Collections.emptyMap() : props));
     leaf.setDataFileName(levelPath);
     if (cur.isLeaf()) {
       throw new MTreePathException(timeseriesPath, "can't be created",
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * MTreeSnapshot stores an MTree in a compact binary form together with the length of "mlog.txt"
+ * when the snapshot was taken, so that on startup only the operations logged after the snapshot
+ * have to be replayed.
+ * <p>
+ * The nodes are written in pre-order. The nodes down to the storage groups come first, then the
+ * subtree of each storage group is written as a separate block prefixed by its length, so the
+ * blocks can be deserialized in parallel. The schemaMap and numSchemaMap of each storage group are
+ * rebuilt from its leaves rather than stored.
+ * <p>
+ * A snapshot is taken by copying the MTree into Nodes under the lock of the MManager and writing
+ * the Nodes after the lock is released.
+ */
+class MTreeSnapshot {
+
+  private static final byte LEAF_FLAG = 0x01;
+  private static final byte STORAGE_GROUP_FLAG = 0x02;
+
+  private MTree mtree;
+  private long logOffset;
+
+  private MTreeSnapshot(MTree mtree, long logOffset) {
+    this.mtree = mtree;
+    this.logOffset = logOffset;
+  }
+
+  MTree getMTree() {
+    return mtree;
+  }
+
+  /**
+   * @return the length of the metadata log covered by the snapshot
+   */
+  long getLogOffset() {
+    return logOffset;
+  }
+
+  /**
+   * Copy what a snapshot holds of the MTree. The caller must guarantee that the MTree is not
+   * modified during the copy, while the copy can be serialized without holding any lock.
+   */
+  static Node copy(MTree mtree) {
+    return new Node(mtree.getRoot());
+  }
+
+  /**
+   * Write the snapshot of a copied MTree into the file.
+   */
+  static void serialize(Node root, long logOffset, File file) throws IOException {
+    try (FileOutputStream fileOutputStream = new FileOutputStream(file);
+        OutputStream outputStream = new BufferedOutputStream(fileOutputStream)) {
+      ReadWriteIOUtils.write(logOffset, outputStream);
+      List<Node> storageGroups = new ArrayList<>();
+      serializeNode(root, outputStream, storageGroups);
+
+      ReadWriteIOUtils.write(storageGroups.size(), outputStream);
+      ByteArrayOutputStream blockStream = new ByteArrayOutputStream();
+      for (Node storageGroup : storageGroups) {
+        blockStream.reset();
+        serializeChildren(storageGroup, blockStream, null);
+        ReadWriteIOUtils.write(blockStream.size(), outputStream);
+        blockStream.writeTo(outputStream);
+      }
+      outputStream.flush();
+      fileOutputStream.getFD().sync();
+    }
+  }
+
+  /**
+   * @param storageGroups if not null, the children of storage groups are not written but the
+   * storage groups are collected into it
+   */
+  private static void serializeNode(Node node, OutputStream outputStream,
+      List<Node> storageGroups) throws IOException {
+    ReadWriteIOUtils.write(node.name, outputStream);
+    ReadWriteIOUtils.write(node.flags, outputStream);
+    if ((node.flags & LEAF_FLAG) != 0) {
+      node.schema.serializeTo(outputStream);
+    } else if ((node.flags & STORAGE_GROUP_FLAG) != 0 && storageGroups != null) {
+      ReadWriteIOUtils.write(node.dataTTL, outputStream);
+      storageGroups.add(node);
+    } else {
+      serializeChildren(node, outputStream, storageGroups);
+    }
+  }
+
+  private static void serializeChildren(Node node, OutputStream outputStream,
+      List<Node> storageGroups) throws IOException {
+    ReadWriteIOUtils.write(node.children.length, outputStream);
+    for (Node child : node.children) {
+      serializeNode(child, outputStream, storageGroups);
+    }
+  }
+
+  static MTreeSnapshot deserialize(File file) throws IOException {
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+      long logOffset = ReadWriteIOUtils.readLong(inputStream);
+      List<MNode> storageGroups = new ArrayList<>();
+      MNode root = deserializeNode(inputStream, null, null, storageGroups);
+
+      int blockNum = ReadWriteIOUtils.readInt(inputStream);
+      if (blockNum != storageGroups.size()) {
+        throw new IOException(String.format("The snapshot %s has %d storage groups but %d blocks",
+            file, storageGroups.size(), blockNum));
+      }
+      byte[][] blocks = new byte[blockNum][];
+      for (int i = 0; i < blockNum; i++) {
+        int blockSize = ReadWriteIOUtils.readInt(inputStream);
+        blocks[i] = ReadWriteIOUtils.readBytes(inputStream, blockSize);
+      }
+      try {
+        IntStream.range(0, blockNum).parallel().forEach(i -> {
+          try {
+            deserializeChildren(new ByteArrayInputStream(blocks[i]), storageGroups.get(i),
+                storageGroups.get(i), null);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return new MTreeSnapshot(new MTree(root), logOffset);
+    }
+  }
+
+  /**
+   * @param storageGroup the storage group the node belongs to, null if the node is above the
+   * storage groups
+   * @param storageGroups if not null, the children of storage groups are not read but the storage
+   * groups are collected into it
+   */
+  private static MNode deserializeNode(InputStream inputStream, MNode parent, MNode storageGroup,
+      List<MNode> storageGroups) throws IOException {
+    String name = ReadWriteIOUtils.readString(inputStream);
+    byte flags = (byte) inputStream.read();
+    if (flags < 0) {
+      throw new IOException("Unexpected end of the snapshot");
+    }
+    MNode node = new MNode(name, parent, (flags & LEAF_FLAG) != 0);
+    if (node.isLeaf()) {
+      node.setSchema(MeasurementSchema.deserializeFrom(inputStream));
+      if (storageGroup != null) {
+        node.setDataFileName(storageGroup.getDataFileName());
+        storageGroup.getSchemaMap().putIfAbsent(node.getName(), node.getSchema());
+        storageGroup.getNumSchemaMap().merge(node.getName(), 1, Integer::sum);
+      }
+    } else if ((flags & STORAGE_GROUP_FLAG) != 0 && storageGroups != null) {
+      node.setStorageGroup(true);
+      node.setDataFileName(node.getFullPath());
+      node.setDataTTL(ReadWriteIOUtils.readLong(inputStream));
+      storageGroups.add(node);
+    } else {
+      if (storageGroup != null) {
+        node.setDataFileName(storageGroup.getDataFileName());
+      }
+      deserializeChildren(inputStream, node, storageGroup, storageGroups);
+    }
+    return node;
+  }
+
+  private static void deserializeChildren(InputStream inputStream, MNode node, MNode storageGroup,
+      List<MNode> storageGroups) throws IOException {
+    int childNum = ReadWriteIOUtils.readInt(inputStream);
+    for (int i = 0; i < childNum; i++) {
+      MNode child = deserializeNode(inputStream, node, storageGroup, storageGroups);
+      node.addChild(child.getName(), child);
+    }
+  }
+
+  /**
+   * The fields of an MNode that are written into a snapshot. It takes much less memory than the
+   * MNode, as the maps of the MNode are left out.
+   */
+  static class Node {
+
+    private final String name;
+    private final byte flags;
+    private final MeasurementSchema schema;
+    private final long dataTTL;
+    private final Node[] children;
+
+    private Node(MNode node) {
+      name = node.getName();
+      byte nodeFlags = 0;
+      if (node.isLeaf()) {
+        nodeFlags |= LEAF_FLAG;
+      }
+      if (node.isStorageGroup()) {
+        nodeFlags |= STORAGE_GROUP_FLAG;
+      }
+      flags = nodeFlags;
+      schema = node.getSchema();
+      dataTTL = node.getDataTTL();
+      if (node.isLeaf()) {
+        children = null;
+      } else {
+        children = new Node[node.getChildren().size()];
+        int i = 0;
+        for (MNode child : node.getChildren().values()) {
+          children[i++] = new Node(child);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OrderedChildMap keeps the children of an MNode in insertion order like a LinkedHashMap, while
+ * they can be read without locking as a writer holding the write lock of MManager adds or removes
+ * one. The children are looked up through a ConcurrentHashMap and iterated over through an array
+ * that the writer only appends to, so adding a child does not copy the others.
+ * <p>
+ * A removed child is marked in the array and skipped by the iterators, and the array is rebuilt
+ * without the removed children once they are the majority.
+ */
+class OrderedChildMap extends AbstractMap<String, MNode> implements Serializable {
+
+  private static final long serialVersionUID = -4412478208423040213L;
+
+  private static final Child[] EMPTY_ARRAY = new Child[0];
+
+  private final Map<String, Child> index = new ConcurrentHashMap<>();
+  // replaced as a whole so that the array and its used length are always read together
+  private volatile Order order = new Order(EMPTY_ARRAY, 0);
+  private int removedNum = 0;
+
+  OrderedChildMap() {
+  }
+
+  OrderedChildMap(Map<String, MNode> children) {
+    for (Entry<String, MNode> entry : children.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public MNode get(Object key) {
+    Child child = index.get(key);
+    return child == null ? null : child.node;
+  }
+
+  @Override
+  public MNode put(String key, MNode value) {
+    Child child = index.get(key);
+    if (child != null) {
+      // an existing child keeps its position
+      MNode old = child.node;
+      child.node = value;
+      return old;
+    }
+    child = new Child(key, value);
+    Order currOrder = order;
+    Child[] children = currOrder.children;
+    if (currOrder.size == children.length) {
+      children = Arrays.copyOf(children, Math.max(CompactChildMap.MAX_SIZE * 2,
+          children.length * 2));
+    }
+    children[currOrder.size] = child;
+    // publish the child to the iterators before the lookups, as a reader may iterate after a get
+    order = new Order(children, currOrder.size + 1);
+    index.put(key, child);
+    return null;
+  }
+
+  @Override
+  public MNode remove(Object key) {
+    Child child = index.remove(key);
+    if (child == null) {
+      return null;
+    }
+    MNode old = child.node;
+    child.node = null;
+    removedNum++;
+    Order currOrder = order;
+    if (removedNum > currOrder.size / 2) {
+      Child[] children = new Child[Math.max(CompactChildMap.MAX_SIZE * 2, index.size() * 2)];
+      int size = 0;
+      for (int i = 0; i < currOrder.size; i++) {
+        if (currOrder.children[i].node != null) {
+          children[size++] = currOrder.children[i];
+        }
+      }
+      order = new Order(children, size);
+      removedNum = 0;
+    }
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Order currOrder = order;
+    for (int i = 0; i < currOrder.size; i++) {
+      currOrder.children[i].node = null;
+    }
+    index.clear();
+    order = new Order(EMPTY_ARRAY, 0);
+    removedNum = 0;
+  }
+
+  @Override
+  public Set<Entry<String, MNode>> entrySet() {
+    return new AbstractSet<Entry<String, MNode>>() {
+      @Override
+      public Iterator<Entry<String, MNode>> iterator() {
+        return new Iterator<Entry<String, MNode>>() {
+          // iterate over the children added before the iterator is created
+          private Order iteratedOrder = order;
+          private int next = 0;
+          // found by hasNext(), so that the children removed before are skipped
+          private Entry<String, MNode> nextEntry = null;
+          private String lastKey = null;
+
+          private Entry<String, MNode> advance() {
+            while (next < iteratedOrder.size) {
+              Child child = iteratedOrder.children[next++];
+              MNode node = child.node;
+              if (node != null) {
+                return new SimpleImmutableEntry<>(child.key, node);
+              }
+            }
+            return null;
+          }
+
+          @Override
+          public boolean hasNext() {
+            if (nextEntry == null) {
+              nextEntry = advance();
+            }
+            return nextEntry != null;
+          }
+
+          @Override
+          public Entry<String, MNode> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, MNode> entry = nextEntry;
+            nextEntry = null;
+            lastKey = entry.getKey();
+            return entry;
+          }
+
+          @Override
+          public void remove() {
+            if (lastKey == null) {
+              throw new IllegalStateException();
+            }
+            OrderedChildMap.this.remove(lastKey);
+            lastKey = null;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return OrderedChildMap.this.size();
+      }
+    };
+  }
+
+  private static class Child implements Serializable {
+
+    private static final long serialVersionUID = 5386318271360466837L;
+
+    private final String key;
+    // null once the child is removed
+    private volatile MNode node;
+
+    private Child(String key, MNode node) {
+      this.key = key;
+      this.node = node;
+    }
+  }
+
+  private static class Order implements Serializable {
+
+    private static final long serialVersionUID = -2214380567591786451L;
+
+    private final Child[] children;
+    private final int size;
+
+    private Order(Child[] children, int size) {
+      this.children = children;
+      this.size = size;
+    }
+  }
+}
@@ -25,7 +25,6 @@ import org.apache.iotdb.db.auth.entity.PathPrivilege;
 import org.apache.iotdb.db.auth.entity.Role;
 import org.apache.iotdb.db.auth.entity.User;
 import org.apache.iotdb.db.conf.IoTDBConfig;
-import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -35,7 +34,6 @@ import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.metadata.MManager;
-import org.apache.iotdb.db.metadata.MNode;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator.AuthorType;
@@ -208,6 +206,8 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
 
       StorageEngine.getInstance().loadNewTsFile(tsFileResource);
     } catch (Exception e) {
+      // the resource is not served, unregister its time index from the TimeIndexManager
+      tsFileResource.setDeleted(true);
       throw new QueryProcessException(
           String.format("Cannot load file %s because %s", file.getAbsolutePath(), e.getMessage()));
     }
@@ -221,18 +221,27 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
     for (ChunkGroupMetaData chunkGroupMetaData : chunkGroupMetaDatas) {
       String device = chunkGroupMetaData.getDeviceID();
-      MNode node = mManager.getNodeByPathFromCache(device, true, sgLevel);
-      for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
-        String fullPath =
-            device + IoTDBConstant.PATH_SEPARATOR + chunkMetaData.getMeasurementUid();
-        MeasurementSchema schema = knownSchemas.get(chunkMetaData.getMeasurementUid());
+      // create the device and its storage group by the level of the loaded file
+      mManager.getNodeByPathFromCache(device, true, sgLevel);
+      List<ChunkMetaData> chunkMetaDataList = chunkGroupMetaData.getChunkMetaDataList();
+      String[] measurements = new String[chunkMetaDataList.size()];
+      for (int i = 0; i < measurements.length; i++) {
+        measurements[i] = chunkMetaDataList.get(i).getMeasurementUid();
+      }
+      MeasurementSchema[] existingSchemas = mManager.getSchemasOfDevice(device, measurements);
+      List<MeasurementSchema> missingSchemas = new ArrayList<>();
+      for (int i = 0; i < measurements.length; i++) {
+        MeasurementSchema schema = knownSchemas.get(measurements[i]);
         if (schema == null) {
           throw new MetadataException(String
-              .format("Can not get the schema of measurement [%s]",
-                  chunkMetaData.getMeasurementUid()));
+              .format("Can not get the schema of measurement [%s]", measurements[i]));
+        }
+        if (existingSchemas[i] == null) {
+          missingSchemas.add(new MeasurementSchema(schema.getMeasurementId(), schema.getType(),
+              schema.getEncodingType(), schema.getCompressor()));
         }
-        checkPathExists(node, fullPath, schema, true);
       }
+      addPathsToMTree(device, measurements, existingSchemas, missingSchemas);
     }
   }
 
@@ -340,13 +349,21 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     try {
       String[] measurementList = insertPlan.getMeasurements();
       String deviceId = insertPlan.getDeviceId();
-      MNode node = mManager.getNodeByPathFromCache(deviceId);
       String[] strValues = insertPlan.getValues();
       TSDataType[] dataTypes = new TSDataType[measurementList.length];
 
+      MeasurementSchema[] schemas = mManager.getSchemasOfDevice(deviceId, measurementList);
+      List<MeasurementSchema> missingSchemas = new ArrayList<>();
+      for (int i = 0; i < measurementList.length; i++) {
+        if (schemas[i] == null) {
+          checkAutoCreateSchema(deviceId, measurementList[i]);
+          missingSchemas.add(getDefaultSchema(measurementList[i],
+              TypeInferenceUtils.getPredictedDataType(strValues[i])));
+        }
+      }
+      schemas = addPathsToMTree(deviceId, measurementList, schemas, missingSchemas);
       for (int i = 0; i < measurementList.length; i++) {
-        MNode measurementNode = checkPathExists(node, deviceId, measurementList[i], strValues[i]);
-        dataTypes[i] = measurementNode.getSchema().getType();
+        dataTypes[i] = schemas[i].getType();
       }
       insertPlan.setDataTypes(dataTypes);
       storageEngine.insert(insertPlan);
@@ -357,54 +374,12 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
   }
 
-  private MNode checkPathExists(MNode node, String deviceId, String measurement, String strValue)
-      throws MetadataException, QueryProcessException, StorageEngineException {
-    // check if timeseries exists
-    if (!node.hasChild(measurement)) {
-      if (!IoTDBDescriptor.getInstance().getConfig().isAutoCreateSchemaEnabled()) {
-        throw new QueryProcessException(
-            String.format("Current deviceId[%s] does not contain measurement:%s", deviceId,
-                measurement));
-      }
-      try {
-        addPathToMTree(deviceId, measurement, strValue);
-      } catch (MetadataException e) {
-        if (!e.getMessage().contains("already exist")) {
-          throw e;
-        }
-      }
-    }
-    MNode measurementNode = node.getChild(measurement);
-    if (!measurementNode.isLeaf()) {
-      throw new QueryProcessException(
-          String.format("Current Path is not leaf node. %s.%s", deviceId, measurement));
-    }
-    return measurementNode;
-  }
-
-  private void checkPathExists(MNode node, String fullPath, MeasurementSchema schema,
-      boolean autoCreateSchema)
-      throws QueryProcessException, StorageEngineException, MetadataException {
-    // check if timeseries exists
-    String measurement = schema.getMeasurementId();
-    if (!node.hasChild(measurement)) {
-      if (!autoCreateSchema) {
-        throw new QueryProcessException(
-            String.format("Path[%s] does not exist", fullPath));
-      }
-      try {
-        addPathToMTree(fullPath, schema.getType(), schema.getEncodingType(),
-            schema.getCompressor());
-      } catch (MetadataException e) {
-        if (!e.getMessage().contains("already exist")) {
-          throw e;
-        }
-      }
-    }
-    MNode measurementNode = node.getChild(measurement);
-    if (!measurementNode.isLeaf()) {
+  private void checkAutoCreateSchema(String deviceId, String measurement)
+      throws QueryProcessException {
+    if (!IoTDBDescriptor.getInstance().getConfig().isAutoCreateSchemaEnabled()) {
       throw new QueryProcessException(
-          String.format("Current Path is not leaf node. %s", fullPath));
+          String.format("Current deviceId[%s] does not contain measurement:%s", deviceId,
+              measurement));
     }
   }
 
@@ -413,33 +388,25 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     try {
       String[] measurementList = batchInsertPlan.getMeasurements();
       String deviceId = batchInsertPlan.getDeviceId();
-      MNode node = mManager.getNodeByPathFromCache(deviceId);
       TSDataType[] dataTypes = batchInsertPlan.getDataTypes();
-      IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
 
+      // create the missing timeseries at once
+      MeasurementSchema[] schemas = mManager.getSchemasOfDevice(deviceId, measurementList);
+      List<MeasurementSchema> missingSchemas = new ArrayList<>();
       for (int i = 0; i < measurementList.length; i++) {
-
-        // check if timeseries exists
-        if (!node.hasChild(measurementList[i])) {
-          if (!conf.isAutoCreateSchemaEnabled()) {
-            throw new QueryProcessException(
-                String.format("Current deviceId[%s] does not contain measurement:%s",
-                    deviceId, measurementList[i]));
-          }
-          addPathToMTree(deviceId, measurementList[i], dataTypes[i]);
-        }
-        MNode measurementNode = node.getChild(measurementList[i]);
-        if (!measurementNode.isLeaf()) {
-          throw new QueryProcessException(
-              String.format("Current Path is not leaf node. %s.%s", deviceId, measurementList[i]));
+        if (schemas[i] == null) {
+          checkAutoCreateSchema(deviceId, measurementList[i]);
+          missingSchemas.add(getDefaultSchema(measurementList[i], dataTypes[i]));
         }
+      }
+      schemas = addPathsToMTree(deviceId, measurementList, schemas, missingSchemas);
 
+      for (int i = 0; i < measurementList.length; i++) {
         // check data type
-        if (measurementNode.getSchema().getType() != batchInsertPlan.getDataTypes()[i]) {
+        if (schemas[i].getType() != dataTypes[i]) {
           throw new QueryProcessException(String
               .format("Datatype mismatch, Insert measurement %s type %s, metadata tree type %s",
-                  measurementList[i], batchInsertPlan.getDataTypes()[i],
-                  measurementNode.getSchema().getType()));
+                  measurementList[i], dataTypes[i], schemas[i].getType()));
         }
       }
       return storageEngine.insertBatch(batchInsertPlan);
@@ -842,55 +809,41 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
   }
 
   /**
-   * register with value
-   */
-  private void addPathToMTree(String deviceId, String measurementId, Object value)
-      throws PathException, MetadataException, StorageEngineException {
-    TSDataType predictedDataType = TypeInferenceUtils.getPredictedDataType(value);
-    Path path = new Path(deviceId, measurementId);
-    TSEncoding encoding = getDefaultEncoding(predictedDataType);
-    CompressionType compressionType =
-        CompressionType.valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor());
-    addPathToMTree(path, predictedDataType, encoding, compressionType);
-  }
-
-  /**
-   * register with datatype
+   * schema with the default encoding and compression of the datatype
    */
-  private void addPathToMTree(String deviceId, String measurementId, TSDataType dataType)
-      throws PathException, MetadataException, StorageEngineException {
-    Path path = new Path(deviceId, measurementId);
-    TSEncoding encoding = getDefaultEncoding(dataType);
-    CompressionType compressionType =
-        CompressionType.valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor());
-    addPathToMTree(path, dataType, encoding, compressionType);
+  private MeasurementSchema getDefaultSchema(String measurementId, TSDataType dataType) {
+    return new MeasurementSchema(measurementId, dataType, getDefaultEncoding(dataType),
+        CompressionType.valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor()));
   }
 
   /**
-   * Add a seriesPath to MTree, register with datatype, encoding and compression
-   */
-  private void addPathToMTree(Path path, TSDataType dataType, TSEncoding encoding,
-      CompressionType compressionType)
-      throws PathException, MetadataException, StorageEngineException {
-    boolean result = mManager.addPathToMTree(
-        path, dataType, encoding, compressionType, Collections.emptyMap());
-    if (result) {
-      storageEngine.addTimeSeries(path, dataType, encoding, compressionType, Collections.emptyMap());
-    }
-  }
-
-  /**
-   * Add a seriesPath to MTree, register with datatype, encoding and compression
+   * Add the seriesPaths of a device that do not exist yet to MTree at once, and register the
+   * measurements that are new to the storage group to the StorageEngine
+   *
+   * @param schemas the schemas of the measurements resolved before adding the missing ones
+   * @return the schemas of all measurements
    */
-  private void addPathToMTree(String path, TSDataType dataType, TSEncoding encoding,
-      CompressionType compressionType)
-      throws PathException, MetadataException, StorageEngineException {
-    boolean result = mManager.addPathToMTree(
-        path, dataType, encoding, compressionType, Collections.emptyMap());
-    if (result) {
-      storageEngine.addTimeSeries(new Path(path),
-          dataType, encoding, compressionType, Collections.emptyMap());
+  private MeasurementSchema[] addPathsToMTree(String deviceId, String[] measurements,
+      MeasurementSchema[] schemas, List<MeasurementSchema> missingSchemas)
+      throws PathException, MetadataException, StorageEngineException, CacheException,
+      QueryProcessException {
+    if (missingSchemas.isEmpty()) {
+      return schemas;
+    }
+    for (MeasurementSchema schema : mManager.addPathsToMTree(deviceId, missingSchemas)) {
+      storageEngine.addTimeSeries(new Path(deviceId, schema.getMeasurementId()),
+          schema.getType(), schema.getEncodingType(), schema.getCompressor(),
+          Collections.emptyMap());
+    }
+    schemas = mManager.getSchemasOfDevice(deviceId, measurements);
+    for (int i = 0; i < measurements.length; i++) {
+      // a measurement may be an inner node of the MTree rather than a timeseries
+      if (schemas[i] == null) {
+        throw new QueryProcessException(
+            String.format("Current Path is not leaf node. %s.%s", deviceId, measurements[i]));
+      }
     }
+    return schemas;
   }
 
   /**
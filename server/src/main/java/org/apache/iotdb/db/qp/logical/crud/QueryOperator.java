@@ -47,6 +47,7 @@ public class QueryOperator extends SFWOperator {
 
   private boolean isGroupByDevice = false;
   private boolean isAlign = true;
+  private boolean isLastQuery = false;
 
   public QueryOperator(int tokenIntType) {
     super(tokenIntType);
@@ -157,6 +158,14 @@ public class QueryOperator extends SFWOperator {
     this.isGroupByDevice = isGroupByDevice;
   }
 
+  public boolean isLastQuery() {
+    return isLastQuery;
+  }
+
+  public void setLastQuery(boolean lastQuery) {
+    isLastQuery = lastQuery;
+  }
+
   public boolean isAlign() {
     return isAlign;
   }
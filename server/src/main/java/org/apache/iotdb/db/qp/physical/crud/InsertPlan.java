@@ -38,6 +38,8 @@ public class InsertPlan extends PhysicalPlan {
   private TSDataType[] dataTypes;
   private String[] values;
   private long time;
+  // the values parsed into their data types by the memtable, which are not serialized
+  private Object[] parsedValues;
 
   public InsertPlan() {
     super(false, OperatorType.INSERT);
@@ -125,6 +127,14 @@ public class InsertPlan extends PhysicalPlan {
     this.values = values;
   }
 
+  public Object[] getParsedValues() {
+    return parsedValues;
+  }
+
+  public void setParsedValues(Object[] parsedValues) {
+    this.parsedValues = parsedValues;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
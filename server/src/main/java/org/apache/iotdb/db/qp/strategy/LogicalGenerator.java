@@ -125,6 +125,7 @@ import org.apache.iotdb.db.qp.strategy.SqlBaseParser.RevokeWatermarkEmbeddingCon
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.RootOrIdContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SelectConstElementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SelectElementContext;
+import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SelectLastStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SelectStatementContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SetColContext;
 import org.apache.iotdb.db.qp.strategy.SqlBaseParser.SetStorageGroupContext;
@@ -741,9 +742,8 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     // parse sliding step
     if (ctx.DURATION().size() == 2) {
       queryOp.setSlidingStep(parseDuration(ctx.DURATION(1).getText()));
-      if (queryOp.getSlidingStep() < queryOp.getUnit()) {
-        throw new SQLParserException(
-            "The third parameter sliding step shouldn't be smaller than the second parameter time interval.");
+      if (queryOp.getSlidingStep() <= 0) {
+        throw new SQLParserException("The third parameter sliding step should be positive.");
       }
     }
 
@@ -1002,6 +1002,20 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     initializedOperator = queryOp;
   }
 
+  @Override
+  public void enterSelectLastStatement(SelectLastStatementContext ctx) {
+    super.enterSelectLastStatement(ctx);
+    operatorType = SQLConstant.TOK_QUERY;
+    queryOp = new QueryOperator(SQLConstant.TOK_QUERY);
+    queryOp.setLastQuery(true);
+    selectOp = new SelectOperator(SQLConstant.TOK_SELECT);
+    for (SuffixPathContext suffixPath : ctx.suffixPath()) {
+      selectOp.addSelectPath(parseSuffixPath(suffixPath));
+    }
+    queryOp.setSelectOperator(selectOp);
+    initializedOperator = queryOp;
+  }
+
   @Override
   public void enterSelectConstElement(SelectConstElementContext ctx) {
     super.enterSelectConstElement(ctx);
@@ -151,8 +151,9 @@ public class AvgAggrFunc extends AggregateFunction {
   @Override
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         updateMean(seriesDataType, value);
       }
@@ -137,8 +137,9 @@ public class CountAggrFunc extends AggregateFunction {
   public void calcAggregationUsingTimestamps(long[] timestamps, int length,
       IReaderByTimestamp dataReader) throws IOException {
     int cnt = 0;
+    Object[] values = dataReader.getValuesInTimestamps(timestamps, length);
     for (int i = 0; i < length; i++) {
-      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      Object value = values[i];
       if (value != null) {
         cnt++;
       }
@@ -20,7 +20,6 @@
 package org.apache.iotdb.db.query.context;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,7 +42,7 @@ public class QueryContext {
    * use this field because each call of Modification.getModifications() return a copy of the
    * Modifications, and we do not want it to create multiple copies within a query.
    */
-  private Map<String, List<Modification>> fileModCache = new HashMap<>();
+  private Map<String, List<Modification>> fileModCache = new ConcurrentHashMap<>();
 
   private long queryId;
 
@@ -64,11 +63,9 @@ public class QueryContext {
     Map<String, List<Modification>> fileModifications =
         filePathModCache.computeIfAbsent(modFile.getFilePath(), k -> new ConcurrentHashMap<>());
     return fileModifications.computeIfAbsent(path, k -> {
-      List<Modification> allModifications = fileModCache.get(modFile.getFilePath());
-      if (allModifications == null) {
-        allModifications = (List<Modification>) modFile.getModifications();
-        fileModCache.put(modFile.getFilePath(), allModifications);
-      }
+      // series of one query may be read by several threads at the same time
+      List<Modification> allModifications = fileModCache.computeIfAbsent(modFile.getFilePath(),
+          f -> (List<Modification>) modFile.getModifications());
       List<Modification> finalPathModifications = new ArrayList<>();
       if (!allModifications.isEmpty()) {
         allModifications.forEach(modification -> {
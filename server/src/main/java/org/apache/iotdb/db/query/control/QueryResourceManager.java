@@ -31,6 +31,7 @@ import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.serialize.IExternalSortFileDeserializer;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 /**
  * <p>
@@ -85,8 +86,18 @@ public class QueryResourceManager {
 
   public QueryDataSource getQueryDataSource(Path selectedPath,
       QueryContext context) throws StorageEngineException {
+    return getQueryDataSource(selectedPath, context, null);
+  }
+
+  /**
+   * @param timeFilter the time filter of the query, used to skip the sealed files whose time
+   * ranges do not satisfy it. Null if no filter.
+   */
+  public QueryDataSource getQueryDataSource(Path selectedPath,
+      QueryContext context, Filter timeFilter) throws StorageEngineException {
 
-    SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(selectedPath, null);
+    SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(selectedPath,
+        timeFilter);
     return StorageEngine
         .getInstance().query(singleSeriesExpression, context, filePathsManager);
   }
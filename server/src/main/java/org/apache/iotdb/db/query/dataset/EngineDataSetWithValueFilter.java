@@ -30,11 +30,26 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
 public class EngineDataSetWithValueFilter extends QueryDataSet {
 
+  /**
+   * the rows are returned one by one, so the block is smaller than the batch size to bound the
+   * values held for each series.
+   */
+  private static final int TIME_BLOCK_SIZE = 4096;
+
   private EngineTimeGenerator timeGenerator;
   private List<IReaderByTimestamp> seriesReaderByTimestampList;
   private boolean hasCachedRowRecord;
   private RowRecord cachedRowRecord;
 
+  /**
+   * the current block of timestamps from the time generator, and the values of each series in
+   * them. The values are read a block at a time with getValuesInTimestamps.
+   */
+  private long[] timestamps = new long[TIME_BLOCK_SIZE];
+  private Object[][] values;
+  private int blockSize = 0;
+  private int blockIndex = 0;
+
   /**
    * constructor of EngineDataSetWithValueFilter.
    *
@@ -48,6 +63,7 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     super(paths, dataTypes);
     this.timeGenerator = timeGenerator;
     this.seriesReaderByTimestampList = readers;
+    this.values = new Object[readers.size()][];
   }
 
   @Override
@@ -73,13 +89,12 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
    * @return if there has next row record.
    */
   private boolean cacheRowRecord() throws IOException {
-    while (timeGenerator.hasNext()) {
+    while (blockIndex < blockSize || fetchBlock()) {
       boolean hasField = false;
-      long timestamp = timeGenerator.next();
+      long timestamp = timestamps[blockIndex];
       RowRecord rowRecord = new RowRecord(timestamp);
       for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
-        IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
-        Object value = reader.getValueInTimestamp(timestamp);
+        Object value = values[i][blockIndex];
         if (value == null) {
           rowRecord.addField(new Field(null));
         } else {
@@ -87,6 +102,7 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
           rowRecord.addField(getField(value, dataTypes.get(i)));
         }
       }
+      blockIndex++;
       if (hasField) {
         hasCachedRowRecord = true;
         cachedRowRecord = rowRecord;
@@ -96,6 +112,20 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
     return hasCachedRowRecord;
   }
 
+  /**
+   * read the next block of timestamps and the values of all series in them.
+   *
+   * @return false if there is no more timestamp
+   */
+  private boolean fetchBlock() throws IOException {
+    blockSize = timeGenerator.nextTimes(timestamps);
+    blockIndex = 0;
+    for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
+      values[i] = seriesReaderByTimestampList.get(i).getValuesInTimestamps(timestamps, blockSize);
+    }
+    return blockSize > 0;
+  }
+
   public EngineTimeGenerator getTimeGenerator() {
     return timeGenerator;
   }
@@ -22,20 +22,15 @@ package org.apache.iotdb.db.query.dataset;
 import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
+import org.apache.iotdb.db.utils.TSQueryDataSetBuilder;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
-import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.*;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
-import org.apache.iotdb.tsfile.utils.BytesUtils;
-import org.apache.iotdb.tsfile.utils.PublicBAOS;
-import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
@@ -114,7 +109,10 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
 
   private BatchData[] cachedBatchDataArray;
 
-  private static final int FLAG = 0x01;
+  /**
+   * collects the rows of each fetch of the RPC, created on the first fetch
+   */
+  private TSQueryDataSetBuilder resultBuilder;
 
   // capacity for blocking queue
   private static final int BLOCKING_QUEUE_CAPACITY = 5;
@@ -169,19 +167,14 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
    */
   public TSQueryDataSet fillBuffer(int fetchSize, WatermarkEncoder encoder) throws IOException, InterruptedException {
     int seriesNum = seriesReaderWithoutValueFilterList.size();
-    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
-
-    PublicBAOS timeBAOS = new PublicBAOS();
-    PublicBAOS[] valueBAOSList = new PublicBAOS[seriesNum];
-    PublicBAOS[] bitmapBAOSList = new PublicBAOS[seriesNum];
-
-    for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-      valueBAOSList[seriesIndex] = new PublicBAOS();
-      bitmapBAOSList[seriesIndex] = new PublicBAOS();
+    if (resultBuilder == null) {
+      resultBuilder = new TSQueryDataSetBuilder(dataTypes);
+    }
+    if (seriesNum == 1) {
+      fillBufferWithOneSeries(fetchSize, encoder);
+      return resultBuilder.build();
     }
 
-    // used to record a bitmap for every 8 row records
-    int[] currentBitmapList = new int[seriesNum];
     int rowCount = 0;
     while (rowCount < fetchSize) {
 
@@ -192,97 +185,31 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
       long minTime = timeHeap.pollFirst();
 
       if (rowOffset == 0) {
-        timeBAOS.write(BytesUtils.longToBytes(minTime));
+        resultBuilder.putTime(minTime);
       }
 
       for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
 
-        if (cachedBatchDataArray[seriesIndex] == null
-                || !cachedBatchDataArray[seriesIndex].hasCurrent()
-                || cachedBatchDataArray[seriesIndex].currentTime() != minTime) {
-          // current batch is empty or does not have value at minTime
-          if (rowOffset == 0) {
-            currentBitmapList[seriesIndex] = (currentBitmapList[seriesIndex] << 1);
-          }
-        } else {
+        if (cachedBatchDataArray[seriesIndex] != null
+                && cachedBatchDataArray[seriesIndex].hasCurrent()
+                && cachedBatchDataArray[seriesIndex].currentTime() == minTime) {
           // current batch has value at minTime, consume current value
           if (rowOffset == 0) {
-            currentBitmapList[seriesIndex] = (currentBitmapList[seriesIndex] << 1) | FLAG;
-            TSDataType type = cachedBatchDataArray[seriesIndex].getDataType();
-            switch (type) {
-              case INT32:
-                int intValue = cachedBatchDataArray[seriesIndex].getInt();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  intValue = encoder.encodeInt(intValue, minTime);
-                }
-                ReadWriteIOUtils.write(intValue, valueBAOSList[seriesIndex]);
-                break;
-              case INT64:
-                long longValue = cachedBatchDataArray[seriesIndex].getLong();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  longValue = encoder.encodeLong(longValue, minTime);
-                }
-                ReadWriteIOUtils.write(longValue, valueBAOSList[seriesIndex]);
-                break;
-              case FLOAT:
-                float floatValue = cachedBatchDataArray[seriesIndex].getFloat();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  floatValue = encoder.encodeFloat(floatValue, minTime);
-                }
-                ReadWriteIOUtils.write(floatValue, valueBAOSList[seriesIndex]);
-                break;
-              case DOUBLE:
-                double doubleValue = cachedBatchDataArray[seriesIndex].getDouble();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  doubleValue = encoder.encodeDouble(doubleValue, minTime);
-                }
-                ReadWriteIOUtils.write(doubleValue, valueBAOSList[seriesIndex]);
-                break;
-              case BOOLEAN:
-                ReadWriteIOUtils.write(cachedBatchDataArray[seriesIndex].getBoolean(),
-                        valueBAOSList[seriesIndex]);
-                break;
-              case TEXT:
-                ReadWriteIOUtils
-                        .write(cachedBatchDataArray[seriesIndex].getBinary(),
-                                valueBAOSList[seriesIndex]);
-                break;
-              default:
-                throw new UnSupportedDataTypeException(
-                        String.format("Data type %s is not supported.", type));
-            }
+            putCurrentValue(seriesIndex, minTime, encoder);
           }
 
-          // move next
-          cachedBatchDataArray[seriesIndex].next();
-
-          // get next batch if current batch is empty
-          if (!cachedBatchDataArray[seriesIndex].hasCurrent()) {
-            // still have remaining batch data in queue
-            if (!noMoreDataInQueueArray[seriesIndex]) {
-              fillCache(seriesIndex);
-            }
-          }
+          moveNext(seriesIndex);
 
           // try to put the next timestamp into the heap
           if (cachedBatchDataArray[seriesIndex].hasCurrent()) {
             long time = cachedBatchDataArray[seriesIndex].currentTime();
             timeHeap.add(time);
           }
-
         }
       }
 
       if (rowOffset == 0) {
         rowCount++;
-        if (rowCount % 8 == 0) {
-          for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-            ReadWriteIOUtils
-                    .write((byte) currentBitmapList[seriesIndex], bitmapBAOSList[seriesIndex]);
-            // we should clear the bitmap every 8 row record
-            currentBitmapList[seriesIndex] = 0;
-          }
-        }
         if (rowLimit > 0) {
           alreadyReturnedRowNum++;
         }
@@ -291,43 +218,93 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
       }
     }
 
-    /*
-     * feed the bitmap with remaining 0 in the right
-     * if current bitmap is 00011111 and remaining is 3, after feeding the bitmap is 11111000
-     */
-    if (rowCount > 0) {
-      int remaining = rowCount % 8;
-      if (remaining != 0) {
-        for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-          ReadWriteIOUtils.write((byte) (currentBitmapList[seriesIndex] << (8 - remaining)),
-                  bitmapBAOSList[seriesIndex]);
+    return resultBuilder.build();
+  }
+
+  /**
+   * with only one series, each row is a point of the series, so the points are copied from the
+   * cached batch data one after another without going through the time heap.
+   */
+  private void fillBufferWithOneSeries(int fetchSize, WatermarkEncoder encoder)
+      throws InterruptedException {
+    BatchData batchData = cachedBatchDataArray[0];
+    if (timeHeap.isEmpty()) {
+      return;
+    }
+    // the only time in the heap is the current time of the batch data
+    timeHeap.clear();
+    int rowCount = 0;
+    while (rowCount < fetchSize && (rowLimit <= 0 || alreadyReturnedRowNum < rowLimit)) {
+      if (!batchData.hasCurrent()) {
+        if (noMoreDataInQueueArray[0]) {
+          break;
+        }
+        fillCache(0);
+        batchData = cachedBatchDataArray[0];
+        continue;
+      }
+      if (rowOffset > 0) {
+        rowOffset--;
+      } else {
+        long time = batchData.currentTime();
+        resultBuilder.putTime(time);
+        putCurrentValue(0, time, encoder);
+        rowCount++;
+        if (rowLimit > 0) {
+          alreadyReturnedRowNum++;
         }
       }
+      batchData.next();
     }
-
-    // set time buffer
-    ByteBuffer timeBuffer = ByteBuffer.allocate(timeBAOS.size());
-    timeBuffer.put(timeBAOS.getBuf(), 0, timeBAOS.size());
-    timeBuffer.flip();
-    tsQueryDataSet.setTime(timeBuffer);
-
-    List<ByteBuffer> valueBufferList = new ArrayList<>();
-    List<ByteBuffer> bitmapBufferList = new ArrayList<>();
-
-    for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-
-      // add value buffer of current series
-      putPBOSToBuffer(valueBAOSList, valueBufferList, seriesIndex);
-
-      // add bitmap buffer of current series
-      putPBOSToBuffer(bitmapBAOSList, bitmapBufferList, seriesIndex);
+    if (!batchData.hasCurrent() && !noMoreDataInQueueArray[0]) {
+      fillCache(0);
+      batchData = cachedBatchDataArray[0];
+    }
+    if (batchData.hasCurrent()) {
+      timeHeap.add(batchData.currentTime());
     }
+  }
 
-    // set value buffers and bitmap buffers
-    tsQueryDataSet.setValueList(valueBufferList);
-    tsQueryDataSet.setBitmapList(bitmapBufferList);
+  private void putCurrentValue(int seriesIndex, long time, WatermarkEncoder encoder) {
+    BatchData batchData = cachedBatchDataArray[seriesIndex];
+    if (encoder == null || !encoder.needEncode(time)) {
+      resultBuilder.putCurrent(seriesIndex, batchData);
+      return;
+    }
+    TSDataType type = batchData.getDataType();
+    switch (type) {
+      case INT32:
+        resultBuilder.putInt(seriesIndex, encoder.encodeInt(batchData.getInt(), time));
+        break;
+      case INT64:
+        resultBuilder.putLong(seriesIndex, encoder.encodeLong(batchData.getLong(), time));
+        break;
+      case FLOAT:
+        resultBuilder.putFloat(seriesIndex, encoder.encodeFloat(batchData.getFloat(), time));
+        break;
+      case DOUBLE:
+        resultBuilder.putDouble(seriesIndex, encoder.encodeDouble(batchData.getDouble(), time));
+        break;
+      default:
+        resultBuilder.putCurrent(seriesIndex, batchData);
+        break;
+    }
+  }
 
-    return tsQueryDataSet;
+  /**
+   * move to the next point of the series, and take the next batch data from the queue if the
+   * current one is used up.
+   */
+  private void moveNext(int seriesIndex) throws InterruptedException {
+    cachedBatchDataArray[seriesIndex].next();
+
+    // get next batch if current batch is empty
+    if (!cachedBatchDataArray[seriesIndex].hasCurrent()) {
+      // still have remaining batch data in queue
+      if (!noMoreDataInQueueArray[seriesIndex]) {
+        fillCache(seriesIndex);
+      }
+    }
   }
 
   private void fillCache(int seriesIndex) throws InterruptedException {
@@ -356,15 +333,6 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
     }
   }
 
-  private void putPBOSToBuffer(PublicBAOS[] bitmapBAOSList, List<ByteBuffer> bitmapBufferList,
-                               int tsIndex) {
-    ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.put(bitmapBAOSList[tsIndex].getBuf(), 0, bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.flip();
-    bitmapBufferList.add(bitmapBuffer);
-  }
-
-
   /**
    * for spark/hadoop/hive integration and test
    */
@@ -23,9 +23,7 @@ import java.util.List;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
 import org.apache.iotdb.db.query.aggregation.AggreResultData;
-import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
-import org.apache.iotdb.db.query.factory.AggreFuncFactory;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
@@ -42,7 +40,10 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
   protected long startTime;
   protected long endTime;
   private int usedIndex;
-  protected List<AggregateFunction> functions;
+  /**
+   * aggregates the windows of each series.
+   */
+  protected List<GroupByWindowAggregator> windowAggregators;
   protected boolean hasCachedTimeInterval;
 
   /**
@@ -55,7 +56,7 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
     this.slidingStep = groupByPlan.getSlidingStep();
     this.intervalStartTime = groupByPlan.getStartTime();
     this.intervalEndTime = groupByPlan.getEndTime();
-    this.functions = new ArrayList<>();
+    this.windowAggregators = new ArrayList<>();
 
     // init group by time partition
     this.usedIndex = 0;
@@ -64,13 +65,12 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
   }
 
   protected void initAggreFuction(GroupByPlan groupByPlan) throws PathException {
-    // construct AggregateFunctions
+    // construct the window aggregators
     for (int i = 0; i < paths.size(); i++) {
-      AggregateFunction function = AggreFuncFactory
-          .getAggrFuncByName(groupByPlan.getDeduplicatedAggregations().get(i),
-              groupByPlan.getDeduplicatedDataTypes().get(i));
-      function.init();
-      functions.add(function);
+      windowAggregators.add(new GroupByWindowAggregator(
+          groupByPlan.getDeduplicatedAggregations().get(i),
+          groupByPlan.getDeduplicatedDataTypes().get(i), unit, slidingStep, intervalStartTime,
+          intervalEndTime));
     }
   }
 
@@ -92,6 +92,13 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
     }
   }
 
+  /**
+   * @return the index of the time partition cached by hasNext()
+   */
+  protected int getCurrentWindowIndex() {
+    return usedIndex - 1;
+  }
+
   /**
    * this method is only used in the test class to get the next time partition.
    */
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.aggregation.AggreResultData;
+import org.apache.iotdb.db.query.aggregation.AggregateFunction;
+import org.apache.iotdb.db.query.factory.AggreFuncFactory;
+import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+
+/**
+ * GroupByWindowAggregator assigns the data of one series, which must be given in ascending time
+ * order, to all the group by windows [start_k, end_k) it falls into, where start_k = startTime + k
+ * * slidingStep and end_k = min(start_k + unit, endTime + 1). Windows may overlap when slidingStep
+ * is smaller than unit, so one point or one page may contribute to several windows.
+ * <p>
+ * Only the windows that have received data keep an AggregateFunction, and the functions of the
+ * windows whose results have been taken are reused, so the memory used does not depend on the
+ * number of windows of the query.
+ */
+public class GroupByWindowAggregator {
+
+  /**
+   * used as the unsequence reader of AggregateFunction, as the data given to this class has
+   * already been merged with the unsequence data.
+   */
+  private static final IPointReader EMPTY_READER = new PriorityMergeReader();
+
+  private final String aggregation;
+  private final TSDataType dataType;
+  private final long unit;
+  private final long slidingStep;
+  private final long startTime;
+  private final long endTime;
+  private final int windowNum;
+
+  /**
+   * window index -> function of the window, only for windows that have received data.
+   */
+  private TreeMap<Integer, AggregateFunction> openWindows = new TreeMap<>();
+  private Deque<AggregateFunction> freeFunctions = new ArrayDeque<>();
+
+  /**
+   * @param startTime the start time of the first window
+   * @param endTime the max time (included) of the last window
+   */
+  public GroupByWindowAggregator(String aggregation, TSDataType dataType, long unit,
+      long slidingStep, long startTime, long endTime) throws PathException {
+    this.aggregation = aggregation;
+    this.dataType = dataType;
+    this.unit = unit;
+    this.slidingStep = slidingStep;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.windowNum = endTime < startTime ? 0
+        : (int) Math.min(Integer.MAX_VALUE, (endTime - startTime) / slidingStep + 1);
+    // fail fast on unsupported aggregations
+    freeFunctions.push(AggreFuncFactory.getAggrFuncByName(aggregation, dataType));
+  }
+
+  public int getWindowNum() {
+    return windowNum;
+  }
+
+  public long getWindowStartTime(int windowIndex) {
+    return startTime + windowIndex * slidingStep;
+  }
+
+  /**
+   * @return the end time (excluded) of the window
+   */
+  public long getWindowEndTime(int windowIndex) {
+    return Math.min(getWindowStartTime(windowIndex) + unit, endTime + 1);
+  }
+
+  /**
+   * @return the index of the first window whose end time is greater than time
+   */
+  private int firstWindowAfter(long time) {
+    long idx = Math.floorDiv(time - unit - startTime, slidingStep) + 1;
+    return (int) Math.max(0, Math.min(idx, windowNum));
+  }
+
+  /**
+   * @return the index of the last window whose start time is not greater than time, -1 if none
+   */
+  private int lastWindowBefore(long time) {
+    if (time < startTime) {
+      return -1;
+    }
+    return (int) Math.min(Math.floorDiv(time - startTime, slidingStep), windowNum - 1L);
+  }
+
+  /**
+   * whether the data in [minTime, maxTime] belongs to at least one window.
+   */
+  public boolean overlapsWindows(long minTime, long maxTime) {
+    return minTime <= endTime && firstWindowAfter(minTime) <= lastWindowBefore(maxTime);
+  }
+
+  /**
+   * whether every window the page falls into contains the whole page, so that the page can be
+   * aggregated without being decoded.
+   */
+  public boolean canUsePageHeader(long minTime, long maxTime) {
+    int first = firstWindowAfter(minTime);
+    int last = lastWindowBefore(maxTime);
+    for (int k = first; k <= last; k++) {
+      if (getWindowStartTime(k) > minTime || getWindowEndTime(k) <= maxTime) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * aggregate a page into all the windows that contain it, see canUsePageHeader().
+   */
+  public void consumePageHeader(PageHeader pageHeader) throws QueryProcessException {
+    int first = firstWindowAfter(pageHeader.getStartTime());
+    int last = lastWindowBefore(pageHeader.getEndTime());
+    for (int k = first; k <= last; k++) {
+      getFunction(k).calculateValueFromPageHeader(pageHeader);
+    }
+  }
+
+  /**
+   * aggregate the points from the read cursor to the end of batchData into all the windows they
+   * fall into. The points must be in ascending time order and not earlier than the data given
+   * before.
+   */
+  public void consumeBatch(BatchData batchData) throws IOException, QueryProcessException {
+    int from = batchData.getReadCurIndex();
+    int length = batchData.length();
+    if (from >= length) {
+      return;
+    }
+    int first = firstWindowAfter(batchData.getTimeByIndex(from));
+    int last = lastWindowBefore(batchData.getTimeByIndex(length - 1));
+    for (int k = first; k <= last; k++) {
+      // windows are visited in ascending start time, so the search never goes backwards
+      from = lowerBound(batchData, from, length, getWindowStartTime(k));
+      long windowEndTime = getWindowEndTime(k);
+      if (from < length && batchData.getTimeByIndex(from) < windowEndTime) {
+        batchData.setReadCurIndex(from);
+        getFunction(k).calculateValueFromPageData(batchData, EMPTY_READER, windowEndTime);
+      }
+    }
+    batchData.setReadCurIndex(length);
+  }
+
+  /**
+   * @return the index of the first point in [from, to) whose time is not less than time
+   */
+  private static int lowerBound(BatchData batchData, int from, int to, long time) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (batchData.getTimeByIndex(mid) < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * take the result of a window. It must only be called when all the data earlier than the end time
+   * of the window has been given, and the data given later must not be earlier than it.
+   */
+  public AggreResultData removeResult(int windowIndex) throws QueryProcessException {
+    // windows before it can not receive data any more
+    Map.Entry<Integer, AggregateFunction> entry;
+    while ((entry = openWindows.firstEntry()) != null && entry.getKey() < windowIndex) {
+      freeFunctions.push(openWindows.pollFirstEntry().getValue());
+    }
+    AggregateFunction function = openWindows.remove(windowIndex);
+    if (function == null) {
+      function = newFunction();
+    }
+    AggreResultData result = function.getResult().deepCopy();
+    freeFunctions.push(function);
+    return result;
+  }
+
+  private AggregateFunction getFunction(int windowIndex) throws QueryProcessException {
+    AggregateFunction function = openWindows.get(windowIndex);
+    if (function == null) {
+      function = newFunction();
+      openWindows.put(windowIndex, function);
+    }
+    return function;
+  }
+
+  private AggregateFunction newFunction() throws QueryProcessException {
+    AggregateFunction function = freeFunctions.poll();
+    if (function == null) {
+      try {
+        function = AggreFuncFactory.getAggrFuncByName(aggregation, dataType);
+      } catch (PathException e) {
+        throw new QueryProcessException(e.getMessage());
+      }
+    }
+    function.init();
+    return function;
+  }
+}
@@ -25,28 +25,27 @@ import java.util.List;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
-import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
-import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
 
 public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
 
   private List<IReaderByTimestamp> allDataReaderList;
-  private TimeGenerator timestampGenerator;
+  private EngineTimeGenerator timestampGenerator;
   /**
-   * cached timestamp for next group by partition.
+   * the block of timestamps generated but not consumed yet, which may belong to the next group by
+   * partitions.
    */
-  private long timestamp;
-  /**
-   * if this object has cached timestamp for next group by partition.
-   */
-  private boolean hasCachedTimestamp;
+  private long[] timestampBlock;
+  private int timestampBlockSize = 0;
+  private int timestampBlockIndex = 0;
 
   /**
    * group by batch calculation size.
@@ -77,6 +76,7 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
       throws StorageEngineException, IOException, PathException {
     initAggreFuction(groupByPlan);
     this.timestampGenerator = new EngineTimeGenerator(groupByPlan.getExpression(), context);
+    this.timestampBlock = new long[timeStampFetchSize];
     this.allDataReaderList = new ArrayList<>();
     for (Path path : paths) {
       SeriesReaderByTimestamp seriesReaderByTimestamp = new SeriesReaderByTimestamp(path, context);
@@ -91,75 +91,64 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
           + " in GroupByWithoutValueFilterDataSet.");
     }
     hasCachedTimeInterval = false;
-    for (AggregateFunction function : functions) {
-      function.init();
-    }
 
     long[] timestampArray = new long[timeStampFetchSize];
-    int timeArrayLength = 0;
-    if (hasCachedTimestamp) {
-      if (timestamp < endTime) {
-        if (timestamp >= startTime) {
-          hasCachedTimestamp = false;
-          timestampArray[timeArrayLength++] = timestamp;
+    RowRecord record = new RowRecord(startTime);
+    try {
+      // each timestamp is read only once and given to all the windows it falls into
+      int timeArrayLength;
+      while ((timeArrayLength = constructTimeArrayForOneCal(timestampArray)) > 0) {
+        for (int i = 0; i < paths.size(); i++) {
+          windowAggregators.get(i).consumeBatch(
+              readValues(timestampArray, timeArrayLength, i));
         }
-      } else {
-        return constructRowRecord();
       }
-    }
-
-    while (timestampGenerator.hasNext()) {
-      // construct timestamp array
-      timeArrayLength = constructTimeArrayForOneCal(timestampArray, timeArrayLength);
-
-      // cal result using timestamp array
-      for (int i = 0; i < paths.size(); i++) {
-        functions.get(i).calcAggregationUsingTimestamps(
-            timestampArray, timeArrayLength, allDataReaderList.get(i));
-      }
-
-      timeArrayLength = 0;
-      // judge if it's end
-      if (timestamp >= endTime) {
-        hasCachedTimestamp = true;
-        break;
-      }
-    }
-
-    if (timeArrayLength > 0) {
-      // cal result using timestamp array
-      for (int i = 0; i < paths.size(); i++) {
-        functions.get(i).calcAggregationUsingTimestamps(
-            timestampArray, timeArrayLength, allDataReaderList.get(i));
+      for (GroupByWindowAggregator aggregator : windowAggregators) {
+        record.addField(getField(aggregator.removeResult(getCurrentWindowIndex())));
       }
+    } catch (QueryProcessException e) {
+      throw new IOException(e);
     }
-    return constructRowRecord();
+    return record;
   }
 
   /**
-   * construct an array of timestamps for one batch of a group by partition calculating.
+   * construct an array of timestamps before endTime for one batch of calculating.
    *
-   * @param timestampArray  timestamp array
-   * @param timeArrayLength the current size of timestamp array
+   * @param timestampArray timestamp array
    * @return time array size
    */
-  private int constructTimeArrayForOneCal(long[] timestampArray, int timeArrayLength)
-      throws IOException {
-    for (int cnt = 1; cnt < timeStampFetchSize && timestampGenerator.hasNext(); cnt++) {
-      timestamp = timestampGenerator.next();
-      if (timestamp < endTime) {
-        timestampArray[timeArrayLength++] = timestamp;
-      } else {
-        hasCachedTimestamp = true;
+  private int constructTimeArrayForOneCal(long[] timestampArray) throws IOException {
+    int timeArrayLength = 0;
+    while (timeArrayLength < timeStampFetchSize) {
+      if (timestampBlockIndex == timestampBlockSize) {
+        timestampBlockSize = timestampGenerator.nextTimes(timestampBlock);
+        timestampBlockIndex = 0;
+        if (timestampBlockSize == 0) {
+          break;
+        }
+      }
+      if (timestampBlock[timestampBlockIndex] >= endTime) {
         break;
       }
+      timestampArray[timeArrayLength++] = timestampBlock[timestampBlockIndex++];
     }
     return timeArrayLength;
   }
 
-  private RowRecord constructRowRecord() {
-    RowRecord record = new RowRecord(startTime);
-    functions.forEach(function -> record.addField(getField(function.getResult())));
-    return record;
+  /**
+   * read the values of the series indexed by idx in the given timestamps.
+   */
+  private BatchData readValues(long[] timestampArray, int timeArrayLength, int idx)
+      throws IOException {
+    IReaderByTimestamp reader = allDataReaderList.get(idx);
+    BatchData batchData = new BatchData(dataTypes.get(idx));
+    Object[] values = reader.getValuesInTimestamps(timestampArray, timeArrayLength);
+    for (int i = 0; i < timeArrayLength; i++) {
+      if (values[i] != null) {
+        batchData.putAnObject(timestampArray[i], values[i]);
+      }
+    }
+    return batchData;
   }
 }
@@ -25,12 +25,13 @@ import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
 import org.apache.iotdb.db.query.aggregation.AggreResultData;
-import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.pool.ParallelSeriesTaskRunner;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.read.common.*;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
@@ -42,13 +43,37 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * GroupByWithoutValueFilterDataSet reads each series only once in time order: every page or point
+ * is given to all the windows it falls into, using page headers where possible, and the result of a
+ * window is returned as soon as the data read has passed its end time.
+ */
 public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
 
+  /**
+   * how many consecutive windows of a series are computed by one task, so that the cost of
+   * scheduling the series on the query pool is shared by many windows when they are small.
+   */
+  private static final int WINDOWS_PER_TASK = 256;
+
   private List<IPointReader> unSequenceReaderList;
   private List<IAggregateReader> sequenceReaderList;
-  private List<BatchData> batchDataList;
-  private List<Boolean> hasCachedSequenceDataList;
+  /**
+   * the header of the next sequence page of each series, which has not been consumed yet.
+   */
+  private List<PageHeader> cachedPageHeaderList;
+  /**
+   * the next sequence batch of each series without page header (i.e., memory data), which has not
+   * been consumed yet.
+   */
+  private List<BatchData> cachedBatchDataList;
   private Filter timeFilter;
+  private ParallelSeriesTaskRunner seriesTaskRunner;
+  /**
+   * the results of the windows computed in advance, series -> window - cachedFirstWindow -> result.
+   */
+  private List<AggreResultData[]> cachedResults;
+  private int cachedFirstWindow;
 
   /**
    * constructor.
@@ -60,11 +85,11 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     this.unSequenceReaderList = new ArrayList<>();
     this.sequenceReaderList = new ArrayList<>();
     this.timeFilter = null;
-    this.hasCachedSequenceDataList = new ArrayList<>();
-    this.batchDataList = new ArrayList<>();
+    this.cachedPageHeaderList = new ArrayList<>();
+    this.cachedBatchDataList = new ArrayList<>();
     for (int i = 0; i < paths.size(); i++) {
-      hasCachedSequenceDataList.add(false);
-      batchDataList.add(null);
+      cachedPageHeaderList.add(null);
+      cachedBatchDataList.add(null);
     }
     initGroupBy(context, groupByPlan);
   }
@@ -80,10 +105,13 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     if (expression != null) {
       timeFilter = ((GlobalTimeExpression) expression).getFilter();
     }
+    long maxSeriesMemoryCost = 0;
     for (Path path : paths) {
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(path, context);
+          .getQueryDataSource(path, context, timeFilter);
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
+      maxSeriesMemoryCost = Math.max(maxSeriesMemoryCost,
+          ParallelSeriesTaskRunner.estimateSeriesMemoryCost(queryDataSource));
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader = new SeqResourceIterateReader(
@@ -98,7 +126,7 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       sequenceReaderList.add(seqResourceIterateReader);
       unSequenceReaderList.add(unseqResourceMergeReader);
     }
-
+    seriesTaskRunner = new ParallelSeriesTaskRunner(paths.size(), maxSeriesMemoryCost);
   }
 
   @Override
@@ -109,13 +137,13 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
     hasCachedTimeInterval = false;
     RowRecord record = new RowRecord(startTime);
-    for (int i = 0; i < functions.size(); i++) {
-      AggreResultData res;
-      try {
-        res = nextSeries(i);
-      } catch (QueryProcessException e) {
-        throw new IOException(e);
-      }
+    int windowIndex = getCurrentWindowIndex();
+    if (cachedResults == null || cachedResults.isEmpty()
+        || windowIndex >= cachedFirstWindow + cachedResults.get(0).length) {
+      computeWindows(windowIndex);
+    }
+    for (AggreResultData[] seriesResults : cachedResults) {
+      AggreResultData res = seriesResults[windowIndex - cachedFirstWindow];
       if (res == null) {
         record.addField(new Field(null));
       } else {
@@ -126,196 +154,168 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
   }
 
   /**
-   * calculate the group by result of the series indexed by idx.
-   *
-   * @param idx series id
+   * compute the results of the windows from firstWindow on. The series are independent of each
+   * other, so they are computed in parallel, and each task computes a batch of windows of a series.
    */
-  private AggreResultData nextSeries(int idx) throws IOException, QueryProcessException {
-    IPointReader unsequenceReader = unSequenceReaderList.get(idx);
-    IAggregateReader sequenceReader = sequenceReaderList.get(idx);
-    AggregateFunction function = functions.get(idx);
-    function.init();
-
-    // skip the points with timestamp less than startTime
-    skipBeforeStartTimeData(idx, sequenceReader, unsequenceReader);
-
-    // cal group by in batch data
-    boolean finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
-    if (finishCheckSequenceData) {
-      // check unsequence data
-      function.calculateValueFromUnsequenceReader(unsequenceReader, endTime);
-      return function.getResult().deepCopy();
-    }
-
-    // continue checking sequence data
-    while (sequenceReader.hasNextBatch()) {
-      PageHeader pageHeader = sequenceReader.nextPageHeader();
-
-      // memory data
-      if (pageHeader == null) {
-        batchDataList.set(idx, sequenceReader.nextBatch());
-        hasCachedSequenceDataList.set(idx, true);
-        finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
-      } else {
-        // page data
-        long minTime = pageHeader.getStartTime();
-        long maxTime = pageHeader.getEndTime();
-        // no point in sequence data with a timestamp less than endTime
-        if (minTime >= endTime) {
-          finishCheckSequenceData = true;
-        } else if (canUseHeader(minTime, maxTime, unsequenceReader, function)) {
-          // cal using page header
-          function.calculateValueFromPageHeader(pageHeader);
-          sequenceReader.skipPageData();
-        } else {
-          // cal using page data
-          batchDataList.set(idx, sequenceReader.nextBatch());
-          hasCachedSequenceDataList.set(idx, true);
-          finishCheckSequenceData = calGroupByInBatchData(idx, function, unsequenceReader);
-        }
-
-        if (finishCheckSequenceData) {
-          break;
-        }
-      }
+  private void computeWindows(int firstWindow) throws IOException {
+    int windowNum = windowAggregators.isEmpty() ? 1
+        : Math.min(WINDOWS_PER_TASK, windowAggregators.get(0).getWindowNum() - firstWindow);
+    try {
+      cachedResults = seriesTaskRunner.run(windowAggregators.size(),
+          idx -> nextWindowsOfSeries(idx, firstWindow, windowNum));
+    } catch (QueryProcessException e) {
+      throw new IOException(e);
     }
-    // cal using unsequence data
-    function.calculateValueFromUnsequenceReader(unsequenceReader, endTime);
-    return function.getResult().deepCopy();
+    cachedFirstWindow = firstWindow;
   }
 
   /**
-   * calculate groupBy's result in batch data.
+   * calculate the group by results of the series indexed by idx in windowNum windows from
+   * firstWindow on.
    *
-   * @param idx              series index
-   * @param function         aggregate function of the series
-   * @param unsequenceReader unsequence reader of the series
-   * @return if all sequential data been computed
+   * @param idx series id
    */
-  private boolean calGroupByInBatchData(int idx, AggregateFunction function,
-      IPointReader unsequenceReader)
+  private AggreResultData[] nextWindowsOfSeries(int idx, int firstWindow, int windowNum)
       throws IOException, QueryProcessException {
-    BatchData batchData = batchDataList.get(idx);
-    boolean hasCachedSequenceData = hasCachedSequenceDataList.get(idx);
-    boolean finishCheckSequenceData = false;
-    // there was unprocessed data in last batch
-    if (hasCachedSequenceData && batchData.hasCurrent()) {
-      function.calculateValueFromPageData(batchData, unsequenceReader, endTime);
-    }
-
-    if (hasCachedSequenceData && batchData.hasCurrent()) {
-      finishCheckSequenceData = true;
-    } else {
-      hasCachedSequenceData = false;
+    GroupByWindowAggregator aggregator = windowAggregators.get(idx);
+    AggreResultData[] results = new AggreResultData[windowNum];
+    for (int i = 0; i < windowNum; i++) {
+      int windowIndex = firstWindow + i;
+      // all the data before the end time of the window must have been given to the windows
+      consumeDataBefore(idx, aggregator.getWindowEndTime(windowIndex));
+      results[i] = aggregator.removeResult(windowIndex);
     }
-    batchDataList.set(idx, batchData);
-    hasCachedSequenceDataList.set(idx, hasCachedSequenceData);
-    return finishCheckSequenceData;
+    return results;
   }
 
   /**
-   * skip the points with timestamp less than startTime.
+   * give the sequence and unsequence data of a series to its windows in time order, until the next
+   * unconsumed data is not earlier than bound. A page or batch is always consumed as a whole, so
+   * data later than bound may also be given to the windows.
    *
-   * @param idx              the index of series
-   * @param sequenceReader   sequence Reader
-   * @param unsequenceReader unsequence Reader
-   * @throws IOException exception when reading file
+   * @param idx series index
+   * @param bound time upper bound (excluded)
    */
-  private void skipBeforeStartTimeData(int idx, IAggregateReader sequenceReader,
-      IPointReader unsequenceReader)
-      throws IOException {
-
-    // skip the unsequenceReader points with timestamp less than startTime
-    skipPointInUnsequenceData(unsequenceReader);
-
-    // skip the cached batch data points with timestamp less than startTime
-    if (skipPointInBatchData(idx)) {
-      return;
+  private void consumeDataBefore(int idx, long bound) throws IOException, QueryProcessException {
+    IPointReader unsequenceReader = unSequenceReaderList.get(idx);
+    GroupByWindowAggregator aggregator = windowAggregators.get(idx);
+    while (true) {
+      long seqTime = nextSequenceTime(idx);
+      long unseqTime = unsequenceReader.hasNext() ? unsequenceReader.current().getTimestamp()
+          : Long.MAX_VALUE;
+      if (Math.min(seqTime, unseqTime) >= bound) {
+        return;
+      }
+      if (unseqTime < seqTime) {
+        // unsequence points before the next sequence data
+        aggregator.consumeBatch(readUnsequenceData(idx, unsequenceReader, aggregator,
+            Math.min(seqTime, bound)));
+      } else {
+        consumeSequenceData(idx, unsequenceReader, aggregator);
+      }
     }
+  }
 
-    // skip the points in sequenceReader data whose timestamp are less than startTime
-    while (sequenceReader.hasNextBatch()) {
+  /**
+   * @return the min time of the next unconsumed sequence data, Long.MAX_VALUE if there is none.
+   */
+  private long nextSequenceTime(int idx) throws IOException {
+    IAggregateReader sequenceReader = sequenceReaderList.get(idx);
+    while (cachedPageHeaderList.get(idx) == null && cachedBatchDataList.get(idx) == null) {
+      if (!sequenceReader.hasNextBatch()) {
+        return Long.MAX_VALUE;
+      }
       PageHeader pageHeader = sequenceReader.nextPageHeader();
-      // memory data
-      if (pageHeader == null) {
-        batchDataList.set(idx, sequenceReader.nextBatch());
-        hasCachedSequenceDataList.set(idx, true);
-        if (skipPointInBatchData(idx)) {
-          return;
-        }
+      if (pageHeader != null) {
+        cachedPageHeaderList.set(idx, pageHeader);
       } else {
-        // page data
-
-        // timestamps of all points in the page are less than startTime
-        if (pageHeader.getEndTime() < startTime) {
-          sequenceReader.skipPageData();
-          continue;
-        } else if (pageHeader.getStartTime() >= startTime) {
-          // timestamps of all points in the page are greater or equal to startTime, needn't to skip
-          return;
-        }
-        // the page has overlap with startTime
-        batchDataList.set(idx, sequenceReader.nextBatch());
-        hasCachedSequenceDataList.set(idx, true);
-        if (skipPointInBatchData(idx)) {
-          return;
+        // memory data
+        BatchData batchData = sequenceReader.nextBatch();
+        if (batchData.hasCurrent()) {
+          cachedBatchDataList.set(idx, batchData);
         }
       }
     }
+    PageHeader pageHeader = cachedPageHeaderList.get(idx);
+    return pageHeader != null ? pageHeader.getStartTime()
+        : cachedBatchDataList.get(idx).currentTime();
   }
 
   /**
-   * skip points in unsequence reader whose timestamp is less than startTime.
-   *
-   * @param unsequenceReader unsequence reader
+   * consume the cached sequence page or batch, together with the unsequence points in its time
+   * range.
    */
-  private void skipPointInUnsequenceData(IPointReader unsequenceReader) throws IOException {
-    while (unsequenceReader.hasNext() && unsequenceReader.current().getTimestamp() < startTime) {
-      unsequenceReader.next();
+  private void consumeSequenceData(int idx, IPointReader unsequenceReader,
+      GroupByWindowAggregator aggregator) throws IOException, QueryProcessException {
+    IAggregateReader sequenceReader = sequenceReaderList.get(idx);
+    PageHeader pageHeader = cachedPageHeaderList.get(idx);
+    BatchData batchData;
+    if (pageHeader != null) {
+      cachedPageHeaderList.set(idx, null);
+      long minTime = pageHeader.getStartTime();
+      long maxTime = pageHeader.getEndTime();
+      if (!aggregator.overlapsWindows(minTime, maxTime)) {
+        sequenceReader.skipPageData();
+        return;
+      }
+      boolean hasUnseqData = unsequenceReader.hasNext()
+          && unsequenceReader.current().getTimestamp() <= maxTime;
+      if (!hasUnseqData && aggregator.canUsePageHeader(minTime, maxTime)
+          && (timeFilter == null || timeFilter.containStartEndTime(minTime, maxTime))) {
+        // cal using page header
+        aggregator.consumePageHeader(pageHeader);
+        sequenceReader.skipPageData();
+        return;
+      }
+      batchData = sequenceReader.nextBatch();
+    } else {
+      batchData = cachedBatchDataList.get(idx);
+      cachedBatchDataList.set(idx, null);
+    }
+    if (batchData.hasCurrent()) {
+      aggregator.consumeBatch(mergeUnsequenceData(batchData, unsequenceReader,
+          batchData.getTimeByIndex(batchData.length() - 1)));
     }
   }
 
   /**
-   * skip points in batch data whose timestamp is less than startTime.
-   *
-   * @param idx series index
-   * @return whether has next in batch data
+   * merge the unsequence points not later than maxTime into the sequence batch. The unsequence
+   * point wins if both have the same timestamp.
    */
-  private boolean skipPointInBatchData(int idx) {
-    BatchData batchData = batchDataList.get(idx);
-    boolean hasCachedSequenceData = hasCachedSequenceDataList.get(idx);
-    if (!hasCachedSequenceData) {
-      return false;
+  private BatchData mergeUnsequenceData(BatchData batchData, IPointReader unsequenceReader,
+      long maxTime) throws IOException {
+    if (!unsequenceReader.hasNext() || unsequenceReader.current().getTimestamp() > maxTime) {
+      return batchData;
     }
-
-    // skip the cached batch data points with timestamp less than startTime
-    while (batchData.hasCurrent() && batchData.currentTime() < startTime) {
-      batchData.next();
-    }
-    batchDataList.set(idx, batchData);
-    if (batchData.hasCurrent()) {
-      return true;
-    } else {
-      hasCachedSequenceDataList.set(idx, false);
-      return false;
+    BatchData mergedData = new BatchData(batchData.getDataType());
+    while (batchData.hasCurrent()) {
+      long time = batchData.currentTime();
+      if (unsequenceReader.hasNext() && unsequenceReader.current().getTimestamp() <= time) {
+        TimeValuePair pair = unsequenceReader.next();
+        mergedData.putAnObject(pair.getTimestamp(), pair.getValue().getValue());
+        if (pair.getTimestamp() == time) {
+          batchData.next();
+        }
+      } else {
+        mergedData.putAnObject(time, batchData.currentValue());
+        batchData.next();
+      }
     }
+    return mergedData;
   }
 
-  private boolean canUseHeader(long minTime, long maxTime, IPointReader unSequenceReader,
-      AggregateFunction function)
-      throws IOException, QueryProcessException {
-    if (timeFilter != null && !timeFilter.containStartEndTime(minTime, maxTime)) {
-      return false;
-    }
-
-    TimeRange range = new TimeRange(startTime, endTime - 1);
-    if (!range.contains(new TimeRange(minTime, maxTime))) {
-      return false;
+  /**
+   * read the unsequence points before bound that fall into any window into a batch.
+   */
+  private BatchData readUnsequenceData(int idx, IPointReader unsequenceReader,
+      GroupByWindowAggregator aggregator, long bound) throws IOException {
+    BatchData batchData = new BatchData(dataTypes.get(idx));
+    while (unsequenceReader.hasNext() && unsequenceReader.current().getTimestamp() < bound) {
+      TimeValuePair pair = unsequenceReader.next();
+      if (aggregator.overlapsWindows(pair.getTimestamp(), pair.getTimestamp())) {
+        batchData.putAnObject(pair.getTimestamp(), pair.getValue().getValue());
+      }
     }
-
-    // cal unsequence data with timestamps between pages.
-    function.calculateValueFromUnsequenceReader(unSequenceReader, minTime);
-
-    return !(unSequenceReader.hasNext() && unSequenceReader.current().getTimestamp() <= maxTime);
+    return batchData;
   }
 }
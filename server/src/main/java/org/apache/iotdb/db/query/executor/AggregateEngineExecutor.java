@@ -37,6 +37,7 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.AggreResultDataPointReader;
 import org.apache.iotdb.db.query.dataset.OldEngineDataSetWithoutValueFilter;
 import org.apache.iotdb.db.query.factory.AggreFuncFactory;
+import org.apache.iotdb.db.query.pool.ParallelSeriesTaskRunner;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
@@ -91,6 +92,7 @@ public class AggregateEngineExecutor {
     List<IAggregateReader> readersOfSequenceData = new ArrayList<>();
     List<IPointReader> readersOfUnSequenceData = new ArrayList<>();
     List<AggregateFunction> aggregateFunctions = new ArrayList<>();
+    long maxSeriesMemoryCost = 0;
     for (int i = 0; i < selectedSeries.size(); i++) {
       // construct AggregateFunction
       TSDataType tsDataType = dataTypes.get(i);
@@ -99,9 +101,11 @@ public class AggregateEngineExecutor {
       aggregateFunctions.add(function);
 
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(selectedSeries.get(i), context);
+          .getQueryDataSource(selectedSeries.get(i), context, timeFilter);
       // add additional time filter if TTL is set
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
+      maxSeriesMemoryCost = Math.max(maxSeriesMemoryCost,
+          ParallelSeriesTaskRunner.estimateSeriesMemoryCost(queryDataSource));
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader;
@@ -121,13 +125,12 @@ public class AggregateEngineExecutor {
       readersOfSequenceData.add(seqResourceIterateReader);
       readersOfUnSequenceData.add(unseqResourceMergeReader);
     }
-    List<AggreResultData> aggreResultDataList = new ArrayList<>();
-    //TODO use multi-thread
-    for (int i = 0; i < selectedSeries.size(); i++) {
-      AggreResultData aggreResultData = aggregateWithoutValueFilter(aggregateFunctions.get(i),
-          readersOfSequenceData.get(i), readersOfUnSequenceData.get(i), timeFilter);
-      aggreResultDataList.add(aggreResultData);
-    }
+    // the series are independent of each other, so they are aggregated in parallel
+    Filter finalTimeFilter = timeFilter;
+    List<AggreResultData> aggreResultDataList = new ParallelSeriesTaskRunner(
+        selectedSeries.size(), maxSeriesMemoryCost).run(selectedSeries.size(),
+        i -> aggregateWithoutValueFilter(aggregateFunctions.get(i), readersOfSequenceData.get(i),
+            readersOfUnSequenceData.get(i), finalTimeFilter));
     return constructDataSet(aggreResultDataList);
   }
 
@@ -291,18 +294,10 @@ public class AggregateEngineExecutor {
       List<IReaderByTimestamp> readersOfSelectedSeries)
       throws IOException {
 
-    while (timestampGenerator.hasNext()) {
-
-      // generate timestamps for aggregate
-      long[] timeArray = new long[aggregateFetchSize];
-      int timeArrayLength = 0;
-      for (int cnt = 0; cnt < aggregateFetchSize; cnt++) {
-        if (!timestampGenerator.hasNext()) {
-          break;
-        }
-        timeArray[timeArrayLength++] = timestampGenerator.next();
-      }
-
+    // generate timestamps for aggregate
+    long[] timeArray = new long[aggregateFetchSize];
+    int timeArrayLength;
+    while ((timeArrayLength = timestampGenerator.nextTimes(timeArray)) > 0) {
       // cal part of aggregate result
       for (int i = 0; i < readersOfSelectedSeries.size(); i++) {
         aggregateFunctions.get(i).calcAggregationUsingTimestamps(timeArray, timeArrayLength,
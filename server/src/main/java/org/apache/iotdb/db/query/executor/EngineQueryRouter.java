@@ -24,6 +24,7 @@ import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
 import org.apache.iotdb.db.qp.physical.crud.FillQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.qp.physical.crud.LastQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.dataset.groupby.GroupByWithValueFilterDataSet;
@@ -162,4 +163,11 @@ public class EngineQueryRouter implements IEngineQueryRouter {
     return fillEngineExecutor.execute(context);
   }
 
+  @Override
+  public QueryDataSet lastQuery(LastQueryPlan lastQueryPlan, QueryContext context)
+      throws StorageEngineException, IOException {
+    LastQueryExecutor lastQueryExecutor = new LastQueryExecutor(lastQueryPlan);
+    return lastQueryExecutor.execute(context);
+  }
+
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.executor;
+
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_VALUE;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.LastValueCache;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.qp.physical.crud.LastQueryPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.dataset.ListDataSet;
+import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+/**
+ * LastQueryExecutor executes "select last" queries, which return one row (time, timeseries, value)
+ * holding the latest point of each selected series.
+ * <p>
+ * The latest point is taken from the LastValueCache of the storage group if possible. Otherwise,
+ * it is read from the newest sequence file containing the series and the unsequence files whose
+ * end time is not earlier than it, and then put into the cache.
+ */
+public class LastQueryExecutor {
+
+  private List<Path> selectedSeries;
+  private List<TSDataType> dataTypes;
+
+  public LastQueryExecutor(LastQueryPlan lastQueryPlan) {
+    this.selectedSeries = lastQueryPlan.getDeduplicatedPaths();
+    this.dataTypes = lastQueryPlan.getDeduplicatedDataTypes();
+  }
+
+  /**
+   * execute last query.
+   *
+   * @param context query context
+   */
+  public QueryDataSet execute(QueryContext context) throws StorageEngineException, IOException {
+    ListDataSet dataSet = new ListDataSet(
+        Arrays.asList(new Path(COLUMN_TIMESERIES), new Path(COLUMN_VALUE)),
+        Arrays.asList(TSDataType.TEXT, TSDataType.TEXT));
+    for (int i = 0; i < selectedSeries.size(); i++) {
+      Path path = selectedSeries.get(i);
+      TimeValuePair lastValue = getLastValue(path, dataTypes.get(i), context);
+      if (lastValue == null) {
+        continue;
+      }
+      RowRecord record = new RowRecord(lastValue.getTimestamp());
+      Field pathField = new Field(TSDataType.TEXT);
+      pathField.setBinaryV(new Binary(path.getFullPath()));
+      record.addField(pathField);
+      Field valueField = new Field(TSDataType.TEXT);
+      valueField.setBinaryV(new Binary(lastValue.getValue().getStringValue()));
+      record.addField(valueField);
+      dataSet.putRecord(record);
+    }
+    return dataSet;
+  }
+
+  /**
+   * @return the latest point of the series, null if the series has no data
+   */
+  private TimeValuePair getLastValue(Path seriesPath, TSDataType dataType, QueryContext context)
+      throws StorageEngineException, IOException {
+    StorageGroupProcessor processor = StorageEngine.getInstance()
+        .getProcessor(seriesPath.getDevice());
+    TimeValuePair lastValue = processor.getCachedLastValue(seriesPath.getFullPath());
+    if (lastValue != null) {
+      return lastValue;
+    }
+
+    LastValueCache lastValueCache = processor.getLastValueCache();
+    if (lastValueCache == null) {
+      return readLastValue(seriesPath, dataType, context);
+    }
+    // the placeholder must be put before the files are taken by the query
+    TimeValuePair placeholder = lastValueCache.startQuery(seriesPath.getFullPath());
+    try {
+      lastValue = readLastValue(seriesPath, dataType, context);
+    } finally {
+      lastValueCache.endQuery(seriesPath.getFullPath(), placeholder, lastValue);
+    }
+    return lastValue;
+  }
+
+  private TimeValuePair readLastValue(Path seriesPath, TSDataType dataType, QueryContext context)
+      throws StorageEngineException, IOException {
+    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
+        .getQueryDataSource(seriesPath, context);
+    // only the data within TTL is visible
+    Filter timeFilter = queryDataSource.updateTimeFilter(null);
+
+    TimeValuePair lastValue = readSequenceLastValue(seriesPath, dataType,
+        queryDataSource.getSeqResources(), timeFilter, context);
+
+    // only the unsequence files that may contain data not older than the sequence data are read
+    List<TsFileResource> unseqResources = new ArrayList<>();
+    for (TsFileResource resource : queryDataSource.getUnseqResources()) {
+      // the end time of an unsealed file is not known until it is closed
+      Long endTime = resource.getEndTimeMap().get(seriesPath.getDevice());
+      if (!resource.isClosed()
+          || endTime != null && (lastValue == null || endTime >= lastValue.getTimestamp())) {
+        unseqResources.add(resource);
+      }
+    }
+    if (unseqResources.isEmpty()) {
+      return lastValue;
+    }
+    Filter unseqFilter = lastValue == null ? timeFilter
+        : queryDataSource.updateTimeFilter(TimeFilter.gtEq(lastValue.getTimestamp()));
+    IPointReader unseqReader = new OldUnseqResourceMergeReader(seriesPath, unseqResources,
+        context, unseqFilter);
+    try {
+      // unsequence data overwrites sequence data of the same timestamp
+      while (unseqReader.hasNext()) {
+        TimeValuePair pair = unseqReader.next();
+        lastValue = new TimeValuePair(pair.getTimestamp(), pair.getValue());
+      }
+    } finally {
+      unseqReader.close();
+    }
+    return lastValue;
+  }
+
+  /**
+   * read the sequence files from the newest to the oldest, and take the last point of the first
+   * chunk (or memory data) that has data. The last point of a page is given by its header, so only
+   * the data in memory is decoded.
+   */
+  private TimeValuePair readSequenceLastValue(Path seriesPath, TSDataType dataType,
+      List<TsFileResource> seqResources, Filter timeFilter, QueryContext context)
+      throws IOException {
+    IAggregateReader sequenceReader = new SeqResourceIterateReader(seriesPath,
+        new ArrayList<>(seqResources), timeFilter, context, true);
+    TimeValuePair lastValue = null;
+    long lastPageStartTime = Long.MIN_VALUE;
+    while (sequenceReader.hasNextBatch()) {
+      PageHeader pageHeader = sequenceReader.nextPageHeader();
+      if (pageHeader != null) {
+        if (pageHeader.getStartTime() < lastPageStartTime) {
+          // the pages of an older chunk
+          break;
+        }
+        lastPageStartTime = pageHeader.getStartTime();
+        lastValue = new TimeValuePair(pageHeader.getEndTime(), TsPrimitiveType
+            .getByType(dataType, pageHeader.getStatistics().getLastValue()));
+        sequenceReader.skipPageData();
+      } else {
+        BatchData batchData = sequenceReader.nextBatch();
+        if (batchData.length() == 0) {
+          continue;
+        }
+        if (batchData.getTimeByIndex(0) < lastPageStartTime) {
+          break;
+        }
+        lastPageStartTime = batchData.getTimeByIndex(0);
+        batchData.setReadCurIndex(batchData.length() - 1);
+        lastValue = new TimeValuePair(batchData.currentTime(),
+            batchData.currentTsPrimitiveType());
+      }
+    }
+    return lastValue;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+
+/**
+ * ParallelSeriesTaskRunner computes independent per-series sub tasks of one query (e.g., the
+ * aggregation of each selected series) on the QueryTaskPoolManager.
+ * <p>
+ * The number of series computed at the same time is bounded by concurrent_aggregation_series_num
+ * and by how many series fit into aggregation_memory_budget. The calling thread always takes part
+ * in the computation, so a query still makes progress when the query pool is busy.
+ */
+public class ParallelSeriesTaskRunner {
+
+  private static final QueryTaskPoolManager pool = QueryTaskPoolManager.getInstance();
+
+  private final int parallelism;
+
+  /**
+   * @param seriesNum number of series in the query
+   * @param estimatedSeriesMemoryCost rough memory (in byte) needed to compute one series
+   */
+  public ParallelSeriesTaskRunner(int seriesNum, long estimatedSeriesMemoryCost) {
+    this.parallelism = computeParallelism(seriesNum, estimatedSeriesMemoryCost);
+  }
+
+  static int computeParallelism(int seriesNum, long estimatedSeriesMemoryCost) {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int maxParallelism = config.getConcurrentAggregationSeriesNum();
+    if (maxParallelism <= 0) {
+      maxParallelism = config.getConcurrentQueryThread();
+    }
+    long memoryBound = estimatedSeriesMemoryCost <= 0 ? Long.MAX_VALUE
+        : config.getAggregationMemoryBudget() / estimatedSeriesMemoryCost;
+    return (int) Math.max(1, Math.min(Math.min(maxParallelism, seriesNum), memoryBound));
+  }
+
+  /**
+   * A rough estimation of the memory used to read one series: a page of each sequence reader and
+   * a page of each unsequence file that may be loaded at the same time.
+   */
+  public static long estimateSeriesMemoryCost(QueryDataSource queryDataSource) {
+    long pageSize = TSFileDescriptor.getInstance().getConfig().getPageSizeInByte();
+    return pageSize * (1 + queryDataSource.getUnseqResources().size());
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Run task for each series index in [0, seriesNum) and return the results in series order.
+   */
+  public <T> List<T> run(int seriesNum, SeriesTask<T> task)
+      throws IOException, QueryProcessException {
+    Object[] results = new Object[seriesNum];
+    if (parallelism <= 1 || seriesNum <= 1) {
+      for (int i = 0; i < seriesNum; i++) {
+        results[i] = task.call(i);
+      }
+      return toList(results);
+    }
+
+    AtomicInteger nextSeries = new AtomicInteger();
+    AtomicReference<Exception> error = new AtomicReference<>();
+    Runnable worker = () -> runSeries(seriesNum, task, results, nextSeries, error);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < parallelism - 1; i++) {
+      futures.add(pool.submit(worker));
+    }
+    worker.run();
+    for (Future<?> future : futures) {
+      // workers that have not started yet are not needed any more
+      if (future.cancel(false)) {
+        continue;
+      }
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new QueryProcessException("Interrupted while aggregating series: " + e.getMessage());
+      } catch (ExecutionException e) {
+        error.compareAndSet(null, new QueryProcessException(e.getMessage()));
+      }
+    }
+
+    Exception e = error.get();
+    if (e instanceof IOException) {
+      throw (IOException) e;
+    } else if (e instanceof QueryProcessException) {
+      throw (QueryProcessException) e;
+    } else if (e != null) {
+      throw new QueryProcessException(e.getMessage());
+    }
+    return toList(results);
+  }
+
+  private static <T> void runSeries(int seriesNum, SeriesTask<T> task, Object[] results,
+      AtomicInteger nextSeries, AtomicReference<Exception> error) {
+    int idx;
+    while (error.get() == null && (idx = nextSeries.getAndIncrement()) < seriesNum) {
+      try {
+        results[idx] = task.call(idx);
+      } catch (Exception e) {
+        error.compareAndSet(null, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> toList(Object[] results) {
+    return (List<T>) Arrays.asList(results);
+  }
+
+  @FunctionalInterface
+  public interface SeriesTask<T> {
+
+    T call(int seriesIndex) throws IOException, QueryProcessException;
+  }
+}
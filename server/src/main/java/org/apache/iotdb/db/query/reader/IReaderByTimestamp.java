@@ -36,5 +36,20 @@ public interface IReaderByTimestamp {
    */
   Object getValueInTimestamp(long timestamp) throws IOException;
 
+  /**
+   * Returns the values under the given timestamps, null for the timestamps without value. It has
+   * the same effect as calling <code>getValueInTimestamp</code> with each timestamp in order, so the
+   * timestamps must be monotonically increasing and greater than the ones given before.
+   *
+   * @param length the number of timestamps given in the array
+   */
+  default Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = getValueInTimestamp(timestamps[i]);
+    }
+    return values;
+  }
+
   boolean hasNext() throws IOException;
 }
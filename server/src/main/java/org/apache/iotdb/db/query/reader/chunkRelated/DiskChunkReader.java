@@ -72,12 +72,20 @@ public class DiskChunkReader implements IPointReader, IBatchReader {
 
   @Override
   public boolean hasNextBatch() throws IOException {
-    return false;
+    return hasNext();
   }
 
+  /**
+   * @return the remaining points of the current page
+   */
   @Override
   public BatchData nextBatch() throws IOException {
-    return null;
+    if (!hasNext()) {
+      throw new IOException("no next batch");
+    }
+    BatchData res = data;
+    data = null;
+    return res;
   }
 
   @Override
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.query.reader.chunkRelated;
 
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -55,8 +56,8 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
     }
     while (timeValuePairIterator.hasNext()) {
       TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
+      if (filter == null || QueryUtils
+          .satisfy(filter, timeValuePair.getTimestamp(), timeValuePair.getValue())) {
         hasCachedTimeValuePair = true;
         cachedTimeValuePair = timeValuePair;
         break;
@@ -98,8 +99,8 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
     }
     while (timeValuePairIterator.hasNext()) {
       TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
+      if (filter == null || QueryUtils
+          .satisfy(filter, timeValuePair.getTimestamp(), timeValuePair.getValue())) {
         batchData.putAnObject(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue());
       }
     }
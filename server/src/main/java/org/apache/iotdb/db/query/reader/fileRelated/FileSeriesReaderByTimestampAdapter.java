@@ -42,6 +42,11 @@ public class FileSeriesReaderByTimestampAdapter implements IReaderByTimestamp {
     return fileSeriesReaderByTimestamp.getValueInTimestamp(timestamp);
   }
 
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    return fileSeriesReaderByTimestamp.getValuesInTimestamps(timestamps, length);
+  }
+
   @Override
   public boolean hasNext() throws IOException {
     return fileSeriesReaderByTimestamp.hasNext();
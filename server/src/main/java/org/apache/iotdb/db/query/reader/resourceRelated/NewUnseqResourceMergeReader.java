@@ -26,9 +26,8 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
-import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeBatchReader;
 import org.apache.iotdb.db.utils.QueryUtils;
-import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
@@ -51,15 +50,13 @@ import java.util.List;
  */
 public class NewUnseqResourceMergeReader implements IBatchReader {
 
-  private PriorityMergeReader priorityMergeReader = new PriorityMergeReader();
+  private PriorityMergeBatchReader priorityMergeReader = new PriorityMergeBatchReader(
+      IoTDBDescriptor.getInstance().getConfig().getBatchSize());
   private List<ChunkMetaData> chunkMetaDataList = new ArrayList<>();
   private Filter timeFilter;
   private int index = 0; // used to index current metadata in metaDataList
 
-  private int batchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
-
   private BatchData batchData;
-  private TSDataType dataType;
   private boolean hasCachedBatch;
 
   /**
@@ -68,7 +65,6 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
   public NewUnseqResourceMergeReader(Path seriesPath, TSDataType dataType,
       List<TsFileResource> unseqResources, QueryContext context, Filter filter) throws IOException {
 
-    this.dataType = dataType;
     this.timeFilter = filter;
     int priority = 1;
 
@@ -121,16 +117,16 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       if (!tsFileResource.isClosed()) {
         ChunkReaderWrap memChunkReaderWrap = new ChunkReaderWrap(
             tsFileResource.getReadOnlyMemChunk(), timeFilter);
-        priorityMergeReader.addReaderWithPriority(memChunkReaderWrap.getIPointReader(), priority++);
+        priorityMergeReader.addReaderWithPriority(memChunkReaderWrap.getIBatchReader(), priority++);
       }
     }
 
     // sort All ChunkMetadata by start time
     chunkMetaDataList.sort(Comparator.comparing(ChunkMetaData::getStartTime));
 
-    // put chunk readers in order into PriorityMergeReader until merge reader has valid point
+    // put chunk readers in order into PriorityMergeBatchReader until merge reader has valid point
     // NOTE: chunk readers may not have next point because of the time filter
-    while (!priorityMergeReader.hasNext() && index < chunkMetaDataList.size()) {
+    while (!priorityMergeReader.hasNextBatch() && index < chunkMetaDataList.size()) {
       addNextChunkIntoPriorityMergeReader();
     }
   }
@@ -146,40 +142,39 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       return true;
     }
 
-    batchData = new BatchData(dataType);
-
-    for (int rowCount = 0; rowCount < batchSize; rowCount++) {
-      if (priorityMergeReader.hasNext()) {
-
-        // current time of priority merge reader >= next chunks start time
-        // put all chunks into merge reader
-        while (index < chunkMetaDataList.size() && priorityMergeReader.current().getTimestamp()
-            >= chunkMetaDataList.get(index).getStartTime()) {
-          addNextChunkIntoPriorityMergeReader();
-        }
+    while (priorityMergeReader.hasNextBatch()) {
+      // current time of priority merge reader >= next chunks start time
+      // put all chunks into merge reader
+      while (index < chunkMetaDataList.size() && priorityMergeReader.currentTime()
+          >= chunkMetaDataList.get(index).getStartTime()) {
+        addNextChunkIntoPriorityMergeReader();
+      }
 
-        TimeValuePair timeValuePair = priorityMergeReader.next();
-        batchData.putAnObject(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue());
+      // the points not earlier than the start time of the next chunk can only be merged after the
+      // chunk is put into merge reader
+      long timeBound = index < chunkMetaDataList.size()
+          ? chunkMetaDataList.get(index).getStartTime() : Long.MAX_VALUE;
+      batchData = priorityMergeReader.nextBatch(timeBound);
 
-        // largest time of priority merge reader < next chunk start time
-        // put chunk readers until merge reader has a valid point
-        while (!priorityMergeReader.hasNext() && index < chunkMetaDataList.size()) {
-          addNextChunkIntoPriorityMergeReader();
-        }
+      // largest time of priority merge reader < next chunk start time
+      // put chunk readers until merge reader has a valid point
+      while (!priorityMergeReader.hasNextBatch() && index < chunkMetaDataList.size()) {
+        addNextChunkIntoPriorityMergeReader();
+      }
 
-      } else {
-        break;
+      if (batchData.hasCurrent()) {
+        hasCachedBatch = true;
+        return true;
       }
     }
-    hasCachedBatch = !batchData.isEmpty();
-    return hasCachedBatch;
+    return false;
   }
 
   private void addNextChunkIntoPriorityMergeReader() throws IOException {
     // add next chunk into priority merge reader
     ChunkMetaData metaData = chunkMetaDataList.get(index++);
     ChunkReaderWrap diskChunkReader = new ChunkReaderWrap(metaData, metaData.getChunkLoader(), timeFilter);
-    priorityMergeReader.addReaderWithPriority(diskChunkReader.getIPointReader(), metaData.getPriority());
+    priorityMergeReader.addReaderWithPriority(diskChunkReader.getIBatchReader(), metaData.getPriority());
   }
 
   @Override
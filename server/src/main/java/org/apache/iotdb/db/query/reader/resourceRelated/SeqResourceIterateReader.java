@@ -116,7 +116,7 @@ public class SeqResourceIterateReader extends IterateReader {
         return false;
       }
       currentSeriesReader = initSealedTsFileReader(tsFileResource, filter, context);
-      return true;
+      return currentSeriesReader != null;
     } else {
       // an unsealed sequence TsFile's endTimeMap size may be equal to 0 or greater than 0
       // If endTimeMap size is 0, conservatively assume that this TsFile might satisfy this filter.
@@ -132,11 +132,23 @@ public class SeqResourceIterateReader extends IterateReader {
     }
   }
 
+  /**
+   * @return null if no chunk of the series in the file may satisfy the filter
+   */
   private IAggregateReader initSealedTsFileReader(TsFileResource sealedTsFile, Filter filter,
       QueryContext context) throws IOException {
     // prepare metaDataList
     List<ChunkMetaData> metaDataList = DeviceMetaDataCache.getInstance()
         .get(sealedTsFile, seriesPath);
+
+    // the chunks whose statistics do not satisfy the filter are removed before the file is opened
+    if (filter != null) {
+      metaDataList.removeIf(chunkMetaData -> !filter.satisfy(chunkMetaData.getStatistics()));
+    }
+    if (metaDataList.isEmpty()) {
+      return null;
+    }
+
     List<Modification> pathModifications = context.getPathModifications(sealedTsFile.getModFile(),
         seriesPath.getFullPath());
     if (!pathModifications.isEmpty()) {
@@ -25,6 +25,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -85,7 +86,7 @@ public class SeriesReaderWithValueFilter extends SeriesReaderWithoutValueFilter
 
   private boolean hasNextSatisfiedInCurrentBatch() {
     while (batchData != null && batchData.hasCurrent()) {
-      if (filter.satisfy(batchData.currentTime(), batchData.currentValue())) {
+      if (QueryUtils.satisfyCurrent(filter, batchData)) {
         timeValuePair = new TimeValuePair(batchData.currentTime(), batchData.currentTsPrimitiveType());
         hasCachedTimeValuePair = true;
         batchData.next();
@@ -96,6 +97,35 @@ public class SeriesReaderWithValueFilter extends SeriesReaderWithoutValueFilter
     return false;
   }
 
+  /**
+   * fill the array with the timestamps of the next points satisfying the filter, without creating
+   * a TimeValuePair for each of them.
+   *
+   * @return the number of timestamps filled, 0 if there is no more point
+   */
+  public int nextTimes(long[] timestamps) throws IOException {
+    int count = 0;
+    if (hasCachedTimeValuePair && timestamps.length > 0) {
+      hasCachedTimeValuePair = false;
+      timestamps[count++] = timeValuePair.getTimestamp();
+    }
+    while (count < timestamps.length) {
+      if (batchData == null || !batchData.hasCurrent()) {
+        if (!super.hasNextBatch()) {
+          break;
+        }
+        batchData = super.nextBatch();
+      }
+      while (count < timestamps.length && batchData.hasCurrent()) {
+        if (QueryUtils.satisfyCurrent(filter, batchData)) {
+          timestamps[count++] = batchData.currentTime();
+        }
+        batchData.next();
+      }
+    }
+    return count;
+  }
+
   @Override
   public TimeValuePair next() throws IOException {
     if (hasCachedTimeValuePair || hasNext()) {
@@ -26,6 +26,7 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.NewUnseqResourceMergeReader;
+import org.apache.iotdb.db.query.reader.universal.PriorityMergeBatchReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -45,12 +46,12 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
   private IBatchReader seqResourceIterateReader;
   private IBatchReader unseqResourceMergeReader;
 
-  // cache batch data for sequence reader
-  private BatchData seqBatchData;
-  // cache batch data for unsequence reader
-  private BatchData unseqBatchData;
-
-  private int batchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
+  /**
+   * merges the sequence data and the unsequence data, where unsequence data overwrites sequence
+   * data of the same timestamp. It is created at the first read, so that the files are not read
+   * until the reader is scheduled.
+   */
+  private PriorityMergeBatchReader mergeReader;
 
   /**
    * will be removed after removing IPointReader
@@ -85,7 +86,7 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
   public SeriesReaderWithoutValueFilter(Path seriesPath, TSDataType dataType, Filter timeFilter,
       QueryContext context, boolean pushdownUnseq) throws StorageEngineException, IOException {
     QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-            .getQueryDataSource(seriesPath, context);
+            .getQueryDataSource(seriesPath, context, timeFilter);
     timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
     // reader for sequence resources
@@ -133,79 +134,21 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
 
   @Override
   public boolean hasNextBatch() throws IOException {
-    return hasNextInSeq() || hasNextInUnSeq();
-  }
-
-  private boolean hasNextInSeq() throws IOException {
-    // has next point in cached seqBatchData
-    if (seqBatchData != null && seqBatchData.hasCurrent())
-      return true;
-    // has next batch in seq reader
-    if (seqResourceIterateReader.hasNextBatch()) {
-      seqBatchData = seqResourceIterateReader.nextBatch();
-      return true;
-    }
-    return false;
-  }
-
-  private boolean hasNextInUnSeq() throws IOException {
-    // has next point in cached unseqBatchData
-    if (unseqBatchData != null && unseqBatchData.hasCurrent())
-      return true;
-    // has next batch in unseq reader
-    if (unseqResourceMergeReader != null && unseqResourceMergeReader.hasNextBatch()) {
-      unseqBatchData = unseqResourceMergeReader.nextBatch();
-      return true;
+    if (mergeReader == null) {
+      mergeReader = new PriorityMergeBatchReader(
+          IoTDBDescriptor.getInstance().getConfig().getBatchSize());
+      mergeReader.addReaderWithPriority(seqResourceIterateReader, 1);
+      if (unseqResourceMergeReader != null) {
+        mergeReader.addReaderWithPriority(unseqResourceMergeReader, 2);
+      }
     }
-    return false;
+    return mergeReader.hasNextBatch();
   }
 
   @Override
   public BatchData nextBatch() throws IOException {
-    // has next in both seq data and unseq data
-    if (hasNextInSeq() && hasNextInUnSeq()) {
-      // if the count reaches batch data size
-      int count = 0;
-      BatchData batchData = new BatchData(seqBatchData.getDataType());
-      while (count < batchSize && hasNextInSeq() && hasNextInUnSeq()) {
-        long timeInSeq = seqBatchData.currentTime();
-        long timeInUnseq = unseqBatchData.currentTime();
-        Object currentValue;
-        long currentTime;
-        if (timeInSeq < timeInUnseq) { // sequence data time is less than the unsequence data time, just use the sequence data point
-          currentTime = timeInSeq;
-          currentValue = seqBatchData.currentValue();
-          seqBatchData.next();
-        } else if (timeInSeq == timeInUnseq) { // the time equals, use the unseq data point to overwrite the seq data point
-          currentTime = timeInUnseq;
-          currentValue = unseqBatchData.currentValue();
-          unseqBatchData.next();
-          // Note that seqBatchData here still moves next even though the current data to be read is
-          // overwritten by unsequence data source. Only in this way can hasNext() work correctly.
-          seqBatchData.next();
-        } else { // sequence data time is greater than the unsequence data time, just use the unsequence data point
-          currentTime = timeInUnseq;
-          currentValue = unseqBatchData.currentValue();
-          unseqBatchData.next();
-        }
-        batchData.putAnObject(currentTime, currentValue);
-        count++;
-      }
-      return batchData;
-    }
-
-    // only has next in seq data
-    if (hasNextInSeq()) {
-      BatchData res = seqBatchData;
-      seqBatchData = null;
-      return res;
-    }
-
-    // only has next in unseq data
-    if (hasNextInUnSeq()) {
-      BatchData res = unseqBatchData;
-      unseqBatchData = null;
-      return res;
+    if (hasNextBatch()) {
+      return mergeReader.nextBatch();
     }
     return null;
   }
@@ -255,7 +198,14 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
 
   @Override
   public void close() throws IOException {
-    seqResourceIterateReader.close();
-    unseqResourceMergeReader.close();
+    if (mergeReader != null) {
+      // the readers that are left
+      mergeReader.close();
+    } else {
+      seqResourceIterateReader.close();
+      if (unseqResourceMergeReader != null) {
+        unseqResourceMergeReader.close();
+      }
+    }
   }
 }
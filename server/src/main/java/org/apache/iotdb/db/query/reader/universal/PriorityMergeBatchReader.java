@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+
+/**
+ * This class implements {@link IBatchReader} for data sources with different priorities, like
+ * {@link PriorityMergeReader} does for {@link org.apache.iotdb.db.query.reader.IPointReader}. The
+ * sources are merged by time, and when several sources have a point at the same time, the point of
+ * the source with the highest priority is kept.
+ * <p>
+ * Each source is a cursor on its current BatchData, and the cursors are kept in an array-backed
+ * binary heap ordered by the time under the cursor, so the points are copied from the BatchData of
+ * the sources into the result without creating a TimeValuePair for each of them. When only one
+ * source is left, its BatchData are returned directly.
+ */
+public class PriorityMergeBatchReader implements IBatchReader {
+
+  private int batchSize;
+
+  private Cursor[] heap = new Cursor[4];
+  private int heapSize = 0;
+
+  public PriorityMergeBatchReader(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * the reader is closed by this class when it runs out of data, or when this class is closed.
+   */
+  public void addReaderWithPriority(IBatchReader reader, int priority) throws IOException {
+    Cursor cursor = new Cursor(reader, priority);
+    if (!cursor.fetch()) {
+      reader.close();
+      return;
+    }
+    if (heapSize == heap.length) {
+      heap = Arrays.copyOf(heap, heapSize * 2);
+    }
+    heap[heapSize] = cursor;
+    siftUp(heapSize++);
+  }
+
+  @Override
+  public boolean hasNextBatch() {
+    return heapSize > 0;
+  }
+
+  /**
+   * @return the time of the next point, only valid if hasNextBatch() is true
+   */
+  public long currentTime() {
+    return heap[0].data.currentTime();
+  }
+
+  @Override
+  public BatchData nextBatch() throws IOException {
+    return nextBatch(Long.MAX_VALUE);
+  }
+
+  /**
+   * @param timeBound only the points whose time is less than timeBound are returned, so that the
+   * caller can add the sources starting from timeBound later
+   * @return at most batchSize points, or all the remaining points of the only source. It may be
+   * empty if the next point is not less than timeBound.
+   */
+  public BatchData nextBatch(long timeBound) throws IOException {
+    if (heapSize == 1) {
+      BatchData data = heap[0].data;
+      if (data.getTimeByIndex(data.length() - 1) < timeBound) {
+        if (!heap[0].fetch()) {
+          removeTop();
+        }
+        return data;
+      }
+    }
+
+    BatchData batchData = new BatchData(heap[0].data.getDataType());
+    for (int count = 0; count < batchSize && heapSize > 0; count++) {
+      long time = heap[0].data.currentTime();
+      if (time >= timeBound) {
+        break;
+      }
+      putCurrent(batchData, heap[0].data);
+      advanceTop();
+      // the points of lower priorities at the same time are overwritten
+      while (heapSize > 0 && heap[0].data.currentTime() == time) {
+        advanceTop();
+      }
+    }
+    return batchData;
+  }
+
+  private static void putCurrent(BatchData dest, BatchData src) {
+    long time = src.currentTime();
+    switch (src.getDataType()) {
+      case BOOLEAN:
+        dest.putBoolean(time, src.getBoolean());
+        break;
+      case INT32:
+        dest.putInt(time, src.getInt());
+        break;
+      case INT64:
+        dest.putLong(time, src.getLong());
+        break;
+      case FLOAT:
+        dest.putFloat(time, src.getFloat());
+        break;
+      case DOUBLE:
+        dest.putDouble(time, src.getDouble());
+        break;
+      case TEXT:
+        dest.putBinary(time, src.getBinary());
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(src.getDataType()));
+    }
+  }
+
+  private void advanceTop() throws IOException {
+    Cursor top = heap[0];
+    top.data.next();
+    if (top.data.hasCurrent() || top.fetch()) {
+      siftDown(0);
+    } else {
+      removeTop();
+    }
+  }
+
+  private void removeTop() throws IOException {
+    heap[0].reader.close();
+    heap[0] = heap[--heapSize];
+    heap[heapSize] = null;
+    if (heapSize > 0) {
+      siftDown(0);
+    }
+  }
+
+  /**
+   * the cursor with smaller time, or higher priority for the same time, comes first.
+   */
+  private static boolean before(Cursor c1, Cursor c2) {
+    long t1 = c1.data.currentTime();
+    long t2 = c2.data.currentTime();
+    return t1 < t2 || t1 == t2 && c1.priority > c2.priority;
+  }
+
+  private void siftUp(int idx) {
+    Cursor cursor = heap[idx];
+    while (idx > 0) {
+      int parent = (idx - 1) >>> 1;
+      if (!before(cursor, heap[parent])) {
+        break;
+      }
+      heap[idx] = heap[parent];
+      idx = parent;
+    }
+    heap[idx] = cursor;
+  }
+
+  private void siftDown(int idx) {
+    Cursor cursor = heap[idx];
+    int half = heapSize >>> 1;
+    while (idx < half) {
+      int child = 2 * idx + 1;
+      if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+        child++;
+      }
+      if (!before(heap[child], cursor)) {
+        break;
+      }
+      heap[idx] = heap[child];
+      idx = child;
+    }
+    heap[idx] = cursor;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (int i = 0; i < heapSize; i++) {
+      heap[i].reader.close();
+      heap[i] = null;
+    }
+    heapSize = 0;
+  }
+
+  private static class Cursor {
+
+    IBatchReader reader;
+    BatchData data;
+    int priority;
+
+    Cursor(IBatchReader reader, int priority) {
+      this.reader = reader;
+      this.priority = priority;
+    }
+
+    /**
+     * move to the next non-empty batch of the reader.
+     *
+     * @return false if the reader has no more data
+     */
+    boolean fetch() throws IOException {
+      while (reader.hasNextBatch()) {
+        data = reader.nextBatch();
+        if (data != null && data.hasCurrent()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -50,6 +50,39 @@ public class PriorityMergeReaderByTimestamp implements IReaderByTimestamp {
     return value;
   }
 
+  /**
+   * The readers are asked from the highest priority, and each reader is only asked for the
+   * timestamps that have no value in the readers of higher priorities.
+   */
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    // the timestamps without value, and their indexes in the given array
+    long[] missingTimestamps = timestamps;
+    int[] missingIndexes = null;
+    int missingNum = length;
+    for (int i = readerList.size() - 1; i >= 0 && missingNum > 0; i--) {
+      Object[] readerValues = readerList.get(i).getValuesInTimestamps(missingTimestamps,
+          missingNum);
+      int stillMissingNum = 0;
+      long[] stillMissingTimestamps = new long[missingNum];
+      int[] stillMissingIndexes = new int[missingNum];
+      for (int j = 0; j < missingNum; j++) {
+        int index = missingIndexes == null ? j : missingIndexes[j];
+        if (readerValues[j] != null) {
+          values[index] = readerValues[j];
+        } else {
+          stillMissingTimestamps[stillMissingNum] = missingTimestamps[j];
+          stillMissingIndexes[stillMissingNum++] = index;
+        }
+      }
+      missingTimestamps = stillMissingTimestamps;
+      missingIndexes = stillMissingIndexes;
+      missingNum = stillMissingNum;
+    }
+    return values;
+  }
+
   /**
    * This is an empty method.
    * <p>
@@ -59,6 +59,16 @@ public class EngineTimeGenerator implements TimeGenerator {
     return operatorNode.next();
   }
 
+  /**
+   * fill the array with the next timestamps in ascending order, which are generated a block at a
+   * time by the nodes. It must not be mixed with next().
+   *
+   * @return the number of timestamps filled, 0 if there is no more timestamp
+   */
+  public int nextTimes(long[] timestamps) throws IOException {
+    return operatorNode.nextTimes(timestamps);
+  }
+
   @Override
   public Object getValue(Path path, long time) {
     return null;
@@ -34,7 +34,10 @@ import org.apache.thrift.protocol.TProtocolFactory;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.server.TThreadPoolServer.Args;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TNonblockingServerSocket;
 import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -181,7 +184,7 @@ public class JDBCService implements JDBCServiceMBean, IService {
 
   private class JDBCServiceThread extends Thread {
 
-    private TServerSocket serverTransport;
+    private TServerTransport serverTransport;
     private TServer poolServer;
     private CountDownLatch threadStartLatch;
     private CountDownLatch threadStopLatch;
@@ -206,18 +209,18 @@ public class JDBCService implements JDBCServiceMBean, IService {
     public void run() {
       try {
         IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
-        serverTransport = new TServerSocket(new InetSocketAddress(config.getRpcAddress(),
-            config.getRpcPort()));
-        poolArgs = new Args(serverTransport).maxWorkerThreads(IoTDBDescriptor.
-            getInstance().getConfig().getRpcMaxConcurrentClientNum()).minWorkerThreads(1)
-            .stopTimeoutVal(
-                IoTDBDescriptor.getInstance().getConfig().getThriftServerAwaitTimeForStopService());
-        poolArgs.executorService = IoTDBThreadPoolFactory.createThriftRpcClientThreadPool(poolArgs,
-            ThreadName.JDBC_CLIENT.getName());
-        poolArgs.processor(processor);
-        poolArgs.protocolFactory(protocolFactory);
-        poolServer = new TThreadPoolServer(poolArgs);
+        InetSocketAddress address = new InetSocketAddress(config.getRpcAddress(),
+            config.getRpcPort());
+        if (config.isRpcNonblockingServerEnable()) {
+          poolServer = createNonblockingServer(address, config);
+        } else {
+          poolServer = createThreadPoolServer(address, config);
+        }
         poolServer.setServerEventHandler(new JDBCServiceEventHandler(impl, threadStartLatch));
+        if (config.isRpcNonblockingServerEnable()) {
+          // the socket has been bound, and the non-blocking servers may not call preServe()
+          threadStartLatch.countDown();
+        }
         poolServer.serve();
       } catch (TTransportException e) {
         logger.error("{}: failed to start {}, because ", IoTDBConstant.GLOBAL_DB_NAME,
@@ -237,12 +240,45 @@ public class JDBCService implements JDBCServiceMBean, IService {
         if (threadStopLatch != null && threadStopLatch.getCount() == 1) {
           threadStopLatch.countDown();
         }
-        logger.info("{}: close TThreadPoolServer and TServerSocket for {}",
+        logger.info("{}: close thrift server and server socket for {}",
             IoTDBConstant.GLOBAL_DB_NAME,
             getID().getName());
       }
     }
 
+    /**
+     * one thread for each client, at most rpc_max_concurrent_client_num clients.
+     */
+    private TServer createThreadPoolServer(InetSocketAddress address, IoTDBConfig config)
+        throws TTransportException {
+      serverTransport = new TServerSocket(address);
+      poolArgs = new Args(serverTransport).maxWorkerThreads(config.getRpcMaxConcurrentClientNum())
+          .minWorkerThreads(1).stopTimeoutVal(config.getThriftServerAwaitTimeForStopService());
+      poolArgs.executorService = IoTDBThreadPoolFactory.createThriftRpcClientThreadPool(poolArgs,
+          ThreadName.JDBC_CLIENT.getName());
+      poolArgs.processor(processor);
+      poolArgs.protocolFactory(protocolFactory);
+      return new TThreadPoolServer(poolArgs);
+    }
+
+    /**
+     * a few selector threads read and write the framed requests of all clients, and a bounded
+     * pool of worker threads processes the requests, so idle clients take no thread.
+     */
+    private TServer createNonblockingServer(InetSocketAddress address, IoTDBConfig config)
+        throws TTransportException {
+      TNonblockingServerSocket nonblockingServerSocket = new TNonblockingServerSocket(address);
+      serverTransport = nonblockingServerSocket;
+      TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args(
+          nonblockingServerSocket).selectorThreads(config.getRpcSelectorThreadNum())
+          .executorService(IoTDBThreadPoolFactory
+              .newFixedThreadPool(config.getRpcWorkerThreadNum(), ThreadName.JDBC_CLIENT.getName()));
+      args.stopTimeoutVal(config.getThriftServerAwaitTimeForStopService());
+      args.processor(processor);
+      args.protocolFactory(protocolFactory);
+      return new TThreadedSelectorServer(args);
+    }
+
     private synchronized void close() {
       if (poolServer != null) {
         poolServer.stop();
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service;
+
+import org.apache.thrift.server.ServerContext;
+
+/**
+ * JDBCServiceContext records the session opened by one client connection, so that the session can
+ * be closed when the client exits abnormally. It is kept by the connection instead of the thread,
+ * because the requests of one connection are processed by different worker threads in the
+ * non-blocking server.
+ */
+class JDBCServiceContext implements ServerContext {
+
+  private volatile Long sessionId;
+
+  Long getSessionId() {
+    return sessionId;
+  }
+
+  void setSessionId(Long sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  public <T> T unwrap(Class<T> iface) {
+    if (isWrapperFor(iface)) {
+      return iface.cast(this);
+    }
+    throw new RuntimeException("ServerContext is not a wrapper for " + iface.getName());
+  }
+
+  public boolean isWrapperFor(Class<?> iface) {
+    return iface.isInstance(this);
+  }
+}
@@ -36,13 +36,12 @@ public class JDBCServiceEventHandler implements TServerEventHandler {
 
   @Override
   public ServerContext createContext(TProtocol arg0, TProtocol arg1) {
-    // TODO Auto-generated method stub
-    return null;
+    return new JDBCServiceContext();
   }
 
   @Override
   public void deleteContext(ServerContext arg0, TProtocol arg1, TProtocol arg2) {
-    serviceImpl.handleClientExit();
+    serviceImpl.handleClientExit((JDBCServiceContext) arg0);
   }
 
   @Override
@@ -52,8 +51,8 @@ public class JDBCServiceEventHandler implements TServerEventHandler {
 
   @Override
   public void processContext(ServerContext arg0, TTransport arg1, TTransport arg2) {
-    // TODO Auto-generated method stub
-
+    // called by the thread which is going to process a request of the connection
+    serviceImpl.setCurrentContext((JDBCServiceContext) arg0);
   }
 
 }
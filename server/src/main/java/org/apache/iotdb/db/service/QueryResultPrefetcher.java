@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.pool.QueryResultPrefetchPoolManager;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+
+/**
+ * QueryResultPrefetcher computes the next TSQueryDataSet of one query in the background, while the
+ * previous one is being sent to the client, so that the query execution and the network transfer
+ * overlap.
+ * <p>
+ * At most one result is computed in advance for each query. Before a result is computed in advance,
+ * the memory of the previous result is reserved as its estimate, and the result is only computed
+ * if the reservation fits in the budget shared by all queries. The reservation is replaced by the
+ * actual memory once the result is computed, and is released when the result is taken or the query
+ * ends.
+ */
+class QueryResultPrefetcher {
+
+  private static final AtomicLong prefetchedMemory = new AtomicLong();
+
+  private final ResultSupplier supplier;
+
+  private Future<TSQueryDataSet> prefetchedResult;
+  /**
+   * the memory reserved for or taken by the prefetched result, counted in prefetchedMemory until it
+   * is taken
+   */
+  private long resultMemory;
+  private boolean released;
+
+  QueryResultPrefetcher(ResultSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * @return the prefetched result, or the result computed now if there is none
+   */
+  TSQueryDataSet next(int fetchSize) throws Exception {
+    if (prefetchedResult == null) {
+      return supplier.get(fetchSize);
+    }
+    Future<TSQueryDataSet> future = prefetchedResult;
+    prefetchedResult = null;
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    } finally {
+      synchronized (this) {
+        prefetchedMemory.addAndGet(-resultMemory);
+        resultMemory = 0;
+      }
+    }
+  }
+
+  /**
+   * start computing the next result in the background, if the memory budget allows.
+   *
+   * @param previousResult the result just computed, whose memory estimates the next one
+   */
+  void prefetch(int fetchSize, TSQueryDataSet previousResult) {
+    if (released || prefetchedResult != null) {
+      return;
+    }
+    long budget = IoTDBDescriptor.getInstance().getConfig().getQueryResultPrefetchMemoryBudget();
+    long estimatedMemory = getMemory(previousResult);
+    long usedMemory;
+    do {
+      usedMemory = prefetchedMemory.get();
+      if (usedMemory + estimatedMemory > budget) {
+        return;
+      }
+    } while (!prefetchedMemory.compareAndSet(usedMemory, usedMemory + estimatedMemory));
+    synchronized (this) {
+      resultMemory = estimatedMemory;
+    }
+    prefetchedResult = QueryResultPrefetchPoolManager.getInstance().submit(() -> {
+      synchronized (this) {
+        if (released) {
+          return null;
+        }
+        TSQueryDataSet result = supplier.get(fetchSize);
+        long actualMemory = getMemory(result);
+        prefetchedMemory.addAndGet(actualMemory - resultMemory);
+        resultMemory = actualMemory;
+        return result;
+      }
+    });
+  }
+
+  /**
+   * called when the query ends. It waits for the running prefetch, so that the query resources are
+   * not released while they are still being read.
+   */
+  void release() {
+    if (prefetchedResult != null) {
+      prefetchedResult.cancel(false);
+    }
+    synchronized (this) {
+      released = true;
+      prefetchedMemory.addAndGet(-resultMemory);
+      resultMemory = 0;
+    }
+  }
+
+  /**
+   * for test
+   */
+  static long getPrefetchedMemory() {
+    return prefetchedMemory.get();
+  }
+
+  private static long getMemory(TSQueryDataSet result) {
+    long memory = result.bufferForTime().remaining();
+    for (ByteBuffer buffer : result.getValueList()) {
+      memory += buffer.remaining();
+    }
+    for (ByteBuffer buffer : result.getBitmapList()) {
+      memory += buffer.remaining();
+    }
+    return memory;
+  }
+
+  @FunctionalInterface
+  interface ResultSupplier {
+
+    TSQueryDataSet get(int fetchSize) throws Exception;
+  }
+}
@@ -21,8 +21,10 @@ package org.apache.iotdb.db.service;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PRIVILEGE;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLE;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STORAGE_GROUP;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TTL;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_USER;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_VALUE;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -81,6 +83,7 @@ import org.apache.iotdb.db.query.dataset.NonAlignEngineDataSet;
 import org.apache.iotdb.db.tools.watermark.GroupedLSBWatermarkEncoder;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
 import org.apache.iotdb.db.utils.QueryDataSetUtils;
+import org.apache.iotdb.rpc.RpcCompressionUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.ServerProperties;
 import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
@@ -140,6 +143,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // Record the username for every rpc connection (session).
   private Map<Long, String> sessionIdUsernameMap = new ConcurrentHashMap<>();
   private Map<Long, ZoneId> sessionIdZoneIdMap = new ConcurrentHashMap<>();
+  // Record the compression type of the results and batch insertions of the sessions which
+  // negotiated one
+  private Map<Long, String> sessionIdCompressionMap = new ConcurrentHashMap<>();
 
   // The sessionId is unique in one IoTDB instance.
   private AtomicLong sessionIdGenerator = new AtomicLong();
@@ -154,10 +160,14 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // (queryId -> QueryDataSet)
   private Map<Long, QueryDataSet> queryId2DataSet = new ConcurrentHashMap<>();
 
+  // (queryId -> the prefetcher computing its next result in the background)
+  private Map<Long, QueryResultPrefetcher> queryId2Prefetcher = new ConcurrentHashMap<>();
+
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
-  // When the client abnormally exits, we can still know who to disconnect
-  private ThreadLocal<Long> currSessionId = new ThreadLocal<>();
+  // The connection whose request is being processed by the current thread. When the client
+  // abnormally exits, we can still know who to disconnect
+  private ThreadLocal<JDBCServiceContext> currContext = new ThreadLocal<>();
 
   public TSServiceImpl() {
     processor = new QueryProcessor(new QueryProcessExecutor());
@@ -228,13 +238,23 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       sessionId = sessionIdGenerator.incrementAndGet();
       sessionIdUsernameMap.put(sessionId, req.getUsername());
       sessionIdZoneIdMap.put(sessionId, config.getZoneID());
-      currSessionId.set(sessionId);
+      JDBCServiceContext context = currContext.get();
+      if (context != null) {
+        context.setSessionId(sessionId);
+      }
     } else {
       tsStatus = getStatus(TSStatusCode.WRONG_LOGIN_PASSWORD_ERROR);
     }
     TSOpenSessionResp resp = new TSOpenSessionResp(tsStatus,
             TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V1);
     resp.setSessionId(sessionId);
+    String compressionType = RpcCompressionUtils.getCompressionType(req.getConfiguration());
+    if (status && compressionType != null) {
+      // tell the client that its payloads will be compressed
+      sessionIdCompressionMap.put(sessionId, compressionType);
+      resp.setConfiguration(
+          Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, compressionType));
+    }
     logger.info("{}: Login status: {}. User : {}", IoTDBConstant.GLOBAL_DB_NAME,
             tsStatus.getStatusType().getMessage(), req.getUsername());
 
@@ -253,12 +273,14 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
 
     sessionIdZoneIdMap.remove(sessionId);
+    sessionIdCompressionMap.remove(sessionId);
     List<Exception> exceptions = new ArrayList<>();
     Set<Long> statementIds = sessionId2StatementId.getOrDefault(sessionId, Collections.emptySet());
     for (long statementId : statementIds) {
       Set<Long> queryIds = statementId2QueryId.getOrDefault(statementId, Collections.emptySet());
       for (long queryId : queryIds) {
         queryId2DataSet.remove(queryId);
+        releasePrefetcher(queryId);
 
         try {
           QueryResourceManager.getInstance().endQuery(queryId);
@@ -321,9 +343,34 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private void releaseQueryResource(long queryId) throws StorageEngineException {
     // remove the corresponding Physical Plan
     queryId2DataSet.remove(queryId);
+    releasePrefetcher(queryId);
     QueryResourceManager.getInstance().endQuery(queryId);
   }
 
+  /**
+   * must be called before the resources of the query are released.
+   */
+  private void releasePrefetcher(long queryId) {
+    QueryResultPrefetcher prefetcher = queryId2Prefetcher.remove(queryId);
+    if (prefetcher != null) {
+      prefetcher.release();
+    }
+  }
+
+  /**
+   * start computing the next result of an aligned query, while the current one is sent to the
+   * client.
+   */
+  private void prefetchResult(long queryId, int fetchSize, QueryDataSet queryDataSet,
+      String userName, TSQueryDataSet currentResult) {
+    if (config.getQueryResultPrefetchMemoryBudget() <= 0) {
+      return;
+    }
+    queryId2Prefetcher.computeIfAbsent(queryId, id -> new QueryResultPrefetcher(
+        size -> fillRpcReturnData(size, queryDataSet, userName)))
+        .prefetch(fetchSize, currentResult);
+  }
+
   /**
    * convert from TSStatusCode to TSStatus according to status code and status message
    *
@@ -546,7 +593,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
               sessionIdZoneIdMap.get(req.getSessionId()));
       if (physicalPlan.isQuery()) {
         resp = executeQueryStatement(req.statementId, physicalPlan, req.fetchSize,
-                sessionIdUsernameMap.get(req.getSessionId()));
+                req.getSessionId());
         long endTime = System.currentTimeMillis();
         sqlArgument = new SqlArgument(resp, physicalPlan, statement, startTime, endTime);
         sqlArgumentsList.add(sqlArgument);
@@ -580,8 +627,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
    * AuthorPlan
    */
   private TSExecuteStatementResp executeQueryStatement(long statementId, PhysicalPlan plan,
-                                                       int fetchSize, String username) {
+                                                       int fetchSize, long sessionId) {
     long t1 = System.currentTimeMillis();
+    String username = sessionIdUsernameMap.get(sessionId);
     try {
       TSExecuteStatementResp resp; // column headers
       if (plan instanceof AuthorPlan) {
@@ -601,6 +649,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         if (plan.getOperatorType() == OperatorType.GROUPBY) {
           throw new QueryProcessException("Group by doesn't support disable align clause.");
         }
+        if (plan.getOperatorType() == OperatorType.LAST) {
+          throw new QueryProcessException("Last query doesn't support disable align clause.");
+        }
       }
       if (plan.getOperatorType() == OperatorType.AGGREGATION) {
         resp.setIgnoreTimeStamp(true);
@@ -621,6 +672,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
       else {
         TSQueryDataSet result = fillRpcReturnData(fetchSize, newDataSet, username);
+        if (result.bufferForTime().limit() != 0) {
+          prefetchResult(queryId, fetchSize, newDataSet, username, result);
+        }
+        compressResult(result, sessionId);
         resp.setQueryDataSet(result);
         resp.setQueryId(queryId);
       }
@@ -656,7 +711,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
               "Statement is not a query statement."));
     }
     return executeQueryStatement(req.statementId, physicalPlan, req.fetchSize,
-            sessionIdUsernameMap.get(req.getSessionId()));
+            req.getSessionId());
   }
 
   private TSExecuteStatementResp getShowQueryColumnHeaders(ShowPlan showPlan)
@@ -769,6 +824,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
           respColumns.add(aggregations.get(i) + "(" + paths.get(i).getFullPath() + ")");
         }
         break;
+      case LAST:
+        // each row holds the latest point of one series
+        respColumns.add(COLUMN_TIMESERIES);
+        columnTypes.add(TSDataType.TEXT.toString());
+        respColumns.add(COLUMN_VALUE);
+        columnTypes.add(TSDataType.TEXT.toString());
+        return;
       default:
         throw new TException("unsupported query type: " + plan.getOperatorType());
     }
@@ -892,13 +954,19 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
       QueryDataSet queryDataSet = queryId2DataSet.get(req.queryId);
       if (req.isAlign) {
-        TSQueryDataSet result = fillRpcReturnData(req.fetchSize, queryDataSet,
-                sessionIdUsernameMap.get(req.sessionId));
+        String username = sessionIdUsernameMap.get(req.sessionId);
+        QueryResultPrefetcher prefetcher = queryId2Prefetcher.get(req.queryId);
+        TSQueryDataSet result = prefetcher != null ? prefetcher.next(req.fetchSize)
+            : fillRpcReturnData(req.fetchSize, queryDataSet, username);
         boolean hasResultSet = result.bufferForTime().limit() != 0;
         if (!hasResultSet) {
+          releasePrefetcher(req.queryId);
           QueryResourceManager.getInstance().endQuery(req.queryId);
           queryId2DataSet.remove(req.queryId);
+        } else {
+          prefetchResult(req.queryId, req.fetchSize, queryDataSet, username, result);
         }
+        compressResult(result, req.sessionId);
         TSFetchResultsResp resp = getTSFetchResultsResp(getStatus(TSStatusCode.SUCCESS_STATUS,
                 "FetchResult successfully. Has more result: " + hasResultSet));
         resp.setHasResultSet(hasResultSet);
@@ -932,6 +1000,16 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  /**
+   * compress the result with the compression type negotiated by the session, if any.
+   */
+  private void compressResult(TSQueryDataSet result, long sessionId) throws IOException {
+    String compressionType = sessionIdCompressionMap.get(sessionId);
+    if (compressionType != null) {
+      RpcCompressionUtils.compress(result, compressionType);
+    }
+  }
+
   private TSQueryDataSet fillRpcReturnData(int fetchSize, QueryDataSet queryDataSet, String userName)
           throws TException, AuthException, IOException, InterruptedException {
     IAuthorizer authorizer;
@@ -1103,8 +1181,12 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return resp;
   }
 
-  void handleClientExit() {
-    Long sessionId = currSessionId.get();
+  void setCurrentContext(JDBCServiceContext context) {
+    currContext.set(context);
+  }
+
+  void handleClientExit(JDBCServiceContext context) {
+    Long sessionId = context == null ? null : context.getSessionId();
     if (sessionId != null) {
       TSCloseSessionReq req = new TSCloseSessionReq(sessionId);
       closeSession(req);
@@ -1254,6 +1336,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR), null);
       }
 
+      String compressionType = sessionIdCompressionMap.get(req.getSessionId());
+      if (compressionType != null) {
+        req.setTimestamps(RpcCompressionUtils.uncompressTimes(req.timestamps, compressionType));
+        req.setValues(RpcCompressionUtils.uncompress(req.values, compressionType));
+      }
       BatchInsertPlan batchInsertPlan = new BatchInsertPlan(req.deviceId, req.measurements);
       batchInsertPlan.setTimes(QueryDataSetUtils.readTimesFromBuffer(req.timestamps, req.size));
       batchInsertPlan.setColumns(QueryDataSetUtils
@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -27,9 +28,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
@@ -39,6 +44,7 @@ import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,10 +105,23 @@ public class MergeUtils {
     return totalSize;
   }
 
-  public static int writeChunkWithoutUnseq(Chunk chunk, IChunkWriter chunkWriter) throws IOException {
+  /**
+   * Write the points of a sequence chunk that overlaps no unsequence data into chunkWriter. Pages
+   * that contain no deleted points are copied as they are stored, without being decompressed or
+   * decoded, if chunkWriter encodes and compresses the series the same way as the chunk.
+   *
+   * @return the number of points written
+   */
+  public static int writeChunkWithoutUnseq(Chunk chunk, IChunkWriter chunkWriter,
+      MeasurementSchema schema) throws IOException {
     ChunkReader chunkReader = new ChunkReader(chunk, null);
+    boolean pageCopyable = isPageCopyable(chunk, schema);
     int ptWritten = 0;
     while (chunkReader.hasNextSatisfiedPage()) {
+      if (pageCopyable && chunkReader.nextPageHeader().getStartTime() > chunk.getDeletedAt()) {
+        ptWritten += copyPage(chunkReader, chunkWriter);
+        continue;
+      }
       BatchData batchData = chunkReader.nextPageData();
       for (int i = 0; i < batchData.length(); i++) {
         writeBatchPoint(batchData, i, chunkWriter);
@@ -112,6 +131,50 @@ public class MergeUtils {
     return ptWritten;
   }
 
+  /**
+   * The priority of a merge grows with the number of unseqFiles, as each of them has to be merged
+   * with the seqFiles by every query, with the share of the unseqFiles in the data to be
+   * rewritten, as rewriting many seqFiles for a little unseq data costs much for little benefit,
+   * and with the query frequency of the storage group.
+   *
+   * @param queryFrequency queries per second on the storage group
+   */
+  public static double calculateMergePriority(List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles, double queryFrequency) {
+    long unseqFileSize = collectFileSizes(Collections.emptyList(), unseqFiles);
+    long totalFileSize = collectFileSizes(seqFiles, unseqFiles);
+    double unseqRatio = totalFileSize > 0 ? (double) unseqFileSize / totalFileSize : 1.0;
+    return unseqFiles.size() * unseqRatio * (1 + Math.log1p(queryFrequency));
+  }
+
+  /**
+   * @return true if the pages of the chunk can be appended to a chunk written with the schema
+   * without being decoded
+   */
+  public static boolean isPageCopyable(Chunk chunk, MeasurementSchema schema) {
+    ChunkHeader chunkHeader = chunk.getHeader();
+    return chunkHeader.getDataType() == schema.getType()
+        && chunkHeader.getEncodingType() == schema.getEncodingType()
+        && chunkHeader.getCompressionType() == schema.getCompressor();
+  }
+
+  /**
+   * Append the next page of chunkReader to chunkWriter as compressed bytes along with its header.
+   *
+   * @return the number of points in the page
+   */
+  public static int copyPage(ChunkReader chunkReader, IChunkWriter chunkWriter)
+      throws IOException {
+    PageHeader pageHeader = chunkReader.nextPageHeader();
+    ByteBuffer pageData = chunkReader.nextPageDataWithoutUncompressing();
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(pageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    return (int) pageHeader.getNumOfValues();
+  }
+
   public static void writeBatchPoint(BatchData batchData, int i, IChunkWriter chunkWriter) {
     switch (chunkWriter.getDataType()) {
       case TEXT:
@@ -223,6 +286,7 @@ public class MergeUtils {
       MetaListEntry metaListEntry = chunkMetaHeap.poll();
       ChunkMetaData currMeta = metaListEntry.current();
       Chunk chunk = tsFileReader.readMemChunk(currMeta);
+      MergeManager.getINSTANCE().acquireMergeRead(chunk.getData().remaining());
       ret[metaListEntry.pathId].add(chunk);
       if (metaListEntry.hasNext()) {
         metaListEntry.next();
@@ -23,6 +23,9 @@ import java.util.List;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 public class QueryUtils {
 
@@ -73,4 +76,45 @@ public class QueryUtils {
     }
     return false;
   }
+
+  /**
+   * examine the current point of batchData with the filter, without boxing the value.
+   */
+  public static boolean satisfyCurrent(Filter filter, BatchData batchData) {
+    long time = batchData.currentTime();
+    switch (batchData.getDataType()) {
+      case BOOLEAN:
+        return filter.satisfyBoolean(time, batchData.getBoolean());
+      case INT32:
+        return filter.satisfyInt(time, batchData.getInt());
+      case INT64:
+        return filter.satisfyLong(time, batchData.getLong());
+      case FLOAT:
+        return filter.satisfyFloat(time, batchData.getFloat());
+      case DOUBLE:
+        return filter.satisfyDouble(time, batchData.getDouble());
+      default:
+        return filter.satisfy(time, batchData.currentValue());
+    }
+  }
+
+  /**
+   * examine the point with the filter, without boxing the value again.
+   */
+  public static boolean satisfy(Filter filter, long time, TsPrimitiveType value) {
+    switch (value.getDataType()) {
+      case BOOLEAN:
+        return filter.satisfyBoolean(time, value.getBoolean());
+      case INT32:
+        return filter.satisfyInt(time, value.getInt());
+      case INT64:
+        return filter.satisfyLong(time, value.getLong());
+      case FLOAT:
+        return filter.satisfyFloat(time, value.getFloat());
+      case DOUBLE:
+        return filter.satisfyDouble(time, value.getDouble());
+      default:
+        return filter.satisfy(time, value.getValue());
+    }
+  }
 }
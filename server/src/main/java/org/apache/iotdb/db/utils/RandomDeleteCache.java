@@ -44,6 +44,20 @@ public abstract class RandomDeleteCache<K, V> implements Cache<K, V> {
     return v;
   }
 
+  /**
+   * @return the cached value of the key, or null if it is not cached, without loading it
+   */
+  public V getIfPresent(K key) {
+    return cache.get(key);
+  }
+
+  /**
+   * Drop the cached value of the key so that it is loaded again on the next get.
+   */
+  public void invalidate(K key) {
+    cache.remove(key);
+  }
+
   private void randomRemoveObjectIfCacheIsFull() throws CacheException {
     if (cache.size() == this.cacheSize) {
       removeFirstObject();
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * TSQueryDataSetBuilder collects the rows of a fetch into one primitive array per column, and then
+ * copies each array into its ByteBuffer in one bulk operation, instead of writing the values one by
+ * one through OutputStreams and copying the streams again into the buffers.
+ * <p>
+ * The layout of the result is the same as QueryDataSetUtils.readTimesFromBuffer() and
+ * readValuesFromBuffer() expect: the times, then for each column its non-null values and a bitmap
+ * with one bit for each row (the first row is the highest bit of the first byte).
+ * <p>
+ * The arrays are kept after build(), so a builder can be reused by the fetches of one query.
+ */
+public class TSQueryDataSetBuilder {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private TSDataType[] dataTypes;
+
+  private long[] times = new long[INITIAL_CAPACITY];
+  private int rowCount = 0;
+
+  /**
+   * values of each column, the array type depends on the data type of the column
+   */
+  private Object[] values;
+  private int[] valueCounts;
+  private byte[][] bitmaps;
+  /**
+   * the serialized size of each TEXT column
+   */
+  private int[] binarySizes;
+
+  public TSQueryDataSetBuilder(List<TSDataType> dataTypes) {
+    int columnNum = dataTypes.size();
+    this.dataTypes = dataTypes.toArray(new TSDataType[columnNum]);
+    values = new Object[columnNum];
+    valueCounts = new int[columnNum];
+    bitmaps = new byte[columnNum][INITIAL_CAPACITY / 8];
+    binarySizes = new int[columnNum];
+    for (int i = 0; i < columnNum; i++) {
+      values[i] = newValueArray(this.dataTypes[i], INITIAL_CAPACITY);
+    }
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * start a new row, all its columns are null until they are put.
+   */
+  public void putTime(long time) {
+    if (rowCount == times.length) {
+      times = Arrays.copyOf(times, times.length * 2);
+      for (int i = 0; i < bitmaps.length; i++) {
+        bitmaps[i] = Arrays.copyOf(bitmaps[i], times.length / 8);
+      }
+    }
+    times[rowCount++] = time;
+  }
+
+  public void putInt(int column, int value) {
+    int[] array = (int[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    markNotNull(column);
+  }
+
+  public void putLong(int column, long value) {
+    long[] array = (long[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    markNotNull(column);
+  }
+
+  public void putFloat(int column, float value) {
+    float[] array = (float[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    markNotNull(column);
+  }
+
+  public void putDouble(int column, double value) {
+    double[] array = (double[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    markNotNull(column);
+  }
+
+  public void putBoolean(int column, boolean value) {
+    boolean[] array = (boolean[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    markNotNull(column);
+  }
+
+  public void putBinary(int column, Binary value) {
+    Binary[] array = (Binary[]) values[column];
+    if (valueCounts[column] == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      values[column] = array;
+    }
+    array[valueCounts[column]++] = value;
+    binarySizes[column] += Integer.BYTES + value.getLength();
+    markNotNull(column);
+  }
+
+  /**
+   * put the current value of the batch data into the column of the last row.
+   */
+  public void putCurrent(int column, BatchData batchData) {
+    switch (dataTypes[column]) {
+      case INT32:
+        putInt(column, batchData.getInt());
+        break;
+      case INT64:
+        putLong(column, batchData.getLong());
+        break;
+      case FLOAT:
+        putFloat(column, batchData.getFloat());
+        break;
+      case DOUBLE:
+        putDouble(column, batchData.getDouble());
+        break;
+      case BOOLEAN:
+        putBoolean(column, batchData.getBoolean());
+        break;
+      case TEXT:
+        putBinary(column, batchData.getBinary());
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataTypes[column]));
+    }
+  }
+
+  private void markNotNull(int column) {
+    int row = rowCount - 1;
+    bitmaps[column][row >>> 3] |= 0x80 >>> (row & 7);
+  }
+
+  /**
+   * build the TSQueryDataSet of the rows put since the last build, and reset the builder.
+   */
+  public TSQueryDataSet build() {
+    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
+
+    ByteBuffer timeBuffer = ByteBuffer.allocate(rowCount * Long.BYTES);
+    timeBuffer.asLongBuffer().put(times, 0, rowCount);
+    tsQueryDataSet.setTime(timeBuffer);
+
+    int bitmapSize = (rowCount + 7) / 8;
+    List<ByteBuffer> valueList = new ArrayList<>(dataTypes.length);
+    List<ByteBuffer> bitmapList = new ArrayList<>(dataTypes.length);
+    for (int i = 0; i < dataTypes.length; i++) {
+      valueList.add(buildValueBuffer(i));
+      bitmapList.add(ByteBuffer.wrap(Arrays.copyOf(bitmaps[i], bitmapSize)));
+      Arrays.fill(bitmaps[i], 0, bitmapSize, (byte) 0);
+      valueCounts[i] = 0;
+      binarySizes[i] = 0;
+    }
+    tsQueryDataSet.setValueList(valueList);
+    tsQueryDataSet.setBitmapList(bitmapList);
+    rowCount = 0;
+    return tsQueryDataSet;
+  }
+
+  private ByteBuffer buildValueBuffer(int column) {
+    int count = valueCounts[column];
+    ByteBuffer buffer;
+    switch (dataTypes[column]) {
+      case INT32:
+        buffer = ByteBuffer.allocate(count * Integer.BYTES);
+        buffer.asIntBuffer().put((int[]) values[column], 0, count);
+        break;
+      case INT64:
+        buffer = ByteBuffer.allocate(count * Long.BYTES);
+        buffer.asLongBuffer().put((long[]) values[column], 0, count);
+        break;
+      case FLOAT:
+        buffer = ByteBuffer.allocate(count * Float.BYTES);
+        buffer.asFloatBuffer().put((float[]) values[column], 0, count);
+        break;
+      case DOUBLE:
+        buffer = ByteBuffer.allocate(count * Double.BYTES);
+        buffer.asDoubleBuffer().put((double[]) values[column], 0, count);
+        break;
+      case BOOLEAN:
+        boolean[] booleans = (boolean[]) values[column];
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+          bytes[i] = booleans[i] ? (byte) 1 : (byte) 0;
+        }
+        buffer = ByteBuffer.wrap(bytes);
+        break;
+      case TEXT:
+        Binary[] binaries = (Binary[]) values[column];
+        buffer = ByteBuffer.allocate(binarySizes[column]);
+        for (int i = 0; i < count; i++) {
+          buffer.putInt(binaries[i].getLength());
+          buffer.put(binaries[i].getValues());
+          // the values are not kept after the build
+          binaries[i] = null;
+        }
+        buffer.flip();
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataTypes[column]));
+    }
+    return buffer;
+  }
+
+  private static Object newValueArray(TSDataType dataType, int capacity) {
+    switch (dataType) {
+      case INT32:
+        return new int[capacity];
+      case INT64:
+        return new long[capacity];
+      case FLOAT:
+        return new float[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      case BOOLEAN:
+        return new boolean[capacity];
+      case TEXT:
+        return new Binary[capacity];
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+}
@@ -66,6 +66,10 @@ public class TsFileRecoverPerformer {
   private boolean acceptUnseq;
   private boolean isLastFile;
 
+  private boolean checked;
+  private RestorableTsFileIOWriter restorableTsFileIOWriter;
+  private boolean sealed;
+
   public TsFileRecoverPerformer(String logNodePrefix,
       Schema schema, VersionController versionController,
       TsFileResource currentTsFileResource, boolean acceptUnseq, boolean isLastFile) {
@@ -79,24 +83,21 @@ public class TsFileRecoverPerformer {
   }
 
   /**
-   * 1. recover the TsFile by RestorableTsFileIOWriter and truncate the file to remaining corrected
-   * data 2. redo the WALs to recover unpersisted data 3. flush and close the file 4. clean WALs
-   * @return a RestorableTsFileIOWriter if the file is not closed before crush, so this writer
-   * can be used to continue writing
+   * Recover the TsFile by RestorableTsFileIOWriter, truncating the file to remaining corrected
+   * data, and load the TsFileResource if the file is complete. Only this TsFile and its resource
+   * are touched, so the TsFiles of a storage group can be checked concurrently before they are
+   * recovered one by one.
+   * @return true if the file is missing or complete, so that no WAL has to be redone
    */
-  public RestorableTsFileIOWriter recover() throws StorageGroupProcessorException {
-
-    IMemTable recoverMemTable = new PrimitiveMemTable();
-    this.logReplayer = new LogReplayer(logNodePrefix, insertFilePath, tsFileResource.getModFile(),
-        versionController,
-        tsFileResource, schema, recoverMemTable, acceptUnseq);
+  public boolean checkSealedFile() throws StorageGroupProcessorException {
+    checked = true;
     File insertFile = FSFactoryProducer.getFSFactory().getFile(insertFilePath);
     if (!insertFile.exists()) {
       logger.error("TsFile {} is missing, will skip its recovery.", insertFilePath);
-      return null;
+      sealed = true;
+      return true;
     }
     // remove corrupted part of the TsFile
-    RestorableTsFileIOWriter restorableTsFileIOWriter;
     try {
       restorableTsFileIOWriter = new RestorableTsFileIOWriter(insertFile);
     } catch (IOException e) {
@@ -105,6 +106,7 @@ public class TsFileRecoverPerformer {
 
     if (!restorableTsFileIOWriter.hasCrashed() && !restorableTsFileIOWriter.canWrite()) {
       // tsfile is complete
+      sealed = true;
       try {
         if (tsFileResource.fileExists()) {
           // .resource file exists, deserialize it
@@ -122,17 +124,32 @@ public class TsFileRecoverPerformer {
           tsFileResource.setHistoricalVersions(Collections.singleton(fileVersion));
           tsFileResource.serialize();
         }
-        return restorableTsFileIOWriter;
       } catch (IOException e) {
         throw new StorageGroupProcessorException(
             "recover the resource file failed: " + insertFilePath
                 + RESOURCE_SUFFIX + e);
       }
-    } else {
-      // due to failure, the last ChunkGroup may contain the same data as the WALs, so the time
-      // map must be updated first to avoid duplicated insertion
-      recoverResourceFromWriter(restorableTsFileIOWriter);
     }
+    return sealed;
+  }
+
+  /**
+   * 1. recover the TsFile by RestorableTsFileIOWriter and truncate the file to remaining corrected
+   * data 2. redo the WALs to recover unpersisted data 3. flush and close the file 4. clean WALs
+   * @return a RestorableTsFileIOWriter if the file is not closed before crush, so this writer
+   * can be used to continue writing
+   */
+  public RestorableTsFileIOWriter recover() throws StorageGroupProcessorException {
+    if (!checked) {
+      checkSealedFile();
+    }
+    if (sealed) {
+      return restorableTsFileIOWriter;
+    }
+
+    // due to failure, the last ChunkGroup may contain the same data as the WALs, so the time
+    // map must be updated first to avoid duplicated insertion
+    recoverResourceFromWriter(restorableTsFileIOWriter);
 
     // redo logs
     redoLogs(restorableTsFileIOWriter);
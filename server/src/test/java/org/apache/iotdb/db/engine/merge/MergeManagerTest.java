@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MergeManagerTest extends MergeTest {
+
+  private File tempSGDir;
+  private int prevMergeThroughput;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException, PathException {
+    prevMergeThroughput = IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec();
+    super.setUp();
+    tempSGDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("tempSG"));
+    tempSGDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    MergeManager.getINSTANCE().setMergeThroughputLimitMbPerSec(prevMergeThroughput);
+    super.tearDown();
+    FileUtils.deleteDirectory(tempSGDir);
+  }
+
+  @Test
+  public void testSetThroughputLimit() {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    mergeManager.setMergeThroughputLimitMbPerSec(8);
+    assertEquals(8, IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec());
+    // no flush task is pending
+    assertEquals(8.0, mergeManager.getCurrentMergeThroughputLimitMbPerSec(), 0.001);
+
+    mergeManager.setMergeThroughputLimitMbPerSec(0);
+    assertTrue(mergeManager.getCurrentMergeThroughputLimitMbPerSec() > Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testThrottle() {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    mergeManager.setMergeThroughputLimitMbPerSec(1);
+    long readBytes = mergeManager.getMergeReadBytes();
+    long startTime = System.currentTimeMillis();
+    // at most 1 second of bytes are allowed in a burst, and the rest must be waited for by the
+    // next acquisition
+    mergeManager.acquireMergeRead(3 * 1024 * 1024);
+    mergeManager.acquireMergeWrite(1);
+    assertTrue(System.currentTimeMillis() - startTime >= 1000);
+    assertEquals(readBytes + 3 * 1024 * 1024, mergeManager.getMergeReadBytes());
+  }
+
+  @Test
+  public void testMergeCounted() throws Exception {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    long readBytes = mergeManager.getMergeReadBytes();
+    long writtenBytes = mergeManager.getMergeWrittenBytes();
+    mergeManager.getMergeThroughputMbPerSec();
+
+    MergeTask mergeTask =
+        new MergeTask(new MergeResource(seqResources, unseqResources), tempSGDir.getPath(),
+            (k, v, l) -> {}, "test", false, 1, MERGE_TEST_SG);
+    mergeTask.call();
+
+    assertTrue(mergeManager.getMergeReadBytes() > readBytes);
+    assertTrue(mergeManager.getMergeWrittenBytes() > writtenBytes);
+    assertTrue(mergeManager.getMergeThroughputMbPerSec() > 0);
+  }
+
+  @Test
+  public void testPriorityOrder() throws Exception {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    CountDownLatch blockerLatch = new CountDownLatch(1);
+    CountDownLatch tasksLatch = new CountDownLatch(3);
+    List<Integer> executedPriorities = Collections.synchronizedList(new ArrayList<>());
+    // occupy the only merge thread so the following tasks are queued
+    mergeManager.submitMainTask(() -> {
+      blockerLatch.await();
+      return null;
+    }, 0);
+    waitUntilTaskRuns(mergeManager);
+    for (int priority : new int[]{1, 3, 2}) {
+      mergeManager.submitMainTask(() -> {
+        executedPriorities.add(priority);
+        tasksLatch.countDown();
+        return null;
+      }, priority);
+    }
+    blockerLatch.countDown();
+    assertTrue(tasksLatch.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(3, 2, 1), executedPriorities);
+  }
+
+  @Test
+  public void testPauseAndResume() throws Exception {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    CountDownLatch subTaskLatch = new CountDownLatch(1);
+    CountDownLatch mergeEndLatch = new CountDownLatch(1);
+    CountDownLatch urgentTaskLatch = new CountDownLatch(1);
+    AtomicBoolean mergeEndedBeforeUrgentTask = new AtomicBoolean(true);
+
+    // occupy the chunk sub-task threads so the merge waits in its first batch of series
+    int subThreadNum = IoTDBDescriptor.getInstance().getConfig().getMergeChunkSubThreadNum();
+    for (int i = 0; i < subThreadNum; i++) {
+      mergeManager.submitChunkSubTask(() -> {
+        subTaskLatch.await();
+        return null;
+      });
+    }
+    MergeTask mergeTask =
+        new MergeTask(new MergeResource(seqResources, unseqResources), tempSGDir.getPath(),
+            (k, v, l) -> mergeEndLatch.countDown(), "test", false, 1, MERGE_TEST_SG);
+    mergeTask.setPriority(1);
+    mergeManager.submitMainTask(mergeTask, mergeTask.getPriority());
+    waitUntilTaskRuns(mergeManager);
+
+    mergeManager.submitMainTask(() -> {
+      mergeEndedBeforeUrgentTask.set(mergeEndLatch.getCount() == 0);
+      urgentTaskLatch.countDown();
+      return null;
+    }, 10);
+    subTaskLatch.countDown();
+
+    assertTrue(urgentTaskLatch.await(30, TimeUnit.SECONDS));
+    // the merge is paused for the urgent task and then resumed
+    assertFalse(mergeEndedBeforeUrgentTask.get());
+    assertTrue(mergeEndLatch.await(30, TimeUnit.SECONDS));
+  }
+
+  private void waitUntilTaskRuns(MergeManager mergeManager) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (mergeManager.getNumberOfWorkingTasks() == 0
+        || mergeManager.getNumberOfPendingTasks() > 0) {
+      assertTrue(System.currentTimeMillis() - startTime < 10000);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -20,24 +20,33 @@
 package org.apache.iotdb.db.engine.merge;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -235,4 +244,99 @@ public class MergeTaskTest extends MergeTest {
     assertEquals(70, count);
     tsFilesReader.close();
   }
+
+  @Test
+  public void mergeCopyingPagesTest() throws Exception {
+    // this test uses its own files, in which there are 5 points in each page
+    long version = seqFileNum + unseqFileNum + 1;
+    TsFileResource seqResource = newResource("seq", version);
+    TsFileResource unseqResource = newResource("unseq", version + 1);
+    try {
+      TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+      int prevMaxPagePointNum = tsFileConfig.getMaxNumberOfPointsInPage();
+      tsFileConfig.setMaxNumberOfPointsInPage(5);
+      try {
+        prepareFile(seqResource, 0, ptNum, 0);
+      } finally {
+        tsFileConfig.setMaxNumberOfPointsInPage(prevMaxPagePointNum);
+      }
+      // the unseq file overlaps only the second page of each series
+      prepareFile(unseqResource, 7, 2, 10000);
+      try {
+        seqResource.getModFile().write(new Deletion(new Path(deviceIds[0],
+            measurementSchemas[1].getMeasurementId()), 10000, 12));
+      } finally {
+        seqResource.getModFile().close();
+      }
+
+      MergeTask mergeTask =
+          new MergeTask(new MergeResource(Collections.singletonList(seqResource),
+              Collections.singletonList(unseqResource)), tempSGDir.getPath(), (k, v, l) -> {
+            try {
+              seqResource.removeModFile();
+            } catch (IOException e) {
+              e.printStackTrace();
+            }
+          }, "test", false, 1, MERGE_TEST_SG);
+      mergeTask.call();
+
+      Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+      assertEquals(ptNum, checkMergedSeries(seqResource, path, 0));
+      // the pages that overlap no unseq data are copied rather than being merged into one page
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(
+          seqResource.getFile().getPath())) {
+        int pageNum = 0;
+        for (ChunkMetaData chunkMetaData : reader.getChunkMetadataList(path)) {
+          ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetaData), null);
+          while (chunkReader.hasNextSatisfiedPage()) {
+            chunkReader.skipPageData();
+            pageNum++;
+          }
+        }
+        assertEquals(ptNum / 5, pageNum);
+      }
+
+      // the partially deleted pages are decoded while the rest are copied
+      path = new Path(deviceIds[0], measurementSchemas[1].getMeasurementId());
+      assertEquals(ptNum - 13 + 2, checkMergedSeries(seqResource, path, 13));
+    } finally {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(seqResource);
+      FileReaderManager.getInstance().closeFileAndRemoveReader(unseqResource);
+      seqResource.remove();
+      unseqResource.remove();
+    }
+  }
+
+  private TsFileResource newResource(String prefix, long version) {
+    TsFileResource resource = new TsFileResource(new File(TestConstant.BASE_OUTPUT_PATH.concat(
+        version + prefix + IoTDBConstant.TSFILE_NAME_SEPARATOR + version
+            + IoTDBConstant.TSFILE_NAME_SEPARATOR + version + IoTDBConstant.TSFILE_NAME_SEPARATOR
+            + 0 + ".tsfile")));
+    resource.setClosed(true);
+    resource.setHistoricalVersions(Collections.singleton(version));
+    return resource;
+  }
+
+  private int checkMergedSeries(TsFileResource seqResource, Path path, long firstSeqTime)
+      throws IOException {
+    QueryContext context = new QueryContext();
+    SeqResourceIterateReader tsFilesReader = new SeqResourceIterateReader(path,
+        Collections.singletonList(seqResource), null, context);
+    int count = 0;
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      for (int i = 0; i < batchData.length(); i++) {
+        long time = batchData.getTimeByIndex(i);
+        if (time == 7 || time == 8) {
+          assertEquals(time + 10000.0, batchData.getDoubleByIndex(i), 0.001);
+        } else {
+          assertTrue(time >= firstSeqTime);
+          assertEquals(time, batchData.getDoubleByIndex(i), 0.001);
+        }
+        count++;
+      }
+    }
+    tsFilesReader.close();
+    return count;
+  }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.merge.recover.SeqCompactionLogger;
+import org.apache.iotdb.db.engine.merge.selector.SeqCompactionFileSelector;
+import org.apache.iotdb.db.engine.merge.task.RecoverSeqCompactionTask;
+import org.apache.iotdb.db.engine.merge.task.SeqCompactionCallback;
+import org.apache.iotdb.db.engine.merge.task.SeqCompactionTask;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SeqCompactionTest extends MergeTest {
+
+  private File tempSGDir;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException, PathException {
+    super.setUp();
+    tempSGDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("tempSG"));
+    tempSGDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    FileUtils.deleteDirectory(tempSGDir);
+  }
+
+  @Test
+  public void testSelect() {
+    SeqCompactionFileSelector selector = new SeqCompactionFileSelector(seqResources,
+        Long.MIN_VALUE, 2, Long.MAX_VALUE / 4, Long.MAX_VALUE / 2);
+    List<List<TsFileResource>> groups = selector.select();
+    assertEquals(2, groups.size());
+    assertEquals(seqResources.subList(0, 2), groups.get(0));
+    assertEquals(seqResources.subList(2, 4), groups.get(1));
+
+    // a file being merged separates the files around it
+    seqResources.get(1).setMerging(true);
+    groups = selector.select();
+    assertEquals(1, groups.size());
+    assertEquals(seqResources.subList(2, 4), groups.get(0));
+    seqResources.get(1).setMerging(false);
+  }
+
+  @Test
+  public void testSelectTiers() {
+    long fileSize = seqResources.get(0).getFileSize();
+    // the files are in tier 1 and too few to be compacted
+    SeqCompactionFileSelector selector = new SeqCompactionFileSelector(seqResources,
+        Long.MIN_VALUE, seqFileNum + 1, fileSize / 2, Long.MAX_VALUE / 2);
+    assertTrue(selector.select().isEmpty());
+
+    // the files are too large
+    selector = new SeqCompactionFileSelector(seqResources, Long.MIN_VALUE, 2, Long.MAX_VALUE / 4,
+        fileSize);
+    assertTrue(selector.select().isEmpty());
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    List<TsFileResource> sourceFiles = new ArrayList<>(seqResources);
+    List<TsFileResource> targetFiles = new ArrayList<>();
+    SeqCompactionTask compactionTask = new SeqCompactionTask(
+        Collections.singletonList(sourceFiles), tempSGDir.getPath(), new SeqCompactionCallback() {
+      @Override
+      public void replaceFiles(List<TsFileResource> sourceFiles, TsFileResource targetFile,
+          SeqCompactionLogger compactionLogger) throws IOException {
+        compactionLogger.logEnd();
+        targetFiles.add(targetFile);
+      }
+
+      @Override
+      public void end() {
+        // nothing to do
+      }
+    }, "test");
+    compactionTask.call();
+    // let tearDown() remove the target file
+    seqResources.add(targetFiles.get(0));
+
+    for (TsFileResource sourceFile : sourceFiles) {
+      assertFalse(sourceFile.getFile().exists());
+    }
+    assertFalse(new File(tempSGDir, SeqCompactionLogger.SEQ_COMPACTION_LOG_NAME).exists());
+
+    TsFileResource targetFile = targetFiles.get(0);
+    assertTrue(targetFile.fileExists());
+    for (String deviceId : deviceIds) {
+      assertEquals(0, (long) targetFile.getStartTimeMap().get(deviceId));
+      assertEquals(seqFileNum * ptNum - 1, (long) targetFile.getEndTimeMap().get(deviceId));
+    }
+    assertEquals(seqFileNum, targetFile.getHistoricalVersions().size());
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        targetFile.getFile().getPath())) {
+      for (String deviceId : deviceIds) {
+        Path path = new Path(deviceId, measurementSchemas[0].getMeasurementId());
+        long expectedTime = 0;
+        for (ChunkMetaData chunkMetaData : reader.getChunkMetadataList(path)) {
+          ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetaData), null);
+          while (chunkReader.hasNextSatisfiedPage()) {
+            BatchData batchData = chunkReader.nextPageData();
+            while (batchData.hasCurrent()) {
+              assertEquals(expectedTime, batchData.currentTime());
+              assertEquals(expectedTime, batchData.getDouble(), 0.001);
+              expectedTime++;
+              batchData.next();
+            }
+          }
+        }
+        assertEquals(seqFileNum * ptNum, expectedTime);
+      }
+    }
+  }
+
+  @Test
+  public void testRecoverUnfinished() throws Exception {
+    File targetFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("target.tsfile"));
+    targetFile.createNewFile();
+    SeqCompactionLogger compactionLogger = new SeqCompactionLogger(tempSGDir.getPath());
+    compactionLogger.logFiles(seqResources, targetFile);
+    compactionLogger.close();
+
+    new RecoverSeqCompactionTask(tempSGDir.getPath()).recover();
+    assertFalse(targetFile.exists());
+    for (TsFileResource sourceFile : seqResources) {
+      assertTrue(sourceFile.getFile().exists());
+    }
+    assertFalse(new File(tempSGDir, SeqCompactionLogger.SEQ_COMPACTION_LOG_NAME).exists());
+  }
+
+  @Test
+  public void testRecoverEnded() throws Exception {
+    File targetFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("target.tsfile"));
+    targetFile.createNewFile();
+    SeqCompactionLogger compactionLogger = new SeqCompactionLogger(tempSGDir.getPath());
+    compactionLogger.logFiles(seqResources.subList(0, 2), targetFile);
+    compactionLogger.logEnd();
+    compactionLogger.close();
+
+    new RecoverSeqCompactionTask(tempSGDir.getPath()).recover();
+    assertTrue(targetFile.exists());
+    assertFalse(seqResources.get(0).getFile().exists());
+    assertFalse(seqResources.get(1).getFile().exists());
+    assertTrue(seqResources.get(2).getFile().exists());
+    targetFile.delete();
+  }
+}
@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
@@ -229,6 +231,78 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testRecoverConcurrently()
+      throws QueryProcessException, StorageGroupProcessorException {
+    for (int j = 21; j <= 30; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    for (int j = 10; j >= 1; j--) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+    // the resource of a sealed file is rebuilt from the file if it is lost
+    TsFileResource lostResource = processor.getSequenceFileTreeSet().get(3);
+    Assert.assertTrue(new File(lostResource.getFile().getPath()
+        + TsFileResource.RESOURCE_SUFFIX).delete());
+
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevRecoveryThread = config.getConcurrentRecoveryThread();
+    config.setConcurrentRecoveryThread(4);
+    try {
+      processor = new DummySGP(systemDir, storageGroup);
+    } finally {
+      config.setConcurrentRecoveryThread(prevRecoveryThread);
+    }
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context,
+        null);
+    List<TsFileResource> seqResources = queryDataSource.getSeqResources();
+    Assert.assertEquals(10, seqResources.size());
+    Assert.assertEquals(10, queryDataSource.getUnseqResources().size());
+    for (int i = 0; i < seqResources.size(); i++) {
+      Assert.assertTrue(seqResources.get(i).isClosed());
+      Assert.assertEquals(21 + i, (long) seqResources.get(i).getStartTimeMap().get(deviceId));
+    }
+    for (TsFileResource resource : queryDataSource.getUnseqResources()) {
+      Assert.assertTrue(resource.isClosed());
+    }
+  }
+
+  @Test
+  public void testDeleteUnregistersTimeIndexes() throws QueryProcessException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    long prevBudget = config.getTimeIndexMemoryBudget();
+    config.setTimeIndexMemoryBudget(Long.MAX_VALUE);
+    try {
+      for (int j = 1; j <= 3; j++) {
+        TSRecord record = new TSRecord(j, deviceId);
+        record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        processor.insert(new InsertPlan(record));
+        processor.putAllWorkingTsFileProcessorIntoClosingList();
+      }
+      processor.waitForAllCurrentTsFileProcessorsClosed();
+      List<TsFileResource> resources = new ArrayList<>(processor.getSequenceFileTreeSet());
+      Assert.assertEquals(3, resources.size());
+      for (TsFileResource resource : resources) {
+        Assert.assertTrue(TimeIndexManager.getInstance().isRegistered(resource));
+      }
+
+      processor.syncDeleteDataFiles();
+      for (TsFileResource resource : resources) {
+        Assert.assertFalse(TimeIndexManager.getInstance().isRegistered(resource));
+      }
+    } finally {
+      config.setTimeIndexMemoryBudget(prevBudget);
+    }
+  }
+
   @Test
   public void testMerge() throws QueryProcessException {
 
@@ -232,7 +232,7 @@ public class TsFileProcessorTest {
           synchronized (resource) {
             for (Entry<String, Long> startTime : resource.getStartTimeMap().entrySet()) {
               String deviceId = startTime.getKey();
-              resource.getEndTimeMap().put(deviceId, resource.getStartTimeMap().get(deviceId));
+              resource.forceUpdateEndTime(deviceId, resource.getStartTimeMap().get(deviceId));
             }
             try {
               resource.close();
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TsFileResourceTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private long prevBudget;
+  private File partitionDir = new File(TestConstant.OUTPUT_DATA_DIR
+      .concat("root.sg" + File.separator + "0"));
+
+  @Before
+  public void setUp() {
+    prevBudget = config.getTimeIndexMemoryBudget();
+    partitionDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    config.setTimeIndexMemoryBudget(prevBudget);
+    EnvironmentUtils.cleanDir(TestConstant.OUTPUT_DATA_DIR);
+  }
+
+  private TsFileResource createResource(long version, int deviceNum, long startTime,
+      long endTime) throws IOException {
+    TsFileResource resource = new TsFileResource(
+        new File(partitionDir, version + "-" + version + "-0.tsfile"));
+    for (int i = 0; i < deviceNum; i++) {
+      resource.updateStartTime("root.sg.d" + i, startTime + i);
+      resource.updateEndTime("root.sg.d" + i, endTime + i);
+    }
+    resource.setHistoricalVersions(Collections.singleton(version));
+    resource.serialize();
+    return resource;
+  }
+
+  private TsFileResource loadResource(TsFileResource resource) throws IOException {
+    TsFileResource loaded = new TsFileResource(resource.getFile());
+    loaded.deSerialize();
+    return loaded;
+  }
+
+  @Test
+  public void testCompactAfterDeserialize() throws IOException {
+    config.setTimeIndexMemoryBudget(0);
+    TsFileResource resource = createResource(1, 10, 100, 200);
+    Map<String, Long> startTimes = new HashMap<>(resource.getStartTimeMap());
+    Map<String, Long> endTimes = new HashMap<>(resource.getEndTimeMap());
+
+    TsFileResource loaded = loadResource(resource);
+    assertTrue(loaded.isTimeIndexLoaded());
+    assertEquals(startTimes, loaded.getStartTimeMap());
+    assertEquals(endTimes, loaded.getEndTimeMap());
+    assertEquals(105L, (long) loaded.getStartTimeMap().get("root.sg.d5"));
+    assertNull(loaded.getStartTimeMap().get("root.sg.d10"));
+    assertTrue(loaded.containsDevice("root.sg.d9"));
+    assertTrue(loaded.stillLives(209));
+    assertFalse(loaded.stillLives(210));
+  }
+
+  @Test
+  public void testUpdateCompactIndex() throws IOException {
+    config.setTimeIndexMemoryBudget(0);
+    TsFileResource resource = loadResource(createResource(1, 10, 100, 200));
+
+    resource.updateStartTime("root.sg.d0", 50);
+    resource.updateEndTime("root.sg.d0", 150);
+    resource.forceUpdateStartTime("root.sg.d1", 120);
+    assertTrue(resource.isTimeIndexLoaded());
+    assertEquals(50L, (long) resource.getStartTimeMap().get("root.sg.d0"));
+    assertEquals(200L, (long) resource.getEndTimeMap().get("root.sg.d0"));
+    assertEquals(120L, (long) resource.getStartTimeMap().get("root.sg.d1"));
+
+    // a new device turns the index back into maps
+    resource.updateStartTime("root.sg.d10", 300);
+    assertFalse(resource.isTimeIndexLoaded());
+    assertEquals(11, resource.getStartTimeMap().size());
+    assertEquals(10, resource.getEndTimeMap().size());
+    assertEquals(50L, (long) resource.getStartTimeMap().get("root.sg.d0"));
+    assertEquals(300L, (long) resource.getStartTimeMap().get("root.sg.d10"));
+  }
+
+  @Test
+  public void testEvictAndLoad() throws IOException {
+    config.setTimeIndexMemoryBudget(1);
+    TsFileResource resource = loadResource(createResource(1, 10, 100, 200));
+    // the index is the same as the file, so it is evicted at once
+    assertFalse(resource.isTimeIndexLoaded());
+    assertEquals(105L, (long) resource.getStartTimeMap().get("root.sg.d5"));
+    assertEquals(209L, (long) resource.getEndTimeMap().get("root.sg.d9"));
+
+    // a changed index is kept until it is written
+    resource.forceUpdateStartTime("root.sg.d5", 150);
+    loadResource(createResource(2, 10, 300, 400));
+    assertTrue(resource.isTimeIndexLoaded());
+    resource.serialize();
+    loadResource(createResource(3, 10, 500, 600));
+    assertFalse(resource.isTimeIndexLoaded());
+    assertEquals(150L, (long) resource.getStartTimeMap().get("root.sg.d5"));
+  }
+
+  @Test
+  public void testFileTimeRange() throws IOException {
+    config.setTimeIndexMemoryBudget(1);
+    TsFileResource resource = loadResource(createResource(1, 10, 100, 200));
+    assertTrue(resource.isSatisfied(TimeFilter.gtEq(209L)));
+    assertFalse(resource.isSatisfied(TimeFilter.gt(209L)));
+    assertFalse(resource.isSatisfied(TimeFilter.lt(100L)));
+    assertTrue(resource.isSatisfied(null));
+    // checking the range of the file does not load its index
+    assertFalse(resource.isTimeIndexLoaded());
+
+    // the range of an unsealed file is unknown
+    TsFileResource unsealed = new TsFileResource(new File(partitionDir, "2-2-0.tsfile"));
+    unsealed.updateStartTime("root.sg.d0", 100);
+    assertTrue(unsealed.isSatisfied(TimeFilter.gt(209L)));
+  }
+
+  @Test
+  public void testRebuildFromTsFile() throws IOException, WriteProcessException {
+    config.setTimeIndexMemoryBudget(1);
+    TsFileResource resource = createResource(1, 2, 100, 200);
+    TsFileWriter writer = new TsFileWriter(resource.getFile());
+    writer.addMeasurement(new MeasurementSchema("s0", TSDataType.INT64, TSEncoding.PLAIN));
+    for (int i = 0; i < 2; i++) {
+      for (long time = 100 + i; time <= 200 + i; time += 50) {
+        TSRecord record = new TSRecord(time, "root.sg.d" + i);
+        record.addTuple(new LongDataPoint("s0", time));
+        writer.write(record);
+      }
+    }
+    writer.close();
+    resource = loadResource(resource);
+    assertFalse(resource.isTimeIndexLoaded());
+
+    // a broken ".resource" file is rebuilt from the TsFile and rewritten
+    new File(resource.getFile().getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+    assertEquals(101L, (long) resource.getStartTimeMap().get("root.sg.d1"));
+    assertEquals(201L, (long) resource.getEndTimeMap().get("root.sg.d1"));
+    assertTrue(resource.fileExists());
+  }
+
+  @Test
+  public void testLoadFailure() throws IOException {
+    config.setTimeIndexMemoryBudget(1);
+    TsFileResource resource = loadResource(createResource(1, 10, 100, 200));
+    assertFalse(resource.isTimeIndexLoaded());
+
+    // without the ".resource" file and the TsFile, the times are not made up
+    new File(resource.getFile().getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+    try {
+      resource.getStartTimeMap();
+      fail();
+    } catch (UncheckedIOException e) {
+      // expected
+    }
+    try {
+      resource.updateEndTime("root.sg.d0", 300);
+      fail();
+    } catch (UncheckedIOException e) {
+      // expected
+    }
+  }
+}
@@ -258,17 +258,39 @@ public class IOTDBGroupByInnerIntervalIT {
 
   @Test
   public void slidingStepLessThanTimeInterval() {
+    String[] retArray1 = new String[]{
+            "1,0,0.0,null",
+            "3,2,9.9,4.95",
+            "5,3,19.8,6.6000000000000005",
+            "7,3,26.4,8.799999999999999",
+            "9,2,19.9,9.95"
+    };
 
     try (Connection connection = DriverManager.
             getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
          Statement statement = connection.createStatement()) {
       boolean hasResultSet = statement.execute(
               "select count(temperature), sum(temperature), avg(temperature) from "
-                      + "root.ln.wf01.wt01 where time > 3"
-                      + "GROUP BY ([1, 30], 2ms, 1ms)");
-      fail();
+                      + "root.ln.wf01.wt01 where time > 3 "
+                      + "GROUP BY ([1, 10], 3ms, 2ms)");
+
+      assertTrue(hasResultSet);
+      int cnt;
+      try (ResultSet resultSet = statement.getResultSet()) {
+        cnt = 0;
+        while (resultSet.next()) {
+          String ans = resultSet.getString(TIMESTAMP_STR) + "," + resultSet
+                  .getString(count("root.ln.wf01.wt01.temperature")) + "," +
+                  resultSet.getString(sum("root.ln.wf01.wt01.temperature")) + "," + resultSet
+                  .getString(avg("root.ln.wf01.wt01.temperature"));
+          assertEquals(retArray1[cnt], ans);
+          cnt++;
+        }
+        assertEquals(retArray1.length, cnt);
+      }
     } catch (Exception e) {
-      assertTrue(e instanceof IoTDBSQLException);
+      e.printStackTrace();
+      fail(e.getMessage());
     }
   }
 
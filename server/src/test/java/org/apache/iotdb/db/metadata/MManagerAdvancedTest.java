@@ -19,16 +19,25 @@
 package org.apache.iotdb.db.metadata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -140,4 +149,73 @@ public class MManagerAdvancedTest {
     Assert.assertEquals(1, paths.size());
   }
 
+
+  @Test
+  public void testAddPathsToMTree() throws Exception {
+    List<MeasurementSchema> schemas = new ArrayList<>();
+    // s0 exists in d1, s6 is new in the storage group
+    schemas.add(new MeasurementSchema("s0", TSDataType.INT32, TSEncoding.RLE));
+    schemas.add(new MeasurementSchema("s6", TSDataType.INT64, TSEncoding.RLE));
+    List<MeasurementSchema> newMeasurements = mmanager.addPathsToMTree("root.vehicle.d1", schemas);
+    assertEquals(Collections.singletonList(schemas.get(1)), newMeasurements);
+    assertEquals(TSDataType.INT64, mmanager.getSeriesType("root.vehicle.d1.s6"));
+
+    // s6 is not new in the storage group any more, but the timeseries is created
+    newMeasurements = mmanager.addPathsToMTree("root.vehicle.d1.d2", schemas.subList(1, 2));
+    assertTrue(newMeasurements.isEmpty());
+    assertTrue(mmanager.pathExist("root.vehicle.d1.d2.s6"));
+    assertEquals(8, mmanager.getSeriesNumber("root.vehicle.d1"));
+  }
+
+  @Test
+  public void testGetSchemasOfDevice() throws Exception {
+    String[] measurements = {"s5", "s0", "s6"};
+    MeasurementSchema[] schemas = mmanager.getSchemasOfDevice("root.vehicle.d1", measurements);
+    assertEquals(TSDataType.TEXT, schemas[0].getType());
+    assertEquals(TSDataType.INT32, schemas[1].getType());
+    assertNull(schemas[2]);
+
+    // the cached schemas of the device are dropped when its timeseries change
+    mmanager.addPathsToMTree("root.vehicle.d1", Collections.singletonList(
+        new MeasurementSchema("s6", TSDataType.INT64, TSEncoding.RLE)));
+    schemas = mmanager.getSchemasOfDevice("root.vehicle.d1", measurements);
+    assertEquals(TSDataType.INT64, schemas[2].getType());
+
+    mmanager.deletePaths(Collections.singletonList(new Path("root.vehicle.d1.s6")), false);
+    schemas = mmanager.getSchemasOfDevice("root.vehicle.d1", measurements);
+    assertEquals(TSDataType.INT32, schemas[1].getType());
+    assertNull(schemas[2]);
+  }
+
+  @Test
+  public void testReadWhileCreating() throws Exception {
+    mmanager.addPathsToMTree("root.vehicle.d2.device", Collections.singletonList(
+        new MeasurementSchema("s0", TSDataType.INT64, TSEncoding.RLE)));
+    MNode device = mmanager.getNodeByPathFromCache("root.vehicle.d2.device");
+    AtomicReference<Exception> readError = new AtomicReference<>();
+    AtomicBoolean creating = new AtomicBoolean(true);
+    Thread reader = new Thread(() -> {
+      try {
+        while (creating.get()) {
+          assertEquals(TSDataType.INT32, mmanager.getSeriesType("root.vehicle.d0.s0"));
+          assertEquals(TSDataType.INT64, mmanager.getSeriesType(device, "s0"));
+          assertTrue(mmanager.pathExist("root.vehicle.d1.s5"));
+        }
+      } catch (Exception | AssertionError e) {
+        readError.set(new Exception(e));
+      }
+    });
+    reader.start();
+    for (int i = 1; i < 1000; i++) {
+      mmanager.addPathsToMTree("root.vehicle.d2.device", Collections.singletonList(
+          new MeasurementSchema("s" + i, TSDataType.INT64, TSEncoding.RLE)));
+    }
+    creating.set(false);
+    reader.join();
+    if (readError.get() != null) {
+      throw readError.get();
+    }
+    assertEquals(1000, device.getChildren().size());
+    assertEquals(1000, mmanager.getSeriesNumber("root.vehicle.d2"));
+  }
 }
@@ -72,6 +72,8 @@ public class MManagerImproveTest {
     assertTrue(mManager.pathExist("root.t1.v2.d3.s5"));
     assertFalse(mManager.pathExist("root.t1.v2.d9.s" + TIMESERIES_NUM));
     assertFalse(mManager.pathExist("root.t10"));
+    assertTrue(mManager.getMTreeMemoryReport()
+        .startsWith("The MTree of " + DEVICE_NUM * TIMESERIES_NUM + " timeseries"));
   }
 
   @Test
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MTreeSnapshotTest {
+
+  private MManager manager = MManager.getInstance();
+  private File snapshotFile = new File(IoTDBDescriptor.getInstance().getConfig().getSchemaDir(),
+      MetadataConstant.METADATA_SNAPSHOT);
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    manager.setStorageGroupToMTree("root.sg1");
+    manager.setStorageGroupToMTree("root.area.sg2");
+    for (int i = 0; i < 10; i++) {
+      manager.addPathToMTree("root.sg1.d" + i + ".s0", TSDataType.INT64, TSEncoding.RLE,
+          CompressionType.SNAPPY, Collections.singletonMap("max_point_number", "3"));
+      manager.addPathToMTree("root.area.sg2.d" + i + ".s1", TSDataType.DOUBLE, TSEncoding.GORILLA,
+          CompressionType.UNCOMPRESSED, Collections.emptyMap());
+    }
+    manager.setTTL("root.sg1", 1000);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testRecoverFromSnapshotAndLog() throws Exception {
+    manager.takeSnapshot();
+    assertTrue(snapshotFile.exists());
+    // blank out the log covered by the snapshot, so it is recovered only if the snapshot is used
+    try (RandomAccessFile logFile = new RandomAccessFile(new File(
+        IoTDBDescriptor.getInstance().getConfig().getSchemaDir(), MetadataConstant.METADATA_LOG),
+        "rw")) {
+      byte[] blankLines = new byte[(int) logFile.length()];
+      Arrays.fill(blankLines, (byte) '\n');
+      logFile.write(blankLines);
+    }
+    // the operations after the snapshot are replayed from the log
+    manager.addPathToMTree("root.sg1.d0.s1", TSDataType.BOOLEAN, TSEncoding.PLAIN,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.deletePaths(Collections.singletonList(new Path("root.area.sg2.d9.s1")), false);
+    manager.setStorageGroupToMTree("root.sg3");
+    manager.setTTL("root.area.sg2", 2000);
+
+    manager.reinit();
+
+    checkRecovered();
+  }
+
+  @Test
+  public void testBrokenSnapshot() throws Exception {
+    manager.takeSnapshot();
+    try (FileOutputStream outputStream = new FileOutputStream(snapshotFile)) {
+      outputStream.write(new byte[]{0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 5});
+    }
+    manager.addPathToMTree("root.sg1.d0.s1", TSDataType.BOOLEAN, TSEncoding.PLAIN,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.deletePaths(Collections.singletonList(new Path("root.area.sg2.d9.s1")), false);
+    manager.setStorageGroupToMTree("root.sg3");
+    manager.setTTL("root.area.sg2", 2000);
+
+    // the whole log is replayed
+    manager.reinit();
+
+    checkRecovered();
+  }
+
+  private void checkRecovered() throws Exception {
+    assertEquals(3, manager.getAllStorageGroupNames().size());
+    assertEquals(11, manager.getSeriesNumber("root.sg1"));
+    assertEquals(9, manager.getSeriesNumber("root.area.sg2"));
+    assertEquals(0, manager.getSeriesNumber("root.sg3"));
+    assertEquals(11, manager.getMaximalSeriesNumberAmongStorageGroups());
+    assertEquals(1000, manager.getNodeByPathWithCheck("root.sg1").getDataTTL());
+    assertEquals(2000, manager.getNodeByPathWithCheck("root.area.sg2").getDataTTL());
+    assertTrue(manager.pathExist("root.sg1.d5.s0"));
+    assertTrue(manager.pathExist("root.sg1.d0.s1"));
+    assertFalse(manager.pathExist("root.area.sg2.d9.s1"));
+    assertEquals("root.sg1", manager.getStorageGroupNameByPath("root.sg1.d5.s0"));
+    assertEquals("root.area.sg2", manager.getStorageGroupNameByPath("root.area.sg2.d3.s1"));
+
+    MeasurementSchema schema = manager.getNodeByPathWithCheck("root.sg1.d5.s0").getSchema();
+    assertEquals(TSDataType.INT64, schema.getType());
+    assertEquals(TSEncoding.RLE, schema.getEncodingType());
+    assertEquals(CompressionType.SNAPPY, schema.getCompressor());
+    assertEquals("3", schema.getProps().get("max_point_number"));
+    assertEquals(TSDataType.DOUBLE, manager.getSeriesType("root.area.sg2.d3.s1"));
+
+    List<MeasurementSchema> schemas = manager.getSchemaForStorageGroup("root.sg1");
+    assertEquals(2, schemas.size());
+  }
+}
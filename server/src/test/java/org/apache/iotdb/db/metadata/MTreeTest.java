@@ -24,7 +24,9 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.db.exception.path.PathException;
@@ -361,4 +363,78 @@ public class MTreeTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void testCompactMTree() throws PathException, StorageGroupException {
+    MTree root = new MTree("root");
+    root.setStorageGroup("root.sg");
+    int deviceNum = CompactChildMap.MAX_SIZE * 2;
+    for (int i = 0; i < deviceNum; i++) {
+      root.addTimeseriesPath(new String("root.sg.d" + i + ".s0"), TSDataType.INT64,
+          TSEncoding.RLE, CompressionType.SNAPPY, Collections.emptyMap());
+      root.addTimeseriesPath("root.sg.d" + i + ".s1", TSDataType.TEXT, TSEncoding.PLAIN,
+          CompressionType.SNAPPY, Collections.singletonMap("max_string_length", "10"));
+    }
+
+    // the children are kept in insertion order when the map grows past the compact form
+    MNode sgNode = root.getNode("root.sg");
+    List<String> deviceNames = new ArrayList<>(sgNode.getChildren().keySet());
+    assertEquals(deviceNum, deviceNames.size());
+    for (int i = 0; i < deviceNum; i++) {
+      assertEquals("d" + i, deviceNames.get(i));
+    }
+    sgNode.getChildren().remove("d0");
+    assertFalse(root.isPathExist("root.sg.d0"));
+    assertTrue(root.isPathExist("root.sg.d1.s1"));
+
+    // equal schemas without props are shared, those with props are not
+    MNode d1s0 = root.getNode("root.sg.d1.s0");
+    MNode d2s0 = root.getNode("root.sg.d2.s0");
+    assertTrue(d1s0.getSchema() == d2s0.getSchema());
+    assertTrue(d1s0.getName() == d2s0.getName());
+    MNode d1s1 = root.getNode("root.sg.d1.s1");
+    MNode d2s1 = root.getNode("root.sg.d2.s1");
+    assertFalse(d1s1.getSchema() == d2s1.getSchema());
+    assertEquals("10", d2s1.getSchema().getProps().get("max_string_length"));
+
+    MNode device = root.getNode("root.sg.d1");
+    assertEquals(2, device.getChildren().size());
+    assertTrue(device.getChildren() instanceof CompactChildMap);
+    device.deleteChild("s0");
+    assertEquals(Collections.singletonList("s1"), new ArrayList<>(device.getChildren().keySet()));
+  }
+
+  @Test
+  public void testOrderedChildMap() {
+    OrderedChildMap children = new OrderedChildMap();
+    int childNum = CompactChildMap.MAX_SIZE * 4;
+    for (int i = 0; i < childNum; i++) {
+      children.put("d" + i, new MNode("d" + i, null, false));
+    }
+    // an iterator skips the children removed after it is created
+    Iterator<String> iterator = children.keySet().iterator();
+    assertEquals("d0", iterator.next());
+    children.remove("d1");
+    assertEquals("d2", iterator.next());
+
+    // replacing a child keeps its position, a child added again goes to the end
+    MNode d2 = new MNode("d2", null, false);
+    children.put("d2", d2);
+    children.remove("d0");
+    children.put("d0", new MNode("d0", null, false));
+    List<String> names = new ArrayList<>(children.keySet());
+    assertEquals(childNum - 1, names.size());
+    assertEquals("d2", names.get(0));
+    assertEquals("d0", names.get(names.size() - 1));
+    assertTrue(children.get("d2") == d2);
+
+    // removing most of the children rebuilds the order without them
+    for (int i = 3; i < childNum; i++) {
+      children.remove("d" + i);
+    }
+    assertEquals(Arrays.asList("d2", "d0"), new ArrayList<>(children.keySet()));
+    children.put("d1", new MNode("d1", null, false));
+    assertEquals(Arrays.asList("d2", "d0", "d1"), new ArrayList<>(children.keySet()));
+    assertFalse(children.containsKey("d3"));
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.junit.Test;
+
+public class GroupByWindowAggregatorTest {
+
+  @Test
+  public void testSlidingWindows() throws PathException, IOException, QueryProcessException {
+    // windows [0, 7), [3, 10), [6, 13) ... [99, 101)
+    long unit = 7;
+    long slidingStep = 3;
+    long endTime = 100;
+    GroupByWindowAggregator count = new GroupByWindowAggregator(SQLConstant.COUNT,
+        TSDataType.INT64, unit, slidingStep, 0, endTime);
+    GroupByWindowAggregator sum = new GroupByWindowAggregator(SQLConstant.SUM,
+        TSDataType.INT64, unit, slidingStep, 0, endTime);
+    assertEquals(34, count.getWindowNum());
+
+    // points at even timestamps in [0, 120), given in batches of 9 points
+    BatchData batchData = new BatchData(TSDataType.INT64);
+    for (long time = 0; time < 120; time += 2) {
+      batchData.putLong(time, time);
+      if (batchData.length() == 9) {
+        consume(count, sum, batchData);
+        batchData = new BatchData(TSDataType.INT64);
+      }
+    }
+    consume(count, sum, batchData);
+
+    for (int k = 0; k < count.getWindowNum(); k++) {
+      long start = count.getWindowStartTime(k);
+      long end = count.getWindowEndTime(k);
+      long expectedCount = 0;
+      double expectedSum = 0;
+      for (long time = 0; time < 120; time += 2) {
+        if (time >= start && time < end) {
+          expectedCount++;
+          expectedSum += time;
+        }
+      }
+      assertEquals(expectedCount, count.removeResult(k).getLongRet());
+      assertEquals(expectedSum, sum.removeResult(k).getDoubleRet(), 0.0001);
+    }
+  }
+
+  private void consume(GroupByWindowAggregator count, GroupByWindowAggregator sum,
+      BatchData batchData) throws IOException, QueryProcessException {
+    count.consumeBatch(batchData);
+    batchData.setReadCurIndex(0);
+    sum.consumeBatch(batchData);
+  }
+
+  @Test
+  public void testPageHeader() throws PathException, QueryProcessException {
+    // windows [10, 20), [15, 25), [20, 25)
+    GroupByWindowAggregator count = new GroupByWindowAggregator(SQLConstant.COUNT,
+        TSDataType.INT64, 10, 5, 10, 24);
+
+    // a page in [16, 19] is contained by both windows it falls into
+    PageHeader pageHeader = createPageHeader(16, 19);
+    assertTrue(count.overlapsWindows(16, 19));
+    assertTrue(count.canUsePageHeader(16, 19));
+    count.consumePageHeader(pageHeader);
+
+    // a page in [18, 22] is partly out of [10, 20)
+    assertFalse(count.canUsePageHeader(18, 22));
+    // a page in [21, 24] is contained by [15, 25) and [20, 25)
+    assertTrue(count.canUsePageHeader(21, 24));
+    // data out of all windows
+    assertFalse(count.overlapsWindows(0, 9));
+    assertFalse(count.overlapsWindows(25, 40));
+
+    assertEquals(4, count.removeResult(0).getLongRet());
+    assertEquals(4, count.removeResult(1).getLongRet());
+    assertEquals(0, count.removeResult(2).getLongRet());
+  }
+
+  private PageHeader createPageHeader(long startTime, long endTime) {
+    Statistics<?> statistics = Statistics.getStatsByType(TSDataType.INT64);
+    for (long time = startTime; time <= endTime; time++) {
+      statistics.update(time, time);
+    }
+    return new PageHeader(0, 0, statistics);
+  }
+}
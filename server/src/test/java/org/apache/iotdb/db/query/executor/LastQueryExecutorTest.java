@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.executor;
+
+import static org.apache.iotdb.db.utils.EnvironmentUtils.TEST_QUERY_CONTEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.LastQueryPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsDouble;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LastQueryExecutorTest {
+
+  private String processorName = "root.test";
+  private static String[] measurements = new String[4];
+
+  static {
+    for (int i = 0; i < measurements.length; i++) {
+      measurements[i] = "m" + i;
+    }
+  }
+
+  @Before
+  public void setUp() throws MetadataException, PathException, IOException,
+      StorageEngineException, StartupException, StorageGroupException {
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageGroupToMTree(processorName);
+    for (String measurement : measurements) {
+      MManager.getInstance().addPathToMTree(processorName + "." + measurement,
+          TSDataType.DOUBLE.toString(), TSEncoding.PLAIN.toString());
+      StorageEngine.getInstance().addTimeSeries(new Path(processorName, measurement),
+          TSDataType.DOUBLE, TSEncoding.PLAIN,
+          CompressionType.valueOf(TSFileDescriptor.getInstance().getConfig().getCompressor()),
+          Collections.emptyMap());
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testReadFromFiles()
+      throws StorageEngineException, IOException, QueryProcessException {
+    insert(1, 50);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(51, 100);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    // unsequence data overwrites the last point of m0
+    insert(100, measurements[0], 1000.0);
+    insert(30, measurements[1], 3000.0);
+    StorageEngine.getInstance().delete(processorName, measurements[2], 100);
+    StorageEngine.getInstance().delete(processorName, measurements[3], 80);
+
+    StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor(processorName);
+    processor.getLastValueCache().clear();
+    String[] expected = {"100,root.test.m0,1000.0", "100,root.test.m1,100.0",
+        "100,root.test.m3,100.0"};
+    assertResult(expected, lastQuery());
+
+    // the last points are cached by the query
+    assertEquals(100, processor.getCachedLastValue(processorName + ".m0").getTimestamp());
+    assertNull(processor.getCachedLastValue(processorName + ".m2"));
+    assertResult(expected, lastQuery());
+  }
+
+  @Test
+  public void testReadFromMemory()
+      throws StorageEngineException, IOException, QueryProcessException {
+    insert(1, 50);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    insert(51, 70);
+
+    StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor(processorName);
+    processor.getLastValueCache().clear();
+    assertResult(new String[]{"70,root.test.m0,70.0", "70,root.test.m1,70.0",
+        "70,root.test.m2,70.0", "70,root.test.m3,70.0"}, lastQuery());
+  }
+
+  @Test
+  public void testUpdateCache()
+      throws StorageEngineException, IOException, QueryProcessException {
+    StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor(processorName);
+    insert(1, 10);
+    // points newer than the device are cached by insertions
+    TimeValuePair lastValue = processor.getCachedLastValue(processorName + ".m0");
+    assertNotNull(lastValue);
+    assertEquals(10, lastValue.getTimestamp());
+
+    // an older point does not change the cache, a point of the same time overwrites it
+    insert(5, measurements[0], 500.0);
+    assertEquals(10.0, processor.getCachedLastValue(processorName + ".m0").getValue().getDouble(),
+        0);
+    insert(10, measurements[0], 1000.0);
+    assertEquals(1000.0,
+        processor.getCachedLastValue(processorName + ".m0").getValue().getDouble(), 0);
+
+    // a deletion covering the last point invalidates it
+    StorageEngine.getInstance().delete(processorName, measurements[1], 10);
+    assertNull(processor.getCachedLastValue(processorName + ".m1"));
+    StorageEngine.getInstance().delete(processorName, measurements[2], 5);
+    assertNotNull(processor.getCachedLastValue(processorName + ".m2"));
+
+    assertResult(new String[]{"10,root.test.m0,1000.0", "10,root.test.m2,10.0",
+        "10,root.test.m3,10.0"}, lastQuery());
+  }
+
+  @Test
+  public void testPlaceholder() throws StorageEngineException, QueryProcessException {
+    StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor(processorName);
+    insert(1, 10);
+    String path = processorName + ".m0";
+    processor.getLastValueCache().clear();
+
+    // an insertion during a query drops the point read by the query
+    TimeValuePair placeholder = processor.getLastValueCache().startQuery(path);
+    insert(5, measurements[0], 500.0);
+    processor.getLastValueCache().endQuery(path, placeholder,
+        new TimeValuePair(10, new TsDouble(10.0)));
+    assertNull(processor.getCachedLastValue(path));
+  }
+
+  private void insert(long startTime, long endTime)
+      throws StorageEngineException, QueryProcessException {
+    for (long time = startTime; time <= endTime; time++) {
+      TSRecord record = new TSRecord(time, processorName);
+      for (String measurement : measurements) {
+        record.addTuple(new DoubleDataPoint(measurement, time));
+      }
+      StorageEngine.getInstance().insert(new InsertPlan(record));
+    }
+  }
+
+  private void insert(long time, String measurement, double value)
+      throws StorageEngineException, QueryProcessException {
+    TSRecord record = new TSRecord(time, processorName);
+    record.addTuple(new DoubleDataPoint(measurement, value));
+    StorageEngine.getInstance().insert(new InsertPlan(record));
+  }
+
+  private QueryDataSet lastQuery() throws StorageEngineException, IOException {
+    List<Path> paths = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (String measurement : measurements) {
+      paths.add(new Path(processorName, measurement));
+      dataTypes.add(TSDataType.DOUBLE);
+    }
+    LastQueryPlan lastQueryPlan = new LastQueryPlan();
+    lastQueryPlan.setDeduplicatedPaths(paths);
+    lastQueryPlan.setDeduplicatedDataTypes(dataTypes);
+    return new EngineQueryRouter().lastQuery(lastQueryPlan, TEST_QUERY_CONTEXT);
+  }
+
+  private void assertResult(String[] expected, QueryDataSet dataSet) throws IOException {
+    for (String row : expected) {
+      RowRecord record = dataSet.next();
+      assertEquals(row, record.getTimestamp() + "," + record.getFields().get(0) + ","
+          + record.getFields().get(1));
+    }
+    assertFalse(dataSet.hasNext());
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSeriesTaskRunnerTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevSeriesNum;
+  private long prevMemoryBudget;
+
+  @Before
+  public void setUp() {
+    prevSeriesNum = config.getConcurrentAggregationSeriesNum();
+    prevMemoryBudget = config.getAggregationMemoryBudget();
+    config.setConcurrentAggregationSeriesNum(4);
+  }
+
+  @After
+  public void tearDown() {
+    config.setConcurrentAggregationSeriesNum(prevSeriesNum);
+    config.setAggregationMemoryBudget(prevMemoryBudget);
+  }
+
+  @Test
+  public void testParallelism() {
+    config.setAggregationMemoryBudget(1000);
+    assertEquals(4, new ParallelSeriesTaskRunner(100, 10).getParallelism());
+    assertEquals(2, new ParallelSeriesTaskRunner(2, 10).getParallelism());
+    assertEquals(3, new ParallelSeriesTaskRunner(100, 300).getParallelism());
+    // a single series always makes progress even if it exceeds the budget
+    assertEquals(1, new ParallelSeriesTaskRunner(100, 5000).getParallelism());
+  }
+
+  @Test
+  public void testResultOrder() throws IOException, QueryProcessException {
+    ParallelSeriesTaskRunner runner = new ParallelSeriesTaskRunner(1000, 0);
+    List<Integer> results = runner.run(1000, i -> i * 2);
+    assertEquals(1000, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i * 2, (int) results.get(i));
+    }
+  }
+
+  @Test
+  public void testException() throws QueryProcessException {
+    ParallelSeriesTaskRunner runner = new ParallelSeriesTaskRunner(100, 0);
+    try {
+      runner.run(100, i -> {
+        if (i == 50) {
+          throw new IOException("series " + i);
+        }
+        return i;
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("series 50", e.getMessage());
+    }
+  }
+}
@@ -27,6 +27,8 @@ import org.apache.iotdb.db.query.reader.ReaderTestHelper;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -53,6 +55,28 @@ public class SeqResourceReaderTest extends ReaderTestHelper {
 //    Assert.assertEquals(5049L, time);
   }
 
+  @Test
+  public void testValueFilterPruning() throws IOException {
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null);
+    Path path = new Path(deviceId, measurementId);
+    Filter filter = ValueFilter.gt(3000);
+
+    // the files whose chunks all hold values not greater than 3000 are skipped
+    SeqResourceIterateReader reader = new SeqResourceIterateReader(path,
+        queryDataSource.getSeqResources(), filter, context);
+    long time = 3000;
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasCurrent()) {
+        time++;
+        Assert.assertEquals(time, batchData.currentTime());
+        batchData.next();
+      }
+    }
+    Assert.assertEquals(5049L, time);
+  }
+
   @Test
   public void testSeqResourceReaderByTimestamp() throws IOException {
     QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
@@ -21,7 +21,9 @@ package org.apache.iotdb.db.query.reader.seriesRelated;
 
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class SeriesReaderWithoutValueFilterTest {
@@ -46,29 +48,33 @@ public class SeriesReaderWithoutValueFilterTest {
   }
 
   private void testWithoutNullReader() throws IOException {
-//    int cnt = 0;
-//    while (reader1.hasNextBatch()) {
-//      TimeValuePair timeValuePair = reader1.nextBatch();
-//      cnt++;
-//      if ((timeValuePair.getTimestamp() - 20) % 11 == 0
-//          && timeValuePair.getTimestamp() < 20 + 500 * 11) {
-//        Assert.assertEquals(timeValuePair.getTimestamp() % 19, timeValuePair.getValue().getLong());
-//        continue;
-//      }
-//      if ((timeValuePair.getTimestamp() - 100) % 7 == 0) {
-//        Assert.assertEquals(timeValuePair.getTimestamp() % 11, timeValuePair.getValue().getLong());
-//      }
-//    }
-//    Assert.assertEquals(1430, cnt);
+    int cnt = 0;
+    while (reader1.hasNextBatch()) {
+      BatchData batchData = reader1.nextBatch();
+      while (batchData.hasCurrent()) {
+        long time = batchData.currentTime();
+        cnt++;
+        if ((time - 20) % 11 == 0 && time < 20 + 500 * 11) {
+          Assert.assertEquals(time % 19, batchData.getLong());
+        } else {
+          Assert.assertEquals(time % 11, batchData.getLong());
+        }
+        batchData.next();
+      }
+    }
+    Assert.assertEquals(1430, cnt);
   }
 
   private void testWithNullPointReader() throws IOException {
-//    int cnt = 0;
-//    while (reader2.hasNextBatch()) {
-//      TimeValuePair timeValuePair = reader2.nextBatch();
-//      Assert.assertEquals(timeValuePair.getTimestamp() % 11, timeValuePair.getValue().getLong());
-//      cnt++;
-//    }
-//    Assert.assertEquals(1000, cnt);
+    int cnt = 0;
+    while (reader2.hasNextBatch()) {
+      BatchData batchData = reader2.nextBatch();
+      while (batchData.hasCurrent()) {
+        Assert.assertEquals(batchData.currentTime() % 11, batchData.getLong());
+        batchData.next();
+        cnt++;
+      }
+    }
+    Assert.assertEquals(1000, cnt);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.reader.universal;
+
+import java.io.IOException;
+import org.apache.iotdb.db.query.reader.seriesRelated.FakedIBatchPoint;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PriorityMergeBatchReaderTest {
+
+  @Test
+  public void test2S() throws IOException {
+    // same cases as PriorityMergeReaderTest
+    test(new long[]{1, 2, 3, 4, 5, 6}, new long[]{2, 2, 2, 1, 2, 2}, new long[]{1, 2, 3, 4, 5},
+        new long[]{1, 2, 3, 5, 6});
+    test(new long[]{1, 2, 3, 4, 5}, new long[]{1, 1, 1, 1, 1}, new long[]{1, 2, 3, 4, 5},
+        new long[]{});
+    test(new long[]{1, 2, 3, 4, 5}, new long[]{2, 2, 2, 2, 2}, new long[]{},
+        new long[]{1, 2, 3, 4, 5});
+    test(new long[]{1, 2, 3, 4, 5, 6, 7, 8}, new long[]{1, 1, 1, 1, 1, 2, 2, 2},
+        new long[]{1, 2, 3, 4, 5},
+        new long[]{6, 7, 8});
+
+    // 3 series
+    test(new long[]{1, 2, 3, 4, 5, 6, 7}, new long[]{3, 3, 3, 1, 3, 2, 3},
+        new long[]{1, 2, 3, 4, 5},
+        new long[]{1, 2, 3, 5, 6}, new long[]{1, 2, 3, 5, 7});
+    test(new long[]{1, 2, 3, 4, 5, 6}, new long[]{1, 1, 2, 3, 2, 3}, new long[]{1, 2},
+        new long[]{3, 5},
+        new long[]{4, 6});
+  }
+
+  private void test(long[] retTimestamp, long[] retValue, long[]... sources) throws IOException {
+    // a small batch size so that the results span several batches
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(2);
+    for (int i = 0; i < sources.length; i++) {
+      reader.addReaderWithPriority(new FakedBatchReader(sources[i], i + 1), i + 1);
+    }
+
+    int i = 0;
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasCurrent()) {
+        Assert.assertEquals(retTimestamp[i], batchData.currentTime());
+        Assert.assertEquals(retValue[i], batchData.getLong());
+        batchData.next();
+        i++;
+      }
+    }
+    Assert.assertEquals(retTimestamp.length, i);
+  }
+
+  @Test
+  public void testTimeBound() throws IOException {
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(100);
+    reader.addReaderWithPriority(new FakedBatchReader(new long[]{1, 3, 5, 7}, 1), 1);
+    BatchData batchData = reader.nextBatch(5);
+    Assert.assertEquals(2, batchData.length());
+    Assert.assertEquals(5, reader.currentTime());
+
+    // a source added later overwrites the points from the bound
+    reader.addReaderWithPriority(new FakedBatchReader(new long[]{5, 6}, 2), 2);
+    batchData = reader.nextBatch();
+    long[] expectedTimes = {5, 6, 7};
+    long[] expectedValues = {2, 2, 1};
+    for (int i = 0; i < expectedTimes.length; i++) {
+      Assert.assertEquals(expectedTimes[i], batchData.currentTime());
+      Assert.assertEquals(expectedValues[i], batchData.getLong());
+      batchData.next();
+    }
+    Assert.assertFalse(batchData.hasCurrent());
+    Assert.assertFalse(reader.hasNextBatch());
+  }
+
+  @Test
+  public void testRandomBatches() throws IOException {
+    // sources with random batch sizes, including empty batches
+    PriorityMergeBatchReader reader = new PriorityMergeBatchReader(50);
+    reader.addReaderWithPriority(new FakedIBatchPoint(100, 1000, 7, 11, true), 1);
+    reader.addReaderWithPriority(new FakedIBatchPoint(20, 500, 11, 19, true), 2);
+
+    int cnt = 0;
+    long lastTime = Long.MIN_VALUE;
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasCurrent()) {
+        long time = batchData.currentTime();
+        Assert.assertTrue(time > lastTime);
+        if ((time - 20) % 11 == 0 && time < 20 + 500 * 11) {
+          Assert.assertEquals(time % 19, batchData.getLong());
+        } else {
+          Assert.assertEquals(time % 11, batchData.getLong());
+        }
+        lastTime = time;
+        batchData.next();
+        cnt++;
+      }
+    }
+    Assert.assertEquals(1430, cnt);
+  }
+
+  /**
+   * gives the points in batches of 2 points, whose values are the given value.
+   */
+  private static class FakedBatchReader implements IBatchReader {
+
+    private long[] timestamps;
+    private long value;
+    private int index = 0;
+
+    FakedBatchReader(long[] timestamps, long value) {
+      this.timestamps = timestamps;
+      this.value = value;
+    }
+
+    @Override
+    public boolean hasNextBatch() {
+      return index < timestamps.length;
+    }
+
+    @Override
+    public BatchData nextBatch() {
+      BatchData batchData = new BatchData(TSDataType.INT64);
+      for (int i = 0; i < 2 && index < timestamps.length; i++) {
+        batchData.putLong(timestamps[index++], value);
+      }
+      return batchData;
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+  }
+}
@@ -91,6 +91,28 @@ public class PriorityMergeReaderByTimestampTest {
 
   }
 
+  @Test
+  public void testBatch() throws IOException {
+    PriorityMergeReaderByTimestamp batchReader = new PriorityMergeReaderByTimestamp();
+    PriorityMergeReaderByTimestamp pointReader = new PriorityMergeReaderByTimestamp();
+    batchReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    batchReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+    pointReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    pointReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+
+    long[] timestamps = new long[64];
+    long time = 0;
+    while (time < 850 + 200 * 7 + 100) {
+      for (int i = 0; i < timestamps.length; i++) {
+        timestamps[i] = time++;
+      }
+      Object[] values = batchReader.getValuesInTimestamps(timestamps, timestamps.length);
+      for (int i = 0; i < timestamps.length; i++) {
+        Assert.assertEquals(pointReader.getValueInTimestamp(timestamps[i]), values[i]);
+      }
+    }
+  }
+
   public static class FakedReaderByTimestamp implements IReaderByTimestamp,
       IPointReader {
 
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultPrefetcherTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private long prevBudget;
+
+  @Before
+  public void setUp() {
+    prevBudget = config.getQueryResultPrefetchMemoryBudget();
+  }
+
+  @After
+  public void tearDown() {
+    config.setQueryResultPrefetchMemoryBudget(prevBudget);
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    config.setQueryResultPrefetchMemoryBudget(1024 * 1024);
+    List<Integer> fetchSizes = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger batchIndex = new AtomicInteger();
+    QueryResultPrefetcher prefetcher = new QueryResultPrefetcher(fetchSize -> {
+      fetchSizes.add(fetchSize);
+      return newResult(batchIndex.getAndIncrement());
+    });
+
+    // nothing prefetched yet
+    assertEquals(0, prefetcher.next(10).bufferForTime().getLong(0));
+    prefetcher.prefetch(20, newResult(0));
+    assertEquals(1, prefetcher.next(30).bufferForTime().getLong(0));
+    // the prefetched result is computed with the fetch size of the previous fetch
+    assertEquals(Arrays.asList(10, 20), fetchSizes);
+    assertEquals(2, prefetcher.next(30).bufferForTime().getLong(0));
+
+    prefetcher.prefetch(30, newResult(2));
+    prefetcher.release();
+    // the result is computed at most once more after the release
+    int computed = batchIndex.get();
+    prefetcher.prefetch(30, newResult(2));
+    assertEquals(computed, batchIndex.get());
+  }
+
+  @Test
+  public void testMemoryBudget() throws Exception {
+    config.setQueryResultPrefetchMemoryBudget(Long.BYTES);
+    AtomicInteger batchIndex = new AtomicInteger();
+    QueryResultPrefetcher prefetcher1 = new QueryResultPrefetcher(
+        fetchSize -> newResult(batchIndex.getAndIncrement()));
+    QueryResultPrefetcher prefetcher2 = new QueryResultPrefetcher(
+        fetchSize -> newResult(100 + batchIndex.getAndIncrement()));
+
+    // the memory of the previous result is reserved before the next one is computed
+    prefetcher1.prefetch(10, newResult(-1));
+    assertEquals(Long.BYTES, QueryResultPrefetcher.getPrefetchedMemory());
+    long waitStart = System.currentTimeMillis();
+    while (batchIndex.get() == 0 && System.currentTimeMillis() - waitStart < 10000) {
+      Thread.sleep(10);
+    }
+    assertEquals(Long.BYTES, QueryResultPrefetcher.getPrefetchedMemory());
+    // the budget is used up by prefetcher1, so prefetcher2 computes its result when it is fetched
+    prefetcher2.prefetch(10, newResult(-1));
+    assertEquals(1, batchIndex.get());
+    assertEquals(101, prefetcher2.next(10).bufferForTime().getLong(0));
+    assertEquals(0, prefetcher1.next(10).bufferForTime().getLong(0));
+    assertEquals(0, QueryResultPrefetcher.getPrefetchedMemory());
+    prefetcher1.release();
+    prefetcher2.release();
+    assertEquals(0, QueryResultPrefetcher.getPrefetchedMemory());
+  }
+
+  @Test
+  public void testConcurrentReservation() throws Exception {
+    config.setQueryResultPrefetchMemoryBudget(3L * Long.BYTES);
+    List<QueryResultPrefetcher> prefetchers = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      prefetchers.add(new QueryResultPrefetcher(fetchSize -> newResult(0)));
+    }
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (QueryResultPrefetcher prefetcher : prefetchers) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        prefetcher.prefetch(10, newResult(-1));
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // concurrent prefetches never reserve more than the budget
+    assertEquals(3L * Long.BYTES, QueryResultPrefetcher.getPrefetchedMemory());
+    for (QueryResultPrefetcher prefetcher : prefetchers) {
+      prefetcher.release();
+    }
+    assertEquals(0, QueryResultPrefetcher.getPrefetchedMemory());
+  }
+
+  @Test
+  public void testException() {
+    QueryResultPrefetcher prefetcher = new QueryResultPrefetcher(fetchSize -> {
+      throw new IOException("read error");
+    });
+    prefetcher.prefetch(10, newResult(-1));
+    try {
+      prefetcher.next(10);
+      fail();
+    } catch (Exception e) {
+      assertEquals("read error", e.getMessage());
+    }
+    prefetcher.release();
+  }
+
+  private static TSQueryDataSet newResult(long time) {
+    TSQueryDataSet result = new TSQueryDataSet();
+    ByteBuffer timeBuffer = ByteBuffer.allocate(Long.BYTES);
+    timeBuffer.putLong(0, time);
+    result.setTime(timeBuffer);
+    result.setValueList(new ArrayList<>());
+    result.setBitmapList(new ArrayList<>());
+    return result;
+  }
+}
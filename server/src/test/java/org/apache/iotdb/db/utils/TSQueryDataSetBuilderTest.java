@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+public class TSQueryDataSetBuilderTest {
+
+  @Test
+  public void testBuild() {
+    TSQueryDataSetBuilder builder = new TSQueryDataSetBuilder(
+        Arrays.asList(TSDataType.INT64, TSDataType.TEXT, TSDataType.BOOLEAN));
+    // the builder is reused, and the second build needs more space than the initial one
+    for (int rowNum : new int[]{10, 203}) {
+      for (int i = 0; i < rowNum; i++) {
+        builder.putTime(i);
+        builder.putLong(0, i * 10L);
+        if (i % 3 == 0) {
+          builder.putBinary(1, new Binary(String.valueOf(i)));
+        }
+        if (i % 2 == 0) {
+          builder.putBoolean(2, i % 4 == 0);
+        }
+      }
+      assertEquals(rowNum, builder.getRowCount());
+      TSQueryDataSet dataSet = builder.build();
+      assertEquals(0, builder.getRowCount());
+
+      long[] times = QueryDataSetUtils.readTimesFromBuffer(dataSet.time, rowNum);
+      long[] longs = (long[]) QueryDataSetUtils.readValuesFromBuffer(dataSet.valueList.get(0),
+          new TSDataType[]{TSDataType.INT64}, 1, rowNum)[0];
+      Binary[] binaries = (Binary[]) QueryDataSetUtils.readValuesFromBuffer(
+          dataSet.valueList.get(1), new TSDataType[]{TSDataType.TEXT}, 1, (rowNum + 2) / 3)[0];
+      boolean[] booleans = (boolean[]) QueryDataSetUtils.readValuesFromBuffer(
+          dataSet.valueList.get(2), new TSDataType[]{TSDataType.BOOLEAN}, 1, (rowNum + 1) / 2)[0];
+      for (int i = 0; i < rowNum; i++) {
+        assertEquals(i, times[i]);
+        assertEquals(i * 10L, longs[i]);
+      }
+      for (int i = 0; i < binaries.length; i++) {
+        assertEquals(String.valueOf(i * 3), binaries[i].getStringValue());
+      }
+      for (int i = 0; i < booleans.length; i++) {
+        assertEquals(i % 2 == 0, booleans[i]);
+      }
+      assertEquals(0, dataSet.valueList.get(1).remaining());
+
+      byte[] bitmap = new byte[(rowNum + 7) / 8];
+      dataSet.bitmapList.get(1).get(bitmap);
+      for (int i = 0; i < rowNum; i++) {
+        boolean notNull = (bitmap[i / 8] & (0x80 >>> (i % 8))) != 0;
+        assertEquals(i % 3 == 0, notNull);
+      }
+      byte[] fullBitmap = new byte[(rowNum + 7) / 8];
+      dataSet.bitmapList.get(0).get(fullBitmap);
+      byte[] expected = new byte[fullBitmap.length];
+      Arrays.fill(expected, (byte) 0xFF);
+      if (rowNum % 8 != 0) {
+        expected[expected.length - 1] = (byte) (0xFF << (8 - rowNum % 8));
+      }
+      assertArrayEquals(expected, fullBitmap);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.xerial.snappy.Snappy;
+
+/**
+ * RpcCompressionUtils compresses the binary payloads of query results (TSQueryDataSet) and batch
+ * insertions (TSBatchInsertionReq) with the compression type negotiated when the session is opened.
+ * <p>
+ * The client asks for a compression type by putting COMPRESSION_KEY into the configuration of
+ * TSOpenSessionReq, and the server answers with the same key in TSOpenSessionResp if it supports
+ * the type. Otherwise, the payloads are sent uncompressed, so old clients and old servers still
+ * work with new ones. The types are named as the CompressionType of TsFile, and only SNAPPY is
+ * supported.
+ * <p>
+ * A time column is first encoded as the number of times followed by the zig-zag varints of the
+ * first time and the deltas between consecutive times, which are small for ordered times. Then it
+ * is compressed like the value and bitmap columns.
+ */
+public class RpcCompressionUtils {
+
+  public static final String COMPRESSION_KEY = "rpc_compression";
+
+  public static final String SNAPPY = "SNAPPY";
+
+  private RpcCompressionUtils() {
+    // util class
+  }
+
+  /**
+   * @return the compression type asked by the configuration of a session, or null if the payloads
+   * are not compressed
+   */
+  public static String getCompressionType(Map<String, String> configuration) {
+    if (configuration == null || !SNAPPY.equals(configuration.get(COMPRESSION_KEY))) {
+      return null;
+    }
+    return SNAPPY;
+  }
+
+  public static void compress(TSQueryDataSet dataSet, String type) throws IOException {
+    checkType(type);
+    dataSet.setTime(compressTimes(dataSet.bufferForTime(), type));
+    dataSet.setValueList(compress(dataSet.getValueList()));
+    dataSet.setBitmapList(compress(dataSet.getBitmapList()));
+  }
+
+  public static void uncompress(TSQueryDataSet dataSet, String type) throws IOException {
+    checkType(type);
+    dataSet.setTime(uncompressTimes(dataSet.bufferForTime(), type));
+    dataSet.setValueList(uncompress(dataSet.getValueList()));
+    dataSet.setBitmapList(uncompress(dataSet.getBitmapList()));
+  }
+
+  /**
+   * @param times big-endian longs, from the position to the limit of the buffer
+   */
+  public static ByteBuffer compressTimes(ByteBuffer times, String type) throws IOException {
+    checkType(type);
+    int count = times.remaining() / Long.BYTES;
+    ByteArrayOutputStream out = new ByteArrayOutputStream(count + 8);
+    writeVarLong(count, out);
+    long previous = 0;
+    for (int i = 0; i < count; i++) {
+      long time = times.getLong(times.position() + i * Long.BYTES);
+      long delta = time - previous;
+      writeVarLong((delta << 1) ^ (delta >> 63), out);
+      previous = time;
+    }
+    return ByteBuffer.wrap(Snappy.compress(out.toByteArray()));
+  }
+
+  public static ByteBuffer uncompressTimes(ByteBuffer compressed, String type)
+      throws IOException {
+    ByteBuffer encoded = uncompress(compressed, type);
+    int count = (int) readVarLong(encoded);
+    ByteBuffer times = ByteBuffer.allocate(count * Long.BYTES);
+    long previous = 0;
+    for (int i = 0; i < count; i++) {
+      long zigzag = readVarLong(encoded);
+      previous += (zigzag >>> 1) ^ -(zigzag & 1);
+      times.putLong(previous);
+    }
+    times.flip();
+    return times;
+  }
+
+  public static ByteBuffer compress(ByteBuffer buffer, String type) throws IOException {
+    checkType(type);
+    return compress(buffer);
+  }
+
+  public static ByteBuffer uncompress(ByteBuffer buffer, String type) throws IOException {
+    checkType(type);
+    return uncompress(buffer);
+  }
+
+  private static void checkType(String type) throws IOException {
+    if (!SNAPPY.equals(type)) {
+      throw new IOException("Unsupported rpc compression type: " + type);
+    }
+  }
+
+  private static List<ByteBuffer> compress(List<ByteBuffer> buffers) throws IOException {
+    List<ByteBuffer> result = new ArrayList<>(buffers.size());
+    for (ByteBuffer buffer : buffers) {
+      result.add(compress(buffer));
+    }
+    return result;
+  }
+
+  private static List<ByteBuffer> uncompress(List<ByteBuffer> buffers) throws IOException {
+    List<ByteBuffer> result = new ArrayList<>(buffers.size());
+    for (ByteBuffer buffer : buffers) {
+      result.add(uncompress(buffer));
+    }
+    return result;
+  }
+
+  private static ByteBuffer compress(ByteBuffer buffer) throws IOException {
+    byte[] compressed = new byte[Snappy.maxCompressedLength(buffer.remaining())];
+    int length;
+    if (buffer.hasArray()) {
+      length = Snappy.compress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining(), compressed, 0);
+    } else {
+      byte[] data = new byte[buffer.remaining()];
+      buffer.duplicate().get(data);
+      length = Snappy.compress(data, 0, data.length, compressed, 0);
+    }
+    return ByteBuffer.wrap(compressed, 0, length);
+  }
+
+  private static ByteBuffer uncompress(ByteBuffer buffer) throws IOException {
+    byte[] data = new byte[buffer.remaining()];
+    buffer.duplicate().get(data);
+    return ByteBuffer.wrap(Snappy.uncompress(data));
+  }
+
+  private static void writeVarLong(long value, ByteArrayOutputStream out) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
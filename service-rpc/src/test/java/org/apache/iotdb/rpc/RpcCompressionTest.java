@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.rpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.junit.Test;
+
+public class RpcCompressionTest {
+
+  @Test
+  public void testNegotiate() {
+    assertNull(RpcCompressionUtils.getCompressionType(null));
+    assertNull(RpcCompressionUtils.getCompressionType(Collections.emptyMap()));
+    assertNull(RpcCompressionUtils.getCompressionType(
+        Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, "UNCOMPRESSED")));
+    assertNull(RpcCompressionUtils.getCompressionType(
+        Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, "LZO")));
+    assertNull(RpcCompressionUtils.getCompressionType(
+        Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, "unknown")));
+    assertEquals(RpcCompressionUtils.SNAPPY, RpcCompressionUtils.getCompressionType(
+        Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, "SNAPPY")));
+  }
+
+  @Test
+  public void testQueryDataSet() throws IOException {
+    int rowNum = 1000;
+    ByteBuffer times = ByteBuffer.allocate(rowNum * Long.BYTES);
+    ByteBuffer longValues = ByteBuffer.allocate(rowNum * Long.BYTES);
+    ByteBuffer textValues = ByteBuffer.allocate(rowNum * 16);
+    ByteBuffer longBitmap = ByteBuffer.allocate((rowNum + 7) / 8);
+    ByteBuffer textBitmap = ByteBuffer.allocate((rowNum + 7) / 8);
+    for (int i = 0; i < rowNum; i++) {
+      // times go backwards sometimes, so that some deltas are negative
+      times.putLong(1000000L + i * 10 - (i % 7 == 0 ? 25 : 0));
+      longValues.putLong(i);
+      longBitmap.put(i / 8, (byte) (longBitmap.get(i / 8) | (1 << (i % 8))));
+      if (i % 3 == 0) {
+        byte[] text = ("value" + i).getBytes(StandardCharsets.UTF_8);
+        textValues.putInt(text.length);
+        textValues.put(text);
+        textBitmap.put(i / 8, (byte) (textBitmap.get(i / 8) | (1 << (i % 8))));
+      }
+    }
+    times.flip();
+    longValues.flip();
+    textValues.flip();
+    TSQueryDataSet expected = new TSQueryDataSet();
+    expected.setTime(times);
+    expected.setValueList(new ArrayList<>());
+    expected.getValueList().add(longValues);
+    expected.getValueList().add(textValues);
+    expected.setBitmapList(new ArrayList<>());
+    expected.getBitmapList().add(longBitmap);
+    expected.getBitmapList().add(textBitmap);
+    TSQueryDataSet dataSet = copy(expected);
+
+    RpcCompressionUtils.compress(dataSet, RpcCompressionUtils.SNAPPY);
+    assertTrue(dataSet.bufferForTime().remaining() < expected.bufferForTime().remaining());
+    RpcCompressionUtils.uncompress(dataSet, RpcCompressionUtils.SNAPPY);
+
+    assertEquals(expected.bufferForTime(), dataSet.bufferForTime());
+    assertEquals(expected.getValueList(), dataSet.getValueList());
+    assertEquals(expected.getBitmapList(), dataSet.getBitmapList());
+    for (int i = 0; i < rowNum; i++) {
+      assertEquals(expected.bufferForTime().getLong(i * Long.BYTES),
+          dataSet.bufferForTime().getLong(i * Long.BYTES));
+    }
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    TSQueryDataSet dataSet = new TSQueryDataSet();
+    dataSet.setTime(ByteBuffer.allocate(0));
+    dataSet.setValueList(new ArrayList<>(Collections.singletonList(ByteBuffer.allocate(0))));
+    dataSet.setBitmapList(new ArrayList<>(Collections.singletonList(ByteBuffer.allocate(0))));
+    RpcCompressionUtils.compress(dataSet, RpcCompressionUtils.SNAPPY);
+    RpcCompressionUtils.uncompress(dataSet, RpcCompressionUtils.SNAPPY);
+    assertEquals(0, dataSet.bufferForTime().limit());
+    assertEquals(0, dataSet.getValueList().get(0).remaining());
+  }
+
+  private static TSQueryDataSet copy(TSQueryDataSet dataSet) {
+    TSQueryDataSet copy = new TSQueryDataSet();
+    copy.setTime(copy(dataSet.bufferForTime()));
+    copy.setValueList(new ArrayList<>());
+    copy.setBitmapList(new ArrayList<>());
+    for (ByteBuffer buffer : dataSet.getValueList()) {
+      copy.getValueList().add(copy(buffer));
+    }
+    for (ByteBuffer buffer : dataSet.getBitmapList()) {
+      copy.getBitmapList().add(copy(buffer));
+    }
+    return copy;
+  }
+
+  private static ByteBuffer copy(ByteBuffer buffer) {
+    ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+    copy.put(buffer.duplicate());
+    copy.flip();
+    return copy;
+  }
+}
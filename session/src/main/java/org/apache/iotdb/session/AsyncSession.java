@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+
+/**
+ * AsyncSession inserts data without waiting for the server. Each insertion returns a
+ * CompletableFuture, which is completed with the status of the insertion when the server answers.
+ * <p>
+ * Rows are buffered and sent together in one insertInBatch request, when maxRowsPerRequest rows are
+ * buffered or the first buffered row has waited for lingerTimeInMs. Up to maxInFlightRequests
+ * requests are sent concurrently through a SessionPool of as many connections, so the round-trip
+ * time of one request does not limit the throughput. When that many requests are in flight, the
+ * insertions block until one of them finishes.
+ */
+public class AsyncSession implements AutoCloseable {
+
+  private final SessionPool pool;
+  private final int maxRowsPerRequest;
+  private final long lingerTimeInMs;
+
+  private final ExecutorService senders;
+  private final ScheduledExecutorService lingerTimer;
+  // permits of the requests which can be sent now
+  private final Semaphore inFlightPermits;
+
+  private PendingRows pendingRows = new PendingRows();
+  private ScheduledFuture<?> lingerTask;
+  private boolean closed = false;
+
+  public AsyncSession(String host, int port, String user, String password) {
+    this(host, port, user, password, 4, 1000, 10);
+  }
+
+  /**
+   * @param maxInFlightRequests the number of connections, and of the requests sent concurrently
+   * @param maxRowsPerRequest the number of buffered rows which triggers sending them
+   * @param lingerTimeInMs how long a row waits in the buffer at most
+   */
+  public AsyncSession(String host, int port, String user, String password,
+      int maxInFlightRequests, int maxRowsPerRequest, long lingerTimeInMs) {
+    this.pool = new SessionPool(host, port, user, password, maxInFlightRequests);
+    this.maxRowsPerRequest = maxRowsPerRequest;
+    this.lingerTimeInMs = lingerTimeInMs;
+    this.inFlightPermits = new Semaphore(maxInFlightRequests);
+    this.senders = Executors
+        .newFixedThreadPool(maxInFlightRequests, new DaemonThreadFactory("AsyncSession-Sender"));
+    this.lingerTimer = Executors
+        .newSingleThreadScheduledExecutor(new DaemonThreadFactory("AsyncSession-Linger"));
+  }
+
+  /**
+   * buffer a row, which is sent with the other buffered rows in one request.
+   *
+   * @see Session#insert(String, long, List, List)
+   */
+  public CompletableFuture<TSStatus> insert(String deviceId, long time, List<String> measurements,
+      List<String> values) {
+    CompletableFuture<TSStatus> future = new CompletableFuture<>();
+    PendingRows rowsToSend = null;
+    synchronized (this) {
+      if (closed) {
+        future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed"));
+        return future;
+      }
+      pendingRows.add(deviceId, time, measurements, values, future);
+      if (pendingRows.size() >= maxRowsPerRequest) {
+        rowsToSend = takePendingRows();
+      } else if (pendingRows.size() == 1) {
+        lingerTask = lingerTimer.schedule(this::flush, lingerTimeInMs, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (rowsToSend != null) {
+      send(rowsToSend);
+    }
+    return future;
+  }
+
+  /**
+   * send the row batch in its own request. The row batch must not be modified until the returned
+   * future is completed.
+   *
+   * @see Session#insertBatch(RowBatch)
+   */
+  public CompletableFuture<TSStatus> insertBatch(RowBatch rowBatch) {
+    CompletableFuture<TSStatus> future = new CompletableFuture<>();
+    synchronized (this) {
+      if (closed) {
+        future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed"));
+        return future;
+      }
+    }
+    submit(() -> {
+      try {
+        future.complete(pool.insertBatch(rowBatch).getStatus());
+      } catch (Exception e) {
+        future.completeExceptionally(e);
+      }
+    }, future);
+    return future;
+  }
+
+  /**
+   * send the buffered rows now.
+   */
+  public void flush() {
+    PendingRows rowsToSend;
+    synchronized (this) {
+      if (pendingRows.size() == 0) {
+        return;
+      }
+      rowsToSend = takePendingRows();
+    }
+    send(rowsToSend);
+  }
+
+  private PendingRows takePendingRows() {
+    PendingRows rows = pendingRows;
+    pendingRows = new PendingRows();
+    if (lingerTask != null) {
+      lingerTask.cancel(false);
+      lingerTask = null;
+    }
+    return rows;
+  }
+
+  private void send(PendingRows rows) {
+    submit(() -> {
+      try {
+        List<TSStatus> statuses = pool
+            .insertInBatch(rows.deviceIds, rows.times, rows.measurementsList, rows.valuesList);
+        for (int i = 0; i < rows.futures.size(); i++) {
+          rows.futures.get(i).complete(statuses.get(i));
+        }
+      } catch (Exception e) {
+        for (CompletableFuture<TSStatus> future : rows.futures) {
+          future.completeExceptionally(e);
+        }
+      }
+    }, rows.futures.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * run the request in a sender thread, after waiting for a permit if too many requests are in
+   * flight.
+   */
+  private void submit(Runnable request, CompletableFuture<?>... futures) {
+    try {
+      inFlightPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      for (CompletableFuture<?> future : futures) {
+        future.completeExceptionally(e);
+      }
+      return;
+    }
+    try {
+      senders.execute(() -> {
+        try {
+          request.run();
+        } finally {
+          inFlightPermits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the senders are shut down by close()
+      inFlightPermits.release();
+      for (CompletableFuture<?> future : futures) {
+        future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed", e));
+      }
+    }
+  }
+
+  /**
+   * send the buffered rows, wait for all the requests in flight, and close the connections.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (lingerTask != null) {
+        lingerTask.cancel(false);
+      }
+    }
+    // a flush started by the timer is finished before the last one, so no row is sent after the
+    // senders are shut down
+    lingerTimer.shutdown();
+    lingerTimer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    flush();
+    senders.shutdown();
+    senders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    pool.close();
+  }
+
+  private static class PendingRows {
+
+    private List<String> deviceIds = new ArrayList<>();
+    private List<Long> times = new ArrayList<>();
+    private List<List<String>> measurementsList = new ArrayList<>();
+    private List<List<String>> valuesList = new ArrayList<>();
+    private List<CompletableFuture<TSStatus>> futures = new ArrayList<>();
+
+    private void add(String deviceId, long time, List<String> measurements, List<String> values,
+        CompletableFuture<TSStatus> future) {
+      deviceIds.add(deviceId);
+      times.add(time);
+      measurementsList.add(measurements);
+      valuesList.add(values);
+      futures.add(future);
+    }
+
+    private int size() {
+      return futures.size();
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger threadNum = new AtomicInteger();
+
+    private DaemonThreadFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, name + "-" + threadNum.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
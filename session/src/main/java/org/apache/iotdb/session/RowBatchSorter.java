@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.util.Arrays;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+
+/**
+ * RowBatchSorter sorts the rows of a RowBatch by time in place, with primitive arrays only.
+ * <p>
+ * The timestamps are sorted by a natural merge sort together with the original position of each
+ * row: the ascending runs of the input are merged pairwise until one run is left. A sorted batch
+ * is detected by one scan, and a nearly sorted batch, which has few runs, is sorted by few merge
+ * passes. Then each value column is permuted in place by following the cycles of the permutation.
+ */
+class RowBatchSorter {
+
+  private RowBatchSorter() {
+    // util class
+  }
+
+  static void sort(RowBatch rowBatch) {
+    int size = rowBatch.batchSize;
+    int[] index = sortTimes(rowBatch.timestamps, size);
+    if (index == null) {
+      return;
+    }
+    boolean[] moved = new boolean[size];
+    for (int i = 0; i < rowBatch.measurements.size(); i++) {
+      permute(rowBatch.values[i], rowBatch.measurements.get(i).getType(), index, moved);
+      Arrays.fill(moved, false);
+    }
+  }
+
+  /**
+   * sort the first size times in place.
+   *
+   * @return the original position of each row after sorting, or null if the times are sorted
+   * already
+   */
+  static int[] sortTimes(long[] times, int size) {
+    int runNum = 1;
+    for (int i = 1; i < size; i++) {
+      if (times[i] < times[i - 1]) {
+        runNum++;
+      }
+    }
+    if (runNum == 1) {
+      return null;
+    }
+
+    // the start of each run, followed by the end of the last run
+    int[] runStarts = new int[runNum + 1];
+    int run = 1;
+    for (int i = 1; i < size; i++) {
+      if (times[i] < times[i - 1]) {
+        runStarts[run++] = i;
+      }
+    }
+    runStarts[runNum] = size;
+
+    long[] srcTimes = times;
+    long[] dstTimes = new long[size];
+    int[] srcIndex = new int[size];
+    int[] dstIndex = new int[size];
+    for (int i = 0; i < size; i++) {
+      srcIndex[i] = i;
+    }
+    while (runNum > 1) {
+      int mergedRunNum = 0;
+      for (run = 0; run < runNum; run += 2) {
+        int start = runStarts[run];
+        if (run + 1 == runNum) {
+          // the last run has no pair in this pass
+          System.arraycopy(srcTimes, start, dstTimes, start, size - start);
+          System.arraycopy(srcIndex, start, dstIndex, start, size - start);
+        } else {
+          merge(srcTimes, srcIndex, dstTimes, dstIndex, start, runStarts[run + 1],
+              runStarts[run + 2]);
+        }
+        runStarts[mergedRunNum++] = start;
+      }
+      runStarts[mergedRunNum] = size;
+      runNum = mergedRunNum;
+
+      long[] tmpTimes = srcTimes;
+      srcTimes = dstTimes;
+      dstTimes = tmpTimes;
+      int[] tmpIndex = srcIndex;
+      srcIndex = dstIndex;
+      dstIndex = tmpIndex;
+    }
+    if (srcTimes != times) {
+      System.arraycopy(srcTimes, 0, times, 0, size);
+    }
+    return srcIndex;
+  }
+
+  /**
+   * merge the sorted ranges [start, mid) and [mid, end) of src into the same range of dst. Rows with
+   * the same time keep their order.
+   */
+  private static void merge(long[] srcTimes, int[] srcIndex, long[] dstTimes, int[] dstIndex,
+      int start, int mid, int end) {
+    int left = start;
+    int right = mid;
+    for (int i = start; i < end; i++) {
+      if (right >= end || (left < mid && srcTimes[left] <= srcTimes[right])) {
+        dstTimes[i] = srcTimes[left];
+        dstIndex[i] = srcIndex[left++];
+      } else {
+        dstTimes[i] = srcTimes[right];
+        dstIndex[i] = srcIndex[right++];
+      }
+    }
+  }
+
+  /**
+   * move values[index[i]] to values[i] for each i, in place.
+   */
+  private static void permute(Object values, TSDataType dataType, int[] index, boolean[] moved) {
+    switch (dataType) {
+      case BOOLEAN:
+        permute((boolean[]) values, index, moved);
+        break;
+      case INT32:
+        permute((int[]) values, index, moved);
+        break;
+      case INT64:
+        permute((long[]) values, index, moved);
+        break;
+      case FLOAT:
+        permute((float[]) values, index, moved);
+        break;
+      case DOUBLE:
+        permute((double[]) values, index, moved);
+        break;
+      case TEXT:
+        permute((Binary[]) values, index, moved);
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+  }
+
+  private static void permute(boolean[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      boolean first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+
+  private static void permute(int[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      int first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+
+  private static void permute(long[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      long first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+
+  private static void permute(float[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      float first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+
+  private static void permute(double[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      double first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+
+  private static void permute(Binary[] values, int[] index, boolean[] moved) {
+    for (int start = 0; start < index.length; start++) {
+      if (moved[start]) {
+        continue;
+      }
+      Binary first = values[start];
+      int i = start;
+      while (index[i] != start) {
+        values[i] = values[index[i]];
+        moved[i] = true;
+        i = index[i];
+      }
+      values[i] = first;
+      moved[i] = true;
+    }
+  }
+}
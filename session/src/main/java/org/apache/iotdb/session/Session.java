@@ -20,15 +20,15 @@ package org.apache.iotdb.session;
 
 import static org.apache.iotdb.session.Config.PATH_MATCHER;
 
+import java.io.IOException;
 import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.RpcCompressionUtils;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
@@ -47,17 +47,17 @@ import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
-import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
-import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,11 +72,15 @@ public class Session {
   private String password;
   private TSIService.Iface client = null;
   private long sessionId;
-  private TSocket transport;
+  private TTransport transport;
   private boolean isClosed = true;
   private ZoneId zoneId;
   private long statementId;
   private int fetchSize;
+  // the compression type asked for the query results and batch insertions, null if none
+  private CompressionType rpcCompression;
+  // the compression type accepted by the server, null if the payloads are not compressed
+  private String negotiatedCompression;
 
   public Session(String host, int port) {
     this(host, port, Config.DEFAULT_USER, Config.DEFAULT_PASSWORD);
@@ -102,16 +106,45 @@ public class Session {
     this.fetchSize = fetchSize;
   }
 
+  /**
+   * @param rpcCompression the compression type of the query results and batch insertions, SNAPPY or
+   * UNCOMPRESSED. They are not compressed if the server does not support it.
+   * @throws IllegalArgumentException if the compression type is not supported
+   */
+  public Session(String host, int port, String username, String password, int fetchSize,
+      CompressionType rpcCompression) {
+    this(host, port, username, password, fetchSize);
+    if (rpcCompression == CompressionType.SNAPPY) {
+      this.rpcCompression = rpcCompression;
+    } else if (rpcCompression != null && rpcCompression != CompressionType.UNCOMPRESSED) {
+      throw new IllegalArgumentException(String.format(
+          "RPC compression %s is not supported, only %s is", rpcCompression,
+          RpcCompressionUtils.SNAPPY));
+    }
+  }
+
   public synchronized void open() throws IoTDBSessionException {
-    open(false, Config.DEFAULT_TIMEOUT_MS);
+    open(false, false, Config.DEFAULT_TIMEOUT_MS);
   }
 
-  private synchronized void open(boolean enableRPCCompression, int connectionTimeoutInMs)
+  /**
+   * @param enableRPCCompression must be the same as rpc_thrift_compression_enable of the server
+   * @param enableFramedTransport must be true if rpc_nonblocking_server_enable of the server is true
+   */
+  public synchronized void open(boolean enableRPCCompression, boolean enableFramedTransport)
       throws IoTDBSessionException {
+    open(enableRPCCompression, enableFramedTransport, Config.DEFAULT_TIMEOUT_MS);
+  }
+
+  private synchronized void open(boolean enableRPCCompression, boolean enableFramedTransport,
+      int connectionTimeoutInMs) throws IoTDBSessionException {
     if (!isClosed) {
       return;
     }
     transport = new TSocket(host, port, connectionTimeoutInMs);
+    if (enableFramedTransport) {
+      transport = new TFramedTransport(transport);
+    }
     if (!transport.isOpen()) {
       try {
         transport.open();
@@ -129,6 +162,10 @@ public class Session {
     TSOpenSessionReq openReq = new TSOpenSessionReq(TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V1);
     openReq.setUsername(username);
     openReq.setPassword(password);
+    if (rpcCompression != null) {
+      openReq.setConfiguration(
+          Collections.singletonMap(RpcCompressionUtils.COMPRESSION_KEY, rpcCompression.name()));
+    }
 
     try {
       TSOpenSessionResp openResp = client.openSession(openReq);
@@ -142,6 +179,7 @@ public class Session {
       }
 
       sessionId = openResp.getSessionId();
+      negotiatedCompression = RpcCompressionUtils.getCompressionType(openResp.getConfiguration());
 
       statementId = client.requestStatementId(sessionId);
 
@@ -207,8 +245,7 @@ public class Session {
       request.addToMeasurements(measurementSchema.getMeasurementId());
       request.addToTypes(measurementSchema.getType().ordinal());
     }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
+    setBatchPayload(request, rowBatch);
     request.setSize(rowBatch.batchSize);
 
     try {
@@ -218,6 +255,27 @@ public class Session {
     }
   }
 
+  /**
+   * set the times and values of the row batch into the request, compressed if the server accepted
+   * the compression type of this session.
+   */
+  private void setBatchPayload(TSBatchInsertionReq request, RowBatch rowBatch)
+      throws IoTDBSessionException {
+    if (negotiatedCompression == null) {
+      request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
+      request.setValues(SessionUtils.getValueBuffer(rowBatch));
+      return;
+    }
+    try {
+      request.setTimestamps(RpcCompressionUtils
+          .compressTimes(SessionUtils.getTimeBuffer(rowBatch), negotiatedCompression));
+      request.setValues(RpcCompressionUtils
+          .compress(SessionUtils.getValueBuffer(rowBatch), negotiatedCompression));
+    } catch (IOException e) {
+      throw new IoTDBSessionException(e);
+    }
+  }
+
   /**
    * use batch interface to insert sorted data
    * times in row batch must be sorted before!
@@ -239,91 +297,11 @@ public class Session {
    */
   public TSExecuteBatchStatementResp insertBatch(RowBatch rowBatch)
       throws IoTDBSessionException {
-    sortRowBatch(rowBatch);
+    RowBatchSorter.sort(rowBatch);
 
     return insertSortedBatchIntern(rowBatch);
   }
 
-  private void sortRowBatch(RowBatch rowBatch){
-    /*
-       * following part of code sort the batch data by time,
-       * so we can insert continuous data in value list to get a better performance
-       */
-    // sort to get index, and use index to sort value list
-    Integer[] index = new Integer[rowBatch.batchSize];
-    for (int i = 0; i < rowBatch.batchSize; i++) {
-      index[i] = i;
-    }
-    Arrays.sort(index, new Comparator<Integer>() {
-      @Override
-      public int compare(Integer o1, Integer o2) {
-        return Long.compare(rowBatch.timestamps[o1], rowBatch.timestamps[o2]);
-      }
-    });
-    Arrays.sort(rowBatch.timestamps, 0, rowBatch.batchSize);
-    for (int i = 0; i < rowBatch.measurements.size(); i++) {
-      rowBatch.values[i] =
-          sortList(rowBatch.values[i], rowBatch.measurements.get(i).getType(), index);
-    }
-  }
-
-  /**
-   * sort value list by index
-   *
-   * @param valueList value list
-   * @param dataType data type
-   * @param index index
-   * @return sorted list
-   */
-  private Object sortList(Object valueList, TSDataType dataType, Integer[] index) {
-    switch (dataType) {
-      case BOOLEAN:
-        boolean[] boolValues = (boolean[]) valueList;
-        boolean[] sortedValues = new boolean[boolValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedValues[index[i]] = boolValues[i];
-        }
-        return sortedValues;
-      case INT32:
-        int[] intValues = (int[]) valueList;
-        int[] sortedIntValues = new int[intValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedIntValues[index[i]] = intValues[i];
-        }
-        return sortedIntValues;
-      case INT64:
-        long[] longValues = (long[]) valueList;
-        long[] sortedLongValues = new long[longValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedLongValues[index[i]] = longValues[i];
-        }
-        return sortedLongValues;
-      case FLOAT:
-        float[] floatValues = (float[]) valueList;
-        float[] sortedFloatValues = new float[floatValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedFloatValues[index[i]] = floatValues[i];
-        }
-        return sortedFloatValues;
-      case DOUBLE:
-        double[] doubleValues = (double[]) valueList;
-        double[] sortedDoubleValues = new double[doubleValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedDoubleValues[index[i]] = doubleValues[i];
-        }
-        return sortedDoubleValues;
-      case TEXT:
-        Binary[] binaryValues = (Binary[]) valueList;
-        Binary[] sortedBinaryValues = new Binary[binaryValues.length];
-        for (int i = 0; i < index.length; i++) {
-          sortedBinaryValues[index[i]] = binaryValues[i];
-        }
-        return sortedBinaryValues;
-      default:
-        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
-    }
-  }
-
   /**
    * Insert data in batch format, which can reduce the overhead of network. This method is just like
    * jdbc batch insert, we pack some insert request in batch and send them to server If you want
@@ -397,8 +375,7 @@ public class Session {
       request.addToMeasurements(measurementSchema.getMeasurementId());
       request.addToTypes(measurementSchema.getType().ordinal());
     }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
+    setBatchPayload(request, rowBatch);
     request.setSize(rowBatch.batchSize);
 
     try {
@@ -619,7 +596,7 @@ public class Session {
 
     RpcUtils.verifySuccess(execResp.getStatus());
     return new SessionDataSet(sql, execResp.getColumns(), execResp.getDataTypeList(),
-        execResp.getQueryId(), client, sessionId, execResp.queryDataSet);
+        execResp.getQueryId(), client, sessionId, execResp.queryDataSet, negotiatedCompression);
   }
 
   /**
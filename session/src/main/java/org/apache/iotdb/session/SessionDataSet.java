@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.session;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -25,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.RpcCompressionUtils;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
@@ -47,6 +49,8 @@ public class SessionDataSet {
   private long queryId;
   private long sessionId;
   private TSIService.Iface client;
+  // the compression type of the results negotiated by the session, null if not compressed
+  private String compressionType;
   private int batchSize = 1024;
   private List<String> columnTypeDeduplicatedList;
   // duplicated column index -> origin index
@@ -59,6 +63,8 @@ public class SessionDataSet {
 
   private int rowsIndex = 0; // used to record the row index in current TSQueryDataSet
   private TSQueryDataSet tsQueryDataSet;
+  // whether tsQueryDataSet is still compressed, it is uncompressed when its rows are read
+  private boolean compressed = false;
   private RowRecord rowRecord = null;
   private byte[] currentBitmap; // used to cache the current bitmap for every column
   private static final int flag = 0x80; // used to do `or` operation with bitmap to judge whether the value is null
@@ -66,7 +72,18 @@ public class SessionDataSet {
 
   public SessionDataSet(String sql, List<String> columnNameList, List<String> columnTypeList,
       long queryId, TSIService.Iface client, long sessionId, TSQueryDataSet queryDataSet) {
+    this(sql, columnNameList, columnTypeList, queryId, client, sessionId, queryDataSet, null);
+  }
+
+  /**
+   * @param compressionType the compression type of the results negotiated by the session, null if
+   * they are not compressed
+   */
+  public SessionDataSet(String sql, List<String> columnNameList, List<String> columnTypeList,
+      long queryId, TSIService.Iface client, long sessionId, TSQueryDataSet queryDataSet,
+      String compressionType) {
     this.sessionId = sessionId;
+    this.compressionType = compressionType;
     this.sql = sql;
     this.queryId = queryId;
     this.client = client;
@@ -90,7 +107,23 @@ public class SessionDataSet {
       }
     }
 
+    setQueryDataSet(queryDataSet);
+  }
+
+  private void setQueryDataSet(TSQueryDataSet queryDataSet) {
     this.tsQueryDataSet = queryDataSet;
+    this.compressed = compressionType != null && queryDataSet != null;
+  }
+
+  private void uncompressIfNecessary() throws SQLException {
+    if (compressed) {
+      try {
+        RpcCompressionUtils.uncompress(tsQueryDataSet, compressionType);
+      } catch (IOException e) {
+        throw new SQLException("Cannot uncompress the result from server", e);
+      }
+      compressed = false;
+    }
   }
 
   public int getBatchSize() {
@@ -104,6 +137,7 @@ public class SessionDataSet {
   public boolean hasNext() throws SQLException, IoTDBRPCException {
     if (hasCachedRecord)
       return true;
+    uncompressIfNecessary();
     if (tsQueryDataSet == null || !tsQueryDataSet.time.hasRemaining()) {
       TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, batchSize, queryId, true);
       try {
@@ -113,14 +147,14 @@ public class SessionDataSet {
         if (!resp.hasResultSet) {
           return false;
         } else {
-          tsQueryDataSet = resp.getQueryDataSet();
+          setQueryDataSet(resp.getQueryDataSet());
           rowsIndex = 0;
         }
       } catch (TException e) {
         throw new SQLException(
                 "Cannot fetch result from server, because of network connection: {} ", e);
       }
-
+      uncompressIfNecessary();
     }
 
     constructOneRow();
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.sql.SQLException;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+
+/**
+ * SessionDataSetWrapper is the result of a query executed by a SessionPool. It holds the Session
+ * fetching the result, and returns the Session to the pool when it is closed.
+ */
+public class SessionDataSetWrapper implements AutoCloseable {
+
+  private SessionDataSet dataSet;
+  private Session session;
+  private SessionPool pool;
+  private boolean closed = false;
+
+  SessionDataSetWrapper(SessionDataSet dataSet, Session session, SessionPool pool) {
+    this.dataSet = dataSet;
+    this.session = session;
+    this.pool = pool;
+  }
+
+  SessionDataSet getDataSet() {
+    return dataSet;
+  }
+
+  Session getSession() {
+    return session;
+  }
+
+  public int getBatchSize() {
+    return dataSet.getBatchSize();
+  }
+
+  public void setBatchSize(int batchSize) {
+    dataSet.setBatchSize(batchSize);
+  }
+
+  public boolean hasNext() throws SQLException, IoTDBRPCException {
+    return dataSet.hasNext();
+  }
+
+  public RowRecord next() throws SQLException, IoTDBRPCException {
+    return dataSet.next();
+  }
+
+  /**
+   * close the result in the server and return the session to the pool.
+   */
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      pool.closeResultSet(this);
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.thrift.TException;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SessionPool is a thread-safe pool of at most maxSize Sessions to one server. Each operation
+ * borrows an idle Session (or opens a new one if there are less than maxSize), and returns it to
+ * the pool when the operation finishes, so that many threads can write concurrently through
+ * different connections.
+ * <p>
+ * If the connection of a Session breaks during an operation, the Session is discarded and the
+ * operation is retried with another Session, at most RETRY times.
+ * <p>
+ * A query holds its Session until the returned SessionDataSetWrapper is closed, so the wrapper
+ * must always be closed, or the pool will run out of Sessions.
+ */
+public class SessionPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(SessionPool.class);
+  private static final int RETRY = 3;
+
+  private final String host;
+  private final int port;
+  private final String user;
+  private final String password;
+  private final int maxSize;
+  private final long waitToGetSessionTimeoutInMs;
+  private final boolean enableFramedTransport;
+
+  // idle sessions, the most recently used one first
+  private final Deque<Session> idleSessions = new ArrayDeque<>();
+  // number of the idle, borrowed and opening sessions
+  private int size = 0;
+  private boolean closed = false;
+
+  public SessionPool(String host, int port, String user, String password, int maxSize) {
+    this(host, port, user, password, maxSize, 60_000, false);
+  }
+
+  /**
+   * @param waitToGetSessionTimeoutInMs how long an operation waits for an idle Session when maxSize
+   * Sessions are all borrowed
+   * @param enableFramedTransport must be true if rpc_nonblocking_server_enable of the server is true
+   */
+  public SessionPool(String host, int port, String user, String password, int maxSize,
+      long waitToGetSessionTimeoutInMs, boolean enableFramedTransport) {
+    this.host = host;
+    this.port = port;
+    this.user = user;
+    this.password = password;
+    this.maxSize = maxSize;
+    this.waitToGetSessionTimeoutInMs = waitToGetSessionTimeoutInMs;
+    this.enableFramedTransport = enableFramedTransport;
+  }
+
+  private Session getSession() throws IoTDBSessionException {
+    long start = System.currentTimeMillis();
+    synchronized (this) {
+      while (true) {
+        if (closed) {
+          throw new IoTDBSessionException("Session pool is closed");
+        }
+        Session session = idleSessions.pollFirst();
+        if (session != null) {
+          return session;
+        }
+        if (size < maxSize) {
+          // open the new session outside the lock
+          size++;
+          break;
+        }
+        long waitTime = waitToGetSessionTimeoutInMs - (System.currentTimeMillis() - start);
+        if (waitTime <= 0) {
+          throw new IoTDBSessionException(String.format(
+              "Timeout to get a session from %s:%s, all the %d sessions are in use", host, port,
+              maxSize));
+        }
+        try {
+          this.wait(waitTime);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IoTDBSessionException(e);
+        }
+      }
+    }
+
+    Session session = new Session(host, port, user, password);
+    try {
+      session.open(false, enableFramedTransport);
+    } catch (IoTDBSessionException e) {
+      synchronized (this) {
+        size--;
+        this.notifyAll();
+      }
+      throw e;
+    }
+    return session;
+  }
+
+  private void putBack(Session session) {
+    synchronized (this) {
+      if (!closed) {
+        idleSessions.addFirst(session);
+        this.notifyAll();
+        return;
+      }
+    }
+    discard(session);
+  }
+
+  /**
+   * close the session whose connection may be broken, and make room for a new one.
+   */
+  private void discard(Session session) {
+    try {
+      session.close();
+    } catch (IoTDBSessionException e) {
+      logger.debug("Failed to close session to {}:{}", host, port, e);
+    }
+    synchronized (this) {
+      size--;
+      this.notifyAll();
+    }
+  }
+
+  /**
+   * close the idle sessions. The borrowed sessions are closed when they are returned.
+   */
+  public void close() {
+    Deque<Session> toClose;
+    synchronized (this) {
+      closed = true;
+      toClose = new ArrayDeque<>(idleSessions);
+      idleSessions.clear();
+      this.notifyAll();
+    }
+    for (Session session : toClose) {
+      discard(session);
+    }
+  }
+
+  private <T> T execute(SessionOperation<T> operation) throws IoTDBSessionException {
+    return execute(operation, true);
+  }
+
+  /**
+   * @param returnSession whether to return the session to the pool when the operation succeeds
+   */
+  private <T> T execute(SessionOperation<T> operation, boolean returnSession)
+      throws IoTDBSessionException {
+    IoTDBSessionException lastException = null;
+    for (int i = 0; i < RETRY; i++) {
+      Session session = getSession();
+      try {
+        T result = operation.execute(session);
+        if (returnSession) {
+          putBack(session);
+        }
+        return result;
+      } catch (IoTDBSessionException e) {
+        if (!(e.getCause() instanceof TTransportException)) {
+          // the connection is fine, the operation itself failed
+          putBack(session);
+          throw e;
+        }
+        logger.warn("The connection to {}:{} is broken, retry with another session ({}/{})", host,
+            port, i + 1, RETRY, e);
+        discard(session);
+        lastException = e;
+      } catch (RuntimeException e) {
+        // e.g., illegal arguments, which are checked before calling the server
+        putBack(session);
+        throw e;
+      }
+    }
+    throw lastException;
+  }
+
+  /**
+   * @see Session#insertSortedBatch(RowBatch)
+   */
+  public TSExecuteBatchStatementResp insertSortedBatch(RowBatch rowBatch)
+      throws IoTDBSessionException {
+    return execute(session -> session.insertSortedBatch(rowBatch));
+  }
+
+  /**
+   * @see Session#insertBatch(RowBatch)
+   */
+  public TSExecuteBatchStatementResp insertBatch(RowBatch rowBatch)
+      throws IoTDBSessionException {
+    return execute(session -> session.insertBatch(rowBatch));
+  }
+
+  /**
+   * @see Session#insertInBatch(List, List, List, List)
+   */
+  public List<TSStatus> insertInBatch(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<List<String>> valuesList)
+      throws IoTDBSessionException {
+    return execute(
+        session -> session.insertInBatch(deviceIds, times, measurementsList, valuesList));
+  }
+
+  /**
+   * @see Session#insert(String, long, List, List)
+   */
+  public TSStatus insert(String deviceId, long time, List<String> measurements,
+      List<String> values) throws IoTDBSessionException {
+    return execute(session -> session.insert(deviceId, time, measurements, values));
+  }
+
+  /**
+   * @see Session#executeNonQueryStatement(String)
+   */
+  public void executeNonQueryStatement(String sql) throws IoTDBSessionException {
+    execute(session -> {
+      try {
+        session.executeNonQueryStatement(sql);
+        return null;
+      } catch (TException | IoTDBRPCException e) {
+        throw new IoTDBSessionException(e);
+      }
+    });
+  }
+
+  /**
+   * The session executing the query is returned to the pool when the result is closed.
+   *
+   * @see Session#executeQueryStatement(String)
+   */
+  public SessionDataSetWrapper executeQueryStatement(String sql) throws IoTDBSessionException {
+    return execute(session -> {
+      try {
+        return new SessionDataSetWrapper(session.executeQueryStatement(sql), session, this);
+      } catch (TException | IoTDBRPCException e) {
+        throw new IoTDBSessionException(e);
+      }
+    }, false);
+  }
+
+  /**
+   * called by SessionDataSetWrapper.close().
+   */
+  void closeResultSet(SessionDataSetWrapper wrapper) {
+    try {
+      wrapper.getDataSet().closeOperationHandle();
+      putBack(wrapper.getSession());
+    } catch (Exception e) {
+      logger.warn("Failed to close the query result, discard its session", e);
+      discard(wrapper.getSession());
+    }
+  }
+
+  @FunctionalInterface
+  private interface SessionOperation<T> {
+
+    T execute(Session session) throws IoTDBSessionException;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncSessionIT {
+
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(IoTDBConstant.IOTDB_CONF, "src/test/resources/");
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+    session.setStorageGroup("root.sg1");
+    session.createTimeseries("root.sg1.d1.s1", TSDataType.INT64, TSEncoding.RLE,
+        CompressionType.SNAPPY);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    session.close();
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    AsyncSession asyncSession = new AsyncSession("127.0.0.1", 6667, "root", "root", 2, 7, 10);
+    List<CompletableFuture<TSStatus>> futures = new ArrayList<>();
+    for (long time = 0; time < 100; time++) {
+      futures.add(asyncSession.insert("root.sg1.d1", time, Arrays.asList("s1"),
+          Arrays.asList(String.valueOf(time))));
+    }
+    // the last rows are sent after the linger time
+    for (CompletableFuture<TSStatus> future : futures) {
+      assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+          future.get().getStatusType().getCode());
+    }
+    asyncSession.close();
+    assertEquals(100, count());
+  }
+
+  @Test
+  public void testInsertBatch() throws Exception {
+    AsyncSession asyncSession = new AsyncSession("127.0.0.1", 6667, "root", "root");
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+    List<CompletableFuture<TSStatus>> futures = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      RowBatch rowBatch = schema.createRowBatch("root.sg1.d1", 10);
+      for (int row = 0; row < 10; row++) {
+        rowBatch.timestamps[row] = i * 10L + row;
+        ((long[]) rowBatch.values[0])[row] = row;
+      }
+      rowBatch.batchSize = 10;
+      futures.add(asyncSession.insertBatch(rowBatch));
+    }
+    for (CompletableFuture<TSStatus> future : futures) {
+      assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+          future.get().getStatusType().getCode());
+    }
+    asyncSession.close();
+    assertEquals(50, count());
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    AsyncSession asyncSession = new AsyncSession("127.0.0.1", 6667, "root", "root");
+    asyncSession.close();
+    CompletableFuture<TSStatus> future = asyncSession
+        .insert("root.sg1.d1", 1, Arrays.asList("s1"), Arrays.asList("1"));
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IoTDBSessionException);
+    }
+    assertTrue(future.isCompletedExceptionally());
+  }
+
+  private int count() throws Exception {
+    SessionDataSet dataSet = session.executeQueryStatement("select s1 from root.sg1.d1");
+    int count = 0;
+    while (dataSet.hasNext()) {
+      dataSet.next();
+      count++;
+    }
+    dataSet.closeOperationHandle();
+    return count;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.junit.Test;
+
+public class RowBatchSorterTest {
+
+  private static final int SIZE = 1000;
+
+  @Test
+  public void testRandom() {
+    Random random = new Random(1);
+    long[] times = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      times[i] = i;
+    }
+    for (int i = SIZE - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      long tmp = times[i];
+      times[i] = times[j];
+      times[j] = tmp;
+    }
+    checkSort(times);
+  }
+
+  @Test
+  public void testNearlySorted() {
+    long[] times = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      times[i] = i;
+    }
+    // a few late rows
+    times[100] = 5;
+    times[5] = 100;
+    times[SIZE - 1] = 0;
+    times[0] = SIZE - 1;
+    checkSort(times);
+  }
+
+  @Test
+  public void testDescending() {
+    long[] times = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      times[i] = SIZE - 1 - i;
+    }
+    checkSort(times);
+  }
+
+  @Test
+  public void testSorted() {
+    long[] times = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      times[i] = i;
+    }
+    assertNull(RowBatchSorter.sortTimes(times, SIZE));
+    checkSort(times);
+  }
+
+  @Test
+  public void testStable() {
+    long[] times = {3, 1, 2, 1, 3, 0};
+    int[] index = RowBatchSorter.sortTimes(times, times.length);
+    long[] sortedTimes = {0, 1, 1, 2, 3, 3};
+    int[] sortedIndex = {5, 1, 3, 2, 0, 4};
+    for (int i = 0; i < times.length; i++) {
+      assertEquals(sortedTimes[i], times[i]);
+      assertEquals(sortedIndex[i], index[i]);
+    }
+  }
+
+  /**
+   * sort a batch whose value of each row is derived from its time, and check the values follow
+   * their times.
+   */
+  private void checkSort(long[] times) {
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.BOOLEAN, TSEncoding.PLAIN));
+    schema.registerMeasurement(new MeasurementSchema("s2", TSDataType.INT32, TSEncoding.PLAIN));
+    schema.registerMeasurement(new MeasurementSchema("s3", TSDataType.INT64, TSEncoding.PLAIN));
+    schema.registerMeasurement(new MeasurementSchema("s4", TSDataType.FLOAT, TSEncoding.PLAIN));
+    schema.registerMeasurement(new MeasurementSchema("s5", TSDataType.DOUBLE, TSEncoding.PLAIN));
+    schema.registerMeasurement(new MeasurementSchema("s6", TSDataType.TEXT, TSEncoding.PLAIN));
+    RowBatch rowBatch = schema.createRowBatch("root.sg1.d1", times.length);
+    for (int i = 0; i < times.length; i++) {
+      long time = times[i];
+      rowBatch.timestamps[i] = time;
+      ((boolean[]) rowBatch.values[0])[i] = time % 2 == 0;
+      ((int[]) rowBatch.values[1])[i] = (int) time;
+      ((long[]) rowBatch.values[2])[i] = time;
+      ((float[]) rowBatch.values[3])[i] = time;
+      ((double[]) rowBatch.values[4])[i] = time;
+      ((Binary[]) rowBatch.values[5])[i] = new Binary(String.valueOf(time));
+    }
+    rowBatch.batchSize = times.length;
+
+    RowBatchSorter.sort(rowBatch);
+
+    for (int i = 0; i < times.length; i++) {
+      long time = rowBatch.timestamps[i];
+      if (i > 0) {
+        assertEquals(true, rowBatch.timestamps[i - 1] <= time);
+      }
+      assertEquals(time % 2 == 0, ((boolean[]) rowBatch.values[0])[i]);
+      assertEquals((int) time, ((int[]) rowBatch.values[1])[i]);
+      assertEquals(time, ((long[]) rowBatch.values[2])[i]);
+      assertEquals(time, ((float[]) rowBatch.values[3])[i], 0);
+      assertEquals(time, ((double[]) rowBatch.values[4])[i], 0);
+      assertEquals(String.valueOf(time), ((Binary[]) rowBatch.values[5])[i].getStringValue());
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionPoolIT {
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(IoTDBConstant.IOTDB_CONF, "src/test/resources/");
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testConcurrentInsert() throws Exception {
+    SessionPool pool = new SessionPool("127.0.0.1", 6667, "root", "root", 3);
+    createSchema(pool);
+    ExecutorService service = Executors.newFixedThreadPool(10);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final int time = i;
+      futures.add(service.submit(() -> {
+        pool.insert("root.sg1.d1", time, Arrays.asList("s1"),
+            Arrays.asList(String.valueOf(time)));
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    service.shutdown();
+
+    SessionDataSetWrapper wrapper = pool
+        .executeQueryStatement("select * from root.sg1.d1 where time >= 0");
+    int count = 0;
+    while (wrapper.hasNext()) {
+      assertEquals(count, wrapper.next().getTimestamp());
+      count++;
+    }
+    wrapper.close();
+    assertEquals(10, count);
+    pool.close();
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    SessionPool pool = new SessionPool("127.0.0.1", 6667, "root", "root", 1, 1000, false);
+    createSchema(pool);
+    pool.executeNonQueryStatement("insert into root.sg1.d1(timestamp, s1) values(1, 1)");
+    // the only session is held by the result until it is closed
+    SessionDataSetWrapper wrapper = pool.executeQueryStatement("select * from root.sg1.d1");
+    try {
+      pool.executeQueryStatement("select * from root.sg1.d1");
+      fail();
+    } catch (IoTDBSessionException e) {
+      // expected
+    }
+    wrapper.close();
+    wrapper = pool.executeQueryStatement("select * from root.sg1.d1");
+    wrapper.next();
+    assertFalse(wrapper.hasNext());
+    wrapper.close();
+    pool.close();
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    SessionPool pool = new SessionPool("127.0.0.1", 6667, "root", "root", 3);
+    pool.close();
+    try {
+      pool.insert("root.sg1.d1", 1, Arrays.asList("s1"), Arrays.asList("1"));
+      fail();
+    } catch (IoTDBSessionException e) {
+      assertEquals("Session pool is closed", e.getMessage());
+    }
+  }
+
+  private void createSchema(SessionPool pool) throws IoTDBSessionException {
+    pool.executeNonQueryStatement("SET STORAGE GROUP TO root.sg1");
+    pool.executeNonQueryStatement(
+        "CREATE TIMESERIES root.sg1.d1.s1 WITH DATATYPE=INT64, ENCODING=RLE");
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import static org.junit.Assert.fail;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.junit.Test;
+
+public class SessionTest {
+
+  @Test
+  public void testRpcCompression() {
+    new Session("127.0.0.1", 6667, "root", "root", Config.DEFAULT_FETCH_SIZE, null);
+    new Session("127.0.0.1", 6667, "root", "root", Config.DEFAULT_FETCH_SIZE,
+        CompressionType.UNCOMPRESSED);
+    new Session("127.0.0.1", 6667, "root", "root", Config.DEFAULT_FETCH_SIZE,
+        CompressionType.SNAPPY);
+    for (CompressionType type : new CompressionType[]{CompressionType.GZIP,
+        CompressionType.LZO}) {
+      try {
+        new Session("127.0.0.1", 6667, "root", "root", Config.DEFAULT_FETCH_SIZE, type);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected, only SNAPPY can be negotiated
+      }
+    }
+  }
+}
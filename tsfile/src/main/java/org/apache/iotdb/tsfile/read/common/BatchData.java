@@ -112,6 +112,23 @@ public class BatchData implements Serializable {
     }
   }
 
+  /**
+   * @return the index of the point at the read cursor, in [0, length()]
+   */
+  public int getReadCurIndex() {
+    return readCurListIndex * capacity + readCurArrayIndex;
+  }
+
+  /**
+   * move the read cursor to the point indexed by idx, so that the same data can be read again.
+   *
+   * @param idx index in [0, length()]
+   */
+  public void setReadCurIndex(int idx) {
+    readCurListIndex = idx / capacity;
+    readCurArrayIndex = idx % capacity;
+  }
+
   public long currentTime() {
     return this.timeRet.get(readCurListIndex)[readCurArrayIndex];
   }
@@ -59,6 +59,31 @@ public class GroupByFilter implements Filter, Serializable {
       return (time - startTime) % slidingStep <= unit;
   }
 
+  @Override
+  public boolean satisfyBoolean(long time, boolean value) {
+    return satisfy(time, null);
+  }
+
+  @Override
+  public boolean satisfyInt(long time, int value) {
+    return satisfy(time, null);
+  }
+
+  @Override
+  public boolean satisfyLong(long time, long value) {
+    return satisfy(time, null);
+  }
+
+  @Override
+  public boolean satisfyFloat(long time, float value) {
+    return satisfy(time, null);
+  }
+
+  @Override
+  public boolean satisfyDouble(long time, double value) {
+    return satisfy(time, null);
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     if (endTime < this.startTime)
@@ -47,6 +47,32 @@ public interface Filter {
    */
   boolean satisfy(long time, Object value);
 
+  /*
+   * The following methods examine a single point like satisfy(long, Object), but take the value as
+   * a primitive, so that the readers of primitive data need not box the value of every point. The
+   * filters override them to compare the primitive directly.
+   */
+
+  default boolean satisfyBoolean(long time, boolean value) {
+    return satisfy(time, value);
+  }
+
+  default boolean satisfyInt(long time, int value) {
+    return satisfy(time, value);
+  }
+
+  default boolean satisfyLong(long time, long value) {
+    return satisfy(time, value);
+  }
+
+  default boolean satisfyFloat(long time, float value) {
+    return satisfy(time, value);
+  }
+
+  default boolean satisfyDouble(long time, double value) {
+    return satisfy(time, value);
+  }
+
   /**
    * To examine whether the min time and max time are satisfied with the filter.
    *
@@ -54,6 +54,80 @@ public abstract class UnaryFilter<T extends Comparable<T>> implements Filter, Se
     return filterType;
   }
 
+  /**
+   * @param compareResult the result of comparing the value of this filter with the value (or the
+   * time for a time filter) of a point, i.e., filterValue.compareTo(pointValue)
+   * @return whether the point satisfies this filter
+   */
+  protected abstract boolean satisfyCompareResult(int compareResult);
+
+  /*
+   * The primitive satisfy methods compare the value of the point with the unboxed value of this
+   * filter. If the types differ, they fall back to satisfy(long, Object) to keep its behavior.
+   */
+
+  @Override
+  public boolean satisfyBoolean(long time, boolean value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyTime(time);
+    }
+    if (this.value instanceof Boolean) {
+      return satisfyCompareResult(Boolean.compare((Boolean) this.value, value));
+    }
+    return satisfy(time, (Object) value);
+  }
+
+  @Override
+  public boolean satisfyInt(long time, int value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyTime(time);
+    }
+    if (this.value instanceof Integer) {
+      return satisfyCompareResult(Integer.compare((Integer) this.value, value));
+    }
+    return satisfy(time, (Object) value);
+  }
+
+  @Override
+  public boolean satisfyLong(long time, long value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyTime(time);
+    }
+    if (this.value instanceof Long) {
+      return satisfyCompareResult(Long.compare((Long) this.value, value));
+    }
+    return satisfy(time, (Object) value);
+  }
+
+  @Override
+  public boolean satisfyFloat(long time, float value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyTime(time);
+    }
+    if (this.value instanceof Float) {
+      return satisfyCompareResult(Float.compare((Float) this.value, value));
+    }
+    return satisfy(time, (Object) value);
+  }
+
+  @Override
+  public boolean satisfyDouble(long time, double value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyTime(time);
+    }
+    if (this.value instanceof Double) {
+      return satisfyCompareResult(Double.compare((Double) this.value, value));
+    }
+    return satisfy(time, (Object) value);
+  }
+
+  private boolean satisfyTime(long time) {
+    if (this.value instanceof Long) {
+      return satisfyCompareResult(Long.compare((Long) this.value, time));
+    }
+    return satisfy(time, null);
+  }
+
   @Override
   public abstract String toString();
 
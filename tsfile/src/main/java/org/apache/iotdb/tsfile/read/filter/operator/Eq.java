@@ -61,6 +61,11 @@ public class Eq<T extends Comparable<T>> extends UnaryFilter<T> {
     return this.value.equals(v);
   }
 
+  @Override
+  protected boolean satisfyCompareResult(int compareResult) {
+    return compareResult == 0;
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     if (filterType == FilterType.TIME_FILTER) {
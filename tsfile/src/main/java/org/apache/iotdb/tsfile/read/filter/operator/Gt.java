@@ -59,6 +59,11 @@ public class Gt<T extends Comparable<T>> extends UnaryFilter<T> {
     return this.value.compareTo((T) v) < 0;
   }
 
+  @Override
+  protected boolean satisfyCompareResult(int compareResult) {
+    return compareResult < 0;
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     if (filterType == FilterType.TIME_FILTER) {
@@ -22,6 +22,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +48,16 @@ public class In<T extends Comparable<T>> implements Filter {
 
   private FilterType filterType;
 
+  /**
+   * the Integer, Long, Float and Double values, unboxed and sorted for the primitive satisfy
+   * methods. They are built at the first use, and only match the values of their own type, as
+   * satisfy(long, Object) does.
+   */
+  private transient int[] intValues;
+  private transient volatile long[] longValues;
+  private transient float[] floatValues;
+  private transient double[] doubleValues;
+
   public In() {
   }
 
@@ -67,6 +78,83 @@ public class In<T extends Comparable<T>> implements Filter {
     return this.values.contains(v) != not;
   }
 
+  @Override
+  public boolean satisfyBoolean(long time, boolean value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyLong(time, time);
+    }
+    return this.values.contains(value) != not;
+  }
+
+  @Override
+  public boolean satisfyInt(long time, int value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyLong(time, time);
+    }
+    unboxValues();
+    return Arrays.binarySearch(intValues, value) >= 0 != not;
+  }
+
+  @Override
+  public boolean satisfyLong(long time, long value) {
+    unboxValues();
+    long v = filterType == FilterType.TIME_FILTER ? time : value;
+    return Arrays.binarySearch(longValues, v) >= 0 != not;
+  }
+
+  @Override
+  public boolean satisfyFloat(long time, float value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyLong(time, time);
+    }
+    unboxValues();
+    return Arrays.binarySearch(floatValues, value) >= 0 != not;
+  }
+
+  @Override
+  public boolean satisfyDouble(long time, double value) {
+    if (filterType == FilterType.TIME_FILTER) {
+      return satisfyLong(time, time);
+    }
+    unboxValues();
+    return Arrays.binarySearch(doubleValues, value) >= 0 != not;
+  }
+
+  private void unboxValues() {
+    if (longValues != null) {
+      return;
+    }
+    int[] ints = new int[values.size()];
+    long[] longs = new long[values.size()];
+    float[] floats = new float[values.size()];
+    double[] doubles = new double[values.size()];
+    int intNum = 0;
+    int longNum = 0;
+    int floatNum = 0;
+    int doubleNum = 0;
+    for (T value : values) {
+      if (value instanceof Integer) {
+        ints[intNum++] = (Integer) value;
+      } else if (value instanceof Long) {
+        longs[longNum++] = (Long) value;
+      } else if (value instanceof Float) {
+        floats[floatNum++] = (Float) value;
+      } else if (value instanceof Double) {
+        doubles[doubleNum++] = (Double) value;
+      }
+    }
+    intValues = Arrays.copyOf(ints, intNum);
+    Arrays.sort(intValues);
+    floatValues = Arrays.copyOf(floats, floatNum);
+    Arrays.sort(floatValues);
+    doubleValues = Arrays.copyOf(doubles, doubleNum);
+    Arrays.sort(doubleValues);
+    // longValues is set at last, as it tells other threads that the values are unboxed
+    long[] sortedLongs = Arrays.copyOf(longs, longNum);
+    Arrays.sort(sortedLongs);
+    longValues = sortedLongs;
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     return true;
@@ -102,6 +190,7 @@ public class In<T extends Comparable<T>> implements Filter {
     filterType = FilterType.values()[buffer.get()];
     not = ReadWriteIOUtils.readBool(buffer);
     values = new HashSet<>();
+    longValues = null;
     for (int i = 0; i < buffer.get(); i++) {
       values.add((T) ReadWriteIOUtils.readObject(buffer));
     }
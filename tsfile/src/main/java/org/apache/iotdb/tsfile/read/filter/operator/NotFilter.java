@@ -53,6 +53,31 @@ public class NotFilter implements Filter, Serializable {
     return !that.satisfy(time, value);
   }
 
+  @Override
+  public boolean satisfyBoolean(long time, boolean value) {
+    return !that.satisfyBoolean(time, value);
+  }
+
+  @Override
+  public boolean satisfyInt(long time, int value) {
+    return !that.satisfyInt(time, value);
+  }
+
+  @Override
+  public boolean satisfyLong(long time, long value) {
+    return !that.satisfyLong(time, value);
+  }
+
+  @Override
+  public boolean satisfyFloat(long time, float value) {
+    return !that.satisfyFloat(time, value);
+  }
+
+  @Override
+  public boolean satisfyDouble(long time, double value) {
+    return !that.satisfyDouble(time, value);
+  }
+
   /**
    * Notice that, if the not filter only contains value filter, this method may return false, this
    * may cause misunderstanding.
@@ -28,6 +28,10 @@ public class AndNode implements Node {
   private long cachedValue;
   private boolean hasCachedValue;
 
+  // cursors on the timestamp blocks of the children, used by nextTimes()
+  private TimeBlock leftBlock;
+  private TimeBlock rightBlock;
+
   /**
    * Constructor of AndNode.
    *
@@ -83,6 +87,32 @@ public class AndNode implements Node {
     return -1;
   }
 
+  /**
+   * intersect the timestamp blocks of the children.
+   */
+  @Override
+  public int nextTimes(long[] timestamps) throws IOException {
+    if (leftBlock == null) {
+      leftBlock = new TimeBlock(leftChild, timestamps.length);
+      rightBlock = new TimeBlock(rightChild, timestamps.length);
+    }
+    int count = 0;
+    while (count < timestamps.length && leftBlock.hasCurrent() && rightBlock.hasCurrent()) {
+      long leftTime = leftBlock.current();
+      long rightTime = rightBlock.current();
+      if (leftTime == rightTime) {
+        timestamps[count++] = leftTime;
+        leftBlock.next();
+        rightBlock.next();
+      } else if (leftTime < rightTime) {
+        leftBlock.skipBefore(rightTime);
+      } else {
+        rightBlock.skipBefore(leftTime);
+      }
+    }
+    return count;
+  }
+
   @Override
   public NodeType getType() {
     return NodeType.AND;
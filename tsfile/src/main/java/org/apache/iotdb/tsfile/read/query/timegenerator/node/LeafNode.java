@@ -60,6 +60,19 @@ public class LeafNode implements Node {
     return time;
   }
 
+  @Override
+  public int nextTimes(long[] timestamps) throws IOException {
+    int count = 0;
+    while (count < timestamps.length && hasNext()) {
+      // copy the times of the current batch
+      while (count < timestamps.length && data.hasCurrent()) {
+        timestamps[count++] = data.currentTime();
+        data.next();
+      }
+    }
+    return count;
+  }
+
   /**
    * Check whether the current time equals the given time.
    *
@@ -26,5 +26,20 @@ public interface Node {
 
   long next() throws IOException;
 
+  /**
+   * fill the array with the next timestamps of this node in ascending order, so that the
+   * timestamps can be generated a block at a time instead of one per call. It must not be mixed
+   * with next() on the same node.
+   *
+   * @return the number of timestamps filled, 0 if there is no more timestamp
+   */
+  default int nextTimes(long[] timestamps) throws IOException {
+    int count = 0;
+    while (count < timestamps.length && hasNext()) {
+      timestamps[count++] = next();
+    }
+    return count;
+  }
+
   NodeType getType();
 }
@@ -30,6 +30,10 @@ public class OrNode implements Node {
   private boolean hasCachedRightValue;
   private long cachedRightValue;
 
+  // cursors on the timestamp blocks of the children, used by nextTimes()
+  private TimeBlock leftBlock;
+  private TimeBlock rightBlock;
+
   public OrNode(Node leftChild, Node rightChild) {
     this.leftChild = leftChild;
     this.rightChild = rightChild;
@@ -93,6 +97,37 @@ public class OrNode implements Node {
     return -1;
   }
 
+  /**
+   * merge the timestamp blocks of the children, removing duplicates.
+   */
+  @Override
+  public int nextTimes(long[] timestamps) throws IOException {
+    if (leftBlock == null) {
+      leftBlock = new TimeBlock(leftChild, timestamps.length);
+      rightBlock = new TimeBlock(rightChild, timestamps.length);
+    }
+    int count = 0;
+    while (count < timestamps.length) {
+      boolean hasLeft = leftBlock.hasCurrent();
+      boolean hasRight = rightBlock.hasCurrent();
+      long time;
+      if (hasLeft && (!hasRight || leftBlock.current() <= rightBlock.current())) {
+        time = leftBlock.current();
+        leftBlock.next();
+        if (hasRight && rightBlock.current() == time) {
+          rightBlock.next();
+        }
+      } else if (hasRight) {
+        time = rightBlock.current();
+        rightBlock.next();
+      } else {
+        break;
+      }
+      timestamps[count++] = time;
+    }
+    return count;
+  }
+
   @Override
   public NodeType getType() {
     return NodeType.OR;
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.query.timegenerator.node;
+
+import java.io.IOException;
+
+/**
+ * A cursor on the timestamp blocks of a child node, used by the nodes to merge the blocks of their
+ * children.
+ */
+class TimeBlock {
+
+  private Node node;
+  private long[] timestamps;
+  private int size = 0;
+  private int index = 0;
+
+  TimeBlock(Node node, int blockSize) {
+    this.node = node;
+    this.timestamps = new long[blockSize];
+  }
+
+  /**
+   * @return whether there is a current timestamp, fetching the next block if needed
+   */
+  boolean hasCurrent() throws IOException {
+    if (index == size) {
+      size = node.nextTimes(timestamps);
+      index = 0;
+    }
+    return index < size;
+  }
+
+  long current() {
+    return timestamps[index];
+  }
+
+  void next() {
+    index++;
+  }
+
+  /**
+   * move to the first timestamp not less than time in the current block.
+   *
+   * @return false if all the timestamps left in the current block are less than time
+   */
+  boolean skipBefore(long time) {
+    while (index < size && timestamps[index] < time) {
+      index++;
+    }
+    return index < size;
+  }
+}
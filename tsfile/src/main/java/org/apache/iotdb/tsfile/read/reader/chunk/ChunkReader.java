@@ -117,6 +117,28 @@ public class ChunkReader {
     return pageHeader;
   }
 
+  /**
+   * get the data of the next page as it is stored, i.e., encoded and compressed, so the page can
+   * be copied into another chunk without decoding.
+   *
+   * @return the compressed page body, which is a view of the chunk data
+   */
+  public ByteBuffer nextPageDataWithoutUncompressing() throws IOException {
+    if (hasCachedPageHeader || hasNextSatisfiedPage()) {
+      int compressedPageBodyLength = pageHeader.getCompressedSize();
+      if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
+        throw new IOException("do not has a complete page body. Expected:"
+            + compressedPageBodyLength + ". Actual:" + chunkDataBuffer.remaining());
+      }
+      ByteBuffer compressedPageBody = chunkDataBuffer.slice();
+      compressedPageBody.limit(compressedPageBodyLength);
+      skipPageData();
+      return compressedPageBody;
+    } else {
+      throw new IOException("no next page data");
+    }
+  }
+
   public void skipPageData() {
     skipBytesInStreamByLength(pageHeader.getCompressedSize());
     hasCachedPageHeader = false;
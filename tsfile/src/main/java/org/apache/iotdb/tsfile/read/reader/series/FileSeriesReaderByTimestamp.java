@@ -104,6 +104,34 @@ public class FileSeriesReaderByTimestamp {
     return null;
   }
 
+  /**
+   * get the values with time equals the given timestamps, which must be in ascending order. The
+   * value of a timestamp without point is null.
+   */
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    int i = 0;
+    while (i < length) {
+      // locate the page of the timestamp
+      values[i] = getValueInTimestamp(timestamps[i]);
+      i++;
+      // the following timestamps are merged with the page directly
+      while (i < length && data != null && data.hasCurrent()) {
+        long time = data.currentTime();
+        if (time < timestamps[i]) {
+          data.next();
+        } else {
+          if (time == timestamps[i]) {
+            values[i] = data.currentValue();
+            data.next();
+          }
+          i++;
+        }
+      }
+    }
+    return values;
+  }
+
   /**
    * Judge if the series reader has next time-value pair.
    *
@@ -258,10 +258,13 @@ public class ChunkWriterImpl implements IChunkWriter {
   /**
    * write the page header and data into the PageWriter's output stream.
    *
-   * NOTE: for upgrading 0.8.0 to 0.9.0
+   * NOTE: for upgrading 0.8.0 to 0.9.0 and copying pages during merge
    */
+  @Override
   public void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header)
       throws PageException {
+    // the points written before must precede the page
+    sealCurrentPage();
     numOfPages++;
 
     // write the page header to pageBuffer
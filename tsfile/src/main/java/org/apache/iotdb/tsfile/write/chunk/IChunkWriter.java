@@ -20,6 +20,9 @@ package org.apache.iotdb.tsfile.write.chunk;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
@@ -89,6 +92,15 @@ public interface IChunkWriter {
    */
   void write(long[] timestamps, Binary[] values, int batchSize);
 
+  /**
+   * seal the current page and append a page which is already encoded and compressed with the
+   * encoding and compression type of this writer.
+   *
+   * @param data the compressed page body
+   * @param header the header of the page, whose statistics are merged into the chunk statistics
+   */
+  void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header) throws PageException;
+
   /**
    * flush data to TsFileIOWriter.
    */
@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.tsfile.read.filter;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -168,4 +170,51 @@ public class OperatorTest {
         .println("EfficiencyTest for Filter: \n\tFilter Expression = " + orFilter + "\n\tCOUNT = "
             + EFFICIENCY_TEST_COUNT + "\n\tTotal Time = " + (endTime - startTime) + "ms.");
   }
+
+  @Test
+  public void testPrimitiveSatisfy() {
+    // the primitive methods must agree with satisfy(long, Object)
+    Filter[] longFilters = {ValueFilter.eq(5L), ValueFilter.notEq(5L), ValueFilter.gt(5L),
+        ValueFilter.gtEq(5L), ValueFilter.lt(5L), ValueFilter.ltEq(5L),
+        ValueFilter.in(new HashSet<>(Arrays.asList(3L, 5L)), false),
+        ValueFilter.in(new HashSet<>(Arrays.asList(3L, 5L)), true), ValueFilter.not(
+        ValueFilter.gt(5L)), FilterFactory.and(TimeFilter.gt(2L), ValueFilter.lt(5L)),
+        FilterFactory.or(TimeFilter.in(new HashSet<>(Arrays.asList(1L, 4L)), false),
+            ValueFilter.eq(6L)), TimeFilter.ltEq(4L)};
+    for (Filter filter : longFilters) {
+      for (long time = 0; time < 8; time++) {
+        for (long value = 0; value < 8; value++) {
+          Assert.assertEquals(filter.toString(), filter.satisfy(time, value),
+              filter.satisfyLong(time, value));
+        }
+      }
+    }
+
+    Filter[] doubleFilters = {ValueFilter.eq(0.5), ValueFilter.gt(0.5), ValueFilter.ltEq(0.5),
+        ValueFilter.in(new HashSet<>(Arrays.asList(0.5, 1.0)), false), TimeFilter.gt(3L)};
+    for (Filter filter : doubleFilters) {
+      for (long time = 0; time < 8; time++) {
+        double value = time / 4.0;
+        Assert.assertEquals(filter.toString(), filter.satisfy(time, value),
+            filter.satisfyDouble(time, value));
+        Assert.assertEquals(filter.toString(), filter.satisfy(time, Double.NaN),
+            filter.satisfyDouble(time, Double.NaN));
+      }
+    }
+
+    Filter intFilter = ValueFilter.in(new HashSet<>(Arrays.asList(1, 3)), false);
+    Filter floatFilter = ValueFilter.lt(1.5f);
+    Filter booleanFilter = ValueFilter.notEq(true);
+    for (int value = 0; value < 4; value++) {
+      Assert.assertEquals(intFilter.satisfy(0, value), intFilter.satisfyInt(0, value));
+      Assert.assertEquals(floatFilter.satisfy(0, value * 0.5f),
+          floatFilter.satisfyFloat(0, value * 0.5f));
+    }
+    Assert.assertTrue(booleanFilter.satisfyBoolean(0, false));
+    Assert.assertFalse(booleanFilter.satisfyBoolean(0, true));
+
+    // a value of another type does not equal the value of the filter
+    Assert.assertFalse(ValueFilter.eq(5L).satisfyInt(0, 5));
+    Assert.assertFalse(ValueFilter.in(new HashSet<>(Arrays.asList(5L)), false).satisfyInt(0, 5));
+  }
 }
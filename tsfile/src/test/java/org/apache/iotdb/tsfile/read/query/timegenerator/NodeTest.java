@@ -30,6 +30,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class NodeTest {
 
@@ -67,6 +68,10 @@ public class NodeTest {
       Assert.assertEquals(ret[index++], value);
     }
     Assert.assertEquals(ret.length, index);
+
+    orNode = new OrNode(new LeafNode(new FakedFileSeriesReader(left)),
+        new LeafNode(new FakedFileSeriesReader(right)));
+    Assert.assertArrayEquals(ret, nextTimes(orNode));
   }
 
   @Test
@@ -87,6 +92,35 @@ public class NodeTest {
       Assert.assertEquals(ret[index++], value);
     }
     Assert.assertEquals(ret.length, index);
+
+    andNode = new AndNode(new LeafNode(new FakedFileSeriesReader(left)),
+        new LeafNode(new FakedFileSeriesReader(right)));
+    Assert.assertArrayEquals(ret, nextTimes(andNode));
+  }
+
+  @Test
+  public void testNestedNodes() throws IOException {
+    // (a and b) or c
+    long[] a = new long[]{1, 2, 3, 5, 8, 9, 10, 11};
+    long[] b = new long[]{2, 3, 4, 8, 10, 12};
+    long[] c = new long[]{0, 3, 6, 7, 13};
+    Node node = new OrNode(new AndNode(new LeafNode(new FakedFileSeriesReader(a)),
+        new LeafNode(new FakedFileSeriesReader(b))), new LeafNode(new FakedFileSeriesReader(c)));
+    Assert.assertArrayEquals(new long[]{0, 2, 3, 6, 7, 8, 10, 13}, nextTimes(node));
+  }
+
+  /**
+   * collect all the timestamps of the node with nextTimes(), in blocks of 2 timestamps.
+   */
+  private long[] nextTimes(Node node) throws IOException {
+    long[] block = new long[2];
+    long[] ret = new long[0];
+    int size;
+    while ((size = node.nextTimes(block)) > 0) {
+      ret = Arrays.copyOf(ret, ret.length + size);
+      System.arraycopy(block, 0, ret, ret.length - size, size);
+    }
+    return ret;
   }
 
   private static class FakedFileSeriesReader extends AbstractFileSeriesReader {
@@ -103,5 +103,23 @@ public class ReaderByTimestampTest {
     long endTimestamp = System.currentTimeMillis();
     System.out.println("SeriesReadWithFilterTest. [Time used]: " + (endTimestamp - startTimestamp)
         + " ms. [Read Count]: " + count);
+
+    // read the same timestamps in blocks
+    FileSeriesReaderByTimestamp batchReader = new FileSeriesReaderByTimestamp(seriesChunkLoader,
+        chunkMetaDataList);
+    long[] timestamps = new long[1000];
+    int length = 0;
+    count = 0;
+    for (long time : timeList) {
+      timestamps[length++] = time;
+      if (length == timestamps.length || count + length == timeList.size()) {
+        Object[] values = batchReader.getValuesInTimestamps(timestamps, length);
+        for (int i = 0; i < length; i++) {
+          Assert.assertEquals(valueList.get(count++), values[i]);
+        }
+        length = 0;
+      }
+    }
+    Assert.assertEquals(timeList.size(), count);
   }
 }